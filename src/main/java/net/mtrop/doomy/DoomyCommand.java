@@ -7,6 +7,7 @@ package net.mtrop.doomy;
 
 import java.util.Deque;
 
+import net.mtrop.doomy.commands.CacheCommand;
 import net.mtrop.doomy.commands.ConfigCommand;
 import net.mtrop.doomy.commands.DefaultCommand;
 import net.mtrop.doomy.commands.EngineCommand;
@@ -18,6 +19,9 @@ import net.mtrop.doomy.commands.PresetCommand;
 import net.mtrop.doomy.commands.UsageCommand;
 import net.mtrop.doomy.commands.VersionCommand;
 import net.mtrop.doomy.commands.WADCommand;
+import net.mtrop.doomy.commands.WatchCommand;
+import net.mtrop.doomy.commands.cache.CacheInfoCommand;
+import net.mtrop.doomy.commands.cache.CachePruneCommand;
 import net.mtrop.doomy.commands.config.ConfigGetCommand;
 import net.mtrop.doomy.commands.config.ConfigListCommand;
 import net.mtrop.doomy.commands.config.ConfigRemoveCommand;
@@ -67,13 +71,22 @@ import net.mtrop.doomy.commands.preset.PresetRunCommand;
 import net.mtrop.doomy.commands.run.RunCommand;
 import net.mtrop.doomy.commands.wad.WADAddCommand;
 import net.mtrop.doomy.commands.wad.WADCleanCommand;
+import net.mtrop.doomy.commands.wad.WADDupesCommand;
+import net.mtrop.doomy.commands.wad.WADFindCommand;
 import net.mtrop.doomy.commands.wad.WADGetCommand;
+import net.mtrop.doomy.commands.wad.WADHashCommand;
+import net.mtrop.doomy.commands.wad.WADIndexCommand;
 import net.mtrop.doomy.commands.wad.WADListCommand;
 import net.mtrop.doomy.commands.wad.WADRemoveCommand;
 import net.mtrop.doomy.commands.wad.WADRenameCommand;
 import net.mtrop.doomy.commands.wad.WADScanCommand;
+import net.mtrop.doomy.commands.wad.WADSearchCommand;
 import net.mtrop.doomy.commands.wad.WADSetCommand;
 import net.mtrop.doomy.commands.wad.WADTextCommand;
+import net.mtrop.doomy.commands.watch.WatchAddCommand;
+import net.mtrop.doomy.commands.watch.WatchListCommand;
+import net.mtrop.doomy.commands.watch.WatchRemoveCommand;
+import net.mtrop.doomy.commands.watch.WatchRunCommand;
 
 
 /**
@@ -133,6 +146,13 @@ public interface DoomyCommand
 	static final String FILE = "file";
 	static final String TITLE = "title";
 	static final String AUTHOR = "author";
+	static final String WATCH = "watch";
+	static final String INDEX = "index";
+	static final String FIND = "find";
+	static final String HASH = "hash";
+	static final String DUPES = "dupes";
+	static final String CACHE = "cache";
+	static final String PRUNE = "prune";
 
 	/**
 	 * Thrown if a bad/unexpected argument is parsed on command initialize.
@@ -315,9 +335,41 @@ public interface DoomyCommand
 				return new WADScanCommand();
 			else if (matchArgument(args, TEXT))
 				return new WADTextCommand();
+			else if (matchArgument(args, INDEX))
+				return new WADIndexCommand();
+			else if (matchArgument(args, FIND))
+				return new WADFindCommand();
+			else if (matchArgument(args, HASH))
+				return new WADHashCommand();
+			else if (matchArgument(args, DUPES))
+				return new WADDupesCommand();
+			else if (matchArgument(args, SEARCH))
+				return new WADSearchCommand();
 			else
 				return new WADCommand();
 		}
+		else if (matchArgument(args, WATCH))
+		{
+			if (matchArgument(args, LIST))
+				return new WatchListCommand();
+			else if (matchArgument(args, ADD))
+				return new WatchAddCommand();
+			else if (matchArgument(args, REMOVE))
+				return new WatchRemoveCommand();
+			else if (matchArgument(args, RUN))
+				return new WatchRunCommand();
+			else
+				return new WatchCommand();
+		}
+		else if (matchArgument(args, CACHE))
+		{
+			if (matchArgument(args, INFO))
+				return new CacheInfoCommand();
+			else if (matchArgument(args, PRUNE))
+				return new CachePruneCommand();
+			else
+				return new CacheCommand();
+		}
 		else if (matchArgument(args, PRESET))
 		{
 			if (matchArgument(args, LIST))
@@ -7,16 +7,12 @@ package net.mtrop.doomy;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Consumer;
 
 import net.mtrop.doomy.struct.ProcessCallable;
 import net.mtrop.doomy.struct.util.OSUtils;
@@ -152,37 +148,6 @@ public final class DoomyCommon
 		handler.outln("Doomy v" + version + " by Matt Tropiano");
 	}
 
-	/**
-	 * Scans a directory of files and calls the provided consumer per file.
-	 * @param startDir the starting directory.
-	 * @param recurse if true, recurse through subdirectories.
-	 * @param filter the file filter for accepted files.
-	 * @param onFile the consumer to call per accepted file.
-	 */
-	public static void scanAndListen(File startDir, boolean recurse, FileFilter filter, Consumer<File> onFile)
-	{
-		Deque<File> fileQueue = new LinkedList<>();
-		
-		for (File f : startDir.listFiles(filter))
-			fileQueue.add(f);
-
-		while (!fileQueue.isEmpty())
-		{
-			File file = fileQueue.pollFirst();
-			if (file.isDirectory())
-			{
-				if (recurse)
-				{
-					for (File f : file.listFiles(filter))
-						fileQueue.add(f);
-				}
-				continue;
-			}
-			
-			onFile.accept(file);
-		}
-	}
-
 	/**
 	 * Prints the usage.
 	 * @param handler the handler to use.
@@ -286,6 +251,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "  config                                Print this subsection's help and terminate.");
 			wrapPrint(handler, 80, 40, "    list                                Print Doomy's settings.");
 			wrapPrint(handler, 80, 45, "      [phrase]                            ...that contain [phrase].");
+			wrapPrint(handler, 80, 45, "      --format, -f [format]               ...and write [format]: text (default), json, csv, or tsv, as rows are read.");
 			wrapPrint(handler, 80, 40, "    get [name]                          Prints the value of a Doomy setting called [name].");
 			wrapPrint(handler, 80, 40, "    set [name] [value]                  Sets the value of a Doomy setting called [name] to [value].");
 			wrapPrint(handler, 80, 40, "    remove [name]                       Removes a Doomy setting called [name].");
@@ -303,6 +269,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "    rename [name1] [name2]              Changes an engine's name from [name1] to [name2].");
 			wrapPrint(handler, 80, 40, "    list                                List all stored engine profiles.");
 			wrapPrint(handler, 80, 45, "      [phrase]                            ...that contain [phrase].");
+			wrapPrint(handler, 80, 45, "      --format, -f [format]               ...and write [format]: text (default), json, csv, or tsv, as rows are read.");
 			wrapPrint(handler, 80, 40, "    config");
 			wrapPrint(handler, 80, 40, "      list [name]                       Print engine profile [name]'s settings.");
 			wrapPrint(handler, 80, 45, "        [phrase]                          ...that contain [phrase].");
@@ -329,6 +296,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "  iwad                                  Print this subsection's help and terminate.");
 			wrapPrint(handler, 80, 40, "    list                                List all known IWADs.");
 			wrapPrint(handler, 80, 45, "      [phrase]                            ...that contain [phrase].");
+			wrapPrint(handler, 80, 45, "      --format, -f [format]               ...and write [format]: text (default), json, csv, or tsv, as rows are read.");
 			wrapPrint(handler, 80, 40, "    add [name] [path]                   Add an IWAD by name [name] and its path at [path].");
 			wrapPrint(handler, 80, 40, "    remove [name]                       Remove an IWAD by name.");
 			wrapPrint(handler, 80, 45, "      --quiet, -q                         ...and skip confirm.");
@@ -337,7 +305,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "    rename [name1] [name2]              Changes an alias from IWAD [name1] to [name2].");
 			wrapPrint(handler, 80, 40, "    get [name]                          Print the path of the IWAD named [name].");
 			wrapPrint(handler, 80, 40, "    set [name] [path]                   Change the path of the IWAD named [name] to [path].");
-			wrapPrint(handler, 80, 40, "    scan [path]                         Adds all IWADs in directory [path] (can be WAD/PK3/PKE/PK7/IPK3/IPK7/IWAD). Filename becomes [name].");
+			wrapPrint(handler, 80, 40, "    scan [path]                         Adds all IWADs in directory [path] (can be WAD/PK3/PKE/PK7/IPK3/IPK7/IWAD). Known IWADs are identified by hash or lumps and get canonical names (for example, \"doom2\"), PWADs are skipped, and other files become [name] by filename.");
 			wrapPrint(handler, 80, 45, "      --recurse, -r                       ...and search recursively from [path].");
 			wrapPrint(handler, 80, 45, "      --prefix, -p [string]               ...and prepend [string] to each WAD entry name.");
 			wrapPrint(handler, 80, 45, "      --force-add-existing                ...and update the names of known paths (otherwise, this does not add existing).");
@@ -348,6 +316,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "  wad                                   Print this subsection's help and terminate.");
 			wrapPrint(handler, 80, 40, "    list                                List cached/downloaded WADs.");
 			wrapPrint(handler, 80, 45, "      [phrase]                            ...that contains [phrase] (wildcard is *).");
+			wrapPrint(handler, 80, 45, "      --format, -f [format]               ...and write [format]: text (default), json, csv, or tsv, as rows are read.");
 			wrapPrint(handler, 80, 40, "    add [name] [path]                   Add a WAD alias for a WAD named [name] for [path] (can be a zip archive).");
 			wrapPrint(handler, 80, 40, "    remove [name]                       Remove a WAD alias for a WAD named [name] for [path].");
 			wrapPrint(handler, 80, 45, "      --quiet, -q                         ...and skip confirm.");
@@ -361,7 +330,41 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 45, "      --recurse, -r                       ...and search recursively from [path].");
 			wrapPrint(handler, 80, 45, "      --prefix, -p [string]               ...and prepend [string] to each WAD entry name.");
 			wrapPrint(handler, 80, 45, "      --force-add-existing                ...and update the names of known paths (otherwise, this does not add existing).");
+			wrapPrint(handler, 80, 45, "      --incremental, -i                   ...and only touch new or changed files since the last scan of [path], and report vanished ones.");
 			wrapPrint(handler, 80, 40, "    text [name]                         Dumps the WAD's text entry, if any (searches same directory for FILENAME.TXT or inside archive).");
+			wrapPrint(handler, 80, 40, "    index                               Reads the lump directories of all changed WADs and stores their maps and features.");
+			wrapPrint(handler, 80, 45, "      --force, -f                         ...and re-read unchanged WADs as well.");
+			wrapPrint(handler, 80, 40, "    find [map]                          Lists indexed WADs that contain map [map] (for example, MAP07 or E1M1).");
+			wrapPrint(handler, 80, 40, "    find [feature]                      Lists indexed WADs that have [feature] (dehacked, mapinfo, zscript, udmf).");
+			wrapPrint(handler, 80, 40, "    hash                                Computes SHA-1 and CRC32 for all new or changed WAD and IWAD files.");
+			wrapPrint(handler, 80, 45, "      --force, -f                         ...and rehash unchanged files as well.");
+			wrapPrint(handler, 80, 40, "    dupes                               Lists WADs and IWADs with identical contents (after `wad hash`).");
+			wrapPrint(handler, 80, 45, "      --link                              ...and replace duplicate files with hard links to one copy.");
+			wrapPrint(handler, 80, 45, "      --quiet, -q                         ...and skip confirm.");
+			wrapPrint(handler, 80, 40, "    search [terms]                      Searches WAD names, text file titles/authors/contents, and indexed maps for [terms], best matches first.");
+			wrapPrint(handler, 80, 45, "      --rescan, -r                        ...and re-read text files of WADs that changed since they were last read.");
+			wrapPrint(handler, 80, 45, "      --limit, -l [num]                   ...and show at most [num] results (default 25).");
+			handler.outln();
+		}
+		if (commandName == null || DoomyCommand.WATCH.equalsIgnoreCase(commandName))
+		{
+			wrapPrint(handler, 80, 40, "  watch                                 Print this subsection's help and terminate.");
+			wrapPrint(handler, 80, 40, "    list                                List all watched scan roots.");
+			wrapPrint(handler, 80, 40, "    add [type] [path]                   Watch directory [path] for WADs ([type] is \"wad\") or IWADs ([type] is \"iwad\"), adding/removing them as files change. Filename becomes [name].");
+			wrapPrint(handler, 80, 45, "      --recurse, -r                       ...and watch subdirectories of [path].");
+			wrapPrint(handler, 80, 45, "      --prefix, -p [string]               ...and prepend [string] to each entry name.");
+			wrapPrint(handler, 80, 45, "      --suffix, -s [string]               ...and append [string] to each entry name.");
+			wrapPrint(handler, 80, 40, "    remove [type] [path]                Stop watching directory [path] for [type].");
+			wrapPrint(handler, 80, 40, "    run                                 Watch all scan roots until interrupted (the GUI does this while open).");
+			handler.outln();
+		}
+		if (commandName == null || DoomyCommand.CACHE.equalsIgnoreCase(commandName))
+		{
+			wrapPrint(handler, 80, 40, "  cache                                 Print this subsection's help and terminate.");
+			wrapPrint(handler, 80, 40, "    info                                Show the size of the launch staging and Zip extraction caches.");
+			wrapPrint(handler, 80, 40, "    prune                               Remove least recently used entries until each cache fits in its maximum size (config doomy.staging.max.size, doomy.extraction.max.size).");
+			wrapPrint(handler, 80, 45, "      --all, -a                           ...and remove all entries instead.");
+			wrapPrint(handler, 80, 45, "      --quiet, -q                         ...and skip confirm.");
 			handler.outln();
 		}
 		if (commandName == null || DoomyCommand.PRESET.equalsIgnoreCase(commandName))
@@ -369,6 +372,7 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "  preset                                Print this subsection's help and terminate."); 
 			wrapPrint(handler, 80, 40, "    list                                List all presets.");
 			wrapPrint(handler, 80, 45, "      [phrase]                            ...whose name/hash contains [phrase].");
+			wrapPrint(handler, 80, 45, "      --format, -f [format]               ...and write [format]: text (default), json, csv, or tsv, as rows are read.");
 			wrapPrint(handler, 80, 40, "    rename [hash] [name]                Sets name [name] on a preset with hash [hash].");
 			wrapPrint(handler, 80, 40, "    create [engine]                     Create preset, but don't run engine.");
 			wrapPrint(handler, 80, 45, "      --wads, -w [wads...]                ...with these WADs (by name, dependency-expanded).");
@@ -382,10 +386,14 @@ public final class DoomyCommon
 			wrapPrint(handler, 80, 40, "    info                                Print this subsection's help and terminate.");
 			wrapPrint(handler, 80, 40, "      [name]                            Get preset named [name] and list info (takes precedence).");
 			wrapPrint(handler, 80, 40, "      [hash]                            Get preset hash [hash] and list info (can be starting partial, if unique enough).");
+			wrapPrint(handler, 80, 45, "        --timings, -t                     ...and show launch timings per phase (median, 90th and 99th percentile, max).");
+			wrapPrint(handler, 80, 45, "        --runs, -r [n]                    ...over the last [n] launches (default 20).");
+			wrapPrint(handler, 80, 45, "        --format, -f [format]             ...and write only each launch's timings per phase as [format]: json, csv, or tsv.");
 			wrapPrint(handler, 80, 40, "    run                                 Print this subsection's help and terminate.");
 			wrapPrint(handler, 80, 40, "      [name]                            Run preset named [name] (takes precedence).");
 			wrapPrint(handler, 80, 40, "      [hash]                            Run preset hash [hash] (can be starting partial, if unique enough).");
-			wrapPrint(handler, 80, 40, "        --                              Send args verbatim after this token.");
+			wrapPrint(handler, 80, 45, "        --clients, -c [n]                 ...as the engine's server (server.exe.name) and [n] clients, together. Only the first client syncs files.");
+			wrapPrint(handler, 80, 40, "        --                              Send args verbatim after this token (to clients only, with --clients).");
 			handler.outln();
 		}
 		if (commandName == null || DoomyCommand.RUN.equalsIgnoreCase(commandName))
@@ -197,7 +197,7 @@ public class DefaultCommand implements DoomyCommand
 		}
 		else if (presetName != null)
 		{
-			return PresetRunCommand.execute(handler, presetName, additionalArgs, skipCleanup);
+			return PresetRunCommand.execute(handler, presetName, additionalArgs, skipCleanup, null);
 		}
 		else
 		{
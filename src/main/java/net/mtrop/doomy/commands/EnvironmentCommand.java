@@ -10,6 +10,8 @@ import java.util.Deque;
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.DoomyEnvironment;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.CacheManager;
+import net.mtrop.doomy.struct.EntityCache;
 
 /**
  * A command that prints the version and exits.
@@ -46,6 +48,8 @@ public class EnvironmentCommand implements DoomyCommand
 		handler.outln("System Config Path: " + DoomyEnvironment.getSystemConfigPath());
 		handler.outln("System Data Path:   " + DoomyEnvironment.getSystemDataPath());
 		handler.outln("System Temp Path:   " + DoomyEnvironment.getSystemTempPath());
+		for (EntityCache<?, ?> cache : CacheManager.get().getAllCaches())
+			handler.outln("Cache " + cache);
 		return ERROR_NONE;
 	}
 	
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.DoomyCommand.BadArgumentException;
+
+/**
+ * Writes command listings one record at a time, as a text table, JSON, CSV, or TSV.
+ * <p>Records are written as they are passed in, so listings can be piped while they are still being read.
+ * Text tables take their column widths from the first {@value #TEXT_WIDTH_RECORDS} records (later, longer values
+ * push the rest of their row over). JSON keys are the column headers in lower case. Array values become JSON arrays,
+ * or are joined with ", " in the other formats.
+ * @author Matthew Tropiano
+ */
+public final class RecordWriter
+{
+	/** Amount of records that text tables hold back to find column widths. */
+	public static final int TEXT_WIDTH_RECORDS = 500;
+
+	/**
+	 * Output formats.
+	 */
+	public enum Format
+	{
+		/** Aligned text table, with headers. */
+		TEXT,
+		/** JSON array of objects. */
+		JSON,
+		/** Comma-separated values (RFC 4180), with a header row. */
+		CSV,
+		/** Tab-separated values, with a header row (tabs, newlines, and backslashes in values are escaped). */
+		TSV;
+	}
+
+	/**
+	 * Parses a format name.
+	 * @param name the name (case-insensitive).
+	 * @return the format.
+	 * @throws BadArgumentException if the name is missing or not a format.
+	 */
+	public static Format parseFormat(String name) throws BadArgumentException
+	{
+		if (name == null)
+			throw new BadArgumentException("Expected format (text, json, csv, tsv).");
+		for (Format format : Format.values())
+			if (format.name().equalsIgnoreCase(name))
+				return format;
+		throw new BadArgumentException("Unknown format: " + name + " (expected text, json, csv, or tsv).");
+	}
+
+	private final IOHandler handler;
+	private final Format format;
+	private final String[] headers;
+	private List<String[]> pending;
+	private int[] widths;
+	private int count;
+
+	/**
+	 * Creates a new writer.
+	 * @param handler the handler to write to.
+	 * @param format the output format.
+	 * @param headers the column headers.
+	 */
+	public RecordWriter(IOHandler handler, Format format, String ... headers)
+	{
+		this.handler = handler;
+		this.format = format;
+		this.headers = headers;
+		this.pending = format == Format.TEXT ? new ArrayList<>() : null;
+		this.widths = null;
+		this.count = 0;
+		if (format == Format.JSON)
+			handler.out("[");
+		else if (format == Format.CSV || format == Format.TSV)
+			writeLine(headers);
+	}
+
+	/**
+	 * @return the output format.
+	 */
+	public Format getFormat()
+	{
+		return format;
+	}
+
+	/**
+	 * @return the amount of records written so far.
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Writes a record.
+	 * @param values the column values, in header order.
+	 */
+	public void write(Object ... values)
+	{
+		count++;
+		if (format == Format.JSON)
+		{
+			StringBuilder sb = new StringBuilder(count > 1 ? ",\n" : "\n").append('{');
+			for (int i = 0; i < headers.length; i++)
+			{
+				if (i > 0)
+					sb.append(',');
+				appendJSON(sb, headers[i].toLowerCase());
+				sb.append(':');
+				appendJSON(sb, values[i]);
+			}
+			handler.out(sb.append('}'));
+			return;
+		}
+
+		String[] line = new String[headers.length];
+		for (int i = 0; i < line.length; i++)
+			line[i] = toString(values[i]);
+
+		if (pending != null)
+		{
+			pending.add(line);
+			if (pending.size() >= TEXT_WIDTH_RECORDS)
+				flush();
+		}
+		else
+		{
+			writeLine(line);
+		}
+	}
+
+	/**
+	 * Writes the rest of the output (held back table rows, closing brackets).
+	 */
+	public void finish()
+	{
+		if (format == Format.JSON)
+			handler.outln(count > 0 ? "\n]" : "]");
+		else if (pending != null)
+			flush();
+	}
+
+	// Finds the table widths and writes the held back rows.
+	private void flush()
+	{
+		if (widths == null)
+		{
+			if (pending.isEmpty())
+				return;
+			widths = new int[headers.length];
+			for (int i = 0; i < headers.length; i++)
+				widths[i] = headers[i].length();
+			for (String[] line : pending)
+				for (int i = 0; i < line.length - 1; i++)
+					widths[i] = Math.max(line[i].length() + 1, widths[i]);
+
+			String[] underline = new String[headers.length];
+			for (int i = 0; i < headers.length; i++)
+				underline[i] = headers[i].replaceAll(".", "=");
+			writeLine(headers);
+			writeLine(underline);
+		}
+		for (String[] line : pending)
+			writeLine(line);
+		pending.clear();
+	}
+
+	private void writeLine(String[] line)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < line.length; i++)
+		{
+			switch (format)
+			{
+				case TEXT:
+				{
+					if (i > 0)
+						sb.append(' ');
+					sb.append(line[i]);
+					if (i < line.length - 1)
+						for (int n = line[i].length(); n < widths[i]; n++)
+							sb.append(' ');
+				}
+				break;
+
+				case CSV:
+				{
+					if (i > 0)
+						sb.append(',');
+					String value = line[i];
+					if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)
+						sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+					else
+						sb.append(value);
+				}
+				break;
+
+				case TSV:
+				{
+					if (i > 0)
+						sb.append('\t');
+					sb.append(line[i].replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r"));
+				}
+				break;
+
+				default:
+					break;
+			}
+		}
+		handler.outln(sb);
+	}
+
+	private static String toString(Object value)
+	{
+		if (value == null)
+			return "";
+		if (value instanceof Object[])
+		{
+			StringBuilder sb = new StringBuilder();
+			for (Object element : (Object[])value)
+				sb.append(sb.length() > 0 ? ", " : "").append(toString(element));
+			return sb.toString();
+		}
+		return String.valueOf(value);
+	}
+
+	private static void appendJSON(StringBuilder sb, Object value)
+	{
+		if (value == null)
+		{
+			sb.append("null");
+		}
+		else if (value instanceof Number || value instanceof Boolean)
+		{
+			sb.append(value);
+		}
+		else if (value instanceof Object[])
+		{
+			sb.append('[');
+			Object[] elements = (Object[])value;
+			for (int i = 0; i < elements.length; i++)
+			{
+				if (i > 0)
+					sb.append(',');
+				appendJSON(sb, elements[i]);
+			}
+			sb.append(']');
+		}
+		else
+		{
+			String s = String.valueOf(value);
+			sb.append('"');
+			for (int i = 0; i < s.length(); i++)
+			{
+				char c = s.charAt(i);
+				switch (c)
+				{
+					case '"':
+						sb.append("\\\"");
+						break;
+					case '\\':
+						sb.append("\\\\");
+						break;
+					case '\n':
+						sb.append("\\n");
+						break;
+					case '\r':
+						sb.append("\\r");
+						break;
+					case '\t':
+						sb.append("\\t");
+						break;
+					default:
+						if (c < 0x20)
+							sb.append(String.format("\\u%04x", (int)c));
+						else
+							sb.append(c);
+						break;
+				}
+			}
+			sb.append('"');
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.cache;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.StagingManager;
+import net.mtrop.doomy.managers.StagingManager.Area;
+
+/**
+ * A command that prints the size of each launch cache area.
+ * @author Matthew Tropiano
+ */
+public class CacheInfoCommand implements DoomyCommand
+{
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		// Do nothing.
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler)
+	{
+		StagingManager manager = StagingManager.get();
+		String format = "%-10s %-8s %-10s %-10s %s\n";
+		handler.outf(format, "Area", "Entries", "Size (MB)", "Max (MB)", "Path");
+		handler.outf(format, "====", "=======", "=========", "========", "====");
+		for (Area area : Area.values())
+		{
+			handler.outf(format, 
+				area.name().toLowerCase(), 
+				manager.getEntryCount(area), 
+				manager.getSize(area) / (1024 * 1024), 
+				manager.getMaxSize(area) / (1024 * 1024), 
+				manager.getDirectory(area).getPath()
+			);
+		}
+		return ERROR_NONE;
+	}
+
+}
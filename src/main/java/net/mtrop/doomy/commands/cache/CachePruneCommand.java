@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.cache;
+
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
+import java.util.Collections;
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.StagingManager;
+
+/**
+ * A command that evicts launch cache entries, least recently used first, until each area fits in its maximum size
+ * (or evicts all of them). Entries in use by running launches, in this process or another, are kept.
+ * @author Matthew Tropiano
+ */
+public class CachePruneCommand implements DoomyCommand
+{
+	private static final String SWITCH_ALL1 = "--all";
+	private static final String SWITCH_ALL2 = "-a";
+	private static final String SWITCH_QUIET1 = "--quiet";
+	private static final String SWITCH_QUIET2 = "-q";
+
+	private boolean all;
+	private boolean quiet;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_ALL1) || matchArgument(args, SWITCH_ALL2))
+				all = true;
+			else if (matchArgument(args, SWITCH_QUIET1) || matchArgument(args, SWITCH_QUIET2))
+				quiet = true;
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, all, quiet);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param all if true, evict every entry.
+	 * @param quiet if true, do not ask to confirm evicting every entry.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, boolean all, boolean quiet)
+	{
+		StagingManager manager = StagingManager.get();
+		long freed;
+		if (all)
+		{
+			if (!quiet)
+			{
+				String response = handler.prompt("Remove all staged and extracted files (Y/N)?");
+				if (!"y".equalsIgnoreCase(response))
+					return ERROR_NONE;
+			}
+			freed = manager.clear();
+		}
+		else
+		{
+			freed = manager.evict(Collections.emptyList());
+		}
+		handler.outf("%d MB freed.\n", freed / (1024 * 1024));
+		return ERROR_NONE;
+	}
+
+}
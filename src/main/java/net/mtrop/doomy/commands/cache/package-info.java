@@ -0,0 +1,2 @@
+/** Launch cache commands. */
+package net.mtrop.doomy.commands.cache;
\ No newline at end of file
@@ -5,12 +5,15 @@
  ******************************************************************************/
 package net.mtrop.doomy.commands.config;
 
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
 import java.util.Deque;
 
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.commands.RecordWriter;
+import net.mtrop.doomy.commands.RecordWriter.Format;
 import net.mtrop.doomy.managers.ConfigManager;
-import net.mtrop.doomy.managers.ConfigManager.ConfigSettingEntry;
 
 /**
  * A command that prints all stored settings.
@@ -18,41 +21,48 @@ import net.mtrop.doomy.managers.ConfigManager.ConfigSettingEntry;
  */
 public class ConfigListCommand implements DoomyCommand
 {
+	private static final String SWITCH_FORMAT1 = "--format";
+	private static final String SWITCH_FORMAT2 = "-f";
+
 	private String phrase;
+	private Format format;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
 	{
-		phrase = args.pollFirst();
+		phrase = null;
+		format = Format.TEXT;
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_FORMAT1) || matchArgument(args, SWITCH_FORMAT2))
+				format = RecordWriter.parseFormat(args.pollFirst());
+			else if (phrase == null)
+				phrase = args.pollFirst();
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
 	}
 
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, phrase);
+		return execute(handler, phrase, format);
 	}
 
 	/**
 	 * Executes this command.
 	 * @param handler the handler to use for I/O.
 	 * @param phrase the setting partial name or phrase. 
+	 * @param format the output format.
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String phrase)
+	public static int execute(IOHandler handler, String phrase, Format format)
 	{
-		ConfigSettingEntry[] records = ConfigManager.get().getAllValues(phrase);
-		if (records.length > 0)
-		{
-			int len = 0;
-			for (int i = 0; i < records.length; i++)
-				len = Math.max(records[i].name.length() + 1, len);
-			String format = "%-" + len + "s %s\n";
-			handler.outf(format, "Name", "Value");
-			handler.outf(format, "====", "=====");
-			for (int i = 0; i < records.length; i++)
-				handler.outf(format, records[i].name, records[i].value);
-		}
-		handler.outln(records.length + " settings found.");
+		RecordWriter writer = new RecordWriter(handler, format, "Name", "Value");
+		int count = ConfigManager.get().forEachValue(phrase, (setting) -> writer.write(setting.name, setting.value));
+		writer.finish();
+		if (format == Format.TEXT)
+			handler.outln(count + " settings found.");
 		return ERROR_NONE;
 	}
 
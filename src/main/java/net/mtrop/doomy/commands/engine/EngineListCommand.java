@@ -5,12 +5,15 @@
  ******************************************************************************/
 package net.mtrop.doomy.commands.engine;
 
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
 import java.util.Deque;
 
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.commands.RecordWriter;
+import net.mtrop.doomy.commands.RecordWriter.Format;
 import net.mtrop.doomy.managers.EngineManager;
-import net.mtrop.doomy.managers.EngineManager.Engine;
 
 /**
  * A command that prints all stored templates.
@@ -18,32 +21,54 @@ import net.mtrop.doomy.managers.EngineManager.Engine;
  */
 public class EngineListCommand implements DoomyCommand
 {
+	private static final String SWITCH_FORMAT1 = "--format";
+	private static final String SWITCH_FORMAT2 = "-f";
+
 	private String phrase;
+	private Format format;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
 	{
-		phrase = args.pollFirst();
+		phrase = null;
+		format = Format.TEXT;
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_FORMAT1) || matchArgument(args, SWITCH_FORMAT2))
+				format = RecordWriter.parseFormat(args.pollFirst());
+			else if (phrase == null)
+				phrase = args.pollFirst();
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
 	}
 
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, phrase);
+		return execute(handler, phrase, format);
 	}
 
 	/**
 	 * Executes this command.
 	 * @param handler the handler to use for I/O.
 	 * @param phrase the engine name or phrase to search for.
+	 * @param format the output format.
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String phrase)
+	public static int execute(IOHandler handler, String phrase, Format format)
 	{
-		Engine[] records = EngineManager.get().getAllEngines(phrase);
-		for (int i = 0; i < records.length; i++)
-			handler.outln(records[i].name);
-		handler.outln(records.length + " engines found.");
+		if (format == Format.TEXT)
+		{
+			int count = EngineManager.get().forEachEngine(phrase, (engine) -> handler.outln(engine.name));
+			handler.outln(count + " engines found.");
+		}
+		else
+		{
+			RecordWriter writer = new RecordWriter(handler, format, "Name", "Template");
+			EngineManager.get().forEachEngine(phrase, (engine) -> writer.write(engine.name, engine.templateSource));
+			writer.finish();
+		}
 		return ERROR_NONE;
 	}
 
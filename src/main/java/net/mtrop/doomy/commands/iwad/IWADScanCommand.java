@@ -9,12 +9,20 @@ import java.io.File;
 import java.io.FileFilter;
 import java.util.Arrays;
 import java.util.Deque;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import net.mtrop.doomy.DoomyCommand;
-import net.mtrop.doomy.DoomyCommon;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.IWADIdentityManager;
+import net.mtrop.doomy.managers.IWADIdentityManager.Identity;
+import net.mtrop.doomy.managers.IWADIdentityManager.Method;
 import net.mtrop.doomy.managers.IWADManager;
+import net.mtrop.doomy.managers.IWADManager.BatchResult;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
 import net.mtrop.doomy.struct.util.FileUtils;
 
 import static net.mtrop.doomy.DoomyCommand.matchArgument;
@@ -37,8 +45,6 @@ public class IWADScanCommand implements DoomyCommand
 	
 	private static final FileFilter IWADFILTER = (file) ->
 	{
-		if (file.isDirectory())
-			return true;
 		String ext = FileUtils.getFileExtension(file).toUpperCase();
 		return Arrays.binarySearch(FILETYPES, ext) >= 0;
 	};
@@ -132,57 +138,73 @@ public class IWADScanCommand implements DoomyCommand
 			return ERROR_NOT_FOUND;
 		}
 		
-		AtomicInteger added = new AtomicInteger(0);
-		AtomicInteger updated = new AtomicInteger(0);
-		
-		// Get count.
+		// Find files.
 		handler.out("Finding IWADs.... 0");
-		DoomyCommon.scanAndListen(startDir, recurse, IWADFILTER, (file) -> 
+		List<ScannedFile> files = FileScanner.scan(startDir, recurse, IWADFILTER, null, (file, count) ->
 		{
-			IWADManager manager = IWADManager.get();
-			String name = (prefix + FileUtils.getFileNameWithoutExtension(file) + suffix).toLowerCase();
-			if (manager.containsIWAD(name) && force)
-				handler.out("\rFinding IWADs.... " + updated.incrementAndGet());
-			else if (!manager.containsIWAD(name))
-				handler.out("\rFinding IWADs.... " + added.incrementAndGet());
+			synchronized (handler)
+			{
+				handler.out("\rFinding IWADs.... " + count);
+			}
 		});
 		handler.outln();
 		
-		int totalCount = added.get() + updated.get();
-		
-		if (totalCount > 0)
+		// Identify files.
+		IWADIdentityManager identifier = IWADIdentityManager.get();
+		final Map<String, String> filesToAdd = new LinkedHashMap<>();
+		final List<String> renamed = new LinkedList<>();
+		int identified = 0;
+		int rejected = 0;
+		int i = 0;
+		for (ScannedFile scanned : files)
 		{
-			// Do update.
-			AtomicInteger count = new AtomicInteger(0);
-			final String format = "\rAdding IWADs: %-" + (int)(Math.log10(totalCount) + 1.0) + "d of " + totalCount + " (%3d%%)...";
-	
-			handler.outf(format, 0, 0);
-			DoomyCommon.scanAndListen(startDir, recurse, IWADFILTER, (file) -> 
+			handler.out("\rIdentifying IWADs.... " + (++i) + " of " + files.size());
+			Identity identity = identifier.identify(scanned.file);
+			if (identity == null)
 			{
-				IWADManager manager = IWADManager.get();
-				String name = (prefix + FileUtils.getFileNameWithoutExtension(file)).toLowerCase();
-				if (manager.containsIWAD(name) && force)
-				{
-					manager.setIWADPath(name, file.getPath());
-					int c = count.incrementAndGet();
-					handler.outf(format, c, (c * 100 / totalCount));
-				}
-				else if (!manager.containsIWAD(name))
-				{
-					manager.addIWAD(name, file.getPath());
-					int c = count.incrementAndGet();
-					handler.outf(format, c, (c * 100 / totalCount));
-				}
-			});
+				rejected++;
+				continue;
+			}
+			if (identity.method != Method.FILENAME)
+				identified++;
+			String name = (prefix + identity.name + suffix).toLowerCase();
+			// Another file identified as the same IWAD (another release, or a copy): number it.
+			if (filesToAdd.containsKey(name))
+			{
+				String baseName = name;
+				for (int n = 2; filesToAdd.containsKey(name); n++)
+					name = baseName + "-" + n;
+				renamed.add("Found another '" + baseName + "' (" + scanned.file.getPath() + ") - adding it as '" + name + "'.");
+			}
+			filesToAdd.put(name, scanned.file.getPath());
+		}
+		if (!files.isEmpty())
 			handler.outln();
+		for (String message : renamed)
+			handler.outln(message);
+		if (identified > 0)
+			handler.outln("Identified " + identified + " known IWADs.");
+		if (rejected > 0)
+			handler.outln("Skipped " + rejected + " PWADs/unreadable files.");
+		
+		BatchResult result;
+		if (!filesToAdd.isEmpty())
+		{
+			handler.out("Adding IWADs...");
+			result = IWADManager.get().addOrUpdateIWADs(filesToAdd, force);
+			handler.outln(" Done.");
 		}
+		else
+		{
+			result = new BatchResult();
+		}
+		
+		if (result.added > 0)
+			handler.outln("Added " + result.added + " IWADs.");
+		if (result.updated > 0)
+			handler.outln("Updated " + result.updated + " IWADs.");
 
-		if (added.get() > 0)
-			handler.outln("Added " + added + " IWADs.");
-		if (updated.get() > 0)
-			handler.outln("Updated " + updated + " IWADs.");
-
-		if (added.get() == 0 && updated.get() == 0)
+		if (result.added == 0 && result.updated == 0)
 			handler.outln("No IWADs added/updated.");
 
 		return ERROR_NONE;
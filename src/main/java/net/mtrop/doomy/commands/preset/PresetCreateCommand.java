@@ -164,24 +164,28 @@ public class PresetCreateCommand implements DoomyCommand
 			iwadId = null;
 		}
 
-		List<Long> wids = new LinkedList<>();
-		for (String wn : wads)
+		WAD[] found = WADManager.get().getWADsByName(wads);
+		List<String> missing = new LinkedList<>();
+		wadIds = new long[found.length];
+		for (int i = 0; i < found.length; i++)
 		{
-			WAD w;
-			if ((w = WADManager.get().getWAD(wn)) == null)
-			{
-				handler.errln("ERROR: WAD '" + wn + "' not found.");
-				return ERROR_NOT_FOUND;
-			}
+			if (found[i] == null)
+				missing.add(wads[i]);
 			else
+				wadIds[i] = found[i].id;
+		}
+		
+		if (!missing.isEmpty())
+		{
+			handler.errln("ERROR: WAD(s) not found: " + String.join(", ", missing));
+			for (String wn : missing)
 			{
-				wids.add(w.id);
+				String[] similar = WADManager.get().getSimilarWADNames(wn, 3);
+				if (similar.length > 0)
+					handler.errln("    " + wn + " - did you mean: " + String.join(", ", similar) + "?");
 			}
+			return ERROR_NOT_FOUND;
 		}
-		wadIds = new long[wids.size()];
-		int x = 0;
-		for (Long l : wids)
-			wadIds[x++] = l;
 		
 		PresetManager presetManager = PresetManager.get();
 		
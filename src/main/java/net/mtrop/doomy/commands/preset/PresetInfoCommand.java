@@ -5,6 +5,8 @@
  ******************************************************************************/
 package net.mtrop.doomy.commands.preset;
 
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
 import java.io.File;
 import java.util.Arrays;
 import java.util.Deque;
@@ -12,6 +14,11 @@ import java.util.Deque;
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.DoomyEnvironment;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.commands.RecordWriter;
+import net.mtrop.doomy.commands.RecordWriter.Format;
+import net.mtrop.doomy.managers.LaunchTimingManager;
+import net.mtrop.doomy.managers.LaunchTimingManager.PhaseStatistics;
+import net.mtrop.doomy.managers.LaunchTimingManager.PresetTiming;
 import net.mtrop.doomy.managers.PresetManager;
 import net.mtrop.doomy.managers.PresetManager.PresetInfo;
 
@@ -21,7 +28,17 @@ import net.mtrop.doomy.managers.PresetManager.PresetInfo;
  */
 public class PresetInfoCommand implements DoomyCommand
 {
+	private static final String SWITCH_TIMINGS1 = "--timings";
+	private static final String SWITCH_TIMINGS2 = "-t";
+	private static final String SWITCH_RUNS1 = "--runs";
+	private static final String SWITCH_RUNS2 = "-r";
+	private static final String SWITCH_FORMAT1 = "--format";
+	private static final String SWITCH_FORMAT2 = "-f";
+
 	private String name;
+	private boolean timings;
+	private int runs;
+	private Format format;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
@@ -29,12 +46,41 @@ public class PresetInfoCommand implements DoomyCommand
 		name = args.pollFirst();
 		if (name == null)
 			throw new BadArgumentException("Expected name/hash of preset.");
+		
+		timings = false;
+		runs = LaunchTimingManager.DEFAULT_RUNS;
+		format = Format.TEXT;
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_TIMINGS1) || matchArgument(args, SWITCH_TIMINGS2))
+			{
+				timings = true;
+			}
+			else if (matchArgument(args, SWITCH_RUNS1) || matchArgument(args, SWITCH_RUNS2))
+			{
+				try {
+					runs = Integer.parseInt(args.pollFirst());
+				} catch (NumberFormatException e) {
+					throw new BadArgumentException("Runs must be a number.");
+				}
+				if (runs < 1)
+					throw new BadArgumentException("Runs must be 1 or greater.");
+			}
+			else if (matchArgument(args, SWITCH_FORMAT1) || matchArgument(args, SWITCH_FORMAT2))
+			{
+				format = RecordWriter.parseFormat(args.pollFirst());
+			}
+			else
+			{
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+			}
+		}
 	}
 
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, name);
+		return execute(handler, name, timings, runs, format);
 	}
 
 	/**
@@ -44,6 +90,21 @@ public class PresetInfoCommand implements DoomyCommand
 	 * @return the return code from running the command.
 	 */
 	public static int execute(IOHandler handler, String name)
+	{
+		return execute(handler, name, false, LaunchTimingManager.DEFAULT_RUNS, Format.TEXT);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param name the preset name.
+	 * @param timings if true, also show launch timings.
+	 * @param runs the amount of most recent launches to show timings for.
+	 * @param format the timings format. Text shows percentiles per phase after the preset info. 
+	 * 		Other formats show only the timings of each phase of each launch (for export).
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, String name, boolean timings, int runs, Format format)
 	{
 		PresetManager mgr = PresetManager.get();
 		
@@ -72,6 +133,15 @@ public class PresetInfoCommand implements DoomyCommand
 			return ERROR_NOT_FOUND;
 		}
 
+		if (timings && format != Format.TEXT)
+		{
+			RecordWriter writer = new RecordWriter(handler, format, "Launched", "Version", "Phase", "Nanos", "Bytes");
+			for (PresetTiming timing : LaunchTimingManager.get().getTimings(preset.id, runs))
+				writer.write(timing.launched, timing.version, timing.phase, timing.nanos, timing.bytes);
+			writer.finish();
+			return ERROR_NONE;
+		}
+
 		handler.outln("Preset name:   " + preset.name);
 		handler.outln("Preset hash:   " + preset.hash);
 		handler.outln("Preset engine: " + preset.engineName);
@@ -92,7 +162,39 @@ public class PresetInfoCommand implements DoomyCommand
 			handler.outln("        " + f.getPath() + ", " + f.length() + " bytes");
 		}
 		
+		if (timings)
+		{
+			PhaseStatistics[] statistics = LaunchTimingManager.get().getStatistics(preset.id, runs);
+			handler.outln();
+			if (statistics.length == 0)
+			{
+				handler.outln("No launch timings.");
+			}
+			else
+			{
+				handler.outln("Launch timings (last " + statistics[0].runs + " launches):");
+				RecordWriter writer = new RecordWriter(handler, Format.TEXT, "Phase", "Median (ms)", "P90 (ms)", "P99 (ms)", "Max (ms)", "Median (MB)");
+				for (PhaseStatistics phase : statistics)
+				{
+					writer.write(
+						phase.phase.getName(), 
+						toMillis(phase.p50Nanos), 
+						toMillis(phase.p90Nanos), 
+						toMillis(phase.p99Nanos), 
+						toMillis(phase.maxNanos), 
+						String.format("%.1f", phase.p50Bytes / (1024.0 * 1024.0))
+					);
+				}
+				writer.finish();
+			}
+		}
+		
 		return ERROR_NONE;
 	}
 
+	private static String toMillis(long nanos)
+	{
+		return String.format("%.1f", nanos / 1000000.0);
+	}
+
 }
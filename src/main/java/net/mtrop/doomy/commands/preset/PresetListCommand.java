@@ -5,14 +5,15 @@
  ******************************************************************************/
 package net.mtrop.doomy.commands.preset;
 
-import java.util.Arrays;
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
 import java.util.Deque;
 
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.commands.RecordWriter;
+import net.mtrop.doomy.commands.RecordWriter.Format;
 import net.mtrop.doomy.managers.PresetManager;
-import net.mtrop.doomy.managers.PresetManager.PresetInfo;
-import net.mtrop.doomy.struct.util.ObjectUtils;
 
 /**
  * A command that prints all stored templates.
@@ -20,83 +21,63 @@ import net.mtrop.doomy.struct.util.ObjectUtils;
  */
 public class PresetListCommand implements DoomyCommand
 {
+	private static final String SWITCH_FORMAT1 = "--format";
+	private static final String SWITCH_FORMAT2 = "-f";
+
 	private String phrase;
+	private Format format;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
 	{
-		phrase = args.pollFirst();
+		phrase = null;
+		format = Format.TEXT;
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_FORMAT1) || matchArgument(args, SWITCH_FORMAT2))
+				format = RecordWriter.parseFormat(args.pollFirst());
+			else if (phrase == null)
+				phrase = args.pollFirst();
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
 	}
 
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, phrase);
+		return execute(handler, phrase, format);
 	}
 
 	/**
 	 * Executes this command.
 	 * @param handler the handler to use for I/O.
 	 * @param phrase the preset name or phrase to search for.
+	 * @param format the output format (text shortens hashes to their shortest distinct length).
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String phrase)
+	public static int execute(IOHandler handler, String phrase, Format format)
 	{
-		PresetInfo[] records = PresetManager.get().getAllPresetsByNameOrHash(phrase);
-		if (records.length > 0)
+		PresetManager presetManager = PresetManager.get();
+		RecordWriter writer = new RecordWriter(handler, format, "Name", "Hash", "Engine", "IWAD", "Wads");
+		int count;
+		if (format == Format.TEXT)
 		{
-			int namelen = 4;
-			int enginelen = 6;
-			int iwadlen = 4;
-			
-			int hashlen = getDistinctHashLength(records);
-			
-			for (int i = 0; i < records.length; i++)
-			{
-				namelen = Math.max(ObjectUtils.isNull(records[i].name, "").length() + 1, namelen);
-				enginelen = Math.max(ObjectUtils.isNull(records[i].engineName, "").length() + 1, enginelen);
-				iwadlen = Math.max(ObjectUtils.isNull(records[i].iwadName, "").length() + 1, iwadlen);
-			}
-			
-			String format = "%-" + namelen + "s %-" + (hashlen + 3) + "s %-" + enginelen + "s %-" + iwadlen + "s %s\n";
-			handler.outf(format, "Name", "Hash", "Engine", "IWAD", "Wads");
-			handler.outf(format, "====", "====", "======", "====", "====");
-			for (int i = 0; i < records.length; i++)
-			{
-				String wadliststr = Arrays.toString(records[i].wads);
-				handler.outf(format, records[i].name, records[i].hash.substring(0, hashlen) + "...", records[i].engineName, ObjectUtils.isNull(records[i].iwadName, ""), wadliststr.substring(1, wadliststr.length() - 1));
-			}
+			final int hashlen = presetManager.getDistinctHashLength(phrase);
+			count = presetManager.forEachPresetByNameOrHash(phrase, (preset) ->
+				writer.write(preset.name, preset.hash.substring(0, hashlen) + "...", preset.engineName, preset.iwadName, preset.wads)
+			);
 		}
-		handler.outln(records.length + " presets found.");
-		return ERROR_NONE;
-	}
-
-	private static int getDistinctHashLength(PresetInfo[] records)
-	{
-		String[] hashes = new String[records.length];
-		for (int i = 0; i < records.length; i++)
-			hashes[i] = records[i].hash;
-		Arrays.sort(hashes);
-		
-		int len = 1;
-		int i;
-		String s;
-		while (len < 20)
+		else
 		{
-			s = null;
-			for (i = 0; i < hashes.length; i++)
-			{
-				String hc = hashes[i].substring(0, len);
-				if (hc.equals(s))
-					break;
-				s = hc;
-			}
-			if (i >= hashes.length)
-				return len;
-			len++;
+			count = presetManager.forEachPresetByNameOrHash(phrase, (preset) ->
+				writer.write(preset.name, preset.hash, preset.engineName, preset.iwadName, preset.wads)
+			);
 		}
-		
-		return len;
+		writer.finish();
+		if (format == Format.TEXT)
+			handler.outln(count + " presets found.");
+		return ERROR_NONE;
 	}
 
 }
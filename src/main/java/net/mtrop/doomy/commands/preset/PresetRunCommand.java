@@ -24,10 +24,13 @@ public class PresetRunCommand implements DoomyCommand
 {
 	private static final String SWITCH_ARGS = "--";
 	private static final String SWITCH_NOCLEANUP = "--no-cleanup";
+	private static final String SWITCH_CLIENTS1 = "--clients";
+	private static final String SWITCH_CLIENTS2 = "-c";
 
 	private String name;
 	private String[] additionalArgs;
 	private boolean skipCleanup;
+	private Integer clients;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
@@ -39,12 +42,23 @@ public class PresetRunCommand implements DoomyCommand
 		final int STATE_START = 0;
 		final int STATE_ARGS = 1;
 		int state = STATE_START;
-		if (!args.isEmpty())
+		clients = null;
+		while (state == STATE_START && !args.isEmpty())
 		{
 			if (matchArgument(args, SWITCH_ARGS))
 				state = STATE_ARGS;
 			else if (matchArgument(args, SWITCH_NOCLEANUP))
 				skipCleanup = true;
+			else if (matchArgument(args, SWITCH_CLIENTS1) || matchArgument(args, SWITCH_CLIENTS2))
+			{
+				try {
+					clients = Integer.parseInt(args.pollFirst());
+				} catch (NumberFormatException e) {
+					throw new BadArgumentException("Clients must be a number.");
+				}
+				if (clients < 0)
+					throw new BadArgumentException("Clients must be 0 or greater.");
+			}
 			else
 				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
 		}
@@ -65,7 +79,7 @@ public class PresetRunCommand implements DoomyCommand
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, name, additionalArgs, skipCleanup);
+		return execute(handler, name, additionalArgs, skipCleanup, clients);
 	}
 
 	/**
@@ -74,9 +88,10 @@ public class PresetRunCommand implements DoomyCommand
 	 * @param name the preset name.
 	 * @param additionalArgs additional arguments.
 	 * @param skipCleanup if true, skip the cleanup after run.
+	 * @param clients if not null, run the engine's server and this many clients.
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String name, String[] additionalArgs, boolean skipCleanup)
+	public static int execute(IOHandler handler, String name, String[] additionalArgs, boolean skipCleanup, Integer clients)
 	{
 		PresetManager mgr = PresetManager.get();
 		
@@ -106,6 +121,8 @@ public class PresetRunCommand implements DoomyCommand
 		}
 
 		try {
+			if (clients != null)
+				return LauncherManager.get().runGroup(handler, preset, clients, additionalArgs, skipCleanup);
 			return LauncherManager.get().run(handler, preset, additionalArgs, skipCleanup);
 		} catch (LaunchException e) {
 			handler.errln("ERROR: " + e.getMessage());
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.wad;
+
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.FileHashManager;
+import net.mtrop.doomy.managers.FileHashManager.DuplicateEntry;
+import net.mtrop.doomy.managers.FileHashManager.DuplicateGroup;
+import net.mtrop.doomy.managers.FileHashManager.LinkResult;
+
+/**
+ * A command that lists WADs and IWADs with identical contents, and optionally hard-links them together.
+ * @author Matthew Tropiano
+ */
+public class WADDupesCommand implements DoomyCommand
+{
+	private static final String SWITCH_LINK = "--link";
+	private static final String SWITCH_QUIET1 = "--quiet";
+	private static final String SWITCH_QUIET2 = "-q";
+
+	private boolean link;
+	private boolean quiet;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_LINK))
+				link = true;
+			else if (matchArgument(args, SWITCH_QUIET1) || matchArgument(args, SWITCH_QUIET2))
+				quiet = true;
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, link, quiet);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param link if true, replace duplicates with hard links.
+	 * @param quiet if true, do not ask to confirm linking.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, boolean link, boolean quiet)
+	{
+		FileHashManager manager = FileHashManager.get();
+		DuplicateGroup[] groups = manager.getDuplicates();
+
+		if (groups.length == 0)
+		{
+			handler.outln("No duplicates found (run `wad hash` to hash new or changed files).");
+			return ERROR_NONE;
+		}
+
+		long reclaimable = 0L;
+		for (DuplicateGroup group : groups)
+		{
+			handler.outf("%s (%d bytes)\n", group.sha1, group.size);
+			for (DuplicateEntry entry : group.entries)
+				handler.outf("    %-4s %s: %s\n", entry.type, entry.name, entry.path);
+			reclaimable += group.size * (group.getPaths().size() - 1);
+		}
+		handler.outf("%d duplicate groups found, up to %d MB reclaimable.\n", groups.length, reclaimable / (1024 * 1024));
+
+		if (!link)
+			return ERROR_NONE;
+
+		if (!quiet)
+		{
+			String response = handler.prompt("Replace duplicate files with hard links to the first file in each group (Y/N)?");
+			if (!"y".equalsIgnoreCase(response))
+				return ERROR_NONE;
+		}
+
+		int linked = 0;
+		int failed = 0;
+		long bytes = 0L;
+		for (DuplicateGroup group : groups)
+		{
+			LinkResult result = manager.linkDuplicates(group);
+			linked += result.linked;
+			failed += result.failed;
+			bytes += result.bytes;
+		}
+
+		handler.outf("%d files linked (%d MB reclaimed), %d could not be linked.\n", linked, bytes / (1024 * 1024), failed);
+		return failed > 0 ? ERROR_NOT_UPDATED : ERROR_NONE;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.wad;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.WADIndexManager;
+import net.mtrop.doomy.managers.WADManager.WAD;
+
+/**
+ * A command that finds WADs by what they contain, using the index.
+ * @author Matthew Tropiano
+ */
+public class WADFindCommand implements DoomyCommand
+{
+	private String query;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		query = args.pollFirst();
+		if (query == null)
+			throw new BadArgumentException("Expected map name or feature (dehacked, mapinfo, zscript, udmf).");
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, query);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param query the map name or feature name.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, String query)
+	{
+		WADIndexManager manager = WADIndexManager.get();
+
+		String featureKey = "has." + query.toLowerCase();
+		WAD[] records = WADIndexManager.isFeatureKey(featureKey)
+			? manager.getWADsWithFeature(featureKey)
+			: manager.getWADsWithMap(query);
+
+		if (records.length > 0)
+		{
+			int len = 4;
+			for (int i = 0; i < records.length; i++)
+				len = Math.max(records[i].name.length() + 1, len);
+			String format = "%-" + len + "s %s\n";
+			handler.outf(format, "Name", "Path");
+			handler.outf(format, "====", "====");
+			for (int i = 0; i < records.length; i++)
+				handler.outf(format, records[i].name, records[i].path);
+		}
+		handler.outln(records.length + " WADs found.");
+		return ERROR_NONE;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.wad;
+
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.WADIndexManager;
+import net.mtrop.doomy.managers.WADIndexManager.IndexResult;
+
+/**
+ * A command that indexes the contents of all stored WADs.
+ * @author Matthew Tropiano
+ */
+public class WADIndexCommand implements DoomyCommand
+{
+	private static final String SWITCH_FORCE1 = "--force";
+	private static final String SWITCH_FORCE2 = "-f";
+
+	private boolean force;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_FORCE1) || matchArgument(args, SWITCH_FORCE2))
+				force = true;
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, force);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param force if true, index all WADs, even unchanged ones.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, boolean force)
+	{
+		long start = System.currentTimeMillis();
+		IndexResult result = WADIndexManager.get().index(force, (name, done, total) -> 
+		{
+			if (done % 100 == 0 || done == total)
+				handler.outf("Read %d of %d WADs...\n", done, total);
+		});
+		long elapsed = System.currentTimeMillis() - start;
+
+		handler.outf("%d WADs indexed, %d unchanged, %d unreadable (%d ms).\n", result.indexed, result.skipped, result.failed, elapsed);
+		if (result.missing > 0)
+			handler.outf("%d WADs have missing files (see `wad clean`).\n", result.missing);
+		return ERROR_NONE;
+	}
+
+}
@@ -5,12 +5,15 @@
  ******************************************************************************/
 package net.mtrop.doomy.commands.wad;
 
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
 import java.util.Deque;
 
 import net.mtrop.doomy.DoomyCommand;
 import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.commands.RecordWriter;
+import net.mtrop.doomy.commands.RecordWriter.Format;
 import net.mtrop.doomy.managers.WADManager;
-import net.mtrop.doomy.managers.WADManager.WAD;
 
 /**
  * A command that prints all stored WADs.
@@ -18,41 +21,48 @@ import net.mtrop.doomy.managers.WADManager.WAD;
  */
 public class WADListCommand implements DoomyCommand
 {
+	private static final String SWITCH_FORMAT1 = "--format";
+	private static final String SWITCH_FORMAT2 = "-f";
+
 	private String phrase;
+	private Format format;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
 	{
-		phrase = args.pollFirst();
+		phrase = null;
+		format = Format.TEXT;
+		while (!args.isEmpty())
+		{
+			if (matchArgument(args, SWITCH_FORMAT1) || matchArgument(args, SWITCH_FORMAT2))
+				format = RecordWriter.parseFormat(args.pollFirst());
+			else if (phrase == null)
+				phrase = args.pollFirst();
+			else
+				throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+		}
 	}
 
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, phrase);
+		return execute(handler, phrase, format);
 	}
 
 	/**
 	 * Executes this command.
 	 * @param handler the handler to use for I/O.
 	 * @param phrase the WAD name or phrase to search for.
+	 * @param format the output format.
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String phrase)
+	public static int execute(IOHandler handler, String phrase, Format format)
 	{
-		WAD[] records = WADManager.get().getAllWADs(phrase);
-		if (records.length > 0)
-		{
-			int len = 4;
-			for (int i = 0; i < records.length; i++)
-				len = Math.max(records[i].name.length() + 1, len);
-			String format = "%-" + len + "s %s\n";
-			handler.outf(format, "Name", "Path");
-			handler.outf(format, "====", "====");
-			for (int i = 0; i < records.length; i++)
-				handler.outf(format, records[i].name, records[i].path);
-		}
-		handler.outln(records.length + " WADs found.");
+		RecordWriter writer = new RecordWriter(handler, format, "Name", "Path");
+		int count = WADManager.get().forEachWAD(phrase, (wad) -> writer.write(wad.name, wad.path));
+		writer.finish();
+		if (format == Format.TEXT)
+			handler.outln(count + " WADs found.");
 		return ERROR_NONE;
 	}
 
@@ -9,14 +9,16 @@ import java.io.File;
 import java.io.FileFilter;
 import java.util.Arrays;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
 
 import net.mtrop.doomy.DoomyCommand;
-import net.mtrop.doomy.DoomyCommon;
 import net.mtrop.doomy.IOHandler;
 import net.mtrop.doomy.managers.WADManager;
+import net.mtrop.doomy.managers.WADManager.BatchResult;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
 import net.mtrop.doomy.struct.util.FileUtils;
 
 import static net.mtrop.doomy.DoomyCommand.matchArgument;
@@ -34,13 +36,13 @@ public class WADScanCommand implements DoomyCommand
 	private static final String SWITCH_SUFFIX1 = "--suffix";
 	private static final String SWITCH_SUFFIX2 = "-s";
 	private static final String SWITCH_FORCEADD = "--force-add-existing";
+	private static final String SWITCH_INCREMENTAL1 = "--incremental";
+	private static final String SWITCH_INCREMENTAL2 = "-i";
 
 	private static final String[] FILETYPES = {"PK3", "PK7", "PKE", "WAD", "ZIP"};
 	
 	private static final FileFilter WADFILTER = (file) ->
 	{
-		if (file.isDirectory())
-			return true;
 		String ext = FileUtils.getFileExtension(file).toUpperCase();
 		return Arrays.binarySearch(FILETYPES, ext) >= 0;
 	};
@@ -50,6 +52,7 @@ public class WADScanCommand implements DoomyCommand
 	private String suffix;
 	private boolean recurse;
 	private boolean force;
+	private boolean incremental;
 
 	@Override
 	public void init(Deque<String> args) throws BadArgumentException
@@ -59,8 +62,10 @@ public class WADScanCommand implements DoomyCommand
 			throw new BadArgumentException("Expected path to scan for WADs.");
 
 		prefix = "";
+		suffix = "";
 		recurse = false;
 		force = false;
+		incremental = false;
 		
 		final int STATE_START = 0;
 		final int STATE_PREFIX = 1;
@@ -80,6 +85,8 @@ public class WADScanCommand implements DoomyCommand
 						state = STATE_SUFFIX;
 					else if (matchArgument(args, SWITCH_FORCEADD))
 						force = true;
+					else if (matchArgument(args, SWITCH_INCREMENTAL1) || matchArgument(args, SWITCH_INCREMENTAL2))
+						incremental = true;
 					else
 						throw new BadArgumentException("Invalid switch: " + args.peekFirst());
 				}
@@ -110,7 +117,7 @@ public class WADScanCommand implements DoomyCommand
 	@Override
 	public int call(IOHandler handler)
 	{
-		return execute(handler, path, prefix, suffix, recurse, force);
+		return execute(handler, path, prefix, suffix, recurse, force, incremental);
 	}
 
 	/**
@@ -120,10 +127,11 @@ public class WADScanCommand implements DoomyCommand
 	 * @param prefix the prefix to add to each name. 
 	 * @param suffix the suffix to add to each name. 
 	 * @param recurse if true, recurse down the path.
-	 * @param force if true, update existing IWADs.
+	 * @param force if true, update existing WADs.
+	 * @param incremental if true, only touch new, changed, or vanished WADs.
 	 * @return the return code from running the command.
 	 */
-	public static int execute(IOHandler handler, String path, String prefix, String suffix, boolean recurse, boolean force)
+	public static int execute(IOHandler handler, String path, String prefix, String suffix, boolean recurse, boolean force, boolean incremental)
 	{
 		File startDir = new File(path);
 		
@@ -133,65 +141,46 @@ public class WADScanCommand implements DoomyCommand
 			return ERROR_NOT_FOUND;
 		}
 		
-		AtomicInteger added = new AtomicInteger(0);
-		AtomicInteger updated = new AtomicInteger(0);
-		
-		// Get count.
+		// Find files.
 		handler.out("Finding WADs.... 0");
-		final List<File> filesToAdd = new LinkedList<>();
-		
-		DoomyCommon.scanAndListen(startDir, recurse, WADFILTER, (file) -> 
+		List<ScannedFile> files = FileScanner.scan(startDir, recurse, WADFILTER, null, (file, count) ->
 		{
-			WADManager manager = WADManager.get();
-			String name = (prefix + FileUtils.getFileNameWithoutExtension(file) + suffix).toLowerCase();
-			if (manager.containsWAD(name) && force)
+			synchronized (handler)
 			{
-				handler.out("\rFinding WADs.... " + updated.incrementAndGet());
-				filesToAdd.add(file);
-			}
-			else if (!manager.containsWAD(name))
-			{
-				handler.out("\rFinding WADs.... " + added.incrementAndGet());
-				filesToAdd.add(file);
+				handler.out("\rFinding WADs.... " + count);
 			}
 		});
 		handler.outln();
 		
-		int totalCount = added.get() + updated.get();
-
-		if (totalCount > 0)
+		final Map<String, ScannedFile> filesToAdd = new LinkedHashMap<>();
+		for (ScannedFile scanned : files)
 		{
-			// Do update.
-			AtomicInteger count = new AtomicInteger(0);
-			final String format = "\rAdding WADs: %-" + (int)(Math.log10(totalCount) + 1.0) + "d of " + totalCount + " (%3d%%)...";
-
-			handler.outf(format, 0, 0);
-			filesToAdd.forEach((file) -> 
-			{
-				WADManager manager = WADManager.get();
-				String name = (prefix + FileUtils.getFileNameWithoutExtension(file)).toLowerCase();
-				if (manager.containsWAD(name) && force)
-				{
-					manager.setWADPath(name, file.getPath());
-					int c = count.incrementAndGet();
-					handler.outf(format, c, (c * 100 / totalCount));
-				}
-				else if (!manager.containsWAD(name))
-				{
-					manager.addWAD(name, file.getPath());
-					int c = count.incrementAndGet();
-					handler.outf(format, c, (c * 100 / totalCount));
-				}
-			});
-			handler.outln();
+			String name = (prefix + FileUtils.getFileNameWithoutExtension(scanned.file) + suffix).toLowerCase();
+			if (!filesToAdd.containsKey(name))
+				filesToAdd.put(name, scanned);
+		}
+		
+		BatchResult result;
+		if (!filesToAdd.isEmpty() || incremental)
+		{
+			handler.out("Adding WADs...");
+			result = WADManager.get().addOrUpdateWADs(startDir.getAbsolutePath(), filesToAdd, force, incremental);
+			handler.outln(" Done.");
+		}
+		else
+		{
+			result = new BatchResult();
 		}
 		
-		if (added.get() > 0)
-			handler.outln("Added " + added + " WADs.");
-		if (updated.get() > 0)
-			handler.outln("Updated " + updated + " WADs.");
+		if (result.added > 0)
+			handler.outln("Added " + result.added + " WADs.");
+		if (result.updated > 0)
+			handler.outln("Updated " + result.updated + " WADs.");
+
+		if (result.missing > 0)
+			handler.outln(result.missing + " WADs from this path are missing (use \"wad clean\" to remove them).");
 
-		if (added.get() == 0 && updated.get() == 0)
+		if (result.added == 0 && result.updated == 0)
 			handler.outln("No WADs added/updated.");
 
 		return ERROR_NONE;
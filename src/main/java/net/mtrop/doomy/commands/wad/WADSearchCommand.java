@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.wad;
+
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.WADSearchManager;
+import net.mtrop.doomy.managers.WADSearchManager.SearchResult;
+import net.mtrop.doomy.struct.util.ObjectUtils;
+
+/**
+ * A command that searches WAD names, text files, and maps.
+ * @author Matthew Tropiano
+ */
+public class WADSearchCommand implements DoomyCommand
+{
+	private static final String SWITCH_RESCAN1 = "--rescan";
+	private static final String SWITCH_RESCAN2 = "-r";
+	private static final String SWITCH_LIMIT1 = "--limit";
+	private static final String SWITCH_LIMIT2 = "-l";
+
+	private static final int DEFAULT_LIMIT = 25;
+
+	private String phrase;
+	private boolean rescan;
+	private int limit;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		StringBuilder sb = new StringBuilder();
+		rescan = false;
+		limit = DEFAULT_LIMIT;
+
+		final int STATE_START = 0;
+		final int STATE_LIMIT = 1;
+		int state = STATE_START;
+		while (!args.isEmpty())
+		{
+			switch (state)
+			{
+				case STATE_START:
+				{
+					if (matchArgument(args, SWITCH_RESCAN1) || matchArgument(args, SWITCH_RESCAN2))
+						rescan = true;
+					else if (matchArgument(args, SWITCH_LIMIT1) || matchArgument(args, SWITCH_LIMIT2))
+						state = STATE_LIMIT;
+					else
+						sb.append(sb.length() > 0 ? " " : "").append(args.pollFirst());
+				}
+				break;
+
+				case STATE_LIMIT:
+				{
+					try {
+						limit = Integer.parseInt(args.pollFirst());
+					} catch (NumberFormatException e) {
+						throw new BadArgumentException("Limit must be a number.");
+					}
+					if (limit < 1)
+						throw new BadArgumentException("Limit must be 1 or greater.");
+					state = STATE_START;
+				}
+				break;
+			}
+		}
+
+		if (state == STATE_LIMIT)
+			throw new BadArgumentException("Expected number after limit switch.");
+
+		phrase = sb.toString();
+		if (ObjectUtils.isEmpty(phrase) && !rescan)
+			throw new BadArgumentException("Expected search terms.");
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, phrase, rescan, limit);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param phrase the search terms.
+	 * @param rescan if true, re-read text files for WADs that changed since they were last read.
+	 * @param limit the maximum amount of results.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, String phrase, boolean rescan, int limit)
+	{
+		WADSearchManager manager = WADSearchManager.get();
+
+		int updated = manager.update(rescan, (name, done, total) ->
+		{
+			if (done % 100 == 0 || done == total)
+				handler.outf("Reading text files: %d of %d...\n", done, total);
+		});
+		if (updated > 0)
+			handler.outln("Updated search index for " + updated + " WADs.");
+
+		if (ObjectUtils.isEmpty(phrase))
+			return ERROR_NONE;
+
+		long start = System.nanoTime();
+		SearchResult[] results = manager.search(phrase, limit);
+		long elapsed = System.nanoTime() - start;
+
+		if (results.length > 0)
+		{
+			int len = 4;
+			for (int i = 0; i < results.length; i++)
+				len = Math.max(results[i].name.length() + 1, len);
+			String format = "%-" + len + "s %s\n";
+			handler.outf(format, "Name", "Title / Author");
+			handler.outf(format, "====", "==============");
+			for (SearchResult result : results)
+			{
+				String info = ObjectUtils.isEmpty(result.title) ? "" : result.title;
+				if (!ObjectUtils.isEmpty(result.author))
+					info += (info.isEmpty() ? "" : " / ") + result.author;
+				handler.outf(format, result.name, info);
+				if (!ObjectUtils.isEmpty(result.snippet))
+					handler.outf(format, "", result.snippet.replaceAll("\\s+", " ").trim());
+			}
+		}
+		handler.outf("%d WADs found (%.1f ms).\n", results.length, elapsed / 1000000.0);
+		return ERROR_NONE;
+	}
+
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.watch;
+
+import java.io.File;
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.LibraryWatchManager;
+
+import static net.mtrop.doomy.DoomyCommand.matchArgument;
+
+/**
+ * A command that registers a scan root to watch.
+ * @author Matthew Tropiano
+ */
+public class WatchAddCommand implements DoomyCommand
+{
+	private static final String SWITCH_RECURSE1 = "--recurse";
+	private static final String SWITCH_RECURSE2 = "-r";
+	private static final String SWITCH_PREFIX1 = "--prefix";
+	private static final String SWITCH_PREFIX2 = "-p";
+	private static final String SWITCH_SUFFIX1 = "--suffix";
+	private static final String SWITCH_SUFFIX2 = "-s";
+
+	private String type;
+	private String path;
+	private String prefix;
+	private String suffix;
+	private boolean recurse;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		type = args.pollFirst();
+		if (type == null)
+			throw new BadArgumentException("Expected type of scan root (wad or iwad).");
+		if (!LibraryWatchManager.TYPE_WAD.equalsIgnoreCase(type) && !LibraryWatchManager.TYPE_IWAD.equalsIgnoreCase(type))
+			throw new BadArgumentException("Bad scan root type: " + type + ". Expected wad or iwad.");
+		type = type.toLowerCase();
+
+		path = args.pollFirst();
+		if (path == null)
+			throw new BadArgumentException("Expected path to watch.");
+
+		prefix = "";
+		suffix = "";
+		recurse = false;
+
+		final int STATE_START = 0;
+		final int STATE_PREFIX = 1;
+		final int STATE_SUFFIX = 2;
+		int state = STATE_START;
+		while (!args.isEmpty())
+		{
+			switch (state)
+			{
+				case STATE_START:
+				{
+					if (matchArgument(args, SWITCH_RECURSE1) || matchArgument(args, SWITCH_RECURSE2))
+						recurse = true;
+					else if (matchArgument(args, SWITCH_PREFIX1) || matchArgument(args, SWITCH_PREFIX2))
+						state = STATE_PREFIX;
+					else if (matchArgument(args, SWITCH_SUFFIX1) || matchArgument(args, SWITCH_SUFFIX2))
+						state = STATE_SUFFIX;
+					else
+						throw new BadArgumentException("Invalid switch: " + args.peekFirst());
+				}
+				break;
+
+				case STATE_PREFIX:
+				{
+					prefix = args.pollFirst();
+					state = STATE_START;
+				}
+				break;
+
+				case STATE_SUFFIX:
+				{
+					suffix = args.pollFirst();
+					state = STATE_START;
+				}
+				break;
+			}
+		}
+
+		if (state == STATE_PREFIX)
+			throw new BadArgumentException("Expected name prefix after prefix switch.");
+		if (state == STATE_SUFFIX)
+			throw new BadArgumentException("Expected name suffix after suffix switch.");
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, type, path, prefix, suffix, recurse);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param type the scan root type.
+	 * @param path the path to watch.
+	 * @param prefix the prefix to add to each name. 
+	 * @param suffix the suffix to add to each name. 
+	 * @param recurse if true, also watch subdirectories.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, String type, String path, String prefix, String suffix, boolean recurse)
+	{
+		File dir = new File(path);
+		if (!dir.isDirectory())
+		{
+			handler.errln("ERROR: Path '" + dir.getPath() + "' is not a directory.");
+			return ERROR_NOT_FOUND;
+		}
+
+		if (!LibraryWatchManager.get().setScanRoot(type, dir.getAbsolutePath(), prefix, suffix, recurse))
+		{
+			handler.errln("ERROR: Could not add scan root '" + dir.getAbsolutePath() + "'.");
+			return ERROR_NOT_ADDED;
+		}
+
+		handler.outln("Watching " + type + " scan root '" + dir.getAbsolutePath() + "'.");
+		return ERROR_NONE;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.watch;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.LibraryWatchManager;
+import net.mtrop.doomy.managers.LibraryWatchManager.ScanRoot;
+
+/**
+ * A command that prints all registered scan roots.
+ * @author Matthew Tropiano
+ */
+public class WatchListCommand implements DoomyCommand
+{
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		// Do nothing.
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler)
+	{
+		ScanRoot[] records = LibraryWatchManager.get().getAllScanRoots();
+		if (records.length > 0)
+		{
+			int len = 4;
+			for (int i = 0; i < records.length; i++)
+				len = Math.max(records[i].path.length() + 1, len);
+			String format = "%-5s %-" + len + "s %-8s %-8s %s\n";
+			handler.outf(format, "Type", "Path", "Prefix", "Suffix", "Recurse");
+			handler.outf(format, "====", "====", "======", "======", "=======");
+			for (int i = 0; i < records.length; i++)
+				handler.outf(format, records[i].type, records[i].path, records[i].prefix, records[i].suffix, records[i].recurse ? "yes" : "no");
+		}
+		handler.outln(records.length + " scan roots found.");
+		return ERROR_NONE;
+	}
+
+}
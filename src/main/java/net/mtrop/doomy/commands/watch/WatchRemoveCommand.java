@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.watch;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.LibraryWatchManager;
+
+/**
+ * A command that removes a registered scan root.
+ * @author Matthew Tropiano
+ */
+public class WatchRemoveCommand implements DoomyCommand
+{
+	private String type;
+	private String path;
+
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		type = args.pollFirst();
+		if (type == null)
+			throw new BadArgumentException("Expected type of scan root (wad or iwad).");
+		type = type.toLowerCase();
+
+		path = args.pollFirst();
+		if (path == null)
+			throw new BadArgumentException("Expected path of scan root to remove.");
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler, type, path);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @param type the scan root type.
+	 * @param path the scan root path.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler, String type, String path)
+	{
+		LibraryWatchManager manager = LibraryWatchManager.get();
+
+		if (manager.getScanRoot(type, path) == null)
+		{
+			handler.errln("ERROR: No " + type + " scan root for '" + path + "'.");
+			return ERROR_NOT_FOUND;
+		}
+
+		if (!manager.removeScanRoot(type, path))
+		{
+			handler.errln("ERROR: Scan root '" + path + "' could not be removed.");
+			return ERROR_NOT_REMOVED;
+		}
+
+		handler.outln("Removed " + type + " scan root '" + path + "'.");
+		return ERROR_NONE;
+	}
+
+}
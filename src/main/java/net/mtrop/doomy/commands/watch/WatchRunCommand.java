@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.commands.watch;
+
+import java.util.Deque;
+
+import net.mtrop.doomy.DoomyCommand;
+import net.mtrop.doomy.IOHandler;
+import net.mtrop.doomy.managers.LibraryWatchManager;
+import net.mtrop.doomy.managers.MessengerManager;
+
+/**
+ * A command that watches all registered scan roots until interrupted.
+ * @author Matthew Tropiano
+ */
+public class WatchRunCommand implements DoomyCommand
+{
+	@Override
+	public void init(Deque<String> args) throws BadArgumentException
+	{
+		// Do nothing.
+	}
+
+	@Override
+	public int call(IOHandler handler)
+	{
+		return execute(handler);
+	}
+
+	/**
+	 * Executes this command.
+	 * @param handler the handler to use for I/O.
+	 * @return the return code from running the command.
+	 */
+	public static int execute(IOHandler handler)
+	{
+		LibraryWatchManager manager = LibraryWatchManager.get();
+		MessengerManager messenger = MessengerManager.get();
+
+		messenger.subscribe(MessengerManager.CHANNEL_WADS_CHANGED, (message) -> handler.outln("WADs updated."));
+		messenger.subscribe(MessengerManager.CHANNEL_IWADS_CHANGED, (message) -> handler.outln("IWADs updated."));
+
+		int rootCount = manager.getAllScanRoots().length;
+		if (rootCount == 0)
+		{
+			handler.errln("ERROR: Nothing to watch. Add a scan root first.");
+			return ERROR_NOT_FOUND;
+		}
+		
+		if (!manager.start())
+		{
+			handler.errln("ERROR: Could not start watching scan roots.");
+			return ERROR_IO_ERROR;
+		}
+
+		handler.outln("Watching " + rootCount + " scan roots. Press Ctrl-C to stop.");
+		try {
+			manager.join();
+		} catch (InterruptedException e) {
+			manager.stop();
+			return ERROR_TASK_CANCELLED;
+		}
+		return ERROR_NONE;
+	}
+
+}
@@ -0,0 +1,2 @@
+/** Library watch commands. */
+package net.mtrop.doomy.commands.watch;
\ No newline at end of file
@@ -10,6 +10,7 @@ import net.mtrop.doomy.managers.GUIManager;
 import net.mtrop.doomy.managers.GUIManager.GUIThemeType;
 import net.mtrop.doomy.managers.LanguageManager;
 import net.mtrop.doomy.managers.LoggerManager;
+import net.mtrop.doomy.managers.PrestageManager;
 import net.mtrop.doomy.struct.LoggingFactory.Logger;
 import net.mtrop.doomy.struct.swing.ModalFactory.Modal;
 import net.mtrop.doomy.struct.swing.SwingUtils;
@@ -74,6 +75,7 @@ public final class DoomyGUIMain
 		}
 
 		(new DoomyGUIMainWindow()).setVisible(true);
+		PrestageManager.get().prestageFrequent();
 	}
 
 	// Sets the exception handler.
@@ -24,6 +24,7 @@ import net.mtrop.doomy.gui.swing.SettingsPanel;
 import net.mtrop.doomy.gui.swing.WadTableControlPanel;
 import net.mtrop.doomy.managers.GUIManager;
 import net.mtrop.doomy.managers.LanguageManager;
+import net.mtrop.doomy.managers.LibraryWatchManager;
 import net.mtrop.doomy.managers.LoggerManager;
 import net.mtrop.doomy.managers.TaskManager;
 import net.mtrop.doomy.struct.InstancedFuture;
@@ -106,6 +107,9 @@ public class DoomyGUIMainWindow extends JFrame
 		));
 		
 		pack();
+		
+		// Keep the library in sync with any watched directories.
+		TaskManager.get().spawn(() -> LibraryWatchManager.get().start());
 	}
 	
 	private JMenuBar createMenuBar()
@@ -8,11 +8,13 @@ import net.mtrop.doomy.DoomyEnvironment;
 import net.mtrop.doomy.doomfetch.FetchDriver;
 import net.mtrop.doomy.doomfetch.FetchDriver.Response;
 import net.mtrop.doomy.managers.ConfigManager;
+import net.mtrop.doomy.managers.DownloadManager;
 import net.mtrop.doomy.managers.GUIManager;
 import net.mtrop.doomy.managers.LanguageManager;
 import net.mtrop.doomy.managers.MessengerManager;
 import net.mtrop.doomy.managers.TaskManager;
 import net.mtrop.doomy.managers.WADManager;
+import net.mtrop.doomy.struct.InstancedFuture;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormField;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormPanel.LabelJustification;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormPanel.LabelSide;
@@ -39,7 +41,6 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 
@@ -163,51 +164,40 @@ public class DoomFetchControlPanel extends JPanel
 			
 			textOutputPanel.getPrintStream().println("Downloading file...");
 			
-			try (HTTPResponse httpResponse = response.getHTTPResponse(); FileOutputStream fos = new FileOutputStream(targetFile.get()))
+			HTTPResponse httpResponse = response.getHTTPResponse();
+			if (!httpResponse.isSuccess())
 			{
-				if (!httpResponse.isSuccess())
-				{
-					SwingUtils.error(this, language.getText("doomfetch.download.file.badresp", httpResponse.getStatusCode(), httpResponse.getStatusMessage()));
-					searchModal.dispose();
-					return;
-				}
-				
-				AtomicLong currentBytes = new AtomicLong(0L);
-				AtomicLong lastDate = new AtomicLong(System.currentTimeMillis());
-				httpResponse.decode().relayContent(fos, (cur, max) -> 
+				httpResponse.close();
+				SwingUtils.error(this, language.getText("doomfetch.download.file.badresp", httpResponse.getStatusCode(), httpResponse.getStatusMessage()));
+				searchModal.dispose();
+				return;
+			}
+
+			// Resumes from an earlier partial download of the same file, and retries if the connection drops.
+			InstancedFuture<File> download = DownloadManager.get().download(httpResponse, 5000, targetFile.get().getPath(), DownloadManager.intervalListener(250L, (cur, max, pct) -> 
+			{
+				SwingUtils.invoke(() -> 
 				{
-					if (cancelSwitch.get())
-						return;
-					
-					long next = System.currentTimeMillis();
-					currentBytes.set(cur);
-					if (next > lastDate.get() + 250L)
+					if (max >= 0)
+					{
+						progressBar.setIndeterminate(false);
+						progressBar.setMinimum(0);
+						progressBar.setValue((int)(pct));
+						progressBar.setMaximum(100);
+						progressLabel.setText((cur/1024) + " KB / " + (max/1024) + " KB");
+					}
+					else
 					{
-						SwingUtils.invoke(() -> 
-						{
-							if (max != null)
-							{
-								progressBar.setIndeterminate(false);
-								progressBar.setMinimum(0);
-								progressBar.setValue((int)cur);
-								progressBar.setMaximum((int)(long)max);
-								progressLabel.setText((cur/1024) + " KB / " + (max/1024) + " KB");
-							}
-							else
-							{
-								progressLabel.setText((cur/1024) + " KB");
-							}
-						});
-						lastDate.set(next);
+						progressLabel.setText((cur/1024) + " KB");
 					}
 				});
-
-			} 
-			catch (IOException e) 
-			{
-				SwingUtils.error(this, language.getText("doomfetch.download.file.ioerror", e.getLocalizedMessage()));
-			}
+				return cancelSwitch.get();
+			}));
 			
+			download.join();
+			if (download.getException() != null)
+				SwingUtils.error(this, language.getText("doomfetch.download.file.ioerror", download.getException().getLocalizedMessage()));
+
 			searchModal.dispose();
 		});
 		
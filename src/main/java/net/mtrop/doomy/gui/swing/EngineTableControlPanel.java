@@ -20,6 +20,8 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 
 import net.mtrop.doomy.DoomyCommon;
+import net.mtrop.doomy.managers.DatabaseManager;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
 import net.mtrop.doomy.managers.EngineConfigManager;
 import net.mtrop.doomy.managers.EngineConfigManager.EngineSettings;
 import net.mtrop.doomy.managers.EngineManager;
@@ -164,11 +166,13 @@ public class EngineTableControlPanel extends JPanel
 			return;
 		}
 	
-		engineManager.addEngine(name);
-		if (!engineConfigManager.setEngineSettings(name, settings))
+		// Engine and settings are added together, or not at all.
+		try (UnitOfWork work = DatabaseManager.get().beginWork())
 		{
-			SwingUtils.error(this, language.getText("engine.add.error.settings.save"));
-			engineManager.removeEngine(name);
+			if (engineManager.addEngine(name) != null && engineConfigManager.setEngineSettings(name, settings))
+				work.complete();
+			else
+				SwingUtils.error(this, language.getText("engine.add.error.settings.save"));
 		}
 	}
 
@@ -11,12 +11,14 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.swing.Action;
@@ -26,13 +28,18 @@ import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
-import net.mtrop.doomy.DoomyCommon;
 import net.mtrop.doomy.managers.GUIManager;
+import net.mtrop.doomy.managers.IWADIdentityManager;
+import net.mtrop.doomy.managers.IWADIdentityManager.Identity;
 import net.mtrop.doomy.managers.IWADManager;
+import net.mtrop.doomy.managers.IWADManager.BatchResult;
 import net.mtrop.doomy.managers.IWADManager.IWAD;
 import net.mtrop.doomy.managers.LanguageManager;
+import net.mtrop.doomy.managers.LibraryWatchManager;
 import net.mtrop.doomy.managers.MessengerManager;
 import net.mtrop.doomy.managers.TaskManager;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
 import net.mtrop.doomy.struct.swing.ComponentFactory;
 import net.mtrop.doomy.struct.swing.ComponentFactory.ProgressBarOrientation;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormField;
@@ -87,7 +94,7 @@ public class IwadTableControlPanel extends JPanel
 
 		onSelection();
 
-		this.messenger.subscribe(MessengerManager.CHANNEL_IWADS_CHANGED, (message) -> iwadTable.refreshIWADs());
+		this.messenger.subscribe(MessengerManager.CHANNEL_IWADS_CHANGED, (message) -> SwingUtils.invoke(() -> iwadTable.refreshIWADs()));
 		
 		containerOf(this, borderLayout(8, 0),
 			node(BorderLayout.CENTER, iwadTable),
@@ -260,6 +267,7 @@ public class IwadTableControlPanel extends JPanel
 		final JFormField<String> suffixField = stringField("", false, true);
 		final JFormField<Boolean> recurseField = checkBoxField(checkBox(true));
 		final JFormField<Boolean> updateExistingField = checkBoxField(checkBox(false));
+		final JFormField<Boolean> watchField = checkBoxField(checkBox(false));
 		final JFormField<File> directoryField = fileField(null, language.getText("file.browse"), 
 			(current) -> {
 				File chosen = gui.chooseDirectory(this, 
@@ -273,13 +281,14 @@ public class IwadTableControlPanel extends JPanel
 		);
 		
 		Boolean doScan = modal(this, language.getText("iwads.scan.form.title"),
-			containerOf(dimension(400, 120), borderLayout(0, 0),
+			containerOf(dimension(400, 144), borderLayout(0, 0),
 				node(BorderLayout.NORTH, gui.createForm(form(LabelSide.LEADING, LabelJustification.LEADING, language.getInteger("iwads.scan.form.width")),
 					gui.formField("iwads.scan.form.path", directoryField),
 					gui.formField("iwads.scan.form.prefix", prefixField),
 					gui.formField("iwads.scan.form.suffix", suffixField),
 					gui.formField("iwads.scan.form.recurse", recurseField),
-					gui.formField("iwads.scan.form.update", updateExistingField)
+					gui.formField("iwads.scan.form.update", updateExistingField),
+					gui.formField("iwads.scan.form.watch", watchField)
 				))
 			),
 			gui.createChoiceFromLanguageKey("iwads.scan.choice.add", (Boolean)true),
@@ -311,21 +320,18 @@ public class IwadTableControlPanel extends JPanel
 		String suffix = suffixField.getValue();
 		boolean recurse = recurseField.getValue();
 		boolean force = updateExistingField.getValue();
+		boolean watch = watchField.getValue();
 		
 		final String[] FILETYPES = {"IPK3", "IPK7", "IPKE", "IWAD", "PK3", "PK7", "PKE", "WAD", "ZIP"};
 		
 		final FileFilter WADFILTER = (file) ->
 		{
-			if (file.isDirectory())
-				return true;
 			String ext = FileUtils.getFileExtension(file).toUpperCase();
 			return Arrays.binarySearch(FILETYPES, ext) >= 0;
 		};
 		
 		final AtomicBoolean cancelSwitch = new AtomicBoolean(false);
-		final AtomicInteger addedCount = new AtomicInteger(0);
-		final AtomicInteger updatedCount = new AtomicInteger(0);
-		final List<File> filesToAdd = new LinkedList<>();
+		final Map<String, String> filesToAdd = new LinkedHashMap<>();
 		
 		final JLabel progressLabel = label("");
 	
@@ -340,25 +346,27 @@ public class IwadTableControlPanel extends JPanel
 		taskManager.spawn(() -> 
 		{
 			signal.poll();
-			DoomyCommon.scanAndListen(startDir, recurse, WADFILTER, (file) -> 
+			List<ScannedFile> files = FileScanner.scan(startDir, recurse, WADFILTER, cancelSwitch, (file, count) -> 
 			{
 				SwingUtils.invoke(() -> {
-					progressLabel.setText(file.getPath());
+					progressLabel.setText(file.file.getPath());
 				});
-				
-				String name = (prefix + FileUtils.getFileNameWithoutExtension(file) + suffix).toLowerCase();
-				boolean containsIWAD = iwadManager.containsIWAD(name);
-				if (containsIWAD && force)
-				{
-					updatedCount.incrementAndGet();
-					filesToAdd.add(file);
-				}
-				else if (!containsIWAD)
-				{
-					addedCount.incrementAndGet();
-					filesToAdd.add(file);
-				}
 			});
+			IWADIdentityManager identifier = IWADIdentityManager.get();
+			for (ScannedFile scanned : files)
+			{
+				if (cancelSwitch.get())
+					break;
+				SwingUtils.invoke(() -> {
+					progressLabel.setText(scanned.file.getPath());
+				});
+				Identity identity = identifier.identify(scanned.file);
+				if (identity == null)
+					continue;
+				String name = (prefix + identity.name + suffix).toLowerCase();
+				if (!filesToAdd.containsKey(name))
+					filesToAdd.put(name, scanned.file.getPath());
+			}
 			cancelProgressModal.dispose();
 		});
 	
@@ -371,80 +379,47 @@ public class IwadTableControlPanel extends JPanel
 		if (cancelSwitch.get())
 			return;
 	
-		final int totalCount = addedCount.get() + updatedCount.get();
-		final JProgressBar progressBar = progressBar(ProgressBarOrientation.HORIZONTAL);
-		final JLabel progressMessage = label("");
-		progressLabel.setText("0%");
-		
-		SwingUtils.invoke(() -> {
-			progressBar.setMinimum(0);
-			progressBar.setIndeterminate(true);
-			progressBar.setMaximum(totalCount);
-		});
-		
-		if (totalCount > 0)
+		final AtomicReference<BatchResult> result = new AtomicReference<>(new BatchResult());
+		if (!filesToAdd.isEmpty())
 		{
-			final Modal<Boolean> cancelProgressModal2 = modal(this, language.getText("iwads.scan.adding.title"), 
-				containerOf(dimension(350, 48), borderLayout(8, 0),
-					node(BorderLayout.NORTH, progressMessage),
-					node(BorderLayout.CENTER, progressBar),
-					node(BorderLayout.LINE_END, progressLabel)
-				),
-				gui.createChoiceFromLanguageKey("choice.cancel", (Boolean)true)
+			final JProgressBar progressBar = progressBar(ProgressBarOrientation.HORIZONTAL);
+			SwingUtils.invoke(() -> {
+				progressBar.setIndeterminate(true);
+			});
+			
+			// All added in one transaction - nothing to cancel partway.
+			final Modal<Boolean> progressModal = modal(this, language.getText("iwads.scan.adding.title"), 
+				containerOf(dimension(350, 24), borderLayout(8, 0),
+					node(BorderLayout.CENTER, progressBar)
+				)
 			);
 			
 			taskManager.spawn(() -> 
 			{
 				signal.poll();
-	
-				// Do update.
-				AtomicInteger count = new AtomicInteger(0);
-				
-				for (File file : filesToAdd)
-				{
-					if (cancelSwitch.get())
-						return;
-	
-					String name = (prefix + FileUtils.getFileNameWithoutExtension(file)).toLowerCase();
-					if (iwadManager.containsIWAD(name) && force)
-					{
-						iwadManager.setIWADPath(name, file.getPath());
-						int c = count.incrementAndGet();
-						SwingUtils.invoke(() -> {
-							progressMessage.setText(language.getText("iwads.scan.adding.updating", file.getPath()));
-							progressBar.setValue(c);
-							progressBar.setIndeterminate(false);
-							progressLabel.setText((int)(((float)c / totalCount) * 100) + "%");
-						});
-					}
-					else if (!iwadManager.containsIWAD(name))
-					{
-						iwadManager.addIWAD(name, file.getPath());
-						int c = count.incrementAndGet();
-						SwingUtils.invoke(() -> {
-							progressMessage.setText(language.getText("iwads.scan.adding.adding", file.getPath()));
-							progressBar.setValue(c);
-							progressBar.setIndeterminate(false);
-							progressLabel.setText((int)(((float)c / totalCount) * 100) + "%");
-						});
-					}
+				try {
+					result.set(iwadManager.addOrUpdateIWADs(filesToAdd, force));
+				} finally {
+					progressModal.dispose();
 				}
-				cancelProgressModal2.dispose();
 			});
 	
 			signal.offer(true); // alert thread
-			
-			out = cancelProgressModal2.openThenDispose();
-			if (out == Boolean.TRUE)
-				cancelSwitch.set(true);
-	
+			progressModal.openThenDispose();
 			iwadTable.refreshIWADs();
-			
-			if (cancelSwitch.get())
-				return;
 		}
 		
-		SwingUtils.info(this, language.getText("iwads.scan.adding.result", addedCount.get(), updatedCount.get()));
+		if (watch)
+		{
+			taskManager.spawn(() -> 
+			{
+				LibraryWatchManager watchManager = LibraryWatchManager.get(); 
+				watchManager.setScanRoot(LibraryWatchManager.TYPE_IWAD, startDir.getAbsolutePath(), prefix, suffix, recurse);
+				watchManager.start();
+			});
+		}
+		
+		SwingUtils.info(this, language.getText("iwads.scan.adding.result", result.get().added, result.get().updated));
 	}
 
 	// Called on WAD cleanup.
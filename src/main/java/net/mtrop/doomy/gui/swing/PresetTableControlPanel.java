@@ -10,6 +10,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
@@ -17,6 +20,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,6 +31,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JProgressBar;
+import javax.swing.Timer;
 
 import net.mtrop.doomy.DoomyCommon;
 import net.mtrop.doomy.DoomyEnvironment;
@@ -36,16 +41,25 @@ import net.mtrop.doomy.managers.GUIManager;
 import net.mtrop.doomy.managers.IWADManager;
 import net.mtrop.doomy.managers.IWADManager.IWAD;
 import net.mtrop.doomy.managers.LanguageManager;
+import net.mtrop.doomy.managers.LaunchTimingManager;
+import net.mtrop.doomy.managers.LaunchTimingManager.Phase;
+import net.mtrop.doomy.managers.LaunchTimingManager.PhaseStatistics;
+import net.mtrop.doomy.managers.LaunchTimingManager.PresetTiming;
 import net.mtrop.doomy.managers.LauncherManager;
 import net.mtrop.doomy.managers.MessengerManager;
+import net.mtrop.doomy.managers.LauncherManager.Launch;
 import net.mtrop.doomy.managers.LauncherManager.LaunchException;
 import net.mtrop.doomy.managers.PresetManager;
 import net.mtrop.doomy.managers.PresetManager.Preset;
 import net.mtrop.doomy.managers.PresetManager.PresetInfo;
+import net.mtrop.doomy.managers.PrestageManager;
 import net.mtrop.doomy.managers.TaskManager;
 import net.mtrop.doomy.managers.WADManager.WAD;
 import net.mtrop.doomy.managers.EngineManager;
 import net.mtrop.doomy.managers.EngineManager.Engine;
+import net.mtrop.doomy.struct.RingBufferOutputStream;
+import net.mtrop.doomy.struct.TransferProgress;
+import net.mtrop.doomy.struct.swing.ComponentFactory.ProgressBarOrientation;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormPanel.LabelJustification;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormPanel.LabelSide;
 import net.mtrop.doomy.struct.swing.SwingUtils;
@@ -66,6 +80,9 @@ import static net.mtrop.doomy.struct.swing.LayoutFactory.*;
 public class PresetTableControlPanel extends JPanel
 {
 	private static final long serialVersionUID = -5512536206650970521L;
+
+	/** Selection pause before the selected preset is pre-staged, in milliseconds. */
+	private static final int PRESTAGE_DELAY_MILLIS = 500;
 	
 	private final MessengerManager messenger;
 	private final GUIManager gui;
@@ -78,12 +95,18 @@ public class PresetTableControlPanel extends JPanel
 	private Action createAction;
 	private Action removeAction;
 	private Action openFolderAction;
+	private Action timingsAction;
+	private Action consoleAction;
 	private Action cleanupFoldersAction;
 	private Action launchAction;
 	private Action launchArgsAction;
+	private Action launchGroupAction;
+	private Action launchesAction;
 
 	private JButton launchOtherbutton;
 	private JPopupMenu launchPopupMenu;
+	/** Pre-stages the selected preset once the selection settles. */
+	private Timer prestageTimer;
 	
 	public PresetTableControlPanel()
 	{
@@ -99,19 +122,29 @@ public class PresetTableControlPanel extends JPanel
 		this.createAction = actionItem(language.getText("preset.create"), (e) -> onCreate());
 		this.removeAction = actionItem(language.getText("preset.remove"), (e) -> onRemove());
 		this.openFolderAction = actionItem(language.getText("preset.open"), (e) -> onOpen());
+		this.timingsAction = actionItem(language.getText("preset.timings"), (e) -> onTimings());
+		this.consoleAction = actionItem(language.getText("preset.console"), (e) -> onConsole());
 		this.cleanupFoldersAction = actionItem(language.getText("preset.cleanup"), (e) -> onCleanup());
 		this.launchAction = actionItem(language.getHTML("preset.launch"), (e) -> onLaunch());
 		this.launchArgsAction = actionItem(language.getHTML("preset.launch.title.args"), (e) -> onLaunchWithArgs());
+		this.launchGroupAction = actionItem(language.getHTML("preset.launch.title.group"), (e) -> onLaunchGroup());
+		this.launchesAction = actionItem(language.getHTML("preset.launches"), (e) -> onLaunches());
+
+		this.prestageTimer = new Timer(PRESTAGE_DELAY_MILLIS, (e) -> onPrestage());
+		this.prestageTimer.setRepeats(false);
 
 		this.launchOtherbutton = button("\u25bc" /* Black Down-pointing Triangle */, this::doLaunchOptionsPopupTrigger); 
 
 		this.launchPopupMenu = popupMenu(
-			menuItem(launchArgsAction)
+			menuItem(launchArgsAction),
+			menuItem(launchGroupAction),
+			separator(),
+			menuItem(launchesAction)
 		);
 		
 		onSelection();
 
-		this.messenger.subscribe(MessengerManager.CHANNEL_PRESETS_CHANGED, (message) -> presetTable.refreshPresets());
+		this.messenger.subscribe(MessengerManager.CHANNEL_PRESETS_CHANGED, (message) -> SwingUtils.invoke(() -> presetTable.refreshPresets()));
 		
 		containerOf(this, borderLayout(8, 0),
 			node(BorderLayout.CENTER, presetTable),
@@ -120,6 +153,8 @@ public class PresetTableControlPanel extends JPanel
 					node(button(createAction)),
 					node(button(removeAction)),
 					node(button(openFolderAction)),
+					node(button(timingsAction)),
+					node(button(consoleAction)),
 					node(button(cleanupFoldersAction)),
 					node(containerOf(borderLayout(),
 						node(BorderLayout.CENTER, button(launchAction)),
@@ -329,6 +364,112 @@ public class PresetTableControlPanel extends JPanel
 		DoomyCommon.openInSystemBrowser(presetDir);
 	}
 
+	private void onTimings()
+	{
+		PresetInfo source = presetTable.getSelectedPresets().get(0);
+		LaunchTimingManager timingManager = LaunchTimingManager.get();
+		int runs = LaunchTimingManager.DEFAULT_RUNS;
+		
+		PhaseStatistics[] statistics = timingManager.getStatistics(source.id, runs);
+		PresetTiming[] timings = timingManager.getTimings(source.id, runs);
+		
+		final TextOutputPanel textOutputPanel = new TextOutputPanel();
+		if (statistics.length == 0)
+		{
+			textOutputPanel.writeString(language.getText("preset.timings.none"));
+		}
+		else
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(language.getText("preset.timings.percentiles", statistics[0].runs)).append("\n\n");
+			sb.append(String.format("%-10s %11s %11s %11s %11s %11s\n", 
+				language.getText("preset.timings.header.phase"), 
+				language.getText("preset.timings.header.median"), 
+				language.getText("preset.timings.header.p90"), 
+				language.getText("preset.timings.header.p99"), 
+				language.getText("preset.timings.header.max"), 
+				language.getText("preset.timings.header.bytes")
+			));
+			for (PhaseStatistics phase : statistics)
+			{
+				sb.append(String.format("%-10s %11.1f %11.1f %11.1f %11.1f %11.1f\n", 
+					phase.phase.getName(), 
+					phase.p50Nanos / 1000000.0, 
+					phase.p90Nanos / 1000000.0, 
+					phase.p99Nanos / 1000000.0, 
+					phase.maxNanos / 1000000.0, 
+					phase.p50Bytes / (1024.0 * 1024.0)
+				));
+			}
+			
+			sb.append('\n').append(language.getText("preset.timings.runs.title")).append("\n\n");
+			sb.append(String.format("%-19s %-12s %11s %11s %11s\n", 
+				language.getText("preset.timings.header.launched"), 
+				language.getText("preset.timings.header.version"), 
+				language.getText("preset.timings.header.prepare"), 
+				language.getText("preset.timings.header.run"), 
+				language.getText("preset.timings.header.total")
+			));
+			SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+			// Newest first, from timings ordered oldest first.
+			for (int i = timings.length - 1; i >= 0; i--)
+			{
+				if (Phase.get(timings[i].phase) != Phase.TOTAL)
+					continue;
+				long launched = timings[i].launched;
+				long prepare = 0L, run = 0L;
+				for (PresetTiming timing : timings)
+				{
+					if (timing.launched != launched)
+						continue;
+					if (Phase.get(timing.phase) == Phase.PREPARE)
+						prepare = timing.nanos;
+					else if (Phase.get(timing.phase) == Phase.RUN)
+						run = timing.nanos;
+				}
+				sb.append(String.format("%-19s %-12s %11.1f %11.1f %11.1f\n", 
+					dateFormat.format(new Date(launched)), 
+					timings[i].version, 
+					prepare / 1000000.0, 
+					run / 1000000.0, 
+					timings[i].nanos / 1000000.0
+				));
+			}
+			textOutputPanel.writeString(sb.toString());
+			textOutputPanel.setCaretPosition(0);
+		}
+		
+		modal(this, language.getText("preset.timings.title", source.name != null ? source.name : source.hash), 
+			containerOf(borderLayout(),
+				node(BorderLayout.CENTER, scroll(textOutputPanel))
+			)
+		).openThenDispose();
+	}
+
+	private void onConsole()
+	{
+		PresetInfo source = presetTable.getSelectedPresets().get(0);
+		RingBufferOutputStream console = launcherManager.getConsole(source.id);
+		
+		final TextOutputPanel textOutputPanel = new TextOutputPanel();
+		if (console == null)
+		{
+			textOutputPanel.writeString(language.getText("preset.console.none"));
+		}
+		else
+		{
+			if (console.getDropped() > 0L)
+				textOutputPanel.writeString(language.getText("preset.console.dropped", console.getDropped()) + "\n\n");
+			textOutputPanel.writeString(console.toString());
+		}
+		
+		modal(this, language.getText("preset.console.title", source.name != null ? source.name : source.hash), 
+			containerOf(borderLayout(),
+				node(BorderLayout.CENTER, scroll(textOutputPanel))
+			)
+		).openThenDispose();
+	}
+
 	private void onCleanup()
 	{
 		if (SwingUtils.noTo(this, language.getText("preset.cleanup.message")))
@@ -423,7 +564,7 @@ public class PresetTableControlPanel extends JPanel
 		if (selectedPresets.isEmpty())
 			return;
 
-		doLaunchTask(selectedPresets.get(0));
+		doLaunchTask(selectedPresets.get(0), null);
 	}
 
 	private void onLaunchWithArgs()
@@ -449,10 +590,89 @@ public class PresetTableControlPanel extends JPanel
 		Deque<String> argDeque = DoomyMain.parseInput(argsInputField.getValue());
 		String[] args = argDeque.toArray(new String[argDeque.size()]);
 		
-		doLaunchTask(selectedPresets.get(0), args);
+		doLaunchTask(selectedPresets.get(0), null, args);
+	}
+
+	private void onLaunchGroup()
+	{
+		List<PresetInfo> selectedPresets = presetTable.getSelectedPresets();
+		if (selectedPresets.isEmpty())
+			return;
+
+		JFormField<Integer> clientsInputField = integerField(1);
+		JFormField<String> argsInputField = stringField(false, true);
+		
+		Boolean ok = modal(this,
+			language.getText("preset.launch.title.group"),
+			containerOf(dimension(320, 50), gridLayout(2, 1, 0, 2),
+				node(containerOf(borderLayout(8, 0),
+					node(BorderLayout.LINE_START, label(language.getText("preset.launch.group.clients"))),
+					node(BorderLayout.CENTER, clientsInputField)
+				)),
+				node(containerOf(borderLayout(8, 0),
+					node(BorderLayout.LINE_START, label(language.getText("preset.launch.group.args"))),
+					node(BorderLayout.CENTER, argsInputField)
+				))
+			),
+			gui.createChoiceFromLanguageKey("preset.launch.choice", (Boolean)true),
+			gui.createChoiceFromLanguageKey("choice.cancel", (Boolean)false)
+		).openThenDispose();
+		
+		if (ok != Boolean.TRUE)
+			return;
+		
+		Integer clients = clientsInputField.getValue();
+		if (clients == null || clients < 0)
+		{
+			SwingUtils.error(this, language.getText("preset.launch.group.clients.bad"));
+			return;
+		}
+		
+		Deque<String> argDeque = DoomyMain.parseInput(argsInputField.getValue());
+		String[] args = argDeque.toArray(new String[argDeque.size()]);
+		
+		doLaunchTask(selectedPresets.get(0), clients, args);
 	}
 
-	private void doLaunchTask(PresetInfo selectedPreset, final String ... args)
+	private void onLaunches()
+	{
+		List<Launch> launches = launcherManager.getLaunches();
+		TextOutputPanel textOutputPanel = new TextOutputPanel();
+		PrintStream out = textOutputPanel.getPrintStream();
+		if (launches.isEmpty())
+		{
+			out.println(language.getText("preset.launches.none"));
+		}
+		else
+		{
+			long now = System.currentTimeMillis();
+			out.printf("%-6s %-24s %-8s %-10s %s\n", 
+				language.getText("preset.launches.header.id"), 
+				language.getText("preset.launches.header.preset"), 
+				language.getText("preset.launches.header.role"), 
+				language.getText("preset.launches.header.status"), 
+				language.getText("preset.launches.header.elapsed")
+			);
+			for (Launch launch : launches)
+			{
+				Preset preset = launch.getPreset();
+				out.printf("%-6d %-24s %-8s %-10s %d s%s\n",
+					launch.getId(),
+					preset.name != null ? preset.name : preset.hash,
+					launch.getRole().name().toLowerCase(),
+					launch.getStatus().name().toLowerCase(),
+					(now - launch.getStarted()) / 1000L,
+					launch.isSyncing() ? " " + language.getText("preset.launches.syncing") : ""
+				);
+			}
+		}
+		modal(this, language.getText("preset.launches.title"), containerOf(dimension(560, 240), borderLayout(),
+			node(BorderLayout.CENTER, scroll(textOutputPanel))
+		)).openThenDispose();
+	}
+
+	// Clients is null for a single launch.
+	private void doLaunchTask(PresetInfo selectedPreset, final Integer clients, final String ... args)
 	{
 		final TextOutputPanel textOutputPanel = new TextOutputPanel();
 		final PrintStream outStream = textOutputPanel.getPrintStream();
@@ -496,8 +716,16 @@ public class PresetTableControlPanel extends JPanel
 			}
 		};
 		
-		final Modal<Void> outputModal = modal(this, language.getText("preset.launch.title"), containerOf(borderLayout(),
-			node(BorderLayout.CENTER, textOutputPanel)
+		final JProgressBar progressBar = progressBar(ProgressBarOrientation.HORIZONTAL);
+		final JLabel progressLabel = label("                 ");
+		final AtomicBoolean cancelSwitch = new AtomicBoolean(false);
+		
+		final Modal<Void> outputModal = modal(this, language.getText("preset.launch.title"), containerOf(borderLayout(0, 8),
+			node(BorderLayout.CENTER, textOutputPanel),
+			node(BorderLayout.SOUTH, containerOf(dimension(1, 24), borderLayout(8, 0),
+				node(BorderLayout.CENTER, progressBar),
+				node(BorderLayout.LINE_END, progressLabel)
+			))
 		));
 		
 		final BlockingQueue<Boolean> signal = new LinkedBlockingQueue<>();
@@ -508,9 +736,36 @@ public class PresetTableControlPanel extends JPanel
 		{
 			signal.poll();
 			try {
-				launcherManager.run(ioHandler, preset, args, false);
+				// Closing the window while files are being prepared cancels the launch.
+				// Once the engines have started, the window closes so that other presets can be launched - 
+				// no task thread waits for them, and errors after they exit are shown on their own.
+				TransferProgress.Listener listener = (current, total, percent) -> 
+				{
+					SwingUtils.invoke(() -> {
+						progressBar.setMinimum(0);
+						progressBar.setMaximum(100);
+						progressBar.setValue((int)percent);
+						progressLabel.setText((current / (1024 * 1024)) + " / " + (total / (1024 * 1024)) + " MB");
+					});
+					return cancelSwitch.get();
+				};
+				List<CompletableFuture<Integer>> instances = clients != null
+					? launcherManager.launchGroup(ioHandler, preset, clients, args, false, listener)
+					: Collections.singletonList(launcherManager.launch(ioHandler, preset, args, false, listener));
+				for (CompletableFuture<Integer> instance : instances)
+				{
+					// Completes on the launcher's thread, not the event thread.
+					instance.whenComplete((result, exception) -> 
+					{
+						if (exception != null)
+						{
+							final String message = exception.getCause() != null ? exception.getCause().getLocalizedMessage() : exception.getLocalizedMessage();
+							SwingUtils.invoke(() -> SwingUtils.error(this, message));
+						}
+					});
+				}
 			} catch (LaunchException e) {
-				SwingUtils.error(this, e.getLocalizedMessage());
+				SwingUtils.invoke(() -> SwingUtils.error(this, e.getLocalizedMessage()));
 			} finally {
 				outputModal.dispose();
 			}
@@ -518,6 +773,7 @@ public class PresetTableControlPanel extends JPanel
 		
 		signal.offer(true);
 		outputModal.openThenDispose();
+		cancelSwitch.set(true);
 	}
 
 	private void doLaunchOptionsPopupTrigger(JButton b)
@@ -532,6 +788,20 @@ public class PresetTableControlPanel extends JPanel
 		launchAction.setEnabled(presets.size() == 1);
 		launchOtherbutton.setEnabled(presets.size() == 1);
 		openFolderAction.setEnabled(presets.size() == 1);
+		timingsAction.setEnabled(presets.size() == 1);
+		consoleAction.setEnabled(presets.size() == 1);
+		// Moving through the table should not start (and cancel) a pass per row.
+		if (presets.size() == 1)
+			prestageTimer.restart();
+		else
+			prestageTimer.stop();
+	}
+
+	private void onPrestage()
+	{
+		List<PresetInfo> presets = presetTable.getSelectedPresets();
+		if (presets.size() == 1)
+			PrestageManager.get().prestage(presets.get(0).id);
 	}
 
 }
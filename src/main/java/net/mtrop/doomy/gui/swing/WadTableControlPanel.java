@@ -12,13 +12,16 @@ import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
-import net.mtrop.doomy.DoomyCommon;
 import net.mtrop.doomy.managers.GUIManager;
 import net.mtrop.doomy.managers.LanguageManager;
+import net.mtrop.doomy.managers.LibraryWatchManager;
 import net.mtrop.doomy.managers.MessengerManager;
 import net.mtrop.doomy.managers.TaskManager;
 import net.mtrop.doomy.managers.WADManager;
+import net.mtrop.doomy.managers.WADManager.BatchResult;
 import net.mtrop.doomy.managers.WADManager.WAD;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
 import net.mtrop.doomy.struct.swing.ComponentFactory;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormField;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormPanel.LabelJustification;
@@ -44,12 +47,14 @@ import java.io.Reader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -106,7 +111,7 @@ public class WadTableControlPanel extends JPanel
 		
 		onSelection();
 
-		this.messenger.subscribe(MessengerManager.CHANNEL_WADS_CHANGED, (message) -> wadTable.refreshWADs());
+		this.messenger.subscribe(MessengerManager.CHANNEL_WADS_CHANGED, (message) -> SwingUtils.invoke(() -> wadTable.refreshWADs()));
 
 		containerOf(this, borderLayout(8, 0),
 			node(BorderLayout.CENTER, wadTable),
@@ -281,6 +286,7 @@ public class WadTableControlPanel extends JPanel
 		final JFormField<String> suffixField = stringField("", false, true);
 		final JFormField<Boolean> recurseField = checkBoxField(checkBox(true));
 		final JFormField<Boolean> updateExistingField = checkBoxField(checkBox(false));
+		final JFormField<Boolean> watchField = checkBoxField(checkBox(false));
 		final JFormField<File> directoryField = fileField(null, language.getText("file.browse"), 
 			(current) -> {
 				File chosen = gui.chooseDirectory(this, 
@@ -294,13 +300,14 @@ public class WadTableControlPanel extends JPanel
 		);
 		
 		Boolean doScan = modal(this, language.getText("wads.scan.form.title"),
-			containerOf(dimension(400, 120), borderLayout(0, 0),
+			containerOf(dimension(400, 144), borderLayout(0, 0),
 				node(BorderLayout.NORTH, gui.createForm(form(LabelSide.LEADING, LabelJustification.LEADING, language.getInteger("wads.scan.form.width")),
 					gui.formField("wads.scan.form.path", directoryField),
 					gui.formField("wads.scan.form.prefix", prefixField),
 					gui.formField("wads.scan.form.suffix", suffixField),
 					gui.formField("wads.scan.form.recurse", recurseField),
-					gui.formField("wads.scan.form.update", updateExistingField)
+					gui.formField("wads.scan.form.update", updateExistingField),
+					gui.formField("wads.scan.form.watch", watchField)
 				))
 			),
 			gui.createChoiceFromLanguageKey("wads.scan.choice.add", (Boolean)true),
@@ -332,21 +339,18 @@ public class WadTableControlPanel extends JPanel
 		String suffix = suffixField.getValue();
 		boolean recurse = recurseField.getValue();
 		boolean force = updateExistingField.getValue();
+		boolean watch = watchField.getValue();
 		
 		final String[] FILETYPES = {"PK3", "PK7", "PKE", "WAD", "ZIP"};
 		
 		final FileFilter WADFILTER = (file) ->
 		{
-			if (file.isDirectory())
-				return true;
 			String ext = FileUtils.getFileExtension(file).toUpperCase();
 			return Arrays.binarySearch(FILETYPES, ext) >= 0;
 		};
 		
 		final AtomicBoolean cancelSwitch = new AtomicBoolean(false);
-		final AtomicInteger addedCount = new AtomicInteger(0);
-		final AtomicInteger updatedCount = new AtomicInteger(0);
-		final List<File> filesToAdd = new LinkedList<>();
+		final Map<String, ScannedFile> filesToAdd = new LinkedHashMap<>();
 		
 		final JLabel progressLabel = label("");
 
@@ -361,25 +365,18 @@ public class WadTableControlPanel extends JPanel
 		taskManager.spawn(() -> 
 		{
 			signal.poll();
-			DoomyCommon.scanAndListen(startDir, recurse, WADFILTER, (file) -> 
+			List<ScannedFile> files = FileScanner.scan(startDir, recurse, WADFILTER, cancelSwitch, (file, count) -> 
 			{
 				SwingUtils.invoke(() -> {
-					progressLabel.setText(file.getPath());
+					progressLabel.setText(file.file.getPath());
 				});
-				
-				String name = (prefix + FileUtils.getFileNameWithoutExtension(file) + suffix).toLowerCase();
-				boolean containsWAD = wadManager.containsWAD(name);
-				if (containsWAD && force)
-				{
-					updatedCount.incrementAndGet();
-					filesToAdd.add(file);
-				}
-				else if (!containsWAD)
-				{
-					addedCount.incrementAndGet();
-					filesToAdd.add(file);
-				}
 			});
+			for (ScannedFile scanned : files)
+			{
+				String name = (prefix + FileUtils.getFileNameWithoutExtension(scanned.file) + suffix).toLowerCase();
+				if (!filesToAdd.containsKey(name))
+					filesToAdd.put(name, scanned);
+			}
 			cancelProgressModal.dispose();
 		});
 
@@ -392,80 +389,47 @@ public class WadTableControlPanel extends JPanel
 		if (cancelSwitch.get())
 			return;
 
-		final int totalCount = addedCount.get() + updatedCount.get();
-		final JProgressBar progressBar = progressBar(ProgressBarOrientation.HORIZONTAL);
-		final JLabel progressMessage = label("");
-		progressLabel.setText("0%");
-		
-		SwingUtils.invoke(() -> {
-			progressBar.setMinimum(0);
-			progressBar.setIndeterminate(true);
-			progressBar.setMaximum(totalCount);
-		});
-		
-		if (totalCount > 0)
+		final AtomicReference<BatchResult> result = new AtomicReference<>(new BatchResult());
+		if (!filesToAdd.isEmpty())
 		{
-			final Modal<Boolean> cancelProgressModal2 = modal(this, language.getText("wads.scan.adding.title"), 
-				containerOf(dimension(350, 48), borderLayout(8, 0),
-					node(BorderLayout.NORTH, progressMessage),
-					node(BorderLayout.CENTER, progressBar),
-					node(BorderLayout.LINE_END, progressLabel)
-				),
-				gui.createChoiceFromLanguageKey("choice.cancel", (Boolean)true)
+			final JProgressBar progressBar = progressBar(ProgressBarOrientation.HORIZONTAL);
+			SwingUtils.invoke(() -> {
+				progressBar.setIndeterminate(true);
+			});
+			
+			// All added in one transaction - nothing to cancel partway.
+			final Modal<Boolean> progressModal = modal(this, language.getText("wads.scan.adding.title"), 
+				containerOf(dimension(350, 24), borderLayout(8, 0),
+					node(BorderLayout.CENTER, progressBar)
+				)
 			);
 			
 			taskManager.spawn(() -> 
 			{
 				signal.poll();
-
-				// Do update.
-				AtomicInteger count = new AtomicInteger(0);
-				
-				for (File file : filesToAdd)
-				{
-					if (cancelSwitch.get())
-						return;
-
-					String name = (prefix + FileUtils.getFileNameWithoutExtension(file)).toLowerCase();
-					if (wadManager.containsWAD(name) && force)
-					{
-						wadManager.setWADPath(name, file.getPath());
-						int c = count.incrementAndGet();
-						SwingUtils.invoke(() -> {
-							progressMessage.setText(language.getText("wads.scan.adding.updating", file.getPath()));
-							progressBar.setValue(c);
-							progressBar.setIndeterminate(false);
-							progressLabel.setText((int)(((float)c / totalCount) * 100) + "%");
-						});
-					}
-					else if (!wadManager.containsWAD(name))
-					{
-						wadManager.addWAD(name, file.getPath());
-						int c = count.incrementAndGet();
-						SwingUtils.invoke(() -> {
-							progressMessage.setText(language.getText("wads.scan.adding.adding", file.getPath()));
-							progressBar.setValue(c);
-							progressBar.setIndeterminate(false);
-							progressLabel.setText((int)(((float)c / totalCount) * 100) + "%");
-						});
-					}
+				try {
+					result.set(wadManager.addOrUpdateWADs(startDir.getAbsolutePath(), filesToAdd, force, false));
+				} finally {
+					progressModal.dispose();
 				}
-				cancelProgressModal2.dispose();
 			});
 
 			signal.offer(true); // alert thread
-			
-			out = cancelProgressModal2.openThenDispose();
-			if (out == Boolean.TRUE)
-				cancelSwitch.set(true);
-
+			progressModal.openThenDispose();
 			wadTable.refreshWADs();
-			
-			if (cancelSwitch.get())
-				return;
 		}
 		
-		SwingUtils.info(this, language.getText("wads.scan.adding.result", addedCount.get(), updatedCount.get()));
+		if (watch)
+		{
+			taskManager.spawn(() -> 
+			{
+				LibraryWatchManager watchManager = LibraryWatchManager.get(); 
+				watchManager.setScanRoot(LibraryWatchManager.TYPE_WAD, startDir.getAbsolutePath(), prefix, suffix, recurse);
+				watchManager.start();
+			});
+		}
+		
+		SwingUtils.info(this, language.getText("wads.scan.adding.result", result.get().added, result.get().updated));
 	}
 	
 	// Called on WAD cleanup.
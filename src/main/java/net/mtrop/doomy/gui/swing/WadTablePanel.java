@@ -5,13 +5,19 @@
  ******************************************************************************/
 package net.mtrop.doomy.gui.swing;
 
+import javax.swing.JCheckBox;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 import javax.swing.event.MouseInputAdapter;
 
 import net.mtrop.doomy.managers.LanguageManager;
+import net.mtrop.doomy.managers.TaskManager;
 import net.mtrop.doomy.managers.WADManager;
 import net.mtrop.doomy.managers.WADManager.WAD;
+import net.mtrop.doomy.managers.WADSearchManager;
+import net.mtrop.doomy.managers.WADSearchManager.SearchResult;
 import net.mtrop.doomy.struct.swing.FormFactory.JFormField;
+import net.mtrop.doomy.struct.swing.SwingUtils;
 import net.mtrop.doomy.struct.swing.TableFactory.JObjectTable;
 
 import static net.mtrop.doomy.struct.swing.ContainerFactory.*;
@@ -23,7 +29,11 @@ import static net.mtrop.doomy.struct.swing.LayoutFactory.*;
 import java.awt.BorderLayout;
 import java.awt.event.MouseEvent;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -33,13 +43,28 @@ public class WadTablePanel extends JPanel
 {
 	private static final long serialVersionUID = 5567427378826188364L;
 	
+	/** Maximum amount of full-text search results shown. */
+	private static final int SEARCH_LIMIT = 500;
+	/** Typing pause before a full-text search is run, in milliseconds. */
+	private static final int SEARCH_DELAY_MILLIS = 250;
+
 	private final WADManager wadManager;
+	private final WADSearchManager searchManager;
+	private final TaskManager taskManager;
 	private final LanguageManager language;
 	
 	/** The WAD filter field. */
 	private JFormField<String> filterField;
+	/** The full-text search mode checkbox. */
+	private JCheckBox searchCheckBox;
 	/** The WAD table. */
 	private JObjectTable<WAD> wadTable;
+	/** All WADs, as last listed. */
+	private List<WAD> allWADs;
+	/** Runs a full-text search once typing pauses. */
+	private Timer searchTimer;
+	/** Incremented for each full-text search, so that only the latest one's results are shown. */
+	private AtomicLong searchGeneration;
 	
 	/**
 	 * Creates a new WAD Table panel.
@@ -53,11 +78,19 @@ public class WadTablePanel extends JPanel
 		final Consumer<MouseEvent> doubleClickListener
 	){
 		this.wadManager = WADManager.get();
+		this.searchManager = WADSearchManager.get();
+		this.taskManager = TaskManager.get();
 		this.language = LanguageManager.get();
 		
 		this.filterField = stringField(this::onFilterChange);
+		this.searchCheckBox = checkBox(language.getText("wads.filter.search"), false, this::onSearchModeChange);
+		this.searchCheckBox.setToolTipText(language.getText("wads.filter.search.tip"));
+		this.allWADs = Arrays.asList(wadManager.getAllWADs());
+		this.searchTimer = new Timer(SEARCH_DELAY_MILLIS, (e) -> onSearch(filterField.getValue()));
+		this.searchTimer.setRepeats(false);
+		this.searchGeneration = new AtomicLong(0L);
 		this.wadTable = objectTable(selectionPolicy, 
-			objectTableModel(WAD.class, Arrays.asList(wadManager.getAllWADs())), 
+			objectTableModel(WAD.class, allWADs), 
 			selectionListener
 		);
 		this.wadTable.addMouseListener(new MouseInputAdapter() 
@@ -76,7 +109,8 @@ public class WadTablePanel extends JPanel
 		containerOf(this, dimension(450, 250), borderLayout(0, 8),
 			node(BorderLayout.NORTH, containerOf(borderLayout(8, 0),
 				node(BorderLayout.LINE_START, label(language.getText("wads.filter"))),
-				node(BorderLayout.CENTER, filterField)
+				node(BorderLayout.CENTER, filterField),
+				node(BorderLayout.LINE_END, searchCheckBox)
 			)),
 			node(BorderLayout.CENTER, scroll(wadTable))
 		);
@@ -84,8 +118,64 @@ public class WadTablePanel extends JPanel
 	
 	private void onFilterChange(String filter)
 	{
-		final String filterLower = filter.toLowerCase();
-		wadTable.setRowFilter((wad) -> wad.name.toLowerCase().contains(filterLower));
+		if (searchCheckBox.isSelected() && !filter.trim().isEmpty())
+		{
+			searchTimer.restart();
+		}
+		else
+		{
+			searchTimer.stop();
+			searchGeneration.incrementAndGet();
+			if (searchCheckBox.isSelected())
+				wadTable.getTableModel().setRows(allWADs);
+			final String filterLower = filter.toLowerCase();
+			wadTable.setRowFilter((wad) -> wad.name.toLowerCase().contains(filterLower));
+		}
+	}
+	
+	// Runs a full-text search off of the event thread, and shows the results if no newer search was started.
+	private void onSearch(final String filter)
+	{
+		final long generation = searchGeneration.incrementAndGet();
+		final List<WAD> listing = allWADs;
+		taskManager.spawn(() -> 
+		{
+			// Ranked full-text results, best first.
+			final Map<Long, Integer> order = new HashMap<>();
+			for (SearchResult result : searchManager.search(filter, SEARCH_LIMIT))
+				order.put(result.id, order.size());
+			final List<WAD> rows = new LinkedList<>();
+			for (WAD wad : listing)
+				if (order.containsKey(wad.id))
+					rows.add(wad);
+			rows.sort((a, b) -> order.get(a.id) - order.get(b.id));
+			SwingUtils.invoke(() -> 
+			{
+				if (generation != searchGeneration.get() || !searchCheckBox.isSelected())
+					return;
+				wadTable.getRowSorter().setSortKeys(null);
+				wadTable.getTableModel().setRows(rows);
+				wadTable.setRowFilter((wad) -> true);
+			});
+		});
+	}
+	
+	private void onSearchModeChange(boolean search)
+	{
+		if (search)
+		{
+			// Read text files for WADs that have never been indexed, then search.
+			taskManager.spawn(() -> 
+			{
+				searchManager.update(false, null);
+				SwingUtils.invoke(() -> onFilterChange(filterField.getValue()));
+			});
+		}
+		else
+		{
+			wadTable.getTableModel().setRows(allWADs);
+			onFilterChange(filterField.getValue());
+		}
 	}
 	
 	/**
@@ -101,7 +191,11 @@ public class WadTablePanel extends JPanel
 	 */
 	public void refreshWADs()
 	{
-		wadTable.getTableModel().setRows(Arrays.asList(wadManager.getAllWADs()));
+		allWADs = Arrays.asList(wadManager.getAllWADs());
+		if (searchCheckBox.isSelected())
+			onSearchModeChange(true);
+		else
+			wadTable.getTableModel().setRows(allWADs);
 	}
 	
 }
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.struct.EntityCache;
+import net.mtrop.doomy.struct.SingletonProvider;
+
+/**
+ * Entity cache singleton.
+ * Holds the read-through caches that sit in front of the entity lookups of the other managers.
+ * Caches are cleared by their managers' mutators, by the messenger's change channels,
+ * and when the database was changed by another connection (like another Doomy process).
+ * Mutators in a unit of work clear them again once it commits (see {@link DatabaseManager#invalidateCaches(String...)}).
+ * @author Matthew Tropiano
+ */
+public final class CacheManager
+{
+	/** System property for the maximum amount of entries per cache. */
+	public static final String PROPERTY_SIZE = "doomy.cache.size";
+	/** Default maximum amount of entries per cache. */
+	public static final int DEFAULT_SIZE = 1024;
+
+	/** WAD cache name. */
+	public static final String CACHE_WADS = "wads";
+	/** IWAD cache name. */
+	public static final String CACHE_IWADS = "iwads";
+	/** Engine cache name. */
+	public static final String CACHE_ENGINES = "engines";
+	/** Engine settings cache name. */
+	public static final String CACHE_ENGINE_SETTINGS = "engine.settings";
+	/** Preset cache name. */
+	public static final String CACHE_PRESETS = "presets";
+
+	// Singleton instance.
+	private static final SingletonProvider<CacheManager> INSTANCE = new SingletonProvider<>(() -> new CacheManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static CacheManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** The caches, by name. */
+	private final Map<String, EntityCache<String, ?>> caches;
+
+	private CacheManager()
+	{
+		this.caches = new TreeMap<>();
+
+		// Presets refer to everything else, and are removed along with what they refer to.
+		MessengerManager messenger = MessengerManager.get();
+		messenger.subscribe(MessengerManager.CHANNEL_WADS_CHANGED, (message) -> invalidate(CACHE_WADS, CACHE_PRESETS));
+		messenger.subscribe(MessengerManager.CHANNEL_IWADS_CHANGED, (message) -> invalidate(CACHE_IWADS, CACHE_PRESETS));
+		messenger.subscribe(MessengerManager.CHANNEL_ENGINES_CHANGED, (message) -> invalidate(CACHE_ENGINES, CACHE_ENGINE_SETTINGS, CACHE_PRESETS));
+		messenger.subscribe(MessengerManager.CHANNEL_PRESETS_CHANGED, (message) -> invalidate(CACHE_PRESETS));
+	}
+
+	/**
+	 * Gets a cache by name, creating it if it does not exist.
+	 * Before each lookup, the cache checks the database for changes made elsewhere (see {@link DatabaseManager#checkForChanges()}).
+	 * @param <V> the entity type.
+	 * @param name the cache name.
+	 * @param copier the function to use for copying entities, if the cache is created.
+	 * @param database the database that the cached entities are read from, if the cache is created.
+	 * @return the cache.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <V> EntityCache<String, V> getCache(String name, UnaryOperator<V> copier, DatabaseManager database)
+	{
+		EntityCache<String, ?> out;
+		if ((out = caches.get(name)) == null)
+			caches.put(name, out = new EntityCache<>(name, Integer.getInteger(PROPERTY_SIZE, DEFAULT_SIZE), copier, database::checkForChanges));
+		return (EntityCache<String, V>)out;
+	}
+
+	/**
+	 * Clears caches by name. Caches that do not exist are skipped.
+	 * @param names the cache names.
+	 */
+	public synchronized void invalidate(String ... names)
+	{
+		for (String name : names)
+		{
+			EntityCache<String, ?> cache;
+			if ((cache = caches.get(name)) != null)
+				cache.clear();
+		}
+	}
+
+	/**
+	 * Clears all caches.
+	 */
+	public synchronized void invalidateAll()
+	{
+		for (EntityCache<String, ?> cache : caches.values())
+			cache.clear();
+	}
+
+	/**
+	 * @return all caches, sorted by name.
+	 */
+	public synchronized EntityCache<?, ?>[] getAllCaches()
+	{
+		return caches.values().toArray(new EntityCache<?, ?>[caches.size()]);
+	}
+
+}
@@ -5,6 +5,8 @@
  ******************************************************************************/
 package net.mtrop.doomy.managers;
 
+import java.util.Arrays;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.blackrook.sql.SQLConnection;
@@ -25,6 +27,10 @@ public final class ConfigManager
 	public static final String SETTING_IDGAMES_DOWNLOAD_DIR = "doomy.file.idgames.download.dir";
 	public static final String SETTING_FILECHOOSER_DEFAULT_DIR = "doomy.filechooser.default.dir";
 	public static final String SETTING_LASTFILE = "doomy.file.last";
+	public static final String SETTING_STAGING_MAX_SIZE = "doomy.staging.max.size";
+	public static final String SETTING_EXTRACTION_MAX_SIZE = "doomy.extraction.max.size";
+	public static final String SETTING_SYNC_HASH = "doomy.sync.hash";
+	public static final String SETTING_PRESTAGE_MAX_SIZE = "doomy.prestage.max.size";
 	
 	// ============================== QUERIES ================================
 	
@@ -32,6 +38,8 @@ public final class ConfigManager
 		= "SELECT value FROM Config WHERE name = ?";
 	private static final String QUERY_LIST
 		= "SELECT name, value FROM Config WHERE name LIKE ? ORDER BY name ASC";
+	private static final String QUERY_LIST_PAGE
+		= "SELECT name, value FROM Config WHERE name LIKE ? AND name > ? ORDER BY name ASC LIMIT ?";
 	private static final String QUERY_EXIST
 		= "SELECT EXISTS (SELECT 1 FROM Config WHERE name = ?)";
 	private static final String QUERY_SET
@@ -58,12 +66,18 @@ public final class ConfigManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
 	
 	private ConfigManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	/**
@@ -73,7 +87,7 @@ public final class ConfigManager
 	 */
 	public boolean containsValue(String name)
 	{
-		return connection.getRow(QUERY_EXIST, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, name).getBoolean(0);
 	}
 	
 	/**
@@ -85,9 +99,9 @@ public final class ConfigManager
 	public boolean setValue(String name, String value)
 	{
 		if (containsValue(name))
-			return connection.getUpdateResult(QUERY_SET, value, name).getRowCount() > 0;
+			return connection().getUpdateResult(QUERY_SET, value, name).getRowCount() > 0;
 		else
-			return connection.getUpdateResult(QUERY_ADD, name, value).getRowCount() > 0;
+			return connection().getUpdateResult(QUERY_ADD, name, value).getRowCount() > 0;
 	}
 	
 	/**
@@ -97,7 +111,7 @@ public final class ConfigManager
 	 */
 	public String getValue(String name)
 	{
-		SQLRow row = connection.getRow(QUERY_GET, name);
+		SQLRow row = connection().getRow(QUERY_GET, name);
 		return row != null ? row.getString("value") : null;
 	}
 
@@ -133,7 +147,7 @@ public final class ConfigManager
 	 */
 	public boolean removeValue(String name)
 	{
-		return connection.getUpdateResult(QUERY_REMOVE, name).getRowCount() > 0;
+		return connection().getUpdateResult(QUERY_REMOVE, name).getRowCount() > 0;
 	}
 
 	/**
@@ -143,7 +157,22 @@ public final class ConfigManager
 	 */
 	public ConfigSettingEntry[] getAllValues(String containingPhrase)
 	{
-		return connection.getResult(ConfigSettingEntry.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+		return connection().getResult(ConfigSettingEntry.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+	}
+
+	/**
+	 * Reads settings by name, in name order, one page at a time, so that any amount of them can be listed in constant memory.
+	 * @param containingPhrase the phrase to search for.
+	 * @param consumer called with each one, in order.
+	 * @return the amount of settings read.
+	 */
+	public int forEachValue(String containingPhrase, Consumer<ConfigSettingEntry> consumer)
+	{
+		return RowMapper.get(ConfigSettingEntry.class).forEachPage(connection(), QUERY_LIST_PAGE, new Object[]{""},
+			(entry) -> new Object[]{entry.name},
+			(page) -> Arrays.stream(page).forEach(consumer),
+			DatabaseManager.toSearchPhrase(containingPhrase)
+		);
 	}
 
 	/**
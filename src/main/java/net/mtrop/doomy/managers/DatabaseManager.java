@@ -9,9 +9,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.blackrook.sql.SQLConnection;
 import com.blackrook.sql.SQLConnector;
+import com.blackrook.sql.SQLResult;
+import com.blackrook.sql.SQLRow;
+import com.blackrook.sql.SQLConnection.Transaction;
+import com.blackrook.sql.SQLConnection.TransactionLevel;
+import com.blackrook.sql.util.SQLRuntimeException;
 
 import net.mtrop.doomy.DoomyEnvironment;
 import net.mtrop.doomy.DoomySetupException;
@@ -22,6 +33,10 @@ import net.mtrop.doomy.struct.util.ObjectUtils;
 
 /**
  * Database manager singleton.
+ * <p>Each thread that asks for a connection gets its own, opened in WAL journal mode so that
+ * readers never wait on writers (and other Doomy processes using the same file are tolerated).
+ * <p>Multi-step edits can be made in a {@link UnitOfWork} (see {@link #beginWork()}), which every manager
+ * call on the same thread joins, so that the whole edit commits (or rolls back) once.
  * @author Matthew Tropiano
  */
 public final class DatabaseManager
@@ -29,15 +44,25 @@ public final class DatabaseManager
 	// Singleton instance.
 	private static final SingletonProvider<DatabaseManager> INSTANCE = new SingletonProvider<>(() -> initializeDatabase());
 	
+	/** System property for overriding the busy timeout, in milliseconds. */
+	public static final String PROPERTY_BUSY_TIMEOUT = "doomy.database.busy.timeout";
+	/** Default busy timeout, in milliseconds. */
+	public static final long DEFAULT_BUSY_TIMEOUT = 10000L;
+	/** Least time between checks for changes made by other connections, per thread, in milliseconds. */
+	private static final long CHANGE_CHECK_MILLIS = 250L;
+	
 	private static final String QUERY_META_EXISTS
 		= "SELECT 1 WHERE EXISTS (SELECT name FROM sqlite_master WHERE type='table' AND name='Meta')"; 
 	private static final String QUERY_SET_TABLEVERSION
 		= "UPDATE Meta SET value = ? WHERE name = 'table.version'"; 
 	private static final String QUERY_GET_TABLEVERSION
 		= "SELECT value FROM Meta WHERE name = 'table.version'"; 
+	private static final String QUERY_DATA_VERSION
+		= "PRAGMA data_version"; 
 
-	// Query resources.
-	private static final String[] INIT_QUERIES = {
+	// Schema scripts, by schema version. Each script is applied once, in order -
+	// the table version is the amount of scripts applied, so new versions must only ever append.
+	private static final String[][] SCHEMA_SCRIPTS = {{
 		"sql/v1/init/0001-create-meta.sql",
 		"sql/v1/init/0002-create-config.sql",
 		"sql/v1/init/0003-create-engines.sql",
@@ -52,51 +77,94 @@ public final class DatabaseManager
 		"sql/v1/init/0012-create-enginetemplates.sql",
 		"sql/v1/init/0013-create-enginetemplatessettings.sql",
 		"sql/v1/init/0014-insert-enginetemplates.sql",
-		"sql/v1/init/0015-insert-enginetemplatessettings.sql"
-	};
+		"sql/v1/init/0015-insert-enginetemplatessettings.sql",
+		"sql/v1/init/0016-create-scanroots.sql",
+		"sql/v1/init/0017-create-waddata-index.sql",
+		"sql/v1/init/0018-create-filehashes.sql",
+		"sql/v1/init/0019-create-filehashes-index.sql",
+		"sql/v1/init/0020-create-wadsearch.sql",
+		"sql/v1/init/0021-create-wadsearch-insert-trigger.sql",
+		"sql/v1/init/0022-create-wadsearch-delete-trigger.sql",
+		"sql/v1/init/0023-create-wadsearch-rename-trigger.sql",
+		"sql/v1/init/0024-create-wadsearch-move-trigger.sql"
+	}, {
+		"sql/v2/migrate/0001-create-presetitems-wad-index.sql",
+		"sql/v2/migrate/0002-create-presetitems-sort-index.sql",
+		"sql/v2/migrate/0003-create-presets-engine-index.sql",
+		"sql/v2/migrate/0004-create-presets-iwad-index.sql",
+		"sql/v2/migrate/0005-create-wadnames.sql",
+		"sql/v2/migrate/0006-create-wadnames-insert-trigger.sql",
+		"sql/v2/migrate/0007-create-wadnames-delete-trigger.sql",
+		"sql/v2/migrate/0008-create-wadnames-rename-trigger.sql",
+		"sql/v2/migrate/0009-rebuild-wadnames.sql",
+		"sql/v2/migrate/0010-create-presettimings.sql",
+		"sql/v2/migrate/0011-create-presettimings-delete-trigger.sql",
+		"sql/v2/migrate/0012-delete-orphaned-presettimings.sql"
+	}};
+
+	/** All schema scripts, in order. */
+	private static final String[] MIGRATION_SCRIPTS = Arrays.stream(SCHEMA_SCRIPTS).flatMap(Arrays::stream).toArray(String[]::new);
+	/** The current table version. */
+	static final int TABLE_VERSION = MIGRATION_SCRIPTS.length;
 
 	// Initializes/creates the connector.
 	private static SQLConnector createConnector(File databaseFile)
 	{
-		return new SQLConnector("org.sqlite.JDBC", "jdbc:sqlite:" + databaseFile.getPath().replaceAll("\\\\", "/"));	
+		return new SQLConnector("org.sqlite.JDBC", "jdbc:sqlite:" + databaseFile.getPath().replaceAll("\\\\", "/")
+			+ "?journal_mode=WAL"
+			+ "&synchronous=NORMAL"
+			+ "&busy_timeout=" + Long.getLong(PROPERTY_BUSY_TIMEOUT, DEFAULT_BUSY_TIMEOUT)
+		);	
 	}
 
-	// Initializes/creates the database.
-	private static void initDatabaseFile(File databaseFile)
+	// Reads the table version, or 0 if the database is empty.
+	private static int getTableVersion(SQLConnection conn)
+	{
+		if (conn.getRow(QUERY_META_EXISTS) == null)
+			return 0;
+		return conn.getRow(QUERY_GET_TABLEVERSION).getInt(0);
+	}
+	
+	/**
+	 * Gets the table version that a schema version ends at.
+	 * @param schemaVersion the schema version (1-based).
+	 * @return the table version.
+	 */
+	static int getTableVersion(int schemaVersion)
 	{
-		if (!FileUtils.createPathForFile(databaseFile))
-			throw new DoomySetupException("Could not create database: " + databaseFile.toString());
+		int out = 0;
+		for (int i = 0; i < schemaVersion && i < SCHEMA_SCRIPTS.length; i++)
+			out += SCHEMA_SCRIPTS[i].length;
+		return out;
+	}
+	
+	// Brings the database up to a table version, in one transaction.
+	// If it is already there, the version read is the only work done.
+	private void migrate(int targetVersion) throws SQLException
+	{
+		SQLConnection conn = getConnection();
+		if (getTableVersion(conn) >= targetVersion)
+			return;
 		
-		try 
+		try (Transaction trn = conn.startTransaction(TransactionLevel.SERIALIZABLE))
 		{
-			createConnector(databaseFile).getConnectionAnd((conn) ->
+			// Re-read: another process may have migrated since.
+			int tableVersion = getTableVersion(conn);
+			for (; tableVersion < targetVersion; tableVersion++)
 			{
-				int tableVersion;
-				if (conn.getRow(QUERY_META_EXISTS) != null)
-					tableVersion = conn.getRow(QUERY_GET_TABLEVERSION).getInt(0);
-				else 
-					tableVersion = 0;
-				
-				for (; tableVersion < INIT_QUERIES.length; tableVersion++)
+				String resource = MIGRATION_SCRIPTS[tableVersion];
+				try (InputStream in = IOUtils.openResource(resource))
 				{
-					String resource = INIT_QUERIES[tableVersion];
-					try (InputStream in = IOUtils.openResource(resource))
-					{
-						conn.getUpdateResult(IOUtils.getTextualContents(in, "UTF-8"));
-					} 
-					catch (IOException e) 
-					{
-						throw new DoomySetupException("Internal error: Could not open resource: " + resource, e);
-					}
+					trn.getUpdateResult(IOUtils.getTextualContents(in, "UTF-8"));
+				} 
+				catch (IOException e) 
+				{
+					throw new DoomySetupException("Internal error: Could not open resource: " + resource, e);
 				}
-				conn.getUpdateResult(QUERY_SET_TABLEVERSION, String.valueOf(INIT_QUERIES.length));
-			});
-		} 
-		catch (SQLException e) 
-		{
-			throw new DoomySetupException("Internal error!", e);
+			}
+			trn.getUpdateResult(QUERY_SET_TABLEVERSION, String.valueOf(targetVersion));
+			trn.complete();
 		}
-		
 	}
 
 	/**
@@ -129,13 +197,43 @@ public final class DatabaseManager
 	 */
 	private static DatabaseManager initializeDatabase()
 	{
-		File dbFile = null;
+		return open(new File(DoomyEnvironment.getDatabasePath()));
+	}
+	
+	/**
+	 * Initializes (if needed) and opens a database file.
+	 * @param dbFile the database file.
+	 * @return a new database manager for the file.
+	 * @throws DoomySetupException if the database could not be set up.
+	 */
+	static DatabaseManager open(File dbFile)
+	{
+		return open(dbFile, TABLE_VERSION);
+	}
+	
+	/**
+	 * Initializes (if needed) and opens a database file, migrating it no further than a table version (for tests).
+	 * @param dbFile the database file.
+	 * @param tableVersion the table version to migrate to.
+	 * @return a new database manager for the file.
+	 * @throws DoomySetupException if the database could not be set up.
+	 */
+	static DatabaseManager open(File dbFile, int tableVersion)
+	{
+		if (!FileUtils.createPathForFile(dbFile))
+			throw new DoomySetupException("Could not create database: " + dbFile.toString());
+		
+		// Only clean up a file that this created - never an existing database that failed to migrate.
+		boolean created = !dbFile.exists();
+		DatabaseManager out = null;
 		try {
-			dbFile = new File(DoomyEnvironment.getDatabasePath());
-			initDatabaseFile(dbFile);
-			return new DatabaseManager(dbFile);
-		} catch (SQLException e) {
-			if (dbFile.exists())
+			out = new DatabaseManager(dbFile);
+			out.migrate(tableVersion);
+			return out;
+		} catch (SQLException | SQLRuntimeException e) {
+			if (out != null)
+				out.closeAllConnections();
+			if (created && dbFile.exists())
 				dbFile.delete();
 			throw new DoomySetupException("Could not set up database: " + e.getMessage(), e);
 		}
@@ -148,21 +246,314 @@ public final class DatabaseManager
 	
 	// =======================================================================
 
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database connector. */
+	private SQLConnector connector;
+	/** Open database connections, per thread. */
+	private Map<Thread, SQLConnection> connections;
+	/** The innermost unit of work in progress, per thread. */
+	private ThreadLocal<UnitOfWork> currentWork;
+	/** The last seen data version of the thread's connection, per thread. */
+	private ThreadLocal<DataVersion> dataVersions;
 	
 	private DatabaseManager(File databaseFile) throws SQLException
 	{
-		SQLConnector connector = createConnector(databaseFile);
-		this.connection = connector.getConnection();
+		this.connector = createConnector(databaseFile);
+		this.connections = new ConcurrentHashMap<>(8);
+		this.currentWork = new ThreadLocal<>();
+		this.dataVersions = ThreadLocal.withInitial(() -> new DataVersion());
+		// Test the connection.
+		getConnection();
+	}
+	
+	// Closes the connections held by threads that have ended.
+	private void closeDeadConnections()
+	{
+		Iterator<Map.Entry<Thread, SQLConnection>> it = connections.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Thread, SQLConnection> entry = it.next();
+			if (!entry.getKey().isAlive())
+			{
+				IOUtils.close(entry.getValue());
+				it.remove();
+			}
+		}
 	}
 	
 	/**
+	 * Gets the open connection for the current thread, opening one if it isn't open.
+	 * Connections are thread-confined - do not share them between threads.
 	 * @return the open connection.
+	 * @throws SQLRuntimeException if a connection could not be opened.
 	 */
 	SQLConnection getConnection() 
 	{
-		return connection;
+		Thread current = Thread.currentThread();
+		SQLConnection out;
+		if ((out = connections.get(current)) == null)
+		{
+			closeDeadConnections();
+			try {
+				connections.put(current, out = connector.getConnection());
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Starts a unit of work on the calling thread's connection.
+	 * Until it is closed, every manager call made on this thread runs in its transaction.
+	 * Units of work nest: one started inside another joins it, and only the outermost one commits.
+	 * <p>Use it in a try-with-resources block, and call {@link UnitOfWork#complete()} at the end of the block.
+	 * If any unit of work in a nest closes without completing (for example, on an exception), all of the work rolls back.
+	 * @return the new unit of work.
+	 * @throws SQLRuntimeException if a transaction could not be started.
+	 */
+	public UnitOfWork beginWork()
+	{
+		UnitOfWork parent = currentWork.get();
+		Transaction transaction = null;
+		if (parent == null)
+		{
+			try {
+				transaction = getConnection().startTransaction(TransactionLevel.READ_UNCOMMITTED);
+			} catch (SQLException e) {
+				throw new SQLRuntimeException(e);
+			}
+		}
+		UnitOfWork out = new UnitOfWork(parent, transaction);
+		currentWork.set(out);
+		return out;
+	}
+	
+	/**
+	 * @return true if the calling thread is in a unit of work, false if not.
+	 */
+	public boolean inWork()
+	{
+		return currentWork.get() != null;
+	}
+	
+	/**
+	 * Queues an action to run once the calling thread's outermost unit of work commits.
+	 * The action is dropped if the work rolls back. Does nothing if the calling thread is not in a unit of work.
+	 * @param action the action to run.
+	 */
+	public void onCommit(Runnable action)
+	{
+		UnitOfWork current = currentWork.get();
+		if (current != null)
+			current.getOutermost().committedActions.add(action);
+	}
+	
+	/**
+	 * Clears entity caches by name, and again once the calling thread's outermost unit of work commits (if it is in one),
+	 * so that rows that other threads read and cached before the commit are not kept.
+	 * @param names the cache names.
+	 * @see CacheManager#invalidate(String...)
+	 */
+	public void invalidateCaches(String ... names)
+	{
+		CacheManager.get().invalidate(names);
+		onCommit(() -> CacheManager.get().invalidate(names));
+	}
+	
+	/**
+	 * Clears all entity caches if another connection (another thread, or another process, like the command line
+	 * while the GUI is open) has committed changes since the calling thread last checked.
+	 * The first check on a thread or a new connection counts as a change, since there is nothing to compare to.
+	 * Checks are made at most four times a second per thread.
+	 */
+	public void checkForChanges()
+	{
+		DataVersion last = dataVersions.get();
+		long now = System.currentTimeMillis();
+		if (now - last.checked < CHANGE_CHECK_MILLIS)
+			return;
+		last.checked = now;
+		
+		SQLConnection connection = getConnection();
+		long version = connection.getRow(QUERY_DATA_VERSION).getLong(0);
+		if (last.connection != connection || last.version != version)
+		{
+			last.connection = connection;
+			last.version = version;
+			CacheManager.get().invalidateAll();
+		}
+	}
+	
+	/**
+	 * Closes the current thread's connection, if it has one open.
+	 */
+	public void closeConnection()
+	{
+		SQLConnection connection = connections.remove(Thread.currentThread());
+		if (connection != null)
+			IOUtils.close(connection);
+	}
+	
+	/**
+	 * Closes all open connections.
+	 * This should only be called when no other thread is using the database (e.g. on shutdown).
+	 * Threads that use this manager afterward will open new ones.
+	 */
+	public void closeAllConnections()
+	{
+		Iterator<SQLConnection> it = connections.values().iterator();
+		while (it.hasNext())
+		{
+			IOUtils.close(it.next());
+			it.remove();
+		}
+	}
+	
+	/**
+	 * The data version last seen by a thread.
+	 */
+	private static class DataVersion
+	{
+		private SQLConnection connection;
+		private long version;
+		private long checked;
+		
+		private DataVersion()
+		{
+			this.connection = null;
+			this.version = -1L;
+			this.checked = Long.MIN_VALUE / 2;
+		}
+	}
+	
+	/**
+	 * A unit of work: one transaction on a thread's connection, shared by every manager call on that thread until it closes.
+	 * Queries can be run on it directly, or through any manager.
+	 */
+	public final class UnitOfWork implements AutoCloseable
+	{
+		/** The unit of work that this one joined, or null if this is the outermost one. */
+		private final UnitOfWork parent;
+		/** The transaction (outermost unit of work only). */
+		private final Transaction transaction;
+		/** If true, some unit of work in this nest failed (outermost unit of work only). */
+		private boolean failed;
+		/** Actions to run after the commit (outermost unit of work only). */
+		private final List<Runnable> committedActions;
+		private boolean aborted;
+		private boolean completed;
+		private boolean closed;
+		
+		private UnitOfWork(UnitOfWork parent, Transaction transaction)
+		{
+			this.parent = parent;
+			this.transaction = transaction;
+			this.failed = false;
+			this.committedActions = new LinkedList<>();
+			this.aborted = false;
+			this.completed = false;
+			this.closed = false;
+		}
+		
+		private UnitOfWork getOutermost()
+		{
+			UnitOfWork out = this;
+			while (out.parent != null)
+				out = out.parent;
+			return out;
+		}
+		
+		/**
+		 * Runs a query and gets the first row.
+		 * @param query the query.
+		 * @param parameters the query parameters.
+		 * @return the first row, or null if there were no rows.
+		 */
+		public SQLRow getRow(String query, Object ... parameters)
+		{
+			return getConnection().getRow(query, parameters);
+		}
+		
+		/**
+		 * Runs a query and gets the result.
+		 * @param query the query.
+		 * @param parameters the query parameters.
+		 * @return the result.
+		 */
+		public SQLResult getResult(String query, Object ... parameters)
+		{
+			return getConnection().getResult(query, parameters);
+		}
+		
+		/**
+		 * Runs an update query and gets the result.
+		 * @param query the query.
+		 * @param parameters the query parameters.
+		 * @return the update result.
+		 */
+		public SQLResult getUpdateResult(String query, Object ... parameters)
+		{
+			return getConnection().getUpdateResult(query, parameters);
+		}
+		
+		/**
+		 * Marks this unit of work as done. If it is the outermost one, its transaction is committed,
+		 * and the actions queued by {@link DatabaseManager#onCommit(Runnable)} are run.
+		 * Does nothing if this unit of work was aborted.
+		 * @throws IllegalStateException if this is the outermost unit of work and an inner one failed (everything is rolled back on close).
+		 */
+		public void complete()
+		{
+			if (closed || aborted || completed)
+				return;
+			if (parent == null && failed)
+				throw new IllegalStateException("Unit of work cannot be committed: an inner unit of work failed.");
+			completed = true;
+			if (parent == null)
+			{
+				transaction.complete();
+				for (Runnable action : committedActions)
+					action.run();
+				committedActions.clear();
+			}
+		}
+		
+		/**
+		 * Marks this unit of work as failed. All of the work is rolled back when the outermost unit of work closes.
+		 */
+		public void abort()
+		{
+			if (closed || completed)
+				return;
+			aborted = true;
+			getOutermost().failed = true;
+		}
+		
+		/**
+		 * Closes this unit of work. If it was not completed, all of the work is marked for rollback,
+		 * and if it is the outermost one, its transaction is rolled back and the entity caches are cleared
+		 * (they may hold rows that no longer exist).
+		 */
+		@Override
+		public void close()
+		{
+			if (closed)
+				return;
+			closed = true;
+			if (parent != null)
+			{
+				if (!completed)
+					getOutermost().failed = true;
+				currentWork.set(parent);
+				return;
+			}
+			
+			currentWork.remove();
+			transaction.close();
+			if (!completed)
+				CacheManager.get().invalidateAll();
+		}
+		
 	}
 	
 }
@@ -7,27 +7,55 @@ package net.mtrop.doomy.managers;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
 
 import net.mtrop.doomy.DoomySetupException;
 import net.mtrop.doomy.struct.InstancedFuture;
 import net.mtrop.doomy.struct.InstancedFuture.Cancellable;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
 import net.mtrop.doomy.struct.util.FileUtils;
 import net.mtrop.doomy.struct.util.HTTPUtils;
 import net.mtrop.doomy.struct.util.HTTPUtils.HTTPHeaders;
 import net.mtrop.doomy.struct.util.HTTPUtils.HTTPRequest;
+import net.mtrop.doomy.struct.util.HTTPUtils.HTTPResponse;
+import net.mtrop.doomy.struct.util.ThreadUtils;
 import net.mtrop.doomy.struct.SingletonProvider;
 
 /**
  * Download manager singleton.
+ * Downloads are written to a part file next to the target (see {@link #PART_SUFFIX}), with a small file beside it 
+ * (see {@link #PART_INFO_SUFFIX}) that records where it came from, how to tell if it changed, and how much of it was received.
+ * A download that fails partway is retried with increasing delays, and picks up where it left off if it can - 
+ * even in a later run, if it was cancelled or Doomy was closed. HTTP downloads resume with a <code>Range</code> request 
+ * that is only honored if the file is unchanged (<code>If-Range</code>). The part file becomes the target once complete.
  * @author Matthew Tropiano
  */
 public final class DownloadManager
 {
+	/** Suffix added to the target file name for the file being downloaded. */
+	public static final String PART_SUFFIX = ".part";
+	/** Suffix added to the target file name for the file that describes the file being downloaded. */
+	public static final String PART_INFO_SUFFIX = ".part.properties";
+	/** System property for the amount of attempts made per download. */
+	public static final String PROPERTY_ATTEMPTS = "doomy.download.attempts";
+	/** Default amount of attempts made per download. */
+	public static final int DEFAULT_ATTEMPTS = 5;
+	/** Delay before the first retry, in milliseconds. Each retry after it waits twice as long as the one before. */
+	public static final long RETRY_DELAY_MILLIS = 1000L;
+	/** Longest delay between retries, in milliseconds. */
+	public static final long MAX_RETRY_DELAY_MILLIS = 30000L;
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(DownloadManager.class);
 	// Singleton instance.
 	private static final SingletonProvider<DownloadManager> INSTANCE = new SingletonProvider<>(() -> new DownloadManager());
 
@@ -69,6 +97,7 @@ public final class DownloadManager
 	
 	/**
 	 * Starts a file download and returns a reference to the running task.
+	 * If a part file from an earlier download from the same URL is next to the target, it is resumed if possible.
 	 * @param url the URL to download from.
 	 * @param timeoutMillis the timeout in milliseconds.
 	 * @param targetFile the target file to write.
@@ -83,6 +112,22 @@ public final class DownloadManager
 			return taskManager.spawn(new URLFileDownloadTask(url, timeoutMillis, targetFile, listener));
 	}
 
+	/**
+	 * Starts a file download from an HTTP response that is already open (for example, from a DoomFetch driver),
+	 * and returns a reference to the running task. The response is closed by the task.
+	 * If the transfer fails partway (or a part file from an earlier download from the same URL is next to the target), 
+	 * the response's request is sent again to resume it.
+	 * @param response the open response to read.
+	 * @param timeoutMillis the timeout in milliseconds for requests sent again.
+	 * @param targetFile the target file to write.
+	 * @param listener a listener interface to monitor download progress.
+	 * @return a handle to the download task that returns the file written.
+	 */
+	public InstancedFuture<File> download(final HTTPResponse response, int timeoutMillis, final String targetFile, final FileDownloadListener listener)
+	{
+		return taskManager.spawn(new HTTPFileDownloadTask(response, timeoutMillis, targetFile, listener));
+	}
+
 	// =======================================================================
 
 	/**
@@ -101,14 +146,106 @@ public final class DownloadManager
 		boolean onProgress(long current, long total, long percent);
 	}
 	
-	private static class URLFileDownloadTask extends Cancellable<File>
+	/**
+	 * What is known about a part file.
+	 */
+	private static class PartInfo
 	{
 		private String url;
-		private int timeoutMillis;
+		private String etag;
+		private String lastModified;
+		private long received;
+		private long length;
+
+		private PartInfo(String url)
+		{
+			this.url = url;
+			reset();
+		}
+
+		// Reads the info for a part file, if it is from the same URL.
+		private static PartInfo read(File infoFile, File part, String url)
+		{
+			PartInfo out = new PartInfo(url);
+			if (!part.exists() || !infoFile.exists())
+				return out;
+
+			Properties properties = new Properties();
+			try (FileInputStream in = new FileInputStream(infoFile))
+			{
+				properties.load(in);
+			} catch (IOException e) {
+				LOG.warnf("Could not read download info \"%s\": %s", infoFile.getPath(), e.getMessage());
+				return out;
+			}
+			
+			if (!url.equals(properties.getProperty("url")))
+				return out;
+
+			out.etag = properties.getProperty("etag");
+			out.lastModified = properties.getProperty("lastModified");
+			try {
+				out.length = Long.parseLong(properties.getProperty("length", "-1"));
+			} catch (NumberFormatException e) {
+				out.length = -1L;
+			}
+			// The part file itself is the truth - the info may be from before the last bytes were written.
+			out.received = part.length();
+			return out;
+		}
+
+		// Writes this info. Failure only means that the download cannot be resumed.
+		private void write(File infoFile)
+		{
+			Properties properties = new Properties();
+			properties.setProperty("url", url);
+			if (etag != null)
+				properties.setProperty("etag", etag);
+			if (lastModified != null)
+				properties.setProperty("lastModified", lastModified);
+			properties.setProperty("received", String.valueOf(received));
+			properties.setProperty("length", String.valueOf(length));
+			try (FileOutputStream out = new FileOutputStream(infoFile))
+			{
+				properties.store(out, "Doomy partial download");
+			} catch (IOException e) {
+				LOG.warnf("Could not write download info \"%s\": %s", infoFile.getPath(), e.getMessage());
+			}
+		}
+
+		// Forgets everything but the URL.
+		private void reset()
+		{
+			this.etag = null;
+			this.lastModified = null;
+			this.received = 0L;
+			this.length = -1L;
+		}
+
+		// True if there are bytes to resume after, and a way to tell if the source changed.
+		private boolean canResume()
+		{
+			return received > 0L && (etag != null || lastModified != null);
+		}
+
+		// True if every expected byte was received.
+		private boolean isComplete()
+		{
+			return length >= 0L && received == length;
+		}
+	}
+
+	/**
+	 * A download into a part file that is retried and resumed until complete.
+	 */
+	private static abstract class ResumableDownloadTask extends Cancellable<File>
+	{
+		protected String url;
+		protected int timeoutMillis;
 		private String targetFile;
 		private FileDownloadListener listener;
 
-		private URLFileDownloadTask(String url, int timeoutMillis, String targetFile, FileDownloadListener listener)
+		protected ResumableDownloadTask(String url, int timeoutMillis, String targetFile, FileDownloadListener listener)
 		{
 			this.url = url;
 			this.timeoutMillis = timeoutMillis;
@@ -116,114 +253,275 @@ public final class DownloadManager
 			this.listener = listener;
 		}
 
+		/**
+		 * Makes one attempt at transferring the rest of a file.
+		 * @param part the part file to write to.
+		 * @param info the part file's info, updated as bytes are received.
+		 * @param infoFile the file to write the info to, once it is known what is being received.
+		 * @return true if the file is complete, false if cancelled.
+		 * @throws IOException if the attempt failed, and should be retried.
+		 */
+		protected abstract boolean transfer(File part, PartInfo info, File infoFile) throws IOException;
+
 		@Override
-		public File call() 
+		public File call()
 		{
-			URLConnection conn;
-			File target;
+			File target = new File(targetFile);
+			if (!FileUtils.createPathForFile(target))
+				return null;
+
+			File part = new File(targetFile + PART_SUFFIX);
+			File infoFile = new File(targetFile + PART_INFO_SUFFIX);
+			PartInfo info = PartInfo.read(infoFile, part, url);
+			if (info.received > 0L)
+				LOG.infof("Resuming download from %s after %d bytes.", url, info.received);
 			
+			int attempts = Math.max(1, Integer.getInteger(PROPERTY_ATTEMPTS, DEFAULT_ATTEMPTS));
+			long delay = RETRY_DELAY_MILLIS;
+			for (int attempt = 1; ; attempt++)
+			{
+				try {
+					if (!transfer(part, info, infoFile))
+					{
+						info.write(infoFile);
+						return null;
+					}
+					break;
+				} catch (IOException e) {
+					info.write(infoFile);
+					if (attempt >= attempts)
+						throw new RuntimeException(e.getMessage());
+					LOG.warnf("Download from %s failed after %d bytes (attempt %d of %d), retrying in %d ms: %s", url, info.received, attempt, attempts, delay, e.getMessage());
+					if (!pause(delay))
+						return null;
+					delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+				}
+			}
+
 			try {
-				target = new File(targetFile);
-				if (!FileUtils.createPathForFile(target))
-					return null;
-				
-				conn = (new URL(url)).openConnection();
-				conn.setReadTimeout(timeoutMillis);
+				Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				throw new RuntimeException("Could not move downloaded file: " + e.getMessage());
+			}
+			infoFile.delete();
+			return target;
+		}
 
-				long len = conn.getContentLength();
-				InputStream in = new BufferedInputStream(conn.getInputStream());
-				byte[] buffer = new byte[8192];
-				
-				try (FileOutputStream fos = new FileOutputStream(target))
+		/**
+		 * Relays the rest of a file into its part file, reporting progress.
+		 * @param in the stream to read.
+		 * @param part the part file.
+		 * @param info the part file's info.
+		 * @param append if true, append to the part file, if false, replace it.
+		 * @return true if the file is complete, false if cancelled.
+		 * @throws IOException if the stream ended early or a read/write error occurs.
+		 */
+		protected boolean relay(InputStream in, File part, PartInfo info, boolean append) throws IOException
+		{
+			if (listener.onProgress(info.received, info.length, progressPercent(info)))
+				cancel();
+			
+			byte[] buffer = new byte[8192];
+			try (FileOutputStream fos = new FileOutputStream(part, append))
+			{
+				int buf = 0;
+				while (!isCancelled() && (buf = in.read(buffer)) > 0)
 				{
-					if (len > 0)
+					fos.write(buffer, 0, buf);
+					info.received += buf;
+					if (listener.onProgress(info.received, info.length, progressPercent(info)))
+						cancel();
+				}
+			}
+			
+			if (isCancelled())
+				return false;
+			if (info.length >= 0L && info.received < info.length)
+				throw new IOException("Connection ended after " + info.received + " of " + info.length + " bytes.");
+			return true;
+		}
+
+		// Waits before a retry. False if cancelled while waiting.
+		private boolean pause(long millis)
+		{
+			long end = System.currentTimeMillis() + millis;
+			long now;
+			while (!isCancelled() && (now = System.currentTimeMillis()) < end)
+				ThreadUtils.sleep(Math.min(100L, end - now));
+			return !isCancelled();
+		}
+
+		private static long progressPercent(PartInfo info)
+		{
+			return info.length > 0L ? info.received * 100 / info.length : -1;
+		}
+	}
+	
+	private static class URLFileDownloadTask extends ResumableDownloadTask
+	{
+		private URLFileDownloadTask(String url, int timeoutMillis, String targetFile, FileDownloadListener listener)
+		{
+			super(url, timeoutMillis, targetFile, listener);
+		}
+
+		@Override
+		protected boolean transfer(File part, PartInfo info, File infoFile) throws IOException
+		{
+			URLConnection conn = (new URL(url)).openConnection();
+			conn.setReadTimeout(timeoutMillis);
+
+			long len = conn.getContentLengthLong();
+			long modified = conn.getLastModified();
+			String lastModified = modified > 0L ? String.valueOf(modified) : null;
+			
+			// No ranges outside of HTTP - skip what was received instead, if the source looks unchanged.
+			boolean append = info.canResume() && len >= 0L && len == info.length && lastModified != null && lastModified.equals(info.lastModified);
+			
+			try (InputStream in = new BufferedInputStream(conn.getInputStream()))
+			{
+				if (append)
+				{
+					long skipped = 0L;
+					while (skipped < info.received)
 					{
-						int buf = 0;
-						long cur = 0;
-						while (!isCancelled() && (buf = in.read(buffer)) > 0)
+						long n = in.skip(info.received - skipped);
+						if (n <= 0L)
 						{
-							fos.write(buffer, 0, buf);
-							cur += buf;
-							if (listener.onProgress(cur, len, len > 0 ? cur * 100 / len : -1))
-								cancel();
+							if (in.read() < 0)
+								throw new IOException("Source ended before the bytes already received.");
+							n = 1L;
 						}
+						skipped += n;
 					}
 				}
-				finally
+				else
 				{
-					if (isCancelled())
-						target.delete();
+					info.reset();
 				}
 				
-			} catch (IOException e) {
-				throw new RuntimeException(e.getMessage());
+				info.lastModified = lastModified;
+				info.length = len;
+				info.write(infoFile);
+				return relay(in, part, info, append);
 			}
-
-			return isCancelled() ? null : target;
 		}
 		
 	}
 	
-	private static class HTTPFileDownloadTask extends Cancellable<File>
+	private static class HTTPFileDownloadTask extends ResumableDownloadTask
 	{
-		private String url;
-		private int timeoutMillis;
-		private String targetFile;
-		private FileDownloadListener listener;
+		private HTTPRequest request;
+		private HTTPResponse openResponse;
 
 		private HTTPFileDownloadTask(String url, int timeoutMillis, String targetFile, FileDownloadListener listener)
 		{
-			this.url = url;
-			this.timeoutMillis = timeoutMillis;
-			this.targetFile = targetFile;
-			this.listener = listener;
+			super(url, timeoutMillis, targetFile, listener);
+			this.request = HTTPRequest.get(url).setHeaders(HEADERS)
+				// Ranges count encoded bytes - only ask for plain content.
+				.setHeader("Accept-Encoding", "identity");
+			this.openResponse = null;
+		}
+		
+		private HTTPFileDownloadTask(HTTPResponse response, int timeoutMillis, String targetFile, FileDownloadListener listener)
+		{
+			super(getURL(response), timeoutMillis, targetFile, listener);
+			this.request = response.getRequest().copy()
+				.setHeader("Accept-Encoding", "identity");
+			this.openResponse = response;
+		}
+		
+		// The URL that the response actually came from, after redirects.
+		private static String getURL(HTTPResponse response)
+		{
+			List<String> history = response.getRedirectHistory();
+			return history.get(history.size() - 1);
 		}
 		
 		@Override
-		public File call()
+		protected boolean transfer(File part, PartInfo info, File infoFile) throws IOException
 		{
-			File out;
+			boolean resuming = info.canResume();
+			if (resuming && info.isComplete())
+			{
+				if (openResponse != null)
+					openResponse.close();
+				openResponse = null;
+				return true;
+			}
+
+			HTTPResponse response;
+			if (openResponse != null && !resuming)
+			{
+				response = openResponse;
+			}
+			else
+			{
+				if (openResponse != null)
+					openResponse.close();
+				HTTPRequest attempt = request.copy().timeout(timeoutMillis);
+				if (resuming)
+				{
+					attempt.setHeader("Range", "bytes=" + info.received + "-");
+					attempt.setHeader("If-Range", info.etag != null ? info.etag : info.lastModified);
+				}
+				response = attempt.send();
+			}
+			openResponse = null;
+			
 			try {
-				out = HTTPRequest.get(url).setHeaders(HEADERS).timeout(timeoutMillis).send((response, cancelSwitch, monitor) ->
+				int status = response.getStatusCode();
+				if (status == 416)
 				{
-					File target = new File(targetFile);
-					if (!FileUtils.createPathForFile(target))
-						return null;
-					
-					long len = response.getLength();
-					
-					if (listener.onProgress(0, len, len > 0 ? 0 / len : -1))
-						cancel();
-					
-					byte[] buffer = new byte[8192];
-					InputStream in = response.getContentStream();
-					
-					try (FileOutputStream fos = new FileOutputStream(target))
-					{
-						int buf = 0;
-						long cur = 0;
-						while (!isCancelled() && (buf = in.read(buffer)) > 0)
-						{
-							fos.write(buffer, 0, buf);
-							cur += buf;
-							if (listener.onProgress(cur, len, len > 0 ? cur * 100 / len : -1))
-								cancel();
-						}
-					}
-					finally
+					info.reset();
+					throw new IOException("Server could not resume the download - starting over.");
+				}
+				else if (status == 408 || status == 429 || status >= 500)
+				{
+					throw new IOException("Server responded " + status + " " + response.getStatusMessage());
+				}
+				else if (status != 200 && status != 206)
+				{
+					throw new RuntimeException("Server responded " + status + " " + response.getStatusMessage());
+				}
+				
+				// 200 means the file changed (or the server ignores ranges): start over.
+				boolean append = resuming && status == 206;
+				if (append)
+				{
+					String range = response.getHeader("Content-Range");
+					if (range == null || !range.startsWith("bytes " + info.received + "-"))
 					{
-						if (isCancelled())
-							target.delete();
+						info.reset();
+						throw new IOException("Server resumed the download at the wrong place (" + range + ") - starting over.");
 					}
-					
-					return isCancelled() ? null : target;
-				});
+				}
+				else
+				{
+					info.reset();
+				}
+
+				String etag = response.getHeader("ETag");
+				// Weak ETags cannot be used with If-Range.
+				info.etag = etag != null && !etag.startsWith("W/") ? etag : null;
+				info.lastModified = response.getHeader("Last-Modified");
+				Long len = response.getLength();
+				info.length = len != null ? info.received + len : -1L;
+
+				String encoding = response.getEncoding();
+				if (encoding != null && !encoding.equalsIgnoreCase("identity"))
+				{
+					// Encoded content cannot be resumed by plain byte offset.
+					response.decode();
+					info.etag = null;
+					info.lastModified = null;
+					info.length = -1L;
+				}
 				
-			} catch (IOException e) {
-				throw new RuntimeException(e.getMessage());
+				info.write(infoFile);
+				return relay(response.getContentStream(), part, info, append);
+			} finally {
+				response.close();
 			}
-			
-			return out;
 		}
 		
 	}
@@ -11,7 +11,9 @@ import com.blackrook.sql.SQLConnection;
 import com.blackrook.sql.SQLRow;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
 import net.mtrop.doomy.managers.EngineManager.Engine;
+import net.mtrop.doomy.struct.EntityCache;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.util.ObjectUtils;
 
@@ -59,7 +61,7 @@ public final class EngineConfigManager
 	private static final String QUERY_SETTING_GET
 		= "SELECT value FROM EngineSettings WHERE engineId = ? AND name = ?";
 	private static final String QUERY_SETTING_LIST
-		= "SELECT engineId, name, value FROM EngineSettings WHERE engineId = ? AND name LIKE ? ORDER BY name ASC";
+		= "SELECT engineId AS id, name, value FROM EngineSettings WHERE engineId = ? AND name LIKE ? ORDER BY name ASC";
 	private static final String QUERY_SETTING_EXIST
 		= "SELECT EXISTS (SELECT 1 FROM EngineSettings WHERE engineId = ? AND name = ?)";
 	private static final String QUERY_SETTING_SET
@@ -87,15 +89,24 @@ public final class EngineConfigManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
 	/** Engine manager. */
 	private EngineManager engineManager;
+	/** Engine settings cache. */
+	private EntityCache<String, EngineSettings> cache;
 	
 	private EngineConfigManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
 		this.engineManager = EngineManager.get();
+		this.cache = CacheManager.get().getCache(CacheManager.CACHE_ENGINE_SETTINGS, EngineSettings::new, database);
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	private EngineSettings createSettings(EngineSettingEntry[] settings)
@@ -183,7 +194,7 @@ public final class EngineConfigManager
 	 */
 	public EngineSettings getEngineSettings(long id)
 	{
-		return createSettings(connection.getResult(EngineSettingEntry.class, QUERY_SETTING_LIST, id, "%"));
+		return cache.get("id:" + id, (key) -> createSettings(RowMapper.get(EngineSettingEntry.class).getResult(connection(), QUERY_SETTING_LIST, id, "%")));
 	}
 	
 	/**
@@ -210,7 +221,7 @@ public final class EngineConfigManager
 		Long id = getEngineId(engineName);
 		if (id == null)
 			return false;
-		return connection.getRow(QUERY_SETTING_EXIST, id, name).getBoolean(0);
+		return connection().getRow(QUERY_SETTING_EXIST, id, name).getBoolean(0);
 	}
 	
 	/**
@@ -230,11 +241,11 @@ public final class EngineConfigManager
 			if (ObjectUtils.isEmpty(value))
 				return removeSetting(engineName, name);
 			else
-				return connection.getUpdateResult(QUERY_SETTING_SET, value, id, name).getRowCount() > 0;
+				return changed(id, connection().getUpdateResult(QUERY_SETTING_SET, value, id, name).getRowCount() > 0);
 		}
 		else if (!ObjectUtils.isEmpty(value))
 		{
-			return connection.getUpdateResult(QUERY_SETTING_ADD, id, name, value).getRowCount() > 0;
+			return changed(id, connection().getUpdateResult(QUERY_SETTING_ADD, id, name, value).getRowCount() > 0);
 		}
 		else
 		{
@@ -243,12 +254,23 @@ public final class EngineConfigManager
 	}
 	
 	/**
-	 * Sets a full engine's settings.
+	 * Sets a full engine's settings, in one unit of work (all of them are set, or none are).
 	 * @param name the name of the engine.
 	 * @param settings the engine's settings.
 	 * @return true if successful, false if not.
 	 */
 	public boolean setEngineSettings(String name, EngineSettings settings)
+	{
+		try (UnitOfWork work = database.beginWork())
+		{
+			if (!setAllSettings(name, settings))
+				return false;
+			work.complete();
+			return true;
+		}
+	}
+	
+	private boolean setAllSettings(String name, EngineSettings settings)
 	{
 		return setSetting(name, SETTING_EXEPATH, settings.exePath)
 			&& setSetting(name, SETTING_DOSBOXPATH, settings.dosboxPath)
@@ -280,7 +302,7 @@ public final class EngineConfigManager
 		Long id = getEngineId(engineName);
 		if (id == null)
 			return null;
-		SQLRow row = connection.getRow(QUERY_SETTING_GET, id, name);
+		SQLRow row = connection().getRow(QUERY_SETTING_GET, id, name);
 		return row != null ? row.getString("value") : null;
 	}
 
@@ -295,7 +317,19 @@ public final class EngineConfigManager
 		Long id = getEngineId(engineName);
 		if (id == null)
 			return false;
-		return connection.getUpdateResult(QUERY_SETTING_REMOVE, id, name).getRowCount() > 0;
+		return changed(id, connection().getUpdateResult(QUERY_SETTING_REMOVE, id, name).getRowCount() > 0);
+	}
+
+	// Drops an engine's cached settings if something changed.
+	private boolean changed(long id, boolean changed)
+	{
+		if (changed)
+		{
+			String key = "id:" + id;
+			cache.invalidate(key);
+			database.onCommit(() -> cache.invalidate(key));
+		}
+		return changed;
 	}
 
 	/**
@@ -309,7 +343,7 @@ public final class EngineConfigManager
 		Long id = getEngineId(engineName);
 		if (id == null)
 			return null;
-		return connection.getResult(EngineSettingEntry.class, QUERY_SETTING_LIST, id, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(EngineSettingEntry.class).getResult(connection(), QUERY_SETTING_LIST, id, DatabaseManager.toSearchPhrase(containingPhrase));
 	}
 	
 	/**
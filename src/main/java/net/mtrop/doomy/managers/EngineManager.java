@@ -5,15 +5,15 @@
  ******************************************************************************/
 package net.mtrop.doomy.managers;
 
-import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 import com.blackrook.sql.SQLConnection;
 import com.blackrook.sql.SQLResult;
-import com.blackrook.sql.SQLConnection.Transaction;
-import com.blackrook.sql.SQLConnection.TransactionLevel;
-import com.blackrook.sql.util.SQLRuntimeException;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.EntityCache;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.swing.TableFactory.Column;
 
@@ -31,6 +31,8 @@ public final class EngineManager
 		= "SELECT id, name, templateSource FROM Engines WHERE name = ?"; 
 	private static final String QUERY_LIST
 		= "SELECT id, name, templateSource FROM Engines WHERE name LIKE ? ORDER BY name ASC";
+	private static final String QUERY_LIST_PAGE
+		= "SELECT id, name, templateSource FROM Engines WHERE name LIKE ? AND (name, id) > (?, ?) ORDER BY name ASC, id ASC LIMIT ?";
 	private static final String QUERY_EXIST
 		= "SELECT EXISTS (SELECT 1 FROM Engines WHERE name = ?)";
 	private static final String QUERY_ADD 
@@ -76,12 +78,21 @@ public final class EngineManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
+	/** Engine cache. */
+	private EntityCache<String, Engine> cache;
 	
 	private EngineManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
+		this.cache = CacheManager.get().getCache(CacheManager.CACHE_ENGINES, Engine::copy, database);
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	/**
@@ -91,7 +102,7 @@ public final class EngineManager
 	 */
 	public boolean containsEngine(String name)
 	{
-		return connection.getRow(QUERY_EXIST, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, name).getBoolean(0);
 	}
 	
 	/**
@@ -101,7 +112,7 @@ public final class EngineManager
 	 */
 	public Engine getEngine(long id)
 	{
-		return connection.getRow(Engine.class, QUERY_GET_BY_ID, id);
+		return cache.get("id:" + id, (key) -> RowMapper.get(Engine.class).getRow(connection(), QUERY_GET_BY_ID, id));
 	}
 	
 	/**
@@ -111,7 +122,7 @@ public final class EngineManager
 	 */
 	public Engine getEngine(String name)
 	{
-		return connection.getRow(Engine.class, QUERY_GET_BY_NAME, name);
+		return cache.get("name:" + name.toLowerCase(), (key) -> RowMapper.get(Engine.class).getRow(connection(), QUERY_GET_BY_NAME, name));
 	}
 	
 	/**
@@ -130,7 +141,22 @@ public final class EngineManager
 	 */
 	public Engine[] getAllEngines(String containingPhrase)
 	{
-		return connection.getResult(Engine.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(Engine.class).getResult(connection(), QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+	}
+	
+	/**
+	 * Reads engines by name, in name order, one page at a time, so that any amount of them can be listed in constant memory.
+	 * @param containingPhrase the phrase to search for.
+	 * @param consumer called with each one, in order.
+	 * @return the amount of engines read.
+	 */
+	public int forEachEngine(String containingPhrase, Consumer<Engine> consumer)
+	{
+		return RowMapper.get(Engine.class).forEachPage(connection(), QUERY_LIST_PAGE, new Object[]{"", 0L},
+			(engine) -> new Object[]{engine.name, engine.id},
+			(page) -> Arrays.stream(page).forEach(consumer),
+			DatabaseManager.toSearchPhrase(containingPhrase)
+		);
 	}
 	
 	/**
@@ -140,7 +166,8 @@ public final class EngineManager
 	 */
 	public Long addEngine(String name)
 	{
-		SQLResult result = connection.getUpdateResult(QUERY_ADD, name, null);
+		SQLResult result = connection().getUpdateResult(QUERY_ADD, name, null);
+		database.invalidateCaches(CacheManager.CACHE_ENGINE_SETTINGS);
 		if (result.getRowCount() > 0)
 			return (Long)result.getId();
 		else
@@ -156,16 +183,15 @@ public final class EngineManager
 	public Long addEngineUsingEngine(String name, String engineName)
 	{
 		Long out = null;
-		try (SQLConnection.Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			out = (Long)trn.getUpdateResult(QUERY_ADD, name, null).getId();
 			if (out == null)
 				trn.abort();
 			trn.getUpdateResult(QUERY_COPY_SETTINGS, out, engineName);
 			trn.complete();
-		} catch (SQLException e) {
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_ENGINE_SETTINGS);
 		return out;
 	}
 	
@@ -178,16 +204,15 @@ public final class EngineManager
 	public Long addEngineUsingTemplate(String name, String templateName)
 	{
 		Long out = null;
-		try (SQLConnection.Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			out = (Long)trn.getUpdateResult(QUERY_ADD, name, templateName).getId();
 			if (out == null)
 				trn.abort();
 			trn.getUpdateResult(QUERY_COPY_TEMPLATE_SETTINGS, out, templateName);
 			trn.complete();
-		} catch (SQLException e) {
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_ENGINE_SETTINGS);
 		return out;
 	}
 	
@@ -202,17 +227,14 @@ public final class EngineManager
 		if (engine == null)
 			return false;
 		
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			trn.getUpdateResult(QUERY_REMOVE_PRESET, engine.id);
 			trn.getUpdateResult(QUERY_REMOVE_SETTINGS, engine.id);
 			trn.getUpdateResult(QUERY_REMOVE, engine.name);
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_ENGINES, CacheManager.CACHE_ENGINE_SETTINGS, CacheManager.CACHE_PRESETS);
 		
 		return true;
 	}
@@ -225,7 +247,10 @@ public final class EngineManager
 	 */
 	public boolean renameEngine(String oldName, String newName)
 	{
-		return connection.getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() > 0;
+		if (connection().getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() == 0)
+			return false;
+		database.invalidateCaches(CacheManager.CACHE_ENGINES);
+		return true;
 	}
 	
 	/**
@@ -240,6 +265,18 @@ public final class EngineManager
 		public String name;
 		/** Engine's template source name. */
 		public String templateSource;
+		
+		/**
+		 * @return a copy of this entry.
+		 */
+		public Engine copy()
+		{
+			Engine out = new Engine();
+			out.id = id;
+			out.name = name;
+			out.templateSource = templateSource;
+			return out;
+		}
 	}
 
 }
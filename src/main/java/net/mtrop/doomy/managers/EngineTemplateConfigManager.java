@@ -50,17 +50,23 @@ public final class EngineTemplateConfigManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
 	/** Engine template manager. */
 	private EngineTemplateManager templateManager;
 	
 	private EngineTemplateConfigManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
 		this.templateManager = EngineTemplateManager.get();
 	}
 
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
 	/**
 	 * @param name the template name.
 	 * @return the id or null.
@@ -82,7 +88,7 @@ public final class EngineTemplateConfigManager
 		Long id = getTemplateId(templateName);
 		if (id == null)
 			return false;
-		return connection.getRow(QUERY_EXIST, id, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, id, name).getBoolean(0);
 	}
 	
 	/**
@@ -98,9 +104,9 @@ public final class EngineTemplateConfigManager
 		if (id == null)
 			return false;
 		if (containsSetting(templateName, name))
-			return connection.getUpdateResult(QUERY_SET, value, id, name).getRowCount() > 0;
+			return connection().getUpdateResult(QUERY_SET, value, id, name).getRowCount() > 0;
 		else
-			return connection.getUpdateResult(QUERY_ADD, id, name, value).getRowCount() > 0;
+			return connection().getUpdateResult(QUERY_ADD, id, name, value).getRowCount() > 0;
 	}
 	
 	/**
@@ -114,7 +120,7 @@ public final class EngineTemplateConfigManager
 		Long id = getTemplateId(templateName);
 		if (id == null)
 			return null;
-		SQLRow row = connection.getRow(QUERY_GET, id, name);
+		SQLRow row = connection().getRow(QUERY_GET, id, name);
 		return row != null ? row.getString("value") : null;
 	}
 
@@ -129,7 +135,7 @@ public final class EngineTemplateConfigManager
 		Long id = getTemplateId(templateName);
 		if (id == null)
 			return false;
-		return connection.getUpdateResult(QUERY_REMOVE, id, name).getRowCount() > 0;
+		return connection().getUpdateResult(QUERY_REMOVE, id, name).getRowCount() > 0;
 	}
 
 	/**
@@ -143,7 +149,7 @@ public final class EngineTemplateConfigManager
 		Long id = getTemplateId(templateName);
 		if (id == null)
 			return null;
-		return connection.getResult(EngineTemplateSettingEntry.class, QUERY_LIST, id, DatabaseManager.toSearchPhrase(containingPhrase));
+		return connection().getResult(EngineTemplateSettingEntry.class, QUERY_LIST, id, DatabaseManager.toSearchPhrase(containingPhrase));
 	}
 
 	/**
@@ -5,15 +5,11 @@
  ******************************************************************************/
 package net.mtrop.doomy.managers;
 
-import java.sql.SQLException;
-
 import com.blackrook.sql.SQLConnection;
-import com.blackrook.sql.SQLConnection.Transaction;
-import com.blackrook.sql.SQLConnection.TransactionLevel;
 import com.blackrook.sql.SQLResult;
-import com.blackrook.sql.util.SQLRuntimeException;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.swing.TableFactory.Column;
 
@@ -64,12 +60,18 @@ public final class EngineTemplateManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
 	
 	private EngineTemplateManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	/**
@@ -79,7 +81,7 @@ public final class EngineTemplateManager
 	 */
 	public EngineTemplate getTemplate(long id)
 	{
-		return connection.getRow(EngineTemplate.class, QUERY_GET_BY_ID, id);
+		return connection().getRow(EngineTemplate.class, QUERY_GET_BY_ID, id);
 	}
 	
 	/**
@@ -89,7 +91,7 @@ public final class EngineTemplateManager
 	 */
 	public EngineTemplate getTemplate(String name)
 	{
-		return connection.getRow(EngineTemplate.class, QUERY_GET_BY_NAME, name);
+		return connection().getRow(EngineTemplate.class, QUERY_GET_BY_NAME, name);
 	}
 	
 	/**
@@ -108,7 +110,7 @@ public final class EngineTemplateManager
 	 */
 	public EngineTemplate[] getAllTemplates(String containingPhrase)
 	{
-		return connection.getResult(EngineTemplate.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+		return connection().getResult(EngineTemplate.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
 	}
 
 	/**
@@ -118,7 +120,7 @@ public final class EngineTemplateManager
 	 */
 	public Long addTemplate(String name)
 	{
-		SQLResult result = connection.getUpdateResult(QUERY_ADD, name);
+		SQLResult result = connection().getUpdateResult(QUERY_ADD, name);
 		if (result.getRowCount() > 0)
 			return (Long)result.getId();
 		else
@@ -134,7 +136,7 @@ public final class EngineTemplateManager
 	public Long addTemplateFrom(String name, String sourceName)
 	{
 		Long out = null;
-		try (SQLConnection.Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			out = (Long)trn.getUpdateResult(QUERY_ADD, name).getId();
 			if (out == null)
@@ -143,10 +145,6 @@ public final class EngineTemplateManager
 				trn.abort();
 			else
 				trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
 		return out;
 	}
@@ -162,15 +160,11 @@ public final class EngineTemplateManager
 		if (template == null)
 			return false;
 		
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			trn.getUpdateResult(QUERY_REMOVE_SETTINGS, template.id);
 			trn.getUpdateResult(QUERY_REMOVE, template.name);
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
 		
 		return true;
@@ -183,7 +177,7 @@ public final class EngineTemplateManager
 	 */
 	public boolean containsTemplate(String name)
 	{
-		return connection.getRow(QUERY_EXIST, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, name).getBoolean(0);
 	}
 	
 	/**
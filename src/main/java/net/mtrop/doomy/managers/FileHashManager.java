@@ -0,0 +1,487 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLRow;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.FileHasher;
+import net.mtrop.doomy.struct.FileHasher.Hash;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+
+/**
+ * File hash manager singleton.
+ * Keeps a cache of content hashes for WAD and IWAD files, keyed by path and stamped with each file's size and modified time,
+ * so that only new or changed files are ever read again.
+ * @author Matthew Tropiano
+ */
+public final class FileHashManager
+{
+	/** System property for the amount of hashing threads. */
+	public static final String PROPERTY_THREADS = "doomy.hash.threads";
+	/** Default amount of hashing threads. */
+	public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/** Entry type for WADs. */
+	public static final String TYPE_WAD = "wad";
+	/** Entry type for IWADs. */
+	public static final String TYPE_IWAD = "iwad";
+
+	/** Amount of hashes written per transaction while hashing the library. */
+	private static final int WRITE_BATCH_SIZE = 256;
+
+	// ============================== QUERIES ================================
+
+	private static final String QUERY_GET_BY_PATH
+		= "SELECT * FROM FileHashes WHERE path = ?";
+	private static final String QUERY_LIST_STAMPS
+		= "SELECT path, size, modified FROM FileHashes";
+	private static final String QUERY_LIST_LIBRARY_PATHS
+		= "SELECT path FROM WADs UNION SELECT path FROM IWADs";
+	private static final String QUERY_SET
+		= "INSERT OR REPLACE INTO FileHashes (path, size, modified, crc32, sha1) VALUES (?, ?, ?, ?, ?)";
+	private static final String QUERY_REMOVE_STALE
+		= "DELETE FROM FileHashes WHERE path NOT IN (SELECT path FROM WADs UNION SELECT path FROM IWADs)";
+	private static final String QUERY_LIST_DUPLICATES
+		= "SELECT h.sha1, h.crc32, h.size, l.type, l.name, l.path FROM FileHashes h"
+			+ " INNER JOIN (SELECT '" + TYPE_WAD + "' AS type, name, path FROM WADs UNION ALL SELECT '" + TYPE_IWAD + "' AS type, name, path FROM IWADs) l ON l.path = h.path"
+			+ " WHERE h.sha1 IN (SELECT sha1 FROM FileHashes GROUP BY sha1, size HAVING COUNT(*) > 1)"
+			+ " ORDER BY h.size DESC, h.sha1 ASC, l.path ASC, l.name ASC";
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(FileHashManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<FileHashManager> INSTANCE = new SingletonProvider<>(() -> new FileHashManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static FileHashManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Database manager. */
+	private DatabaseManager database;
+
+	private FileHashManager()
+	{
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
+	/**
+	 * Gets a file's hashes, reading the file only if it is not cached or has changed since it was cached.
+	 * @param file the file.
+	 * @return the file's hashes.
+	 * @throws IOException if the file is not a regular file, or could not be read.
+	 */
+	public Hash getHash(File file) throws IOException
+	{
+		ScannedFile scanned = FileScanner.stat(file);
+		if (scanned == null)
+			throw new IOException("Not a readable file: " + file.getPath());
+
+		String path = file.getPath();
+		FileHash cached = connection().getRow(FileHash.class, QUERY_GET_BY_PATH, path);
+		if (cached != null && cached.size == scanned.length && cached.modified == scanned.lastModified)
+			return new Hash(cached.crc32, cached.sha1);
+
+		Hash hash = FileHasher.hash(file);
+		connection().getUpdateResult(QUERY_SET, path, scanned.length, scanned.lastModified, hash.crc32, hash.sha1);
+		return hash;
+	}
+
+	/**
+	 * Records the hashes of a file whose contents are already known (like a copy of a hashed file), so that it is not read.
+	 * @param file the file.
+	 * @param hash the file's hashes.
+	 * @throws IOException if the file is not a regular file.
+	 */
+	public void setHash(File file, Hash hash) throws IOException
+	{
+		ScannedFile scanned = FileScanner.stat(file);
+		if (scanned == null)
+			throw new IOException("Not a readable file: " + file.getPath());
+		connection().getUpdateResult(QUERY_SET, file.getPath(), scanned.length, scanned.lastModified, hash.crc32, hash.sha1);
+	}
+
+	/**
+	 * Gets the cached hashes for a path, without reading or checking the file (it may no longer exist).
+	 * @param path the file path.
+	 * @return the cached hashes and the file stamp they were taken at, or null if the path was never hashed.
+	 */
+	public FileHash getCachedHash(String path)
+	{
+		return connection().getRow(FileHash.class, QUERY_GET_BY_PATH, path);
+	}
+
+	/**
+	 * Hashes every file in the WAD and IWAD library that is new or has changed since it was last hashed (or all of them, if forced).
+	 * Files are read in parallel, and hashes are written as they are finished, in batches, so an interrupted run keeps most of its work.
+	 * Cached hashes for paths no longer in the library are removed.
+	 * @param force if true, hash every file, changed or not.
+	 * @param cancelSwitch if not null, hashing stops early once this is set to true.
+	 * @param listener if not null, called as each file is hashed (from the calling thread).
+	 * @return the result of the operation.
+	 */
+	public HashResult hashLibrary(boolean force, AtomicBoolean cancelSwitch, HashListener listener)
+	{
+		final AtomicBoolean cancel = cancelSwitch != null ? cancelSwitch : new AtomicBoolean(false);
+		HashResult out = new HashResult();
+
+		Map<String, long[]> stamps = new LinkedHashMap<>();
+		for (SQLRow row : connection().getResult(QUERY_LIST_STAMPS))
+			stamps.put(row.getString("path"), new long[]{row.getLong("size"), row.getLong("modified")});
+
+		List<ScannedFile> targets = new LinkedList<>();
+		for (SQLRow row : connection().getResult(QUERY_LIST_LIBRARY_PATHS))
+		{
+			File file = new File(row.getString("path"));
+			ScannedFile scanned = FileScanner.stat(file);
+			if (scanned == null)
+			{
+				out.missing++;
+				continue;
+			}
+			long[] stamp = stamps.get(file.getPath());
+			if (!force && stamp != null && stamp[0] == scanned.length && stamp[1] == scanned.lastModified)
+			{
+				out.skipped++;
+				continue;
+			}
+			targets.add(scanned);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Integer.getInteger(PROPERTY_THREADS, DEFAULT_THREADS));
+		try {
+			CompletionService<HashedFile> completion = new ExecutorCompletionService<>(executor);
+			for (ScannedFile target : targets)
+			{
+				completion.submit(() ->
+				{
+					if (cancel.get())
+						return new HashedFile(target, null);
+					try {
+						return new HashedFile(target, FileHasher.hash(target.file));
+					} catch (IOException e) {
+						LOG.warnf("Could not hash %s: %s", target.file.getPath(), e.getMessage());
+						return new HashedFile(target, null);
+					}
+				});
+			}
+
+			List<HashedFile> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+			int total = targets.size();
+			for (int i = 0; i < total; i++)
+			{
+				HashedFile hashed;
+				try {
+					hashed = completion.take().get();
+				} catch (InterruptedException e) {
+					cancel.set(true);
+					break;
+				} catch (ExecutionException e) {
+					continue; // not thrown - errors are caught in the task
+				}
+
+				if (hashed.hash == null)
+				{
+					if (!cancel.get())
+						out.failed++;
+					continue;
+				}
+
+				batch.add(hashed);
+				out.hashed++;
+				out.bytes += hashed.file.length;
+				if (listener != null)
+					listener.onHashed(hashed.file.file, out.hashed, total);
+				if (batch.size() >= WRITE_BATCH_SIZE)
+				{
+					writeHashes(batch);
+					batch.clear();
+				}
+			}
+			writeHashes(batch);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		connection().getUpdateResult(QUERY_REMOVE_STALE);
+		return out;
+	}
+
+	/**
+	 * Gets all groups of library entries whose files have identical contents, largest files first.
+	 * Only hashed files are considered - see {@link #hashLibrary(boolean, AtomicBoolean, HashListener)}.
+	 * @return the duplicate groups.
+	 */
+	public DuplicateGroup[] getDuplicates()
+	{
+		List<DuplicateGroup> out = new LinkedList<>();
+		DuplicateGroup current = null;
+		for (SQLRow row : connection().getResult(QUERY_LIST_DUPLICATES))
+		{
+			String sha1 = row.getString("sha1");
+			if (current == null || !current.sha1.equals(sha1))
+			{
+				addIfDuplicate(out, current);
+				current = new DuplicateGroup(sha1, row.getString("crc32"), row.getLong("size"));
+			}
+			current.entries.add(new DuplicateEntry(row.getString("type"), row.getString("name"), row.getString("path")));
+		}
+		addIfDuplicate(out, current);
+		return out.toArray(new DuplicateGroup[out.size()]);
+	}
+
+	/**
+	 * Replaces the files in a duplicate group with hard links to the first file in the group.
+	 * Files already linked to it are left alone, and files changed since they were hashed are skipped.
+	 * Each replacement is a link to a temporary name followed by an atomic rename, so a failure never leaves a file missing.
+	 * @param group the group to link.
+	 * @return the result of the operation.
+	 */
+	public LinkResult linkDuplicates(DuplicateGroup group)
+	{
+		LinkResult out = new LinkResult();
+		List<String> paths = group.getPaths();
+		Path keep = new File(paths.get(0)).toPath();
+		if (!isUnchanged(keep.toFile()))
+		{
+			out.failed += paths.size() - 1;
+			return out;
+		}
+
+		for (int i = 1; i < paths.size(); i++)
+		{
+			Path duplicate = new File(paths.get(i)).toPath();
+			Path temp = duplicate.resolveSibling(duplicate.getFileName() + ".doomy-link");
+			try {
+				if (Files.isSameFile(keep, duplicate))
+					continue;
+				if (!isUnchanged(duplicate.toFile()))
+				{
+					out.failed++;
+					continue;
+				}
+				Files.deleteIfExists(temp);
+				Files.createLink(temp, keep);
+				Files.move(temp, duplicate, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				ScannedFile linked = FileScanner.stat(duplicate.toFile());
+				if (linked != null)
+					connection().getUpdateResult(QUERY_SET, duplicate.toFile().getPath(), linked.length, linked.lastModified, group.crc32, group.sha1);
+				out.linked++;
+				out.bytes += group.size;
+			} catch (IOException | UnsupportedOperationException e) {
+				LOG.warnf("Could not link %s to %s: %s", duplicate, keep, e.getMessage());
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e1) {
+					// Ignore.
+				}
+				out.failed++;
+			}
+		}
+		return out;
+	}
+
+	// Checks if a file is unchanged since it was hashed.
+	private boolean isUnchanged(File file)
+	{
+		ScannedFile scanned = FileScanner.stat(file);
+		if (scanned == null)
+			return false;
+		FileHash cached = connection().getRow(FileHash.class, QUERY_GET_BY_PATH, file.getPath());
+		return cached != null && cached.size == scanned.length && cached.modified == scanned.lastModified;
+	}
+
+	// Writes a batch of hashes.
+	private void writeHashes(List<HashedFile> batch)
+	{
+		if (batch.isEmpty())
+			return;
+		try (UnitOfWork trn = database.beginWork())
+		{
+			for (HashedFile hashed : batch)
+				trn.getUpdateResult(QUERY_SET, hashed.file.file.getPath(), hashed.file.length, hashed.file.lastModified, hashed.hash.crc32, hashed.hash.sha1);
+			trn.complete();
+		}
+	}
+
+	// Adds a group to a list if it has more than one distinct path.
+	private static void addIfDuplicate(List<DuplicateGroup> list, DuplicateGroup group)
+	{
+		if (group != null && group.getPaths().size() > 1)
+			list.add(group);
+	}
+
+	/**
+	 * Listener for hashing progress.
+	 */
+	@FunctionalInterface
+	public static interface HashListener
+	{
+		/**
+		 * Called when a file is hashed.
+		 * @param file the file.
+		 * @param done the amount of files hashed so far, including this one.
+		 * @param total the total amount of files to hash.
+		 */
+		void onHashed(File file, int done, int total);
+	}
+
+	/**
+	 * The result of a library hash run.
+	 */
+	public static class HashResult
+	{
+		/** Amount of files hashed. */
+		public int hashed;
+		/** Amount of bytes hashed. */
+		public long bytes;
+		/** Amount of files skipped (unchanged since last hash). */
+		public int skipped;
+		/** Amount of files that could not be read. */
+		public int failed;
+		/** Amount of library entries whose files are missing. */
+		public int missing;
+	}
+
+	/**
+	 * The result of linking a duplicate group.
+	 */
+	public static class LinkResult
+	{
+		/** Amount of files replaced with links. */
+		public int linked;
+		/** Amount of bytes reclaimed. */
+		public long bytes;
+		/** Amount of files that could not be linked. */
+		public int failed;
+	}
+
+	/**
+	 * A group of library entries with identical file contents.
+	 */
+	public static class DuplicateGroup
+	{
+		/** The SHA-1 hash of the contents. */
+		public final String sha1;
+		/** The CRC32 of the contents. */
+		public final String crc32;
+		/** The size of each file in bytes. */
+		public final long size;
+		/** The entries, sorted by path. */
+		public final List<DuplicateEntry> entries;
+
+		private DuplicateGroup(String sha1, String crc32, long size)
+		{
+			this.sha1 = sha1;
+			this.crc32 = crc32;
+			this.size = size;
+			this.entries = new ArrayList<>(4);
+		}
+
+		/**
+		 * @return the distinct file paths in this group, in order.
+		 */
+		public List<String> getPaths()
+		{
+			List<String> out = new ArrayList<>(entries.size());
+			for (DuplicateEntry entry : entries)
+				if (!out.contains(entry.path))
+					out.add(entry.path);
+			return out;
+		}
+	}
+
+	/**
+	 * A single library entry in a duplicate group.
+	 */
+	public static class DuplicateEntry
+	{
+		/** The entry type, {@link #TYPE_WAD} or {@link #TYPE_IWAD}. */
+		public final String type;
+		/** The entry name. */
+		public final String name;
+		/** The entry path. */
+		public final String path;
+
+		private DuplicateEntry(String type, String name, String path)
+		{
+			this.type = type;
+			this.name = name;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * A cached file hash.
+	 */
+	public static class FileHash
+	{
+		/** The file path. */
+		public String path;
+		/** The file size when hashed. */
+		public long size;
+		/** The file modified time when hashed. */
+		public long modified;
+		/** CRC32 as 8 hex digits. */
+		public String crc32;
+		/** SHA-1 as 40 hex digits. */
+		public String sha1;
+	}
+
+	/**
+	 * A file and its hash (or null if it could not be read).
+	 */
+	private static class HashedFile
+	{
+		private final ScannedFile file;
+		private final Hash hash;
+
+		private HashedFile(ScannedFile file, Hash hash)
+		{
+			this.file = file;
+			this.hash = hash;
+		}
+	}
+
+}
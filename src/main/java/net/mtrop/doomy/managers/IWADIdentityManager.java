@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.struct.FileHasher.Hash;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.LumpDirectory;
+import net.mtrop.doomy.struct.LumpDirectory.Entry;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.util.FileUtils;
+
+/**
+ * IWAD identification singleton.
+ * Identifies IWADs by content hash (exact releases) or by lump signature (everything else),
+ * and rejects PWADs by their header, so that scanned IWADs get canonical names no matter what the files are called.
+ * @author Matthew Tropiano
+ */
+public final class IWADIdentityManager
+{
+	/**
+	 * How an IWAD was identified.
+	 */
+	public enum Method
+	{
+		/** By exact content hash. */
+		HASH,
+		/** By lump signature. */
+		LUMPS,
+		/** By file name (not a WAD, or not a recognized one). */
+		FILENAME;
+	}
+
+	/** Known releases, by SHA-1. */
+	private static final Map<String, KnownIWAD> KNOWN_HASHES = new HashMap<String, KnownIWAD>()
+	{
+		private static final long serialVersionUID = -1862284372716424470L;
+		{
+			put("5b2e249b9c5133ec987b3ea77596381dc0d6bc1d", new KnownIWAD("doom1", "Doom Shareware v1.9"));
+			put("7742089b4468a736cadb659a7deca3320fe6dcbd", new KnownIWAD("doom", "Doom Registered v1.9"));
+			put("9b07b02ab3c275a6a7570c3f73cc20d63a0e3833", new KnownIWAD("doom", "The Ultimate Doom v1.9"));
+			put("7ec7652fcfce8ddc6e801839291f0e28ef1d5ae7", new KnownIWAD("doom2", "Doom II v1.9"));
+			put("9fbc66aedef7fe3bae0986cdb9323d2b8db4c9d3", new KnownIWAD("tnt", "Final Doom: TNT Evilution"));
+			put("90361e2a538d2388506657252ae41aceeb1ba360", new KnownIWAD("plutonia", "Final Doom: The Plutonia Experiment"));
+			put("f489d479371df32f6d280a0cb23b59a35ba2b833", new KnownIWAD("heretic", "Heretic: Shadow of the Serpent Riders v1.3"));
+			put("4b53832f0733c1e29e5f1de2428e5475e891af29", new KnownIWAD("hexen", "Hexen v1.1"));
+		}
+	};
+
+	/** Names of the IWADs that have known releases - only files that match one of these by lumps are hashed. */
+	private static final Set<String> KNOWN_HASH_NAMES = new HashSet<String>()
+	{
+		private static final long serialVersionUID = 2620766931383683725L;
+		{
+			for (KnownIWAD known : KNOWN_HASHES.values())
+				add(known.name);
+		}
+	};
+
+	/** Lump signatures, most specific first. An IWAD matches the first signature whose lumps it all has. */
+	private static final KnownIWAD[] KNOWN_SIGNATURES = {
+		new KnownIWAD("freedm", "FreeDM", "MAP01", "FREEDM"),
+		new KnownIWAD("freedoom2", "Freedoom: Phase 2", "MAP01", "FREEDOOM"),
+		new KnownIWAD("freedoom1", "Freedoom: Phase 1", "E1M1", "FREEDOOM"),
+		new KnownIWAD("hexen", "Hexen", "TITLE", "MAP01", "WINNOWR"),
+		new KnownIWAD("heretic", "Heretic", "E2M1", "MUS_E1M1"),
+		new KnownIWAD("heretic1", "Heretic Shareware", "E1M1", "MUS_E1M1"),
+		new KnownIWAD("plutonia", "Final Doom: The Plutonia Experiment", "MAP01", "MC5", "MC11", "MC16", "MC20"),
+		new KnownIWAD("tnt", "Final Doom: TNT Evilution", "MAP01", "REDTNT2"),
+		new KnownIWAD("doom2", "Doom II", "MAP01", "D_RUNNIN"),
+		new KnownIWAD("doom", "The Ultimate Doom", "E1M1", "E2M1", "E3M1", "E4M1", "D_E1M1"),
+		new KnownIWAD("doom", "Doom Registered", "E1M1", "E2M1", "E3M1", "D_E1M1"),
+		new KnownIWAD("doom1", "Doom Shareware", "E1M1", "E1M9", "D_E1M1"),
+	};
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(IWADIdentityManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<IWADIdentityManager> INSTANCE = new SingletonProvider<>(() -> new IWADIdentityManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static IWADIdentityManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** File hash manager. */
+	private FileHashManager hashes;
+
+	private IWADIdentityManager()
+	{
+		this.hashes = FileHashManager.get();
+	}
+
+	/**
+	 * Identifies a possible IWAD file.
+	 * <p>PWADs are rejected by their 4-byte header without reading anything else.
+	 * IWADs are matched by their lump directory, and only if that matches an IWAD with known releases is the file's 
+	 * content hash (read once, then cached) looked up for the exact release. Anything else (archives, unrecognized IWADs) 
+	 * is named after its file.
+	 * @param file the file to identify.
+	 * @return the identity, or null if the file is a PWAD or could not be read.
+	 */
+	public Identity identify(File file)
+	{
+		String type;
+		try {
+			type = readWADType(file);
+		} catch (IOException e) {
+			LOG.warnf("Could not read %s: %s", file.getPath(), e.getMessage());
+			return null;
+		}
+
+		if ("PWAD".equals(type))
+			return null;
+
+		if ("IWAD".equals(type))
+		{
+			KnownIWAD signature = null;
+			try {
+				Set<String> lumps = new HashSet<>();
+				for (Entry entry : LumpDirectory.read(file).getEntries())
+					lumps.add(entry.name);
+				for (KnownIWAD known : KNOWN_SIGNATURES)
+				{
+					if (known.matches(lumps))
+					{
+						signature = known;
+						break;
+					}
+				}
+			} catch (IOException e) {
+				LOG.warnf("Could not read directory of %s: %s", file.getPath(), e.getMessage());
+			}
+
+			// Only a file that looks like an IWAD with known releases can be one of them.
+			if (signature != null && KNOWN_HASH_NAMES.contains(signature.name))
+			{
+				try {
+					Hash hash = hashes.getHash(file);
+					KnownIWAD known = KNOWN_HASHES.get(hash.sha1);
+					if (known != null)
+						return new Identity(known.name, known.title, Method.HASH);
+				} catch (IOException e) {
+					LOG.warnf("Could not hash %s: %s", file.getPath(), e.getMessage());
+				}
+			}
+			
+			if (signature != null)
+				return new Identity(signature.name, signature.title, Method.LUMPS);
+		}
+
+		String name = FileUtils.getFileNameWithoutExtension(file).toLowerCase();
+		return new Identity(name, name, Method.FILENAME);
+	}
+
+	// Reads the first four bytes of a file as a WAD type. Returns null if not a WAD type.
+	private static String readWADType(File file) throws IOException
+	{
+		byte[] header = new byte[4];
+		int read = 0;
+		try (InputStream in = new FileInputStream(file))
+		{
+			while (read < header.length)
+			{
+				int n = in.read(header, read, header.length - read);
+				if (n < 0)
+					break;
+				read += n;
+			}
+		}
+		if (read < header.length)
+			return null;
+		String out = new String(header, "ASCII");
+		return "IWAD".equals(out) || "PWAD".equals(out) ? out : null;
+	}
+
+	/**
+	 * An identified IWAD.
+	 */
+	public static class Identity
+	{
+		/** Canonical entry name (for example, "doom2"). */
+		public final String name;
+		/** Human-readable title. */
+		public final String title;
+		/** How it was identified. */
+		public final Method method;
+
+		private Identity(String name, String title, Method method)
+		{
+			this.name = name;
+			this.title = title;
+			this.method = method;
+		}
+	}
+
+	/**
+	 * A known IWAD.
+	 */
+	private static class KnownIWAD
+	{
+		private final String name;
+		private final String title;
+		private final String[] lumps;
+
+		private KnownIWAD(String name, String title, String ... lumps)
+		{
+			this.name = name;
+			this.title = title;
+			this.lumps = lumps;
+		}
+
+		// Checks if a set of lumps has all of this IWAD's signature lumps.
+		private boolean matches(Set<String> lumpSet)
+		{
+			for (String lump : lumps)
+				if (!lumpSet.contains(lump))
+					return false;
+			return true;
+		}
+	}
+
+}
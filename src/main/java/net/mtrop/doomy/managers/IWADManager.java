@@ -5,15 +5,19 @@
  ******************************************************************************/
 package net.mtrop.doomy.managers;
 
-import java.sql.SQLException;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import com.blackrook.sql.SQLConnection;
 import com.blackrook.sql.SQLResult;
-import com.blackrook.sql.SQLConnection.Transaction;
-import com.blackrook.sql.SQLConnection.TransactionLevel;
-import com.blackrook.sql.util.SQLRuntimeException;
+import com.blackrook.sql.SQLRow;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.EntityCache;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.swing.TableFactory.Column;
 
@@ -33,8 +37,16 @@ public final class IWADManager
 		= "SELECT * FROM IWADs WHERE name = ?"; 
 	private static final String QUERY_LIST
 		= "SELECT * FROM IWADs WHERE name LIKE ? ORDER BY name ASC";
+	private static final String QUERY_LIST_PAGE
+		= "SELECT * FROM IWADs WHERE name LIKE ? AND (name, id) > (?, ?) ORDER BY name ASC, id ASC LIMIT ?";
+	private static final String QUERY_LIST_NAMES
+		= "SELECT name, path FROM IWADs";
+	private static final String QUERY_LIST_BY_PATH
+		= "SELECT * FROM IWADs WHERE path = ? OR substr(path, 1, ?) = ? ORDER BY name ASC";
 	private static final String QUERY_EXIST
 		= "SELECT EXISTS (SELECT 1 FROM IWADs WHERE name = ?)";
+	private static final String QUERY_IN_USE
+		= "SELECT EXISTS (SELECT 1 FROM Presets WHERE iwadId = ?)";
 	private static final String QUERY_ADD 
 		= "INSERT INTO IWADs (name, path) VALUES (?, ?)"; 
 	private static final String QUERY_REMOVE
@@ -64,12 +76,21 @@ public final class IWADManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
+	/** IWAD cache. */
+	private EntityCache<String, IWAD> cache;
 	
 	private IWADManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
+		this.cache = CacheManager.get().getCache(CacheManager.CACHE_IWADS, IWAD::copy, database);
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	/**
@@ -78,7 +99,7 @@ public final class IWADManager
 	 */
 	public long getIWADCount()
 	{
-		return connection.getRow(QUERY_GET_COUNT).getLong(0);
+		return connection().getRow(QUERY_GET_COUNT).getLong(0);
 	}
 	
 	/**
@@ -88,7 +109,17 @@ public final class IWADManager
 	 */
 	public boolean containsIWAD(String name)
 	{
-		return connection.getRow(QUERY_EXIST, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, name).getBoolean(0);
+	}
+	
+	/**
+	 * Checks if an IWAD is used by any preset.
+	 * @param id the id of the IWAD.
+	 * @return true if at least one preset uses it, false if not.
+	 */
+	public boolean isIWADInUse(long id)
+	{
+		return connection().getRow(QUERY_IN_USE, id).getBoolean(0);
 	}
 	
 	/**
@@ -98,7 +129,7 @@ public final class IWADManager
 	 */
 	public IWAD getIWAD(long id)
 	{
-		return connection.getRow(IWAD.class, QUERY_GET_BY_ID, id);
+		return cache.get("id:" + id, (key) -> RowMapper.get(IWAD.class).getRow(connection(), QUERY_GET_BY_ID, id));
 	}
 	
 	/**
@@ -108,7 +139,7 @@ public final class IWADManager
 	 */
 	public IWAD getIWAD(String name)
 	{
-		return connection.getRow(IWAD.class, QUERY_GET_BY_NAME, name);
+		return cache.get("name:" + name.toLowerCase(), (key) -> RowMapper.get(IWAD.class).getRow(connection(), QUERY_GET_BY_NAME, name));
 	}
 	
 	/**
@@ -127,7 +158,33 @@ public final class IWADManager
 	 */
 	public IWAD[] getAllIWADs(String containingPhrase)
 	{
-		return connection.getResult(IWAD.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(IWAD.class).getResult(connection(), QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+	}
+	
+	/**
+	 * Reads IWADs by name, in name order, one page at a time, so that any amount of them can be listed in constant memory.
+	 * @param containingPhrase the phrase to search for.
+	 * @param consumer called with each one, in order.
+	 * @return the amount of IWADs read.
+	 */
+	public int forEachIWAD(String containingPhrase, Consumer<IWAD> consumer)
+	{
+		return RowMapper.get(IWAD.class).forEachPage(connection(), QUERY_LIST_PAGE, new Object[]{"", 0L},
+			(iwad) -> new Object[]{iwad.name, iwad.id},
+			(page) -> Arrays.stream(page).forEach(consumer),
+			DatabaseManager.toSearchPhrase(containingPhrase)
+		);
+	}
+	
+	/**
+	 * Gets the IWADs that point to a file path, or to files inside a directory path.
+	 * @param path the file or directory path.
+	 * @return the found IWADs.
+	 */
+	public IWAD[] getIWADsByPath(String path)
+	{
+		String directoryPath = path + File.separator;
+		return RowMapper.get(IWAD.class).getResult(connection(), QUERY_LIST_BY_PATH, path, directoryPath.length(), directoryPath);
 	}
 	
 	/**
@@ -138,10 +195,56 @@ public final class IWADManager
 	 */
 	public Long addIWAD(String name, String path)
 	{
-		SQLResult result = connection.getUpdateResult(QUERY_ADD, name, path);
+		SQLResult result = connection().getUpdateResult(QUERY_ADD, name, path);
 		return result.getRowCount() > 0 ? (Long)result.getId() : null;
 	}
 	
+	/**
+	 * Adds or updates many IWADs at once, in one transaction.
+	 * The names of the existing IWADs are fetched in one query and compared in memory,
+	 * so this is far cheaper than calling {@link #containsIWAD(String)} and {@link #addIWAD(String, String)} per file.
+	 * IWADs that exist with the same path are left alone.
+	 * @param iwads the map of IWAD names to paths to add/update.
+	 * @param updateExisting if true, update the paths of existing IWADs. If false, existing IWADs are skipped.
+	 * @return the result of the operation.
+	 */
+	public BatchResult addOrUpdateIWADs(Map<String, String> iwads, boolean updateExisting)
+	{
+		BatchResult out = new BatchResult();
+		try (UnitOfWork trn = database.beginWork())
+		{
+			Map<String, String> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			for (SQLRow row : trn.getResult(QUERY_LIST_NAMES))
+				existing.put(row.getString("name"), row.getString("path"));
+			
+			for (Map.Entry<String, String> entry : iwads.entrySet())
+			{
+				String name = entry.getKey();
+				String path = entry.getValue();
+				String existingPath = existing.get(name);
+				if (existingPath == null)
+				{
+					trn.getUpdateResult(QUERY_ADD, name, path);
+					existing.put(name, path);
+					out.added++;
+				}
+				else if (updateExisting && !existingPath.equals(path))
+				{
+					trn.getUpdateResult(QUERY_UPDATE, path, name);
+					existing.put(name, path);
+					out.updated++;
+				}
+				else
+				{
+					out.skipped++;
+				}
+			}
+			trn.complete();
+		}
+		changed(out.updated > 0);
+		return out;
+	}
+	
 	/**
 	 * Removes an IWAD.
 	 * @param name the name of the IWAD.
@@ -153,16 +256,13 @@ public final class IWADManager
 		if (iwad == null)
 			return false;
 		
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			trn.getUpdateResult(QUERY_REMOVE_PRESET, iwad.id);
 			trn.getUpdateResult(QUERY_REMOVE, iwad.name);
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_IWADS, CacheManager.CACHE_PRESETS);
 
 		return true;
 	}
@@ -175,7 +275,7 @@ public final class IWADManager
 	 */
 	public boolean renameIWAD(String oldName, String newName)
 	{
-		return connection.getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() > 0;
+		return changed(connection().getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() > 0);
 	}
 	
 	/**
@@ -186,9 +286,30 @@ public final class IWADManager
 	 */
 	public boolean setIWADPath(String name, String path)
 	{
-		return connection.getUpdateResult(QUERY_UPDATE, path, name).getRowCount() > 0;
+		return changed(connection().getUpdateResult(QUERY_UPDATE, path, name).getRowCount() > 0);
+	}
+	
+	// Clears the IWAD cache if something changed.
+	private boolean changed(boolean changed)
+	{
+		if (changed)
+			database.invalidateCaches(CacheManager.CACHE_IWADS);
+		return changed;
 	}
 	
+	/**
+	 * The result of a bulk add/update. 
+	 */
+	public static class BatchResult
+	{
+		/** Amount of IWADs added. */
+		public int added;
+		/** Amount of IWADs updated. */
+		public int updated;
+		/** Amount of IWADs skipped (already present). */
+		public int skipped;
+	}
+
 	/**
 	 * Each IWAD entry. 
 	 */
@@ -202,6 +323,18 @@ public final class IWADManager
 		/** IWAD path. */
 		@Column(name = "Path", order = 1, sortable = false, editable = false)
 		public String path;
+		
+		/**
+		 * @return a copy of this entry.
+		 */
+		public IWAD copy()
+		{
+			IWAD out = new IWAD();
+			out.id = id;
+			out.name = name;
+			out.path = path;
+			return out;
+		}
 	}
 
 }
@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.util.SQLRuntimeException;
+
+import net.mtrop.doomy.DoomyCommon;
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+
+/**
+ * Launch timing manager singleton.
+ * Keeps how long each phase of a preset's launches took (and how many bytes it handled), for the last
+ * {@value #MAX_RUNS} launches per preset, and summarizes them by percentile.
+ * @author Matthew Tropiano
+ */
+public final class LaunchTimingManager
+{
+	/** Launches kept per preset. */
+	public static final int MAX_RUNS = 100;
+	/** Launches summarized by default. */
+	public static final int DEFAULT_RUNS = 20;
+	/** Age at which a launch counts half as much towards how often a preset is launched, in milliseconds. */
+	public static final long FREQUENCY_HALF_LIFE_MILLIS = 7L * 24L * 60L * 60L * 1000L;
+
+	/**
+	 * Launch phases, in the order that they happen.
+	 * Preparation phases run at the same time as each other, so their times are the sum of their steps' times,
+	 * and {@link #PREPARE} is the time that preparation took as a whole.
+	 */
+	public enum Phase
+	{
+		/** Database lookups (engine, settings, IWAD and WAD paths). */
+		LOOKUP,
+		/** IWAD staging. */
+		IWAD,
+		/** WAD and DeHackEd file staging. */
+		WADS,
+		/** Zip extraction. */
+		EXTRACT,
+		/** Save, screenshot, and demo sync into the engine directory. */
+		SYNC,
+		/** All preparation (the above, at the same time). */
+		PREPARE,
+		/** Command line creation and process start. */
+		START,
+		/** Engine process run. */
+		RUN,
+		/** Save, screenshot, and demo sync back into the preset directory. */
+		SYNC_BACK,
+		/** Temp file cleanup. */
+		CLEANUP,
+		/** The whole launch. */
+		TOTAL;
+
+		/**
+		 * @return the name of this phase as stored.
+		 */
+		public String getName()
+		{
+			return name().toLowerCase();
+		}
+
+		/**
+		 * Gets a phase by stored name.
+		 * @param name the name.
+		 * @return the phase, or null if no match.
+		 */
+		public static Phase get(String name)
+		{
+			for (Phase phase : values())
+				if (phase.getName().equals(name))
+					return phase;
+			return null;
+		}
+	}
+
+	/**
+	 * Timings for one launch, added to by any thread.
+	 */
+	public static class Timings
+	{
+		private final long launched;
+		private final AtomicLongArray nanos;
+		private final AtomicLongArray bytes;
+
+		/**
+		 * Creates timings for a launch that starts now.
+		 */
+		public Timings()
+		{
+			this.launched = System.currentTimeMillis();
+			this.nanos = new AtomicLongArray(Phase.values().length);
+			this.bytes = new AtomicLongArray(Phase.values().length);
+		}
+
+		/**
+		 * @return the time that the launch started, in milliseconds since the epoch.
+		 */
+		public long getLaunched()
+		{
+			return launched;
+		}
+
+		/**
+		 * Adds the time since a start time to a phase.
+		 * @param phase the phase.
+		 * @param startNanos the start time, from {@link System#nanoTime()}.
+		 * @param byteCount the amount of bytes handled.
+		 */
+		public void add(Phase phase, long startNanos, long byteCount)
+		{
+			nanos.addAndGet(phase.ordinal(), System.nanoTime() - startNanos);
+			bytes.addAndGet(phase.ordinal(), byteCount);
+		}
+
+		/**
+		 * @param phase the phase.
+		 * @return the nanoseconds spent in the phase.
+		 */
+		public long getNanos(Phase phase)
+		{
+			return nanos.get(phase.ordinal());
+		}
+
+		/**
+		 * @param phase the phase.
+		 * @return the bytes handled in the phase.
+		 */
+		public long getBytes(Phase phase)
+		{
+			return bytes.get(phase.ordinal());
+		}
+	}
+
+	/**
+	 * One phase of one stored launch.
+	 */
+	public static class PresetTiming
+	{
+		public long presetId;
+		public long launched;
+		public String phase;
+		public long nanos;
+		public long bytes;
+		public String version;
+	}
+
+	/**
+	 * Statistics for one phase over many launches.
+	 */
+	public static class PhaseStatistics
+	{
+		/** The phase. */
+		public Phase phase;
+		/** The amount of launches. */
+		public int runs;
+		/** Median nanoseconds. */
+		public long p50Nanos;
+		/** 90th percentile nanoseconds. */
+		public long p90Nanos;
+		/** 99th percentile nanoseconds. */
+		public long p99Nanos;
+		/** Most nanoseconds. */
+		public long maxNanos;
+		/** Median bytes. */
+		public long p50Bytes;
+	}
+
+	// ============================== QUERIES ================================
+
+	private static final String QUERY_ADD
+		= "INSERT OR REPLACE INTO PresetTimings (presetId, launched, phase, nanos, bytes, version) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String QUERY_PRUNE
+		= "DELETE FROM PresetTimings WHERE presetId = ? AND launched NOT IN"
+			+ " (SELECT DISTINCT launched FROM PresetTimings WHERE presetId = ? ORDER BY launched DESC LIMIT ?)";
+	private static final String QUERY_LIST_LAST
+		= "SELECT * FROM PresetTimings WHERE presetId = ? AND launched IN"
+			+ " (SELECT DISTINCT launched FROM PresetTimings WHERE presetId = ? ORDER BY launched DESC LIMIT ?)"
+			+ " ORDER BY launched";
+	private static final String QUERY_LIST_LAUNCHES
+		= "SELECT * FROM PresetTimings WHERE phase = ?";
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(LaunchTimingManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<LaunchTimingManager> INSTANCE = new SingletonProvider<>(() -> new LaunchTimingManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static LaunchTimingManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Database manager. */
+	private DatabaseManager database;
+
+	private LaunchTimingManager()
+	{
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
+	/**
+	 * Stores a launch's timings for a preset (phases that did not happen are left out),
+	 * and removes the preset's oldest launches past {@value #MAX_RUNS}.
+	 * Timings are not important enough to fail a launch over, so failures are logged, not thrown.
+	 * @param presetId the preset id.
+	 * @param timings the timings.
+	 * @return true if stored, false if not.
+	 */
+	public boolean addTimings(long presetId, Timings timings)
+	{
+		String version = DoomyCommon.getVersionString("doomy");
+		try (UnitOfWork work = database.beginWork())
+		{
+			for (Phase phase : Phase.values())
+				if (timings.getNanos(phase) > 0L || timings.getBytes(phase) > 0L)
+					work.getUpdateResult(QUERY_ADD, presetId, timings.launched, phase.getName(), timings.getNanos(phase), timings.getBytes(phase), version);
+			work.getUpdateResult(QUERY_PRUNE, presetId, presetId, MAX_RUNS);
+			work.complete();
+			return true;
+		} catch (SQLRuntimeException e) {
+			LOG.errorf(e, "Could not store launch timings for preset id %d.", presetId);
+			return false;
+		}
+	}
+
+	/**
+	 * Gets a preset's last launches' timings.
+	 * @param presetId the preset id.
+	 * @param runs the amount of launches.
+	 * @return the timings, oldest launch first.
+	 */
+	public PresetTiming[] getTimings(long presetId, int runs)
+	{
+		return RowMapper.get(PresetTiming.class).getResult(connection(), QUERY_LIST_LAST, presetId, presetId, runs);
+	}
+
+	/**
+	 * Gets statistics for each phase of a preset's last launches.
+	 * @param presetId the preset id.
+	 * @param runs the amount of launches.
+	 * @return the statistics, in phase order (phases without timings are left out).
+	 */
+	public PhaseStatistics[] getStatistics(long presetId, int runs)
+	{
+		Phase[] phases = Phase.values();
+		List<List<PresetTiming>> byPhase = new ArrayList<>(phases.length);
+		for (int i = 0; i < phases.length; i++)
+			byPhase.add(new ArrayList<>());
+		for (PresetTiming timing : getTimings(presetId, runs))
+		{
+			Phase phase = Phase.get(timing.phase);
+			if (phase != null)
+				byPhase.get(phase.ordinal()).add(timing);
+		}
+
+		List<PhaseStatistics> out = new ArrayList<>(phases.length);
+		for (Phase phase : phases)
+		{
+			List<PresetTiming> timings = byPhase.get(phase.ordinal());
+			if (timings.isEmpty())
+				continue;
+			long[] nanos = new long[timings.size()];
+			long[] bytes = new long[timings.size()];
+			for (int i = 0; i < nanos.length; i++)
+			{
+				nanos[i] = timings.get(i).nanos;
+				bytes[i] = timings.get(i).bytes;
+			}
+			Arrays.sort(nanos);
+			Arrays.sort(bytes);
+
+			PhaseStatistics statistics = new PhaseStatistics();
+			statistics.phase = phase;
+			statistics.runs = nanos.length;
+			statistics.p50Nanos = percentile(nanos, 50);
+			statistics.p90Nanos = percentile(nanos, 90);
+			statistics.p99Nanos = percentile(nanos, 99);
+			statistics.maxNanos = nanos[nanos.length - 1];
+			statistics.p50Bytes = percentile(bytes, 50);
+			out.add(statistics);
+		}
+		return out.toArray(new PhaseStatistics[out.size()]);
+	}
+
+	/**
+	 * Gets the ids of the presets launched most often and most recently.
+	 * Each stored launch adds to its preset's score, halved for each {@value #FREQUENCY_HALF_LIFE_MILLIS} milliseconds of age.
+	 * @param limit the maximum amount of ids.
+	 * @return the preset ids, highest score first.
+	 */
+	public long[] getFrequentPresetIds(int limit)
+	{
+		long now = System.currentTimeMillis();
+		Map<Long, Double> scores = new HashMap<>();
+		for (PresetTiming timing : RowMapper.get(PresetTiming.class).getResult(connection(), QUERY_LIST_LAUNCHES, Phase.TOTAL.getName()))
+		{
+			double age = Math.max(0L, now - timing.launched) / (double)FREQUENCY_HALF_LIFE_MILLIS;
+			scores.merge(timing.presetId, Math.pow(0.5, age), Double::sum);
+		}
+		return scores.entrySet().stream()
+			.sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+			.limit(Math.max(0, limit))
+			.mapToLong(Map.Entry::getKey)
+			.toArray();
+	}
+
+	// Nearest-rank percentile of sorted values.
+	private static long percentile(long[] sorted, int percent)
+	{
+		int rank = (int)Math.ceil(percent / 100.0 * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+	}
+
+}
@@ -7,14 +7,32 @@ package net.mtrop.doomy.managers;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import net.mtrop.doomy.DoomyEnvironment;
@@ -22,40 +40,68 @@ import net.mtrop.doomy.DoomySetupException;
 import net.mtrop.doomy.IOHandler;
 import net.mtrop.doomy.managers.EngineConfigManager.EngineSettings;
 import net.mtrop.doomy.managers.EngineManager.Engine;
+import net.mtrop.doomy.managers.IWADManager.IWAD;
+import net.mtrop.doomy.managers.LaunchTimingManager.Phase;
+import net.mtrop.doomy.managers.LaunchTimingManager.Timings;
 import net.mtrop.doomy.managers.PresetManager.Preset;
+import net.mtrop.doomy.managers.SyncManager.Sync;
+import net.mtrop.doomy.managers.SyncManager.Transfer;
 import net.mtrop.doomy.managers.WADManager.WAD;
 import net.mtrop.doomy.struct.ProcessCallable;
+import net.mtrop.doomy.struct.RingBufferOutputStream;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.UnzipSet;
-import net.mtrop.doomy.struct.InstancedFuture;
+import net.mtrop.doomy.struct.TransferProgress;
 import net.mtrop.doomy.struct.util.FileUtils;
-import net.mtrop.doomy.struct.util.IOUtils;
 
 /**
  * Launcher manager.
+ * Launches can run at the same time: each gets its own temp directory, staged files are shared between them
+ * (see {@link StagingManager#acquire(java.util.Collection)}), and running launches are kept in a registry (see {@link #getLaunches()}).
  * @author Matthew Tropiano
  */
 public final class LauncherManager
 {
+	/** System property for the amount of launch preparation threads. */
+	public static final String PROPERTY_THREADS = "doomy.launch.threads";
+	/** Default amount of launch preparation threads (staging is mostly waiting on I/O). */
+	public static final int DEFAULT_THREADS = 4;
+	/** System property for the amount of engine console output kept per launch, in bytes. */
+	public static final String PROPERTY_CONSOLE_SIZE = "doomy.launch.console.size";
+	/** Default amount of engine console output kept per launch, in bytes. */
+	public static final int DEFAULT_CONSOLE_SIZE = 64 * 1024;
+
+	/** Time between progress reports in milliseconds. */
+	private static final long PROGRESS_INTERVAL_MILLIS = 500L;
 	private static final String DOSBOX_TEMP_MOUNT = "T:";
 	private static final String DOSBOX_PRESET_MOUNT = "P:";
 	private static final String CMDLINE_FILE = "CMDLINE.TXT";
+	/** Parent of the per-launch temp directories, in the cache directory. */
+	private static final String LAUNCH_TEMP_DIR = "launch";
 	
 	private static final UnzipSet.ZipEntryFilter WAD_ZIPFILTER = (entry) ->
 	{
-		String ext = FileUtils.getFileExtension(entry.getName(), ".");
+		return isWADExtension(FileUtils.getFileExtension(entry.getName(), "."));
+	};
+	
+	private static final UnzipSet.ZipEntryFilter DEH_ZIPFILTER = (entry) ->
+	{
+		return isDEHExtension(FileUtils.getFileExtension(entry.getName(), "."));
+	};
+
+	private static boolean isWADExtension(String ext)
+	{
 		return ext.equalsIgnoreCase("wad")
 			|| ext.equalsIgnoreCase("pk3")
 			|| ext.equalsIgnoreCase("pke")
 			|| ext.equalsIgnoreCase("pk7");
-	};
+	}
 	
-	private static final UnzipSet.ZipEntryFilter DEH_ZIPFILTER = (entry) ->
+	private static boolean isDEHExtension(String ext)
 	{
-		String ext = FileUtils.getFileExtension(entry.getName(), ".");
 		return ext.equalsIgnoreCase("deh")
 			|| ext.equalsIgnoreCase("bex");
-	};
+	}
 
 	// =======================================================================
 	
@@ -81,6 +127,141 @@ public final class LauncherManager
 		}
 	}
 
+	/**
+	 * Launch roles.
+	 */
+	public enum Role
+	{
+		/** The engine (a game client). */
+		CLIENT,
+		/** The engine's server executable (see {@link EngineConfigManager#SETTING_SERVERFILENAME}). */
+		SERVER;
+	}
+
+	/**
+	 * Launch states.
+	 */
+	public enum Status
+	{
+		/** Files are being staged, extracted, and synced. */
+		PREPARING,
+		/** The engine is running. */
+		RUNNING,
+		/** The engine exited, and files are being synced back and cleaned up. */
+		FINISHING;
+	}
+
+	/**
+	 * A launch in the registry of running launches.
+	 */
+	public static class Launch
+	{
+		private final long id;
+		private final Preset preset;
+		private final Role role;
+		private final boolean primary;
+		private final boolean syncing;
+		private final File engineDirectory;
+		private final File tempDirectory;
+		private final long started;
+		private volatile Status status;
+		private volatile RingBufferOutputStream console;
+		
+		private Launch(long id, Preset preset, Role role, boolean primary, boolean syncing, File engineDirectory, File tempDirectory)
+		{
+			this.id = id;
+			this.preset = preset;
+			this.role = role;
+			this.primary = primary;
+			this.syncing = syncing;
+			this.engineDirectory = engineDirectory;
+			this.tempDirectory = tempDirectory;
+			this.started = System.currentTimeMillis();
+			this.status = Status.PREPARING;
+			this.console = null;
+		}
+		
+		/**
+		 * @return the launch id (unique in this session).
+		 */
+		public long getId() 
+		{
+			return id;
+		}
+		
+		/**
+		 * @return the launched preset.
+		 */
+		public Preset getPreset() 
+		{
+			return preset;
+		}
+		
+		/**
+		 * @return the launch role.
+		 */
+		public Role getRole() 
+		{
+			return role;
+		}
+		
+		/**
+		 * @return true if this launch syncs the preset's files (where its engine is set up to) and is timed, false if not (the other instances in a group).
+		 */
+		public boolean isPrimary() 
+		{
+			return primary;
+		}
+		
+		/**
+		 * @return true if this launch syncs save, screenshot, or demo files into its engine directory, false if not.
+		 */
+		public boolean isSyncing() 
+		{
+			return syncing;
+		}
+		
+		/**
+		 * @return the engine directory.
+		 */
+		public File getEngineDirectory() 
+		{
+			return engineDirectory;
+		}
+		
+		/**
+		 * @return this launch's own temp directory.
+		 */
+		public File getTempDirectory() 
+		{
+			return tempDirectory;
+		}
+		
+		/**
+		 * @return the time that the launch started, in milliseconds since the epoch.
+		 */
+		public long getStarted() 
+		{
+			return started;
+		}
+		
+		/**
+		 * @return the current status.
+		 */
+		public Status getStatus() 
+		{
+			return status;
+		}
+		
+		/**
+		 * @return the engine console output, or null if the engine was not started yet.
+		 */
+		public RingBufferOutputStream getConsole() 
+		{
+			return console;
+		}
+	}
+
 	private static class LaunchContext
 	{
 		private File dosboxExecutable;
@@ -90,11 +271,17 @@ public final class LauncherManager
 		private File iwadFile;
 		private Deque<File> wads;
 		private Deque<File> dehs;
-		private Deque<UnzipSet> zipSets;
 		private Deque<File> cleanup;
+		private Queue<File> staged;
 		
 		private File saveDir;
 		private File screenshotDir;
+		
+		private FileFilter syncFilter;
+		private Sync sync;
+		
+		private Timings timings;
+		private Launch launch;
 	
 		public LaunchContext()
 		{
@@ -105,32 +292,123 @@ public final class LauncherManager
 			this.iwadFile = null;
 			this.wads = new LinkedList<File>();
 			this.dehs = new LinkedList<File>();
-			this.zipSets = new LinkedList<UnzipSet>();
-			this.cleanup = new LinkedList<File>();
+			this.cleanup = new ConcurrentLinkedDeque<File>();
+			this.staged = new ConcurrentLinkedQueue<File>();
 
 			this.saveDir = null;
 			this.screenshotDir = null;
+			
+			this.syncFilter = null;
+			this.sync = null;
+			
+			this.timings = new Timings();
+			this.launch = null;
+		}
+	}
+
+	// Files prepared by one launch step, in order.
+	private static class PreparedFiles
+	{
+		private File iwad;
+		private List<File> wads;
+		private List<File> dehs;
+		
+		public PreparedFiles()
+		{
+			this.iwad = null;
+			this.wads = new LinkedList<File>();
+			this.dehs = new LinkedList<File>();
+		}
+	}
+
+	// A launch step, and the amount of bytes it is expected to transfer (larger steps are started first).
+	private static class LaunchStep<T>
+	{
+		private long size;
+		private Callable<T> callable;
+		
+		public LaunchStep(long size, Callable<T> callable)
+		{
+			this.size = size;
+			this.callable = callable;
 		}
 	}
 
-	private LauncherManager() {}
+	/** The engine console output of each preset's last launch. */
+	private final Map<Long, RingBufferOutputStream> consoles;
+	/** Running launches, by id. */
+	private final Map<Long, Launch> launches;
+	/** Next launch id. */
+	private final AtomicLong launchId;
+	/** The preparation threads, shared by all launches. */
+	private final ExecutorService stepExecutor;
+	/** The thread that syncs back and cleans up after engines exit (it waits on steps, so it cannot be a step thread). */
+	private final ExecutorService finishExecutor;
+	
+	private LauncherManager() 
+	{
+		this.consoles = new ConcurrentHashMap<>();
+		this.launches = new ConcurrentHashMap<>();
+		this.launchId = new AtomicLong(1L);
+		// Long-lived, so that each thread's database connection is opened once.
+		final AtomicInteger stepThreadId = new AtomicInteger(1);
+		this.stepExecutor = Executors.newFixedThreadPool(Math.max(1, Integer.getInteger(PROPERTY_THREADS, DEFAULT_THREADS)), (runnable) -> {
+			Thread out = new Thread(runnable);
+			out.setName("DoomyLaunchStep-" + stepThreadId.getAndIncrement());
+			out.setDaemon(true);
+			return out;
+		});
+		this.finishExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+			Thread out = new Thread(runnable);
+			out.setName("DoomyLaunchFinisher");
+			out.setDaemon(true);
+			return out;
+		});
+	}
+
+	/**
+	 * @return the launches running in this session (from the start of preparation until cleanup is done), oldest first.
+	 */
+	public List<Launch> getLaunches()
+	{
+		List<Launch> out = new ArrayList<>(launches.values());
+		out.sort(Comparator.comparingLong(Launch::getId));
+		return out;
+	}
+
+	/**
+	 * Gets the engine console output (standard output and error) of a preset's last launch in this session.
+	 * Only the last {@value #DEFAULT_CONSOLE_SIZE} bytes are kept (see {@link #PROPERTY_CONSOLE_SIZE}).
+	 * The output is still written to while the engine runs.
+	 * @param presetId the preset id.
+	 * @return the output, or null if the preset was not launched.
+	 */
+	public RingBufferOutputStream getConsole(long presetId)
+	{
+		return consoles.get(presetId);
+	}
 
 	private FileFilter createFileNamePatternFilter(final Pattern pattern)
 	{
 		return (file) -> pattern.matcher(file.getName()).matches();
 	}
 	
+	// Creates a new temp directory for one launch, so that launches running at the same time do not share files.
 	private File checkTempDirectory() throws LaunchException
 	{
-		File tempDirectory = new File(DoomyEnvironment.getApplicationCachePath());
+		File parentDirectory = new File(DoomyEnvironment.getApplicationCachePath(), LAUNCH_TEMP_DIR);
 		
-		if (!FileUtils.createPath(tempDirectory.getAbsolutePath()))
-			throw new LaunchException("Could not create temp directory '" + tempDirectory.getPath() + "'.");
+		if (!FileUtils.createPath(parentDirectory.getAbsolutePath()))
+			throw new LaunchException("Could not create temp directory '" + parentDirectory.getPath() + "'.");
 
-		if (!tempDirectory.isDirectory())
-			throw new LaunchException("Temp directory '" + tempDirectory.getPath() + "' is not a directory!");
+		if (!parentDirectory.isDirectory())
+			throw new LaunchException("Temp directory '" + parentDirectory.getPath() + "' is not a directory!");
 		
-		return tempDirectory;
+		try {
+			return Files.createTempDirectory(parentDirectory.toPath(), "").toFile();
+		} catch (IOException e) {
+			throw new LaunchException("Could not create temp directory in '" + parentDirectory.getPath() + "': " + e.getMessage());
+		}
 	}
 
 	private File checkPresetDirectory(Preset preset) throws LaunchException
@@ -163,8 +441,16 @@ public final class LauncherManager
 		}
 	}
 
-	private void setExecutables(LaunchContext context, EngineSettings settings) throws LaunchException
+	private void setExecutables(LaunchContext context, Engine engine, EngineSettings settings, Role role) throws LaunchException
 	{
+		if (role == Role.SERVER)
+		{
+			if (settings.serverFileName == null)
+				throw new LaunchException("Engine '" + engine.name + "' has no server executable specified (" + EngineConfigManager.SETTING_SERVERFILENAME + ").");
+			if (settings.dosboxPath != null)
+				throw new LaunchException("Engine '" + engine.name + "' runs in DOSBox, which cannot run a server.");
+		}
+		
 		if (settings.dosboxPath != null)
 		{
 			context.dosboxExecutable = new File(settings.dosboxPath);
@@ -173,6 +459,8 @@ public final class LauncherManager
 		}
 	
 		context.engineExecutable = new File(settings.exePath);
+		if (role == Role.SERVER)
+			context.engineExecutable = new File(context.engineExecutable.getParentFile(), settings.serverFileName);
 		if (!context.engineExecutable.exists())
 			throw new LaunchException("Engine executable '" + context.engineExecutable.getPath() + "' cannot be found.");
 	
@@ -185,8 +473,12 @@ public final class LauncherManager
 			throw new LaunchException("Working directory '" + context.workingDirectory.getPath() + "' not found.");
 	}
 
-	private void setDirectories(LaunchContext context, Preset preset, EngineSettings settings) throws LaunchException
+	private void setDirectories(LaunchContext context, Preset preset, EngineSettings settings, Role role) throws LaunchException
 	{
+		// Servers do not save games nor take screenshots.
+		if (role == Role.SERVER)
+			return;
+		
 		// DOSBox
 		if (context.dosboxExecutable != null)
 		{
@@ -204,119 +496,316 @@ public final class LauncherManager
 		}
 	}
 
-	private File tempFileCopy(IOHandler handler, File sourcePath, File tempDirectory, Deque<File> cleanupList, boolean dosBox) throws LaunchException
+	// Stages a file if it needs to be (a remote file or a need to move to a mounted directory).
+	private File stageFile(File sourcePath, File tempDirectory, LaunchContext context, TransferProgress progress) throws LaunchException
 	{
-		File outFile = new File(tempDirectory + File.separator + sourcePath.getName());
-		handler.outln("Copying "+sourcePath.getName()+"...");
-		try (FileInputStream fis = new FileInputStream(sourcePath); FileOutputStream fos = new FileOutputStream(outFile))
+		if (!sourcePath.isAbsolute() && context.dosboxExecutable == null)
+			return sourcePath;
+		
+		File stagedFile;
+		try
 		{
-			IOUtils.relay(fis, fos, 8192);
+			stagedFile = StagingManager.get().stage(sourcePath, progress);
 		} 
 		catch (IOException e) 
 		{
-			throw new LaunchException("Could not copy remote file " + sourcePath.getPath() + " to " + outFile.getPath() + ".");
+			throw new LaunchException("Could not stage remote file " + sourcePath.getPath() + ": " + e.getMessage());
 		}
-		
-		cleanupList.add(outFile);
-		
-		// if DOSBox, the file to add via a switch is in the mounted temp dir.
-		if (dosBox)
-			return new File(DOSBOX_TEMP_MOUNT + "\\" + sourcePath.getName());
-		else
-			return outFile;
+		return useStagedFile(stagedFile, tempDirectory, context);
 	}
 
-	private List<File> copyMatchingFiles(File sourceDirectory, File targetDirectory, boolean cleanup, FileFilter filter) throws LaunchException
+	private File useStagedFile(File stagedFile, File tempDirectory, LaunchContext context) throws LaunchException
 	{
-		List<File> outList = new LinkedList<>();
-		for (File matchingFile : sourceDirectory.listFiles(filter))
+		context.staged.add(stagedFile);
+		StagingManager.get().acquire(Collections.singleton(stagedFile));
+		
+		// if DOSBox, the file to add via a switch is in the mounted temp dir.
+		if (context.dosboxExecutable != null)
 		{
-			File outFile = new File(targetDirectory + File.separator + matchingFile.getName());
-			try (FileInputStream fis = new FileInputStream(matchingFile); FileOutputStream fos = new FileOutputStream(outFile))
+			try
 			{
-				IOUtils.relay(fis, fos, 8192);
+				context.cleanup.add(StagingManager.get().placeInto(stagedFile, tempDirectory));
 			} 
 			catch (IOException e) 
 			{
-				throw new LaunchException("Could not copy remote file " + matchingFile.getPath() + " to " + outFile.getPath() + ".");
+				throw new LaunchException("Could not place staged file " + stagedFile.getPath() + " in " + tempDirectory.getPath() + ".");
 			}
-			outList.add(outFile);
-			
-			if (cleanup)
-				matchingFile.delete();
+			return new File(DOSBOX_TEMP_MOUNT + "\\" + stagedFile.getName());
+		}
+		else
+		{
+			return stagedFile;
 		}
-		return outList;
 	}
 
-	private void setUpWADs(IOHandler handler, LaunchContext context, Long iwadId, long[] wadIds, File tempDirectory) throws LaunchException
+	// Prepares one preset WAD: staged if it is a WAD or DEH, extracted if it is an archive.
+	private PreparedFiles prepareWAD(File wadPath, File tempDirectory, LaunchContext context, TransferProgress progress) throws LaunchException
 	{
-		if (iwadId != null)
+		PreparedFiles out = new PreparedFiles();
+		String ext = FileUtils.getFileExtension(wadPath);
+		
+		if (isWADExtension(ext))
 		{
-			File iwadPath = new File(IWADManager.get().getIWAD(iwadId).path);
-			// Check if we need to copy to temp - a remote file or a need to move to a mounted directory.
-			if (iwadPath.isAbsolute() || context.dosboxExecutable != null)
-				context.iwadFile = tempFileCopy(handler, iwadPath, tempDirectory, context.cleanup, context.dosboxExecutable != null);
-			else
-				context.iwadFile = iwadPath;
+			out.wads.add(stageFile(wadPath, tempDirectory, context, progress));
 		}
-		
-		for (long id : wadIds)
+		else if (isDEHExtension(ext))
 		{
-			WAD wad = WADManager.get().getWAD(id);
-			File wadPath = new File(wad.path);
-			String ext = FileUtils.getFileExtension(wadPath);
-			
-			if (ext.equalsIgnoreCase("wad") || ext.equalsIgnoreCase("pk3") || ext.equalsIgnoreCase("pke") || ext.equalsIgnoreCase("pk7"))
+			out.dehs.add(stageFile(wadPath, tempDirectory, context, progress));
+		}
+		else if (ext.equalsIgnoreCase("zip"))
+		{
+			List<File> extracted;
+			try 
 			{
-				// Check if we need to copy to temp - a remote file or a need to move to a mounted directory.
-				if (wadPath.isAbsolute() || context.dosboxExecutable != null)
-					context.wads.add(tempFileCopy(handler, wadPath, tempDirectory, context.cleanup, context.dosboxExecutable != null));
-				else
-					context.wads.add(wadPath);
+				extracted = StagingManager.get().extract(wadPath, (entry) -> WAD_ZIPFILTER.test(entry) || DEH_ZIPFILTER.test(entry), progress);
+			} 
+			catch (IOException e) 
+			{
+				throw new LaunchException("Could not extract Zip file " + wadPath.getPath() + ": " + e.getMessage());
 			}
-			else if (ext.equalsIgnoreCase("deh") || ext.equalsIgnoreCase("bex"))
+			
+			for (File f : extracted)
 			{
-				// Check if we need to copy to temp - a remote file or a need to move to a mounted directory.
-				if (wadPath.isAbsolute() || context.dosboxExecutable != null)
-					context.dehs.add(tempFileCopy(handler, wadPath, tempDirectory, context.cleanup, context.dosboxExecutable != null));
+				if (isDEHExtension(FileUtils.getFileExtension(f)))
+					out.dehs.add(useStagedFile(f, tempDirectory, context));
 				else
-					context.dehs.add(wadPath);
+					out.wads.add(useStagedFile(f, tempDirectory, context));
 			}
-			else if (ext.equalsIgnoreCase("zip"))
+		}
+		return out;
+	}
+
+	// Creates the filter for the save, screenshot, and demo files synced between the preset and engine directories (null if none).
+	private FileFilter createSyncFilter(IOHandler handler, EngineSettings settings)
+	{
+		List<FileFilter> filters = new ArrayList<>();
+		if (settings.saveDirectorySwitch == null && settings.saveGameRegex != null)
+		{
+			handler.outln("Syncing save files...");
+			filters.add(createFileNamePatternFilter(settings.saveGameRegex));
+		}
+		if (settings.screenshotDirectorySwitch == null && settings.screenshotRegex != null)
+		{
+			handler.outln("Syncing screenshot files...");
+			filters.add(createFileNamePatternFilter(settings.screenshotRegex));
+		}
+		if (settings.demoRegex != null)
+		{
+			handler.outln("Syncing demo files...");
+			filters.add(createFileNamePatternFilter(settings.demoRegex));
+		}
+		
+		if (filters.isEmpty())
+			return null;
+		
+		return (file) -> 
+		{
+			for (FileFilter filter : filters)
+				if (filter.accept(file))
+					return true;
+			return false;
+		};
+	}
+
+	// Plans a sync between the preset and engine directories, as launch steps (timed as a phase).
+	private List<LaunchStep<PreparedFiles>> createSyncSteps(Sync sync, LaunchContext context, Phase phase, TransferProgress progress)
+	{
+		List<LaunchStep<PreparedFiles>> out = new ArrayList<>();
+		for (Transfer transfer : sync.getTransfers())
+		{
+			out.add(new LaunchStep<>(transfer.getSize(), () -> 
 			{
-				try 
+				long start = System.nanoTime();
+				TransferProgress stepProgress = new TransferProgress(progress);
+				try
 				{
-					UnzipSet uzs = new UnzipSet(wadPath, tempDirectory);
-					List<File> unzipped; 
-					
-					handler.outln("Extract WADs...");
-					unzipped = uzs.unzipAll(WAD_ZIPFILTER);
-					for (File f : unzipped)
-					{
-						if (context.dosboxExecutable != null)
-							context.wads.add(new File(DOSBOX_TEMP_MOUNT + "\\" + f.getName()));
-						else
-							context.wads.add(f);
-					}
-					
-					handler.outln("Extract DEHs...");
-					unzipped = uzs.unzipAll(DEH_ZIPFILTER);
-					for (File f : unzipped)
-					{
-						if (context.dosboxExecutable != null)
-							context.dehs.add(new File(DOSBOX_TEMP_MOUNT + "\\" + f.getName()));
-						else
-							context.dehs.add(f);
-					}
-					
-					context.zipSets.add(uzs);
+					transfer.run(stepProgress);
 				} 
 				catch (IOException e) 
 				{
-					throw new LaunchException("Could not open Zip file " + wadPath.getPath() + "!");
+					throw new LaunchException("Could not sync file " + transfer.getSource().getPath() + " to " + transfer.getTarget().getPath() + ": " + e.getMessage());
+				}
+				finally
+				{
+					context.timings.add(phase, start, stepProgress.getCurrent());
+				}
+				return new PreparedFiles();
+			}));
+		}
+		return out;
+	}
+
+	// Syncs the preset's files back from the engine directory (only what changed or was written during the launch).
+	private void syncBack(IOHandler handler, LaunchContext context, File presetDirectory, File engineDir, TransferProgress progress) throws LaunchException
+	{
+		long start = System.nanoTime();
+		Sync sync;
+		try
+		{
+			sync = SyncManager.get().toPreset(presetDirectory, engineDir, context.syncFilter);
+		} 
+		catch (IOException e) 
+		{
+			throw new LaunchException("Could not read files to sync back from " + engineDir.getPath() + ": " + e.getMessage());
+		}
+		finally
+		{
+			context.timings.add(Phase.SYNC_BACK, start, 0L);
+		}
+		
+		handler.outf("Syncing back %d new or changed files (%d unchanged)...\n", sync.getTransfers().size() - sync.getUnchangedCount(), sync.getUnchangedCount());
+		runSteps(createSyncSteps(sync, context, Phase.SYNC_BACK, progress), progress);
+		
+		try
+		{
+			sync.complete();
+		} 
+		catch (IOException e) 
+		{
+			throw new LaunchException("Could not finish syncing files back from " + engineDir.getPath() + ": " + e.getMessage());
+		}
+	}
+
+	// Prepares the IWAD, WADs, and pre-launch file sync, all as steps of one pipeline.
+	private void prepare(IOHandler handler, LaunchContext context, Preset preset, EngineSettings settings, File presetDirectory, File engineDir, File tempDirectory, TransferProgress progress) throws LaunchException
+	{
+		List<LaunchStep<PreparedFiles>> steps = new ArrayList<>();
+		
+		long start = System.nanoTime();
+		File iwadPath = preset.iwadId != null ? new File(IWADManager.get().getIWAD(preset.iwadId).path) : null;
+		List<File> wadPaths = new ArrayList<>(preset.wadIds.length);
+		for (long id : preset.wadIds)
+			wadPaths.add(new File(WADManager.get().getWAD(id).path));
+		context.timings.add(Phase.LOOKUP, start, 0L);
+
+		if (iwadPath != null)
+		{
+			steps.add(new LaunchStep<>(iwadPath.length(), () -> 
+			{
+				long stepStart = System.nanoTime();
+				TransferProgress stepProgress = new TransferProgress(progress);
+				try {
+					PreparedFiles out = new PreparedFiles();
+					out.iwad = stageFile(iwadPath, tempDirectory, context, stepProgress);
+					return out;
+				} finally {
+					context.timings.add(Phase.IWAD, stepStart, stepProgress.getCurrent());
+				}
+			}));
+		}
+		
+		for (File wadPath : wadPaths)
+		{
+			Phase phase = FileUtils.getFileExtension(wadPath).equalsIgnoreCase("zip") ? Phase.EXTRACT : Phase.WADS;
+			steps.add(new LaunchStep<>(wadPath.length(), () -> 
+			{
+				long stepStart = System.nanoTime();
+				TransferProgress stepProgress = new TransferProgress(progress);
+				try {
+					return prepareWAD(wadPath, tempDirectory, context, stepProgress);
+				} finally {
+					context.timings.add(phase, stepStart, stepProgress.getCurrent());
+				}
+			}));
+		}
+
+		// Pre-Launch (sync saves, screenshots, demos)
+		if (context.syncFilter != null)
+		{
+			start = System.nanoTime();
+			try
+			{
+				context.sync = SyncManager.get().toEngine(presetDirectory, engineDir, context.syncFilter);
+			} 
+			catch (IOException e) 
+			{
+				throw new LaunchException("Could not sync files to " + engineDir.getPath() + ": " + e.getMessage());
+			}
+			finally
+			{
+				context.timings.add(Phase.SYNC, start, 0L);
+			}
+			handler.outf("Syncing %d files (%d unchanged)...\n", context.sync.getTransfers().size(), context.sync.getUnchangedCount());
+			steps.addAll(createSyncSteps(context.sync, context, Phase.SYNC, progress));
+		}
+		
+		for (PreparedFiles prepared : runSteps(steps, progress))
+		{
+			if (prepared.iwad != null)
+				context.iwadFile = prepared.iwad;
+			context.wads.addAll(prepared.wads);
+			context.dehs.addAll(prepared.dehs);
+		}
+
+		if (context.sync != null)
+		{
+			try
+			{
+				context.sync.complete();
+			} 
+			catch (IOException e) 
+			{
+				throw new LaunchException("Could not finish syncing files to " + engineDir.getPath() + ": " + e.getMessage());
+			}
+		}
+
+		if (!context.staged.isEmpty())
+			StagingManager.get().evict(context.staged);
+	}
+
+	// Runs steps on the preparation threads, largest first, and waits for all of them to stop.
+	// If one fails, the others are cancelled (through the progress), and the first failure is thrown once all have stopped, 
+	// so that nothing is still being written afterward.
+	private <T> List<T> runSteps(List<LaunchStep<T>> steps, TransferProgress progress) throws LaunchException
+	{
+		if (steps.isEmpty())
+			return new ArrayList<>();
+		
+		Integer[] order = new Integer[steps.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, Comparator.comparingLong((Integer i) -> steps.get(i).size).reversed());
+
+		List<Future<T>> futures = new ArrayList<>(Collections.nCopies(steps.size(), null));
+		for (int i : order)
+			futures.set(i, stepExecutor.submit(steps.get(i).callable));
+		
+		List<T> out = new ArrayList<>(steps.size());
+		Throwable failure = null;
+		boolean interrupted = false;
+		for (Future<T> future : futures)
+		{
+			T result = null;
+			while (true)
+			{
+				try {
+					result = future.get();
+					break;
+				} catch (InterruptedException e) {
+					// Keep waiting: cancelled steps stop at their next transfer.
+					interrupted = true;
+					progress.cancel();
+				} catch (ExecutionException e) {
+					progress.cancel();
+					if (failure == null || (failure instanceof CancellationException && !(e.getCause() instanceof CancellationException)))
+						failure = e.getCause();
+					break;
 				}
 			}
+			out.add(result);
 		}
+		
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		
+		if (failure instanceof LaunchException)
+			throw (LaunchException)failure;
+		else if (failure instanceof CancellationException || (failure == null && interrupted))
+			throw new LaunchException("Launch cancelled.");
+		else if (failure != null)
+			throw new LaunchException("Could not prepare launch: " + failure.getMessage());
+		
+		return out;
 	}
 
 	private String quoteEscape(String input)
@@ -462,7 +951,61 @@ public final class LauncherManager
 	}
 	
 	/**
-	 * Runs a preset.
+	 * Gets the files that a preset's launch stages or extracts (its IWAD and WADs, where the launch would stage them).
+	 * @param preset the preset.
+	 * @return the files, in preset order.
+	 */
+	public List<File> getStagedFiles(Preset preset)
+	{
+		EngineSettings settings = EngineConfigManager.get().getEngineSettings(preset.engineId);
+		boolean dosbox = settings != null && settings.dosboxPath != null;
+		
+		List<File> out = new ArrayList<>(preset.wadIds.length + 1);
+		IWAD iwad = preset.iwadId != null ? IWADManager.get().getIWAD(preset.iwadId) : null;
+		if (iwad != null)
+			out.add(new File(iwad.path));
+		for (long id : preset.wadIds)
+		{
+			WAD wad = WADManager.get().getWAD(id);
+			if (wad != null)
+				out.add(new File(wad.path));
+		}
+		
+		// Same as stageFile(): relative paths are used where they are, unless DOSBox mounts them (Zip files are always extracted).
+		out.removeIf((file) -> !file.isAbsolute() && !dosbox && !FileUtils.getFileExtension(file).equalsIgnoreCase("zip"));
+		return out;
+	}
+
+	/**
+	 * Stages a preset's IWAD and WADs and extracts its Zip files ahead of a launch (see {@link PrestageManager}),
+	 * the same way that the launch does, so that launching it only has to find them.
+	 * @param preset the preset.
+	 * @param progress the progress to add to.
+	 * @return the staged and extracted files.
+	 * @throws IOException if a file could not be staged or extracted.
+	 * @throws CancellationException if the progress was cancelled.
+	 */
+	public List<File> prestage(Preset preset, TransferProgress progress) throws IOException
+	{
+		StagingManager stagingManager = StagingManager.get();
+		List<File> out = new ArrayList<>();
+		IWAD iwad = preset.iwadId != null ? IWADManager.get().getIWAD(preset.iwadId) : null;
+		File iwadPath = iwad != null ? new File(iwad.path) : null;
+		for (File file : getStagedFiles(preset))
+		{
+			String ext = FileUtils.getFileExtension(file);
+			if (file.equals(iwadPath))
+				out.add(stagingManager.stage(file, progress));
+			else if (ext.equalsIgnoreCase("zip"))
+				out.addAll(stagingManager.extract(file, (entry) -> WAD_ZIPFILTER.test(entry) || DEH_ZIPFILTER.test(entry), progress));
+			else if (isWADExtension(ext) || isDEHExtension(ext))
+				out.add(stagingManager.stage(file, progress));
+		}
+		return out;
+	}
+
+	/**
+	 * Runs a preset, printing preparation progress to the handler.
 	 * @param handler the handler to use.
 	 * @param preset the preset to run.
 	 * @param extraArgs the extra literal args to pass.
@@ -472,6 +1015,128 @@ public final class LauncherManager
 	 */
 	public int run(IOHandler handler, Preset preset, String[] extraArgs, boolean skipCleanup) throws LaunchException
 	{
+		return run(handler, preset, extraArgs, skipCleanup, (current, total, percent) -> 
+		{
+			handler.outf("Transferred %d of %d MB (%d%%).\n", current / (1024 * 1024), total / (1024 * 1024), percent);
+			return false;
+		});
+	}
+
+	/**
+	 * Runs a preset, and waits for it to finish (see {@link #launch(IOHandler, Preset, String[], boolean, TransferProgress.Listener)}).
+	 * @param handler the handler to use.
+	 * @param preset the preset to run.
+	 * @param extraArgs the extra literal args to pass.
+	 * @param skipCleanup if true, skip temp directory cleanup.
+	 * @param listener the listener for preparation progress (and for syncing files back afterward, which cannot be cancelled), called from the preparation threads. Can be null.
+	 * @return the return code from the program.
+	 * @throws LaunchException 
+	 */
+	public int run(IOHandler handler, Preset preset, String[] extraArgs, boolean skipCleanup, TransferProgress.Listener listener) throws LaunchException
+	{
+		return waitFor(launch(handler, preset, extraArgs, skipCleanup, listener));
+	}
+
+	/**
+	 * Runs a preset's server and clients, printing preparation progress to the handler, 
+	 * and waits for all of them to finish (see {@link #launchGroup(IOHandler, Preset, int, String[], boolean, TransferProgress.Listener)}).
+	 * @param handler the handler to use.
+	 * @param preset the preset to run.
+	 * @param clients the amount of clients.
+	 * @param extraArgs the extra literal args to pass to the clients.
+	 * @param skipCleanup if true, skip temp directory cleanup.
+	 * @return the return code from the first client (or the server, if no clients).
+	 * @throws LaunchException 
+	 */
+	public int runGroup(IOHandler handler, Preset preset, int clients, String[] extraArgs, boolean skipCleanup) throws LaunchException
+	{
+		List<CompletableFuture<Integer>> group = launchGroup(handler, preset, clients, extraArgs, skipCleanup, (current, total, percent) -> 
+		{
+			handler.outf("Transferred %d of %d MB (%d%%).\n", current / (1024 * 1024), total / (1024 * 1024), percent);
+			return false;
+		});
+		int out = 0;
+		for (int i = 0; i < group.size(); i++)
+		{
+			int result = waitFor(group.get(i));
+			if (i == Math.min(1, group.size() - 1))
+				out = result;
+		}
+		return out;
+	}
+
+	// Waits for a launch, and gets its result.
+	private int waitFor(CompletableFuture<Integer> launch) throws LaunchException
+	{
+		try {
+			return launch.get();
+		} catch (InterruptedException e) {
+			throw new LaunchException("Interrupted while waiting for the engine to exit.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof LaunchException)
+				throw (LaunchException)e.getCause();
+			throw new LaunchException("Engine run failed: " + e.getCause().getMessage());
+		}
+	}
+
+	/**
+	 * Launches a preset, returning once its engine has started.
+	 * The IWAD, WADs, and save/screenshot/demo sync (see {@link SyncManager}) are prepared in parallel (see {@link #PROPERTY_THREADS}),
+	 * and their progress is reported as one byte count. If one fails or the listener cancels, the rest stop,
+	 * and no partially written files are left behind.
+	 * <p> No thread waits on the running engine: its console output is kept in a ring buffer (see {@link #getConsole(long)}),
+	 * and when it exits, files are synced back and cleaned up on another thread before the returned future completes.
+	 * @param handler the handler to use.
+	 * @param preset the preset to run.
+	 * @param extraArgs the extra literal args to pass.
+	 * @param skipCleanup if true, skip temp directory cleanup.
+	 * @param listener the listener for preparation progress (and for syncing files back afterward, which cannot be cancelled), called from the preparation threads. Can be null.
+	 * @return a future for the return code from the program.
+	 * @throws LaunchException if the launch could not be prepared or the engine could not be started.
+	 */
+	public CompletableFuture<Integer> launch(IOHandler handler, Preset preset, String[] extraArgs, boolean skipCleanup, TransferProgress.Listener listener) throws LaunchException
+	{
+		return launch(handler, preset, Role.CLIENT, true, extraArgs, skipCleanup, listener);
+	}
+
+	/**
+	 * Launches a preset's server (see {@link EngineConfigManager#SETTING_SERVERFILENAME}), then its clients, 
+	 * returning once all of them have started (see {@link #launch(IOHandler, Preset, String[], boolean, TransferProgress.Listener)}).
+	 * Only the first client syncs the preset's save, screenshot, and demo files, and only it is timed.
+	 * The server gets only the engine's IWAD, WADs, and command line.
+	 * @param handler the handler to use.
+	 * @param preset the preset to run.
+	 * @param clients the amount of clients.
+	 * @param extraArgs the extra literal args to pass to the clients.
+	 * @param skipCleanup if true, skip temp directory cleanup.
+	 * @param listener the listener for preparation progress, called from the preparation threads. Can be null.
+	 * @return futures for the return codes from the server, then each client.
+	 * @throws LaunchException if a launch could not be prepared or started (the ones already started keep running).
+	 */
+	public List<CompletableFuture<Integer>> launchGroup(IOHandler handler, Preset preset, int clients, String[] extraArgs, boolean skipCleanup, TransferProgress.Listener listener) throws LaunchException
+	{
+		List<CompletableFuture<Integer>> out = new ArrayList<>(clients + 1);
+		handler.outln("Starting server...");
+		out.add(launch(handler, preset, Role.SERVER, false, new String[0], skipCleanup, listener));
+		for (int i = 0; i < clients; i++)
+		{
+			handler.outf("Starting client %d of %d...\n", i + 1, clients);
+			try {
+				out.add(launch(handler, preset, Role.CLIENT, i == 0, extraArgs, skipCleanup, listener));
+			} catch (LaunchException e) {
+				throw new LaunchException(e.getMessage() + " (" + out.size() + " of " + (clients + 1) + " instances were started, and are still running.)");
+			}
+		}
+		return out;
+	}
+
+	// Launches one instance. Only a primary launch syncs files and is timed.
+	private CompletableFuture<Integer> launch(IOHandler handler, Preset preset, Role role, boolean primary, String[] extraArgs, boolean skipCleanup, TransferProgress.Listener listener) throws LaunchException
+	{
+		LaunchContext context = new LaunchContext();
+		long launchStart = System.nanoTime();
+		long start = launchStart;
+		
 		EngineManager engineManager = EngineManager.get();
 		EngineConfigManager engineSettingsManager = EngineConfigManager.get();
 		
@@ -481,44 +1146,35 @@ public final class LauncherManager
 		if (engine == null)
 			throw new LaunchException("Internal ERROR: Engine id " + preset.engineId + " does not exist!");
 	
-		File tempDirectory = checkTempDirectory();
 		File presetDirectory = checkPresetDirectory(preset);
 		checkPresetValidity(preset, engine, settings);
 
-		LaunchContext context = new LaunchContext();
-		setExecutables(context, settings);
-		setDirectories(context, preset, settings);
-		handler.outln("Prepare WADS...");
-		setUpWADs(handler, context, preset.iwadId, preset.wadIds, tempDirectory);
-		
-		int retval;
+		setExecutables(context, engine, settings, role);
+		setDirectories(context, preset, settings, role);
+		File engineDir = context.engineExecutable.getParentFile();
+		if (primary)
+			context.syncFilter = createSyncFilter(handler, settings);
+		context.timings.add(Phase.LOOKUP, start, 0L);
 		
+		File tempDirectory = checkTempDirectory();
 		try {
-			for (UnzipSet uzs : context.zipSets)
-				IOUtils.close(uzs);
+			context.launch = register(preset, role, primary, engineDir, tempDirectory, context.syncFilter != null);
+		} catch (LaunchException e) {
+			tempDirectory.delete();
+			throw e;
+		}
 
-			File engineDir = context.engineExecutable.getParentFile();
-			
-			// Pre-Launch (copy screenshots, demos)
-			if (settings.saveDirectorySwitch == null && settings.saveGameRegex != null)
-			{
-				handler.outln("Copying save files...");
-				copyMatchingFiles(presetDirectory, engineDir, false, createFileNamePatternFilter(settings.saveGameRegex));
-			}
-			if (settings.screenshotDirectorySwitch == null && settings.screenshotRegex != null)
-			{
-				handler.outln("Copying screenshot files...");
-				copyMatchingFiles(presetDirectory, engineDir, false, createFileNamePatternFilter(settings.screenshotRegex));
-			}
-			if (settings.demoRegex != null)
-			{
-				handler.outln("Copying demo files...");
-				copyMatchingFiles(presetDirectory, engineDir, false, createFileNamePatternFilter(settings.demoRegex));
-			}
+		CompletableFuture<Integer> process;
+		try {
+			handler.outln("Prepare WADS...");
+			TransferProgress progress = new TransferProgress(PROGRESS_INTERVAL_MILLIS, listener);
+			start = System.nanoTime();
+			prepare(handler, context, preset, settings, presetDirectory, engineDir, tempDirectory, progress);
+			context.timings.add(Phase.PREPARE, start, progress.getCurrent());
 			
 			// Launch.
 			handler.outln("Launching...");
-			InstancedFuture<Integer> process; 
+			start = System.nanoTime();
 			ProcessCallable callable;
 			
 			if (context.dosboxExecutable != null)
@@ -530,41 +1186,107 @@ public final class LauncherManager
 				callable = createStandardProcess(context, settings, presetDirectory, tempDirectory, extraArgs);
 			}
 
-			process = TaskManager.get().spawn(callable);
+			RingBufferOutputStream console = new RingBufferOutputStream(Math.max(1, Integer.getInteger(PROPERTY_CONSOLE_SIZE, DEFAULT_CONSOLE_SIZE)));
+			callable.setOut(console).setErr(console);
+			context.launch.console = console;
+			if (role == Role.CLIENT)
+				consoles.put(preset.id, console);
 			
-			retval = process.result();
-		
-			// Post-Launch (copy screenshots, demos)
-			if (settings.saveDirectorySwitch == null && settings.saveGameRegex != null)
-			{
-				handler.outln("Copying save files...");
-				copyMatchingFiles(engineDir, presetDirectory, true, createFileNamePatternFilter(settings.saveGameRegex));
+			try {
+				process = callable.spawn();
+			} catch (IOException e) {
+				throw new LaunchException("Could not start engine: " + e.getMessage());
 			}
-			if (settings.screenshotDirectorySwitch == null && settings.screenshotRegex != null)
-			{
-				handler.outln("Copying screenshot files...");
-				copyMatchingFiles(engineDir, presetDirectory, true, createFileNamePatternFilter(settings.screenshotRegex));
+			context.launch.status = Status.RUNNING;
+			context.timings.add(Phase.START, start, 0L);
+		}
+		catch (LaunchException | RuntimeException e)
+		{
+			// Preparation failed or was cancelled - nothing to wait for. 
+			// A failure to clean up after it must not hide why the launch stopped.
+			try {
+				finish(handler, context, preset, presetDirectory, engineDir, tempDirectory, skipCleanup, listener, launchStart, false);
+			} catch (LaunchException | RuntimeException f) {
+				e.addSuppressed(f);
+				handler.errln("ERROR: " + f.getMessage());
+			}
+			throw e;
+		}
+
+		final long runStart = System.nanoTime();
+		return process.handleAsync((result, exception) -> 
+		{
+			context.timings.add(Phase.RUN, runStart, 0L);
+			try {
+				finish(handler, context, preset, presetDirectory, engineDir, tempDirectory, skipCleanup, listener, launchStart, exception == null);
+			} catch (LaunchException e) {
+				throw new CompletionException(e);
 			}
-			if (settings.demoRegex != null)
+			if (exception != null)
+				throw new CompletionException(exception);
+			return result;
+		}, finishExecutor);
+	}
+
+	// Adds a launch to the registry. Two launches that sync files into the same engine directory cannot run at the same time,
+	// as each would take the other's files as its own (and SyncManager would recover the other's files out from under it).
+	private Launch register(Preset preset, Role role, boolean primary, File engineDir, File tempDirectory, boolean syncing) throws LaunchException
+	{
+		synchronized (launches)
+		{
+			if (syncing) for (Launch other : launches.values())
 			{
-				handler.outln("Copying demo files...");
-				copyMatchingFiles(engineDir, presetDirectory, true, createFileNamePatternFilter(settings.demoRegex));
+				if (other.syncing && other.engineDirectory.equals(engineDir))
+				{
+					String name = other.preset.name != null ? other.preset.name : other.preset.hash;
+					throw new LaunchException("Preset '" + name + "' is already running from " + engineDir.getPath() + 
+						", and save, screenshot, and demo files are synced there. Wait for it to exit first.");
+				}
 			}
+			Launch out = new Launch(launchId.getAndIncrement(), preset, role, primary, syncing, engineDir, tempDirectory);
+			launches.put(out.id, out);
+			return out;
 		}
-		finally
-		{
+	}
+
+	// Syncs files back, cleans up temp files, releases staged files, and stores the launch's timings (only if the engine ran).
+	private void finish(IOHandler handler, LaunchContext context, Preset preset, File presetDirectory, File engineDir, File tempDirectory, boolean skipCleanup, TransferProgress.Listener listener, long launchStart, boolean launched) throws LaunchException
+	{
+		long start;
+		context.launch.status = Status.FINISHING;
+		try {
+			// Post-Launch (sync saves, screenshots, demos back) - also after a failed or cancelled preparation, 
+			// and not cancellable, so that nothing is left in the engine directory.
+			if (context.sync != null)
+			{
+				syncBack(handler, context, presetDirectory, engineDir, new TransferProgress(PROGRESS_INTERVAL_MILLIS, (current, total, percent) -> 
+				{
+					if (listener != null)
+						listener.onProgress(current, total, percent);
+					return false;
+				}));
+			}
+		} finally {
 			// Temp Cleanup.
+			start = System.nanoTime();
 			if (!skipCleanup)
 			{
 				handler.outln("Cleaning up temp...");
-				for (UnzipSet uzs : context.zipSets)
-					uzs.cleanUp();
 				for (File f : context.cleanup)
 					f.delete();
+				tempDirectory.delete();
 			}
+			StagingManager.get().release(context.staged);
+			launches.remove(context.launch.id);
+			context.timings.add(Phase.CLEANUP, start, 0L);
 		}
 
-		return retval;
+		// Only launches that got as far as running the engine are timed.
+		if (launched && context.launch.primary)
+		{
+			context.timings.add(Phase.TOTAL, launchStart, context.timings.getBytes(Phase.PREPARE) + context.timings.getBytes(Phase.SYNC_BACK));
+			LaunchTimingManager.get().addTimings(preset.id, context.timings);
+		}
 	}
 
 }
@@ -0,0 +1,732 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.blackrook.sql.SQLConnection;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.FileHashManager.FileHash;
+import net.mtrop.doomy.managers.IWADIdentityManager.Identity;
+import net.mtrop.doomy.managers.IWADManager.IWAD;
+import net.mtrop.doomy.managers.WADManager.WAD;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.swing.TableFactory.Column;
+import net.mtrop.doomy.struct.util.FileUtils;
+
+/**
+ * Library watch manager singleton.
+ * Keeps track of registered scan roots, and can watch them in the background,
+ * applying file creations, changes, deletions, and moves to the WAD and IWAD tables as they happen.
+ * Vanished files are paired with new files anywhere in their root by length and modified time or contents,
+ * so that moving a file between subdirectories keeps its entry. Entries whose files vanish without a match
+ * are removed only if no preset uses them and their root is still there; otherwise they are kept as missing.
+ * @author Matthew Tropiano
+ */
+public final class LibraryWatchManager
+{
+	/** Scan root type for WADs. */
+	public static final String TYPE_WAD = "wad";
+	/** Scan root type for IWADs. */
+	public static final String TYPE_IWAD = "iwad";
+
+	/** Quiet time after the last file event before changes are applied, in milliseconds. */
+	private static final long DEBOUNCE_MILLIS = 750L;
+	/** Longest time that changes are held back while events keep arriving, in milliseconds. */
+	private static final long MAX_BATCH_MILLIS = 5000L;
+
+	private static final String[] WAD_FILETYPES = {"PK3", "PK7", "PKE", "WAD", "ZIP"};
+	private static final String[] IWAD_FILETYPES = {"IPK3", "IPK7", "IPKE", "IWAD", "PK3", "PK7", "PKE", "WAD", "ZIP"};
+
+	// ============================== QUERIES ================================
+
+	private static final String QUERY_GET
+		= "SELECT * FROM ScanRoots WHERE type = ? AND path = ?";
+	private static final String QUERY_LIST
+		= "SELECT * FROM ScanRoots ORDER BY type ASC, path ASC";
+	private static final String QUERY_ADD
+		= "INSERT INTO ScanRoots (type, path, prefix, suffix, recurse) VALUES (?, ?, ?, ?, ?)";
+	private static final String QUERY_UPDATE
+		= "UPDATE ScanRoots SET prefix = ?, suffix = ?, recurse = ? WHERE type = ? AND path = ?";
+	private static final String QUERY_REMOVE
+		= "DELETE FROM ScanRoots WHERE type = ? AND path = ?";
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(LibraryWatchManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<LibraryWatchManager> INSTANCE = new SingletonProvider<>(() -> new LibraryWatchManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static LibraryWatchManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Database manager. */
+	private DatabaseManager database;
+	/** The running watcher, if any. */
+	private Watcher watcher;
+
+	private LibraryWatchManager()
+	{
+		this.database = DatabaseManager.get();
+		this.watcher = null;
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
+	/**
+	 * Gets a scan root.
+	 * @param type the root type ({@link #TYPE_WAD} or {@link #TYPE_IWAD}).
+	 * @param path the root directory path.
+	 * @return the scan root, or null if not found.
+	 */
+	public ScanRoot getScanRoot(String type, String path)
+	{
+		return connection().getRow(ScanRoot.class, QUERY_GET, type, toRootPath(path));
+	}
+
+	/**
+	 * Gets all scan roots.
+	 * @return the scan roots.
+	 */
+	public ScanRoot[] getAllScanRoots()
+	{
+		return connection().getResult(ScanRoot.class, QUERY_LIST);
+	}
+
+	/**
+	 * Adds or replaces a scan root.
+	 * If the watcher is running, it is restarted to pick up the change.
+	 * @param type the root type ({@link #TYPE_WAD} or {@link #TYPE_IWAD}).
+	 * @param path the root directory path.
+	 * @param prefix the prefix to add to each name.
+	 * @param suffix the suffix to add to each name.
+	 * @param recurse if true, watch subdirectories as well.
+	 * @return true if added/updated, false if not.
+	 */
+	public boolean setScanRoot(String type, String path, String prefix, String suffix, boolean recurse)
+	{
+		String rootPath = toRootPath(path);
+		boolean out;
+		if (getScanRoot(type, rootPath) != null)
+			out = connection().getUpdateResult(QUERY_UPDATE, prefix, suffix, recurse, type, rootPath).getRowCount() > 0;
+		else
+			out = connection().getUpdateResult(QUERY_ADD, type, rootPath, prefix, suffix, recurse).getRowCount() > 0;
+		if (out)
+			restartIfRunning();
+		return out;
+	}
+
+	/**
+	 * Removes a scan root.
+	 * If the watcher is running, it is restarted to pick up the change.
+	 * @param type the root type ({@link #TYPE_WAD} or {@link #TYPE_IWAD}).
+	 * @param path the root directory path.
+	 * @return true if removed, false if not.
+	 */
+	public boolean removeScanRoot(String type, String path)
+	{
+		boolean out = connection().getUpdateResult(QUERY_REMOVE, type, toRootPath(path)).getRowCount() > 0;
+		if (out)
+			restartIfRunning();
+		return out;
+	}
+
+	/**
+	 * @return true if the watcher is running, false if not.
+	 */
+	public synchronized boolean isRunning()
+	{
+		return watcher != null && watcher.isAlive();
+	}
+
+	/**
+	 * Starts watching all registered scan roots, if not already watching.
+	 * @return true if the watcher is running after this call, false if there was nothing to watch or it could not start.
+	 */
+	public synchronized boolean start()
+	{
+		if (isRunning())
+			return true;
+
+		ScanRoot[] roots = getAllScanRoots();
+		if (roots.length == 0)
+			return false;
+
+		try {
+			watcher = new Watcher(roots);
+		} catch (IOException e) {
+			LOG.error(e, "Could not start library watcher.");
+			return false;
+		}
+		watcher.start();
+		return true;
+	}
+
+	/**
+	 * Stops the watcher, if it is running.
+	 * Changes that are still waiting to be applied are dropped.
+	 */
+	public synchronized void stop()
+	{
+		if (watcher == null)
+			return;
+		watcher.shutDown();
+		watcher = null;
+	}
+
+	/**
+	 * Waits for the watcher to stop.
+	 * @throws InterruptedException if the current thread is interrupted while waiting.
+	 */
+	public void join() throws InterruptedException
+	{
+		Watcher current;
+		synchronized (this)
+		{
+			current = watcher;
+		}
+		if (current != null)
+			current.join();
+	}
+
+	// Restarts the watcher if it is running.
+	private synchronized void restartIfRunning()
+	{
+		if (!isRunning())
+			return;
+		stop();
+		start();
+	}
+
+	// Normalizes a root path.
+	private static String toRootPath(String path)
+	{
+		return (new File(path)).getAbsolutePath();
+	}
+
+	/**
+	 * Each registered scan root.
+	 */
+	public static class ScanRoot
+	{
+		/** Entry id. */
+		public long id;
+		/** Root type. */
+		@Column(name = "Type", order = 0, sortable = true, editable = false)
+		public String type;
+		/** Directory path. */
+		@Column(name = "Path", order = 1, sortable = true, editable = false)
+		public String path;
+		/** Name prefix. */
+		@Column(name = "Prefix", order = 2, sortable = false, editable = false)
+		public String prefix;
+		/** Name suffix. */
+		@Column(name = "Suffix", order = 3, sortable = false, editable = false)
+		public String suffix;
+		/** If true, subdirectories are included. */
+		@Column(name = "Recurse", order = 4, sortable = false, editable = false)
+		public boolean recurse;
+
+		/**
+		 * @return the file filter for this type of root.
+		 */
+		public FileFilter getFileFilter()
+		{
+			final String[] types = TYPE_IWAD.equalsIgnoreCase(type) ? IWAD_FILETYPES : WAD_FILETYPES;
+			return (file) -> Arrays.binarySearch(types, FileUtils.getFileExtension(file).toUpperCase()) >= 0;
+		}
+
+		/**
+		 * Gets the library entry name for a file in this root.
+		 * IWADs are named after their identity, not their file name.
+		 * @param file the file.
+		 * @return the entry name, or null if the file is not an acceptable entry (for example, a PWAD in an IWAD root).
+		 * @see IWADIdentityManager#identify(File)
+		 */
+		public String getEntryName(File file)
+		{
+			String name;
+			if (TYPE_IWAD.equalsIgnoreCase(type))
+			{
+				Identity identity = IWADIdentityManager.get().identify(file);
+				if (identity == null)
+					return null;
+				name = identity.name;
+			}
+			else
+			{
+				name = FileUtils.getFileNameWithoutExtension(file);
+			}
+			return (prefix + name + suffix).toLowerCase();
+		}
+
+		@Override
+		public String toString()
+		{
+			return type + ": " + path;
+		}
+	}
+
+	/**
+	 * The watcher thread.
+	 * Events are collected per root until things go quiet, and then applied in one batch.
+	 */
+	private static class Watcher extends Thread
+	{
+		private final WatchService watchService;
+		private final Map<WatchKey, Path> keyDirectories;
+		private final Map<WatchKey, ScanRoot> keyRoots;
+		/** Changed paths, per root. */
+		private final Map<ScanRoot, Set<Path>> pending;
+		/** Roots to fully rescan (events were lost). */
+		private final Set<ScanRoot> overflowed;
+
+		private volatile boolean running;
+
+		private Watcher(ScanRoot[] roots) throws IOException
+		{
+			super("DoomyLibraryWatcher");
+			setDaemon(true);
+			this.watchService = FileSystems.getDefault().newWatchService();
+			this.keyDirectories = new HashMap<>();
+			this.keyRoots = new HashMap<>();
+			this.pending = new LinkedHashMap<>();
+			this.overflowed = new HashSet<>();
+			this.running = true;
+
+			for (ScanRoot root : roots)
+			{
+				File rootDir = new File(root.path);
+				if (!rootDir.isDirectory())
+				{
+					LOG.warnf("Scan root %s is not a directory. Skipping.", root);
+					continue;
+				}
+				register(root, rootDir.toPath());
+			}
+		}
+
+		// Registers a directory (and its subdirectories if the root recurses).
+		private void register(final ScanRoot root, Path directory) throws IOException
+		{
+			if (!root.recurse)
+			{
+				registerDirectory(root, directory);
+				return;
+			}
+
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+			{
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+				{
+					registerDirectory(root, dir);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException
+				{
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		private void registerDirectory(ScanRoot root, Path directory) throws IOException
+		{
+			WatchKey key = directory.register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_DELETE,
+				StandardWatchEventKinds.ENTRY_MODIFY
+			);
+			keyDirectories.put(key, directory);
+			keyRoots.put(key, root);
+		}
+
+		private void shutDown()
+		{
+			running = false;
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				LOG.error(e, "Could not close watch service.");
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			LOG.infof("Watching %d directories.", keyDirectories.size());
+			long batchStart = -1L;
+			try {
+				while (running)
+				{
+					WatchKey key;
+					if (pending.isEmpty() && overflowed.isEmpty())
+						key = watchService.take();
+					else
+						key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+
+					if (key != null)
+					{
+						if (batchStart < 0L)
+							batchStart = System.currentTimeMillis();
+						readEvents(key);
+					}
+
+					if ((key == null || System.currentTimeMillis() - batchStart > MAX_BATCH_MILLIS) && (!pending.isEmpty() || !overflowed.isEmpty()))
+					{
+						applyChanges();
+						batchStart = -1L;
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// Stopped.
+			} finally {
+				DatabaseManager.get().closeConnection();
+				LOG.info("Library watcher stopped.");
+			}
+		}
+
+		// Reads the events off of a key.
+		private void readEvents(WatchKey key)
+		{
+			Path directory = keyDirectories.get(key);
+			ScanRoot root = keyRoots.get(key);
+
+			for (WatchEvent<?> event : key.pollEvents())
+			{
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+				{
+					overflowed.add(root);
+					continue;
+				}
+
+				Path path = directory.resolve((Path)event.context());
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && root.recurse && Files.isDirectory(path))
+				{
+					// New directory - watch it, and pick up whatever landed in it before that.
+					try {
+						register(root, path);
+					} catch (IOException e) {
+						LOG.errorf(e, "Could not watch new directory %s.", path);
+					}
+					for (ScannedFile scanned : FileScanner.scan(path.toFile(), true, root.getFileFilter(), null, null))
+						pendingFor(root).add(scanned.file.toPath());
+				}
+				else
+				{
+					pendingFor(root).add(path);
+				}
+			}
+
+			if (!key.reset())
+			{
+				keyDirectories.remove(key);
+				keyRoots.remove(key);
+			}
+		}
+
+		private Set<Path> pendingFor(ScanRoot root)
+		{
+			Set<Path> out;
+			if ((out = pending.get(root)) == null)
+				pending.put(root, out = new HashSet<>());
+			return out;
+		}
+
+		// Applies the pending changes.
+		private void applyChanges()
+		{
+			boolean wadsChanged = false;
+			boolean iwadsChanged = false;
+
+			for (ScanRoot root : overflowed)
+			{
+				LOG.warnf("Lost file events for %s. Rescanning.", root);
+				Set<Path> paths = pendingFor(root);
+				for (ScannedFile scanned : FileScanner.scan(new File(root.path), root.recurse, root.getFileFilter(), null, null))
+					paths.add(scanned.file.toPath());
+			}
+			overflowed.clear();
+
+			for (Map.Entry<ScanRoot, Set<Path>> entry : pending.entrySet())
+			{
+				ScanRoot root = entry.getKey();
+				try {
+					boolean changed = applyChanges(root, entry.getValue());
+					if (TYPE_IWAD.equalsIgnoreCase(root.type))
+						iwadsChanged |= changed;
+					else
+						wadsChanged |= changed;
+				} catch (Exception e) {
+					LOG.errorf(e, "Could not apply file changes for %s.", root);
+				}
+			}
+			pending.clear();
+
+			MessengerManager messenger = MessengerManager.get();
+			if (wadsChanged)
+				messenger.publish(MessengerManager.CHANNEL_WADS_CHANGED, true);
+			if (iwadsChanged)
+				messenger.publish(MessengerManager.CHANNEL_IWADS_CHANGED, true);
+			// Removed and renamed entries change presets, too.
+			if (wadsChanged || iwadsChanged)
+				messenger.publish(MessengerManager.CHANNEL_PRESETS_CHANGED, true);
+		}
+
+		// Applies the pending changes for one root. Returns true if anything changed.
+		private boolean applyChanges(ScanRoot root, Set<Path> paths)
+		{
+			FileFilter filter = root.getFileFilter();
+			boolean iwad = TYPE_IWAD.equalsIgnoreCase(root.type);
+
+			// Sort into changed entries, new files, and entries whose files have vanished.
+			Map<String, ScannedFile> modified = new LinkedHashMap<>();
+			List<ScannedFile> created = new LinkedList<>();
+			Map<Long, Entry> vanished = new LinkedHashMap<>();
+			for (Path path : paths)
+			{
+				File file = path.toFile();
+				if (file.exists())
+				{
+					ScannedFile scanned;
+					if (!filter.accept(file) || (scanned = FileScanner.stat(file)) == null)
+						continue;
+
+					Entry existing = null;
+					for (Entry entry : getEntries(iwad, file.getPath()))
+					{
+						if (entry.path.equals(file.getPath()))
+							existing = entry;
+					}
+					if (existing != null)
+						modified.put(existing.name, scanned);
+					else
+						created.add(scanned);
+				}
+				else
+				{
+					for (Entry entry : getEntries(iwad, file.getPath()))
+					{
+						if (!(new File(entry.path)).exists())
+							vanished.put(entry.id, entry);
+					}
+				}
+			}
+
+			boolean changed = false;
+
+			// Moves and renames anywhere in the root, by file stamp.
+			Iterator<ScannedFile> it = created.iterator();
+			while (it.hasNext())
+			{
+				ScannedFile scanned = it.next();
+				for (Entry entry : vanished.values())
+				{
+					if (isSameFile(iwad, entry, scanned))
+					{
+						moveEntry(root, iwad, entry, scanned.file);
+						vanished.remove(entry.id);
+						it.remove();
+						changed = true;
+						break;
+					}
+				}
+			}
+
+			// One file out and one file in, in the same directory: a rename of a file with no stamp to go by.
+			Map<String, List<ScannedFile>> createdByDirectory = new TreeMap<>();
+			Map<String, List<Entry>> vanishedByDirectory = new TreeMap<>();
+			for (ScannedFile scanned : created)
+				listFor(createdByDirectory, scanned.file.getParent()).add(scanned);
+			for (Entry entry : vanished.values())
+				listFor(vanishedByDirectory, (new File(entry.path)).getParent()).add(entry);
+			for (Map.Entry<String, List<ScannedFile>> entry : createdByDirectory.entrySet())
+			{
+				List<Entry> gone = vanishedByDirectory.get(entry.getKey());
+				if (entry.getValue().size() == 1 && gone != null && gone.size() == 1)
+				{
+					ScannedFile scanned = entry.getValue().get(0);
+					moveEntry(root, iwad, gone.get(0), scanned.file);
+					vanished.remove(gone.get(0).id);
+					created.remove(scanned);
+					changed = true;
+				}
+			}
+
+			Map<String, ScannedFile> added = new LinkedHashMap<>();
+			for (ScannedFile scanned : created)
+			{
+				String name = root.getEntryName(scanned.file);
+				if (name != null && !added.containsKey(name) && !modified.containsKey(name))
+					added.put(name, scanned);
+			}
+
+			if (iwad)
+			{
+				// IWADs keep no file stamp, so a changed IWAD file has nothing to update.
+				if (!added.isEmpty())
+				{
+					Map<String, String> iwads = new LinkedHashMap<>();
+					for (Map.Entry<String, ScannedFile> entry : added.entrySet())
+						iwads.put(entry.getKey(), entry.getValue().file.getPath());
+					IWADManager.BatchResult result = IWADManager.get().addOrUpdateIWADs(iwads, false);
+					changed |= result.added + result.updated > 0;
+				}
+			}
+			else
+			{
+				added.putAll(modified);
+				if (!added.isEmpty())
+				{
+					WADManager.BatchResult result = WADManager.get().addOrUpdateWADs(root.path, added, false, true);
+					changed |= result.added + result.updated > 0;
+				}
+			}
+
+			// Entries used by presets are kept, as are all entries of a root that is gone (like an unmounted drive).
+			boolean rootPresent = (new File(root.path)).isDirectory();
+			for (Entry entry : vanished.values())
+			{
+				if (rootPresent && !(iwad ? IWADManager.get().isIWADInUse(entry.id) : WADManager.get().isWADInUse(entry.id)))
+					changed |= iwad ? IWADManager.get().removeIWAD(entry.name) : WADManager.get().removeWAD(entry.name);
+				else
+					LOG.warnf("File %s is missing. Keeping entry \"%s\".", entry.path, entry.name);
+			}
+
+			return changed;
+		}
+
+		private static <T> List<T> listFor(Map<String, List<T>> map, String key)
+		{
+			List<T> out;
+			if ((out = map.get(key)) == null)
+				map.put(key, out = new LinkedList<>());
+			return out;
+		}
+
+		// Gets the WAD or IWAD entries at or under a path.
+		private static List<Entry> getEntries(boolean iwad, String path)
+		{
+			List<Entry> out = new LinkedList<>();
+			if (iwad)
+			{
+				for (IWAD entry : IWADManager.get().getIWADsByPath(path))
+					out.add(new Entry(entry.id, entry.name, entry.path));
+			}
+			else
+			{
+				for (WAD entry : WADManager.get().getWADsByPath(path))
+					out.add(new Entry(entry.id, entry.name, entry.path));
+			}
+			return out;
+		}
+
+		// Checks if a new file is a vanished entry's file, moved: same length, and same modified time or contents.
+		private static boolean isSameFile(boolean iwad, Entry entry, ScannedFile scanned)
+		{
+			FileHash hash = FileHashManager.get().getCachedHash(entry.path);
+			if (hash != null && hash.size == scanned.length)
+			{
+				if (hash.modified == scanned.lastModified)
+					return true;
+				try {
+					return hash.sha1.equals(FileHashManager.get().getHash(scanned.file).sha1);
+				} catch (IOException e) {
+					return false;
+				}
+			}
+			if (iwad)
+				return false;
+
+			WADManager manager = WADManager.get();
+			return String.valueOf(scanned.length).equals(manager.getWADData(entry.id, WADManager.DATA_FILE_SIZE))
+				&& String.valueOf(scanned.lastModified).equals(manager.getWADData(entry.id, WADManager.DATA_FILE_MODIFIED));
+		}
+
+		// Moves an entry to a moved or renamed file, keeping its presets. Renames the entry, too, if the new name is free.
+		private static void moveEntry(ScanRoot root, boolean iwad, Entry entry, File newFile)
+		{
+			String newName = root.getEntryName(newFile);
+			LOG.infof("Moving entry \"%s\" from %s to %s.", entry.name, entry.path, newFile.getPath());
+			if (iwad)
+			{
+				IWADManager manager = IWADManager.get();
+				manager.setIWADPath(entry.name, newFile.getPath());
+				if (newName != null && !manager.containsIWAD(newName))
+					manager.renameIWAD(entry.name, newName);
+			}
+			else
+			{
+				WADManager manager = WADManager.get();
+				manager.setWADPath(entry.name, newFile.getPath());
+				if (newName != null && !manager.containsWAD(newName))
+					manager.renameWAD(entry.name, newName);
+			}
+		}
+	}
+
+	/**
+	 * A WAD or IWAD entry seen by the watcher.
+	 */
+	private static class Entry
+	{
+		private final long id;
+		private final String name;
+		private final String path;
+
+		private Entry(long id, String name, String path)
+		{
+			this.id = id;
+			this.name = name;
+			this.path = path;
+		}
+	}
+
+}
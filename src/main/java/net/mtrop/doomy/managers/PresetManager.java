@@ -7,15 +7,20 @@ package net.mtrop.doomy.managers;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.blackrook.sql.SQLConnection;
-import com.blackrook.sql.SQLConnection.Transaction;
-import com.blackrook.sql.SQLConnection.TransactionLevel;
-import com.blackrook.sql.util.SQLRuntimeException;
 import com.blackrook.sql.SQLResult;
+import com.blackrook.sql.SQLRow;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.EntityCache;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.swing.TableFactory.Column;
 
@@ -55,8 +60,34 @@ public final class PresetManager
 		= QUERY_LIST_INFO + "WHERE p.name LIKE ? ORDER BY p.name";
 	private static final String QUERY_LIST_HASH
 		= QUERY_LIST_INFO + "WHERE p.hash LIKE ? ORDER BY p.name";
-	private static final String QUERY_LIST_WADS_BY_ID
-		= "SELECT PresetItems.*, WADs.name as wadName FROM PresetItems LEFT JOIN WADs ON PresetItems.wadId = WADs.id WHERE PresetItems.presetId = ? ORDER BY sort ASC";
+
+	// Keyset pages of a search: unnamed presets (which sort first) by id, then named ones by name.
+	private static final String QUERY_SEARCH_UNNAMED_PAGE
+		= QUERY_LIST_INFO + "WHERE p.name IS NULL AND p.hash LIKE ? AND p.id > ? ORDER BY p.id LIMIT ?";
+	private static final String QUERY_SEARCH_NAMED_PAGE
+		= QUERY_LIST_INFO + "WHERE (p.name LIKE ? OR p.hash LIKE ?) AND (p.name, p.id) > (?, ?) ORDER BY p.name, p.id LIMIT ?";
+	private static final String QUERY_SEARCH_HAS_COMMON_HASH_PREFIX
+		= "SELECT EXISTS (SELECT 1 FROM Presets p WHERE p.name LIKE ? OR p.hash LIKE ? GROUP BY substr(p.hash, 1, ?) HAVING COUNT(*) > 1)";
+
+	// Items of every preset that a listing query matches, fetched in one go and grouped by preset.
+	private static final String QUERY_LIST_ITEMS = (new StringBuilder())
+		.append("SELECT").append('\n')
+			.append("pi.presetId,").append('\n')
+			.append("pi.wadId,").append('\n')
+			.append("w.name as wadName").append('\n')
+		.append("FROM PresetItems pi").append('\n')
+		.append("INNER JOIN Presets p ON pi.presetId = p.id").append('\n')
+		.append("LEFT JOIN WADs w ON pi.wadId = w.id").append('\n')
+	.toString();
+
+	private static final String QUERY_SEARCH_ITEMS
+		= QUERY_LIST_ITEMS + "WHERE p.name LIKE ? OR p.hash LIKE ? ORDER BY pi.presetId, pi.sort";
+	private static final String QUERY_LIST_NAME_ITEMS
+		= QUERY_LIST_ITEMS + "WHERE p.name LIKE ? ORDER BY pi.presetId, pi.sort";
+	private static final String QUERY_LIST_HASH_ITEMS
+		= QUERY_LIST_ITEMS + "WHERE p.hash LIKE ? ORDER BY pi.presetId, pi.sort";
+	private static final String QUERY_LIST_ID_ITEMS
+		= QUERY_LIST_ITEMS + "WHERE pi.presetId IN ";
 
 	private static final String QUERY_EXIST_BY_NAME
 		= "SELECT EXISTS (SELECT 1 FROM Presets WHERE name = ?)"; 
@@ -95,6 +126,8 @@ public final class PresetManager
 	public static final String HEX_NYBBLES = "0123456789abcdef";
 	/** The size of a long in bytes. */
 	public static final int SIZEOF_LONG = Long.SIZE/Byte.SIZE;
+	/** The longest hash prefix that listings shorten hashes to. */
+	public static final int MAX_DISTINCT_HASH_LENGTH = 20;
 	
 	/**
 	 * Converts a long to a series of bytes.
@@ -113,28 +146,70 @@ public final class PresetManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
+	/** Preset cache. */
+	private EntityCache<String, Preset> cache;
 	
 	private PresetManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this(DatabaseManager.get());
+	}
+
+	// Package-visible for tests and benchmarks against other databases.
+	PresetManager(DatabaseManager database)
+	{
+		this.database = database;
+		this.cache = CacheManager.get().getCache(CacheManager.CACHE_PRESETS, Preset::copy, database);
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	private void getPresetWADIds(Preset preset) 
 	{
-		PresetItem[] items = connection.getResult(PresetItem.class, QUERY_GET_ITEMS_BY_ID, preset.id);
+		PresetItem[] items = connection().getResult(PresetItem.class, QUERY_GET_ITEMS_BY_ID, preset.id);
 		preset.wadIds = new long[items.length];
 		for (int i = 0; i < items.length; i++)
 			preset.wadIds[i] = items[i].wadId;
 	}
 
-	private void getPresetWADNames(PresetInfo preset) 
+	// Fills in the WAD ids of many presets from one items query, instead of one query per preset.
+	private void getPresetWADIds(Preset[] presets, String itemsQuery, Object ... parameters) 
+	{
+		Map<Long, List<SQLRow>> items = getPresetItems(itemsQuery, parameters);
+		for (Preset preset : presets)
+		{
+			List<SQLRow> rows = items.get(preset.id);
+			preset.wadIds = new long[rows != null ? rows.size() : 0];
+			for (int i = 0; i < preset.wadIds.length; i++)
+				preset.wadIds[i] = rows.get(i).getLong("wadId");
+		}
+	}
+
+	// Fills in the WAD names of many presets from one items query, instead of one query per preset.
+	private void getPresetWADNames(PresetInfo[] presets, String itemsQuery, Object ... parameters) 
+	{
+		Map<Long, List<SQLRow>> items = getPresetItems(itemsQuery, parameters);
+		for (PresetInfo preset : presets)
+		{
+			List<SQLRow> rows = items.get(preset.id);
+			preset.wads = new String[rows != null ? rows.size() : 0];
+			for (int i = 0; i < preset.wads.length; i++)
+				preset.wads[i] = rows.get(i).getString("wadName");
+		}
+	}
+
+	// Runs an items query and groups the rows by preset id (rows stay in sort order).
+	private Map<Long, List<SQLRow>> getPresetItems(String itemsQuery, Object ... parameters) 
 	{
-		SQLResult rows = connection.getResult(QUERY_LIST_WADS_BY_ID, preset.id);
-		preset.wads = new String[rows.getRowCount()];
-		for (int i = 0; i < rows.getRowCount(); i++)
-			preset.wads[i] = rows.getRows().get(i).getString("wadName");
+		Map<Long, List<SQLRow>> out = new HashMap<>();
+		for (SQLRow row : connection().getResult(itemsQuery, parameters))
+			out.computeIfAbsent(row.getLong("presetId"), (id) -> new ArrayList<>(4)).add(row);
+		return out;
 	}
 
 	/**
@@ -180,7 +255,7 @@ public final class PresetManager
 	 */
 	public boolean containsPreset(String name)
 	{
-		return connection.getRow(QUERY_EXIST_BY_NAME, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST_BY_NAME, name).getBoolean(0);
 	}
 
 	/**
@@ -190,7 +265,7 @@ public final class PresetManager
 	 */
 	public int countPreset(String startingHash)
 	{
-		return connection.getRow(QUERY_COUNT_BY_HASH, startingHash.replace("%", "") + "%").getInt(0);
+		return connection().getRow(QUERY_COUNT_BY_HASH, startingHash.replace("%", "") + "%").getInt(0);
 	}
 
 	/**
@@ -201,13 +276,16 @@ public final class PresetManager
 	 */
 	public Preset getPreset(long id)
 	{
-		Preset out = connection.getRow(Preset.class, QUERY_GET_BY_ID, id);
-		if (out == null)
-			return null;
+		return cache.get("id:" + id, (key) ->
+		{
+			Preset out = RowMapper.get(Preset.class).getRow(connection(), QUERY_GET_BY_ID, id);
+			if (out == null)
+				return null;
 
-		getPresetWADIds(out);
-		
-		return out;
+			getPresetWADIds(out);
+			
+			return out;
+		});
 	}
 
 	/**
@@ -217,13 +295,16 @@ public final class PresetManager
 	 */
 	public Preset getPresetByName(String name)
 	{
-		Preset out = connection.getRow(Preset.class, QUERY_GET_BY_NAME, name);
-		if (out == null)
-			return null;
+		return cache.get("name:" + name.toLowerCase(), (key) ->
+		{
+			Preset out = RowMapper.get(Preset.class).getRow(connection(), QUERY_GET_BY_NAME, name);
+			if (out == null)
+				return null;
 
-		getPresetWADIds(out);
+			getPresetWADIds(out);
 
-		return out;
+			return out;
+		});
 	}
 
 	/**
@@ -233,11 +314,9 @@ public final class PresetManager
 	 */
 	public Preset[] getPresetByHash(String startingHash)
 	{
-		Preset[] out = connection.getResult(Preset.class, QUERY_GET_BY_HASH, startingHash.replace("%", "") + "%");
-
-		for (Preset p : out)
-			getPresetWADIds(p);
-		
+		String hashPhrase = startingHash.replace("%", "") + "%";
+		Preset[] out = RowMapper.get(Preset.class).getResult(connection(), QUERY_GET_BY_HASH, hashPhrase);
+		getPresetWADIds(out, QUERY_LIST_HASH_ITEMS, hashPhrase);
 		return out;
 	}
 
@@ -248,11 +327,9 @@ public final class PresetManager
 	 */
 	public PresetInfo[] getPresetInfoByName(String containingPhrase)
 	{
-		PresetInfo[] out = connection.getResult(PresetInfo.class, QUERY_LIST_NAME, DatabaseManager.toSearchPhrase(containingPhrase));
-
-		for (PresetInfo p : out)
-			getPresetWADNames(p);
-
+		String namePhrase = DatabaseManager.toSearchPhrase(containingPhrase);
+		PresetInfo[] out = RowMapper.get(PresetInfo.class).getResult(connection(), QUERY_LIST_NAME, namePhrase);
+		getPresetWADNames(out, QUERY_LIST_NAME_ITEMS, namePhrase);
 		return out;
 	}
 
@@ -263,11 +340,9 @@ public final class PresetManager
 	 */
 	public PresetInfo[] getPresetInfoByHash(String containingPhrase)
 	{
-		PresetInfo[] out = connection.getResult(PresetInfo.class, QUERY_LIST_HASH, containingPhrase.replace("%", "") + "%");
-
-		for (PresetInfo p : out)
-			getPresetWADNames(p);
-
+		String hashPhrase = containingPhrase.replace("%", "") + "%";
+		PresetInfo[] out = RowMapper.get(PresetInfo.class).getResult(connection(), QUERY_LIST_HASH, hashPhrase);
+		getPresetWADNames(out, QUERY_LIST_HASH_ITEMS, hashPhrase);
 		return out;
 	}
 
@@ -287,12 +362,64 @@ public final class PresetManager
 	 */
 	public PresetInfo[] getAllPresetsByNameOrHash(String containingPhrase)
 	{
-		PresetInfo[] out = connection.getResult(PresetInfo.class, QUERY_SEARCH, DatabaseManager.toSearchPhrase(containingPhrase), containingPhrase != null ? containingPhrase.replace("%", "") + "%" : "%");
+		String namePhrase = DatabaseManager.toSearchPhrase(containingPhrase);
+		String hashPhrase = containingPhrase != null ? containingPhrase.replace("%", "") + "%" : "%";
+		PresetInfo[] out = RowMapper.get(PresetInfo.class).getResult(connection(), QUERY_SEARCH, namePhrase, hashPhrase);
+		getPresetWADNames(out, QUERY_SEARCH_ITEMS, namePhrase, hashPhrase);
+		return out;
+	}
 
-		for (PresetInfo p : out)
-			getPresetWADNames(p);
+	/**
+	 * Reads presets by name or hash, in name order (unnamed presets first), one page at a time,
+	 * so that any amount of them can be listed in constant memory.
+	 * @param containingPhrase the name phrase or hash phrase.
+	 * @param consumer called with each preset, in order.
+	 * @return the amount of presets read.
+	 */
+	public int forEachPresetByNameOrHash(String containingPhrase, Consumer<PresetInfo> consumer)
+	{
+		String namePhrase = DatabaseManager.toSearchPhrase(containingPhrase);
+		String hashPhrase = containingPhrase != null ? containingPhrase.replace("%", "") + "%" : "%";
+		Consumer<PresetInfo[]> pageConsumer = (page) ->
+		{
+			Object[] ids = new Object[page.length];
+			StringBuilder query = new StringBuilder(QUERY_LIST_ID_ITEMS).append('(');
+			for (int i = 0; i < page.length; i++)
+			{
+				ids[i] = page[i].id;
+				query.append(i > 0 ? ", ?" : "?");
+			}
+			query.append(") ORDER BY pi.presetId, pi.sort");
+			getPresetWADNames(page, query.toString(), ids);
+			Arrays.stream(page).forEach(consumer);
+		};
+		
+		RowMapper<PresetInfo> mapper = RowMapper.get(PresetInfo.class);
+		return mapper.forEachPage(connection(), QUERY_SEARCH_UNNAMED_PAGE, new Object[]{0L}, (preset) -> new Object[]{preset.id}, pageConsumer, hashPhrase)
+			+ mapper.forEachPage(connection(), QUERY_SEARCH_NAMED_PAGE, new Object[]{"", 0L}, (preset) -> new Object[]{preset.name, preset.id}, pageConsumer, namePhrase, hashPhrase);
+	}
 
-		return out;
+	/**
+	 * Gets the shortest hash prefix length that tells apart all presets found by a name or hash search
+	 * (up to {@value #MAX_DISTINCT_HASH_LENGTH}), without reading the presets.
+	 * @param containingPhrase the name phrase or hash phrase.
+	 * @return the prefix length.
+	 */
+	public int getDistinctHashLength(String containingPhrase)
+	{
+		String namePhrase = DatabaseManager.toSearchPhrase(containingPhrase);
+		String hashPhrase = containingPhrase != null ? containingPhrase.replace("%", "") + "%" : "%";
+		int low = 1;
+		int high = MAX_DISTINCT_HASH_LENGTH;
+		while (low < high)
+		{
+			int length = (low + high) / 2;
+			if (connection().getRow(QUERY_SEARCH_HAS_COMMON_HASH_PREFIX, namePhrase, hashPhrase, length).getBoolean(0))
+				low = length + 1;
+			else
+				high = length;
+		}
+		return low;
 	}
 
 	/**
@@ -308,7 +435,7 @@ public final class PresetManager
 		String hash = calculatePresetHash(engineId, iwadId, wadIds);
 		
 		long addedId;
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			SQLResult added = trn.getUpdateResult(QUERY_ADD, hash, name, engineId, iwadId);
 			if (added.getRowCount() == 0)
@@ -324,10 +451,6 @@ public final class PresetManager
 				sort += 10;
 			}
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
 		
 		return addedId;
@@ -344,21 +467,21 @@ public final class PresetManager
 		Preset[] preset = getPresetByHash(startingHash);
 		if (preset.length != 1)
 			return false;
-		return connection.getUpdateResult(QUERY_UPDATE_NAME, name, preset[0].id).getRowCount() > 0;
+		if (connection().getUpdateResult(QUERY_UPDATE_NAME, name, preset[0].id).getRowCount() == 0)
+			return false;
+		database.invalidateCaches(CacheManager.CACHE_PRESETS);
+		return true;
 	}
 	
 	private void deletePresetData(Preset preset) 
 	{
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			trn.getUpdateResult(QUERY_DELETE_ITEMS, preset.id);
 			trn.getUpdateResult(QUERY_DELETE, preset.id);
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_PRESETS);
 	}
 	
 	/**
@@ -459,6 +582,21 @@ public final class PresetManager
 		public Long iwadId;
 		/** Preset WADs (in the sort order). */
 		public long[] wadIds;
+		
+		/**
+		 * @return a copy of this preset.
+		 */
+		public Preset copy()
+		{
+			Preset out = new Preset();
+			out.id = id;
+			out.hash = hash;
+			out.name = name;
+			out.engineId = engineId;
+			out.iwadId = iwadId;
+			out.wadIds = wadIds != null ? wadIds.clone() : null;
+			return out;
+		}
 	}
 
 	public static class PresetItem
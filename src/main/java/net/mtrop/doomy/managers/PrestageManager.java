@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.PresetManager.Preset;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.TransferProgress;
+
+/**
+ * Pre-staging manager singleton.
+ * Stages the IWADs and WADs (and extracts the Zip files) of presets that are likely to be launched next,
+ * on one low-priority background thread, so that their launches find them already staged.
+ * Each request replaces the one before it, and a pass only stages presets that fit in what is left of
+ * its size budget.
+ * @author Matthew Tropiano
+ */
+public final class PrestageManager
+{
+	/** Default maximum size of the files staged per pass, in bytes. */
+	public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+	/** Amount of most-launched presets staged on start. */
+	public static final int FREQUENT_PRESETS = 3;
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(PrestageManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<PrestageManager> INSTANCE = new SingletonProvider<>(() -> new PrestageManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static PrestageManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** The staging thread. */
+	private final ExecutorService executor;
+	/** The last requested preset ids. */
+	private long[] lastPresetIds;
+	/** The progress of the last requested pass. */
+	private TransferProgress lastProgress;
+
+	private PrestageManager()
+	{
+		this.executor = Executors.newSingleThreadExecutor((runnable) -> {
+			Thread out = new Thread(runnable);
+			out.setName("DoomyPrestager");
+			out.setDaemon(true);
+			out.setPriority(Thread.MIN_PRIORITY);
+			return out;
+		});
+		this.lastPresetIds = null;
+		this.lastProgress = null;
+	}
+
+	/**
+	 * @return the maximum size of the files staged per pass, in bytes (from its config setting, or {@link #DEFAULT_MAX_SIZE}). 0 turns pre-staging off.
+	 */
+	public long getMaxSize()
+	{
+		return ConfigManager.get().getConvertedValue(ConfigManager.SETTING_PRESTAGE_MAX_SIZE, (value) -> {
+			try {
+				return value != null ? Long.parseLong(value) : DEFAULT_MAX_SIZE;
+			} catch (NumberFormatException e) {
+				return DEFAULT_MAX_SIZE;
+			}
+		});
+	}
+
+	/**
+	 * Pre-stages the presets launched most often and most recently (see {@link LaunchTimingManager#getFrequentPresetIds(int)}).
+	 * @return true if a pass was started, false if not.
+	 */
+	public boolean prestageFrequent()
+	{
+		return prestage(LaunchTimingManager.get().getFrequentPresetIds(FREQUENT_PRESETS));
+	}
+
+	/**
+	 * Pre-stages presets, in order, cancelling the pass before it.
+	 * Does nothing if the same presets were the last ones requested.
+	 * @param presetIds the preset ids, most likely to be launched first.
+	 * @return true if a pass was started, false if not.
+	 */
+	public synchronized boolean prestage(long ... presetIds)
+	{
+		if (presetIds.length == 0 || Arrays.equals(presetIds, lastPresetIds))
+			return false;
+		long maxSize = getMaxSize();
+		if (maxSize <= 0L)
+			return false;
+
+		if (lastProgress != null)
+			lastProgress.cancel();
+		TransferProgress progress = new TransferProgress();
+		lastPresetIds = presetIds;
+		lastProgress = progress;
+		executor.execute(() -> run(presetIds, maxSize, progress));
+		return true;
+	}
+
+	private void run(long[] presetIds, long maxSize, TransferProgress progress)
+	{
+		LauncherManager launcherManager = LauncherManager.get();
+		List<File> kept = new ArrayList<>();
+		long remaining = maxSize;
+		try
+		{
+			for (long presetId : presetIds)
+			{
+				progress.checkCancelled();
+				Preset preset = PresetManager.get().getPreset(presetId);
+				if (preset == null)
+					continue;
+
+				long size = 0L;
+				for (File file : launcherManager.getStagedFiles(preset))
+					size += file.length();
+				if (size > remaining)
+				{
+					LOG.debugf("Not pre-staging preset \"%s\": %d bytes is over the %d bytes left.", preset.name, size, remaining);
+					continue;
+				}
+
+				long start = System.currentTimeMillis();
+				long copied = progress.getCurrent();
+				kept.addAll(launcherManager.prestage(preset, progress));
+				remaining -= size;
+				LOG.infof("Pre-staged preset \"%s\" (%d bytes copied) in %d ms.", preset.name, progress.getCurrent() - copied, System.currentTimeMillis() - start);
+			}
+		}
+		catch (CancellationException e)
+		{
+			LOG.debug("Pre-staging cancelled.");
+		}
+		catch (IOException e)
+		{
+			LOG.warnf("Could not pre-stage presets: %s", e.getMessage());
+		}
+		catch (RuntimeException e)
+		{
+			// Nothing waits on this thread, so nothing else would report it.
+			LOG.errorf(e, "Could not pre-stage presets.");
+		}
+		finally
+		{
+			StagingManager.get().evict(kept);
+		}
+	}
+
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLResult;
+import com.blackrook.sql.SQLRow;
+
+/**
+ * A compiled row-to-object mapper, made once per class.
+ * <p>Objects are created through a {@link LambdaMetafactory} constructor reference, and each public field is bound
+ * through a {@link MethodHandle} setter and a typed row read, so no reflection happens once a mapper exists.
+ * Fields are bound by name, case-insensitively (like Black Rook's own mapping), so every query that uses a mapper
+ * must select a column for each of the type's scalar fields. Array fields are skipped (they are filled in afterward).
+ * @author Matthew Tropiano
+ * @param <T> the mapped type.
+ */
+final class RowMapper<T>
+{
+	/** Rows read per page by {@link #forEachPage}. */
+	static final int PAGE_SIZE = 500;
+
+	/** The mappers, by class. */
+	private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<RowMapper<?>>()
+	{
+		@Override
+		protected RowMapper<?> computeValue(Class<?> type)
+		{
+			return new RowMapper<>(type);
+		}
+	};
+
+	/**
+	 * Gets the mapper for a class, creating it if it was not made yet.
+	 * @param <T> the mapped type.
+	 * @param type the class to map to. Must be public, with a public no-argument constructor.
+	 * @return the mapper.
+	 * @throws IllegalArgumentException if the class cannot be mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> RowMapper<T> get(Class<T> type)
+	{
+		return (RowMapper<T>)MAPPERS.get(type);
+	}
+
+	/** The mapped type. */
+	private final Class<T> type;
+	/** The compiled constructor. */
+	private final Supplier<T> constructor;
+	/** The field binders. */
+	private final FieldBinder[] binders;
+
+	@SuppressWarnings("unchecked")
+	private RowMapper(Class<T> type)
+	{
+		this.type = type;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			MethodHandle constructorHandle = lookup.findConstructor(type, MethodType.methodType(void.class));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+				MethodType.methodType(Supplier.class),
+				MethodType.methodType(Object.class),
+				constructorHandle,
+				MethodType.methodType(type)
+			);
+			this.constructor = (Supplier<T>)site.getTarget().invoke();
+		} catch (Throwable t) {
+			throw new IllegalArgumentException("Cannot create a row mapper for " + type.getName(), t);
+		}
+
+		List<FieldBinder> binderList = new ArrayList<>();
+		for (Field field : type.getFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()) || field.getType().isArray())
+				continue;
+			MethodHandle setter;
+			try {
+				setter = lookup.unreflectSetter(field);
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Cannot bind field " + type.getName() + "." + field.getName(), e);
+			}
+			binderList.add(createBinder(field.getName(), field.getType(), setter));
+		}
+		this.binders = binderList.toArray(new FieldBinder[binderList.size()]);
+	}
+
+	// Creates a binder for a field's type.
+	private static FieldBinder createBinder(String name, Class<?> fieldType, MethodHandle setter)
+	{
+		if (fieldType == String.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, String.class));
+			return (target, row) -> { h.invokeExact(target, row.getString(name)); };
+		}
+		else if (fieldType == long.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+			return (target, row) -> { h.invokeExact(target, row.getLong(name)); };
+		}
+		else if (fieldType == int.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+			return (target, row) -> { h.invokeExact(target, row.getInt(name)); };
+		}
+		else if (fieldType == boolean.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+			return (target, row) -> { h.invokeExact(target, row.getBoolean(name)); };
+		}
+		else if (fieldType == Long.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, Long.class));
+			return (target, row) -> { h.invokeExact(target, row.getString(name) != null ? (Long)row.getLong(name) : (Long)null); };
+		}
+		else if (fieldType == Integer.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, Integer.class));
+			return (target, row) -> { h.invokeExact(target, row.getString(name) != null ? (Integer)row.getInt(name) : (Integer)null); };
+		}
+		else if (fieldType == Boolean.class)
+		{
+			final MethodHandle h = setter.asType(MethodType.methodType(void.class, Object.class, Boolean.class));
+			return (target, row) -> { h.invokeExact(target, row.getString(name) != null ? (Boolean)row.getBoolean(name) : (Boolean)null); };
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported field type for row mapping: " + fieldType.getName() + " " + name);
+		}
+	}
+
+	/**
+	 * Maps one row to a new object.
+	 * @param row the row.
+	 * @return the new object.
+	 */
+	T map(SQLRow row)
+	{
+		T out = constructor.get();
+		try {
+			for (int i = 0; i < binders.length; i++)
+				binders[i].bind(out, row);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException(t);
+		}
+		return out;
+	}
+
+	/**
+	 * Runs a query and maps the first row.
+	 * @param connection the connection to use.
+	 * @param query the query.
+	 * @param parameters the query parameters.
+	 * @return the mapped object, or null if there were no rows.
+	 */
+	T getRow(SQLConnection connection, String query, Object ... parameters)
+	{
+		SQLRow row = connection.getRow(query, parameters);
+		return row != null ? map(row) : null;
+	}
+
+	/**
+	 * Runs a query and maps every row.
+	 * @param connection the connection to use.
+	 * @param query the query.
+	 * @param parameters the query parameters.
+	 * @return the mapped objects, in row order.
+	 */
+	@SuppressWarnings("unchecked")
+	T[] getResult(SQLConnection connection, String query, Object ... parameters)
+	{
+		SQLResult result = connection.getResult(query, parameters);
+		List<SQLRow> rows = result.getRows();
+		T[] out = (T[])Array.newInstance(type, rows.size());
+		for (int i = 0; i < out.length; i++)
+			out[i] = map(rows.get(i));
+		return out;
+	}
+
+	/**
+	 * Runs a keyset-paged query, passing along one page of mapped rows at a time, so only one page is ever held in memory.
+	 * The query must be ordered by a unique key, and must end with the key to read after, then the page size
+	 * (for example, "... WHERE name LIKE ? AND (name, id) &gt; (?, ?) ORDER BY name, id LIMIT ?").
+	 * @param connection the connection to use.
+	 * @param query the query.
+	 * @param startKey the key that sorts before every row.
+	 * @param keyFunction the function for getting the key of a mapped row.
+	 * @param pageConsumer called with each page, in order.
+	 * @param parameters the query parameters that come before the key.
+	 * @return the total amount of rows read.
+	 */
+	int forEachPage(SQLConnection connection, String query, Object[] startKey, Function<T, Object[]> keyFunction, Consumer<T[]> pageConsumer, Object ... parameters)
+	{
+		Object[] queryParameters = Arrays.copyOf(parameters, parameters.length + startKey.length + 1);
+		queryParameters[queryParameters.length - 1] = PAGE_SIZE;
+		Object[] key = startKey;
+		int total = 0;
+		while (true)
+		{
+			System.arraycopy(key, 0, queryParameters, parameters.length, key.length);
+			T[] page = getResult(connection, query, queryParameters);
+			if (page.length > 0)
+				pageConsumer.accept(page);
+			total += page.length;
+			if (page.length < PAGE_SIZE)
+				return total;
+			key = keyFunction.apply(page[page.length - 1]);
+		}
+	}
+
+	/**
+	 * Binds one column to one field.
+	 */
+	@FunctionalInterface
+	private interface FieldBinder
+	{
+		void bind(Object target, SQLRow row) throws Throwable;
+	}
+
+}
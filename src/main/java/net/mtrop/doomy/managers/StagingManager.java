@@ -0,0 +1,723 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.mtrop.doomy.DoomyEnvironment;
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.struct.FileHasher;
+import net.mtrop.doomy.struct.FileHasher.Hash;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.TransferProgress;
+import net.mtrop.doomy.struct.UnzipSet.ZipEntryFilter;
+import net.mtrop.doomy.struct.util.FileUtils;
+import net.mtrop.doomy.struct.util.IOUtils;
+import net.mtrop.doomy.struct.util.ObjectUtils;
+
+/**
+ * Launch staging manager singleton.
+ * Keeps files that launches need in a local place (like files on other drives) in a persistent staging area,
+ * and files extracted from Zip archives in a persistent extraction area, one directory per file or archive content
+ * (by SHA-1, from the {@link FileHashManager}'s cache), so that nothing is staged or extracted again until it changes.
+ * Files are hard-linked into the staging area where possible, and copied by channel transfer where not.
+ * Each area is kept under its own maximum size by evicting the least recently used entries.
+ * Entries in use by running launches are counted (see {@link #acquire(Collection)}), and are never evicted,
+ * so that launches running at the same time can share them. Each process using an entry also holds a shared lock
+ * on a lock file in it, so that other processes (like a command-line prune while the GUI runs a launch) leave it alone, too.
+ * @author Matthew Tropiano
+ */
+public final class StagingManager
+{
+	/** Default maximum area size in bytes. */
+	public static final long DEFAULT_MAX_SIZE = 4L * 1024 * 1024 * 1024;
+
+	/** Extension for copies in progress. */
+	private static final String PART_EXTENSION = ".part";
+	/** Lock file name, per entry (shared-locked by each process that has the entry in use). */
+	private static final String LOCK_FILE = "in-use.lock";
+	/** Archive entry list file name, per extracted archive. */
+	private static final String MANIFEST_FILE = "entries.txt";
+	/** Extracted files directory name, per extracted archive. */
+	private static final String FILES_DIR = "files";
+	/** Extraction buffer size. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** Age after which part files are taken as left behind by a stopped process. */
+	private static final long STALE_PART_MILLIS = 60L * 60L * 1000L;
+	/** Bytes transferred per channel transfer call (between progress reports). */
+	private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+
+	/**
+	 * Cache areas.
+	 */
+	public enum Area
+	{
+		/** Files staged from other places. */
+		STAGED("staging", ConfigManager.SETTING_STAGING_MAX_SIZE),
+		/** Files extracted from archives. */
+		EXTRACTED("extracted", ConfigManager.SETTING_EXTRACTION_MAX_SIZE);
+
+		private final String directoryName;
+		private final String maxSizeSetting;
+
+		private Area(String directoryName, String maxSizeSetting)
+		{
+			this.directoryName = directoryName;
+			this.maxSizeSetting = maxSizeSetting;
+		}
+
+		/**
+		 * @return the config setting for this area's maximum size.
+		 */
+		public String getMaxSizeSetting()
+		{
+			return maxSizeSetting;
+		}
+	}
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(StagingManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<StagingManager> INSTANCE = new SingletonProvider<>(() -> new StagingManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static StagingManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** The cache directory. */
+	private final File cacheDirectory;
+	/** Use counts of entry directories in use. */
+	private final Map<File, Integer> useCounts;
+	/** Locks held on entry directories in use. */
+	private final Map<File, FileLock> useLocks;
+
+	private StagingManager()
+	{
+		this.cacheDirectory = new File(DoomyEnvironment.getApplicationCachePath());
+		this.useCounts = new HashMap<>();
+		this.useLocks = new HashMap<>();
+	}
+
+	/**
+	 * @param area the area.
+	 * @return the area's directory.
+	 */
+	public File getDirectory(Area area)
+	{
+		return new File(cacheDirectory, area.directoryName);
+	}
+
+	/**
+	 * @param area the area.
+	 * @return the area's maximum size in bytes (from its config setting, or {@link #DEFAULT_MAX_SIZE}).
+	 */
+	public long getMaxSize(Area area)
+	{
+		return ConfigManager.get().getConvertedValue(area.maxSizeSetting, (value) -> {
+			try {
+				return value != null ? Long.parseLong(value) : DEFAULT_MAX_SIZE;
+			} catch (NumberFormatException e) {
+				return DEFAULT_MAX_SIZE;
+			}
+		});
+	}
+
+	/**
+	 * Stages a file, or finds it already staged, and marks its entry as just used.
+	 * The staged file has the same name as the source file.
+	 * @param source the source file.
+	 * @return the staged file.
+	 * @throws IOException if the file could not be read or staged.
+	 */
+	public File stage(File source) throws IOException
+	{
+		return stage(source, new TransferProgress());
+	}
+
+	/**
+	 * Stages a file, or finds it already staged, and marks its entry as just used.
+	 * The staged file has the same name as the source file.
+	 * The file's length is added to the progress, and is counted as transferred once the file is staged or found.
+	 * @param source the source file.
+	 * @param progress the progress to add to.
+	 * @return the staged file.
+	 * @throws IOException if the file could not be read or staged.
+	 * @throws java.util.concurrent.CancellationException if the progress was cancelled (nothing partial is left behind).
+	 */
+	public File stage(File source, TransferProgress progress) throws IOException
+	{
+		progress.checkCancelled();
+		Hash hash = FileHashManager.get().getHash(source);
+		long length = source.length();
+		progress.expect(length);
+
+		File entryDirectory = new File(getDirectory(Area.STAGED), hash.sha1);
+		File staged = new File(entryDirectory, source.getName());
+
+		if (!isVerified(staged, length, hash.sha1))
+		{
+			if (!FileUtils.createPath(entryDirectory.getPath()))
+				throw new IOException("Could not create staging directory " + entryDirectory.getPath());
+
+			// The same contents may already be staged under another name.
+			File from = source;
+			for (File other : entryDirectory.listFiles())
+			{
+				if (!other.getName().endsWith(PART_EXTENSION) && !other.getName().equals(LOCK_FILE) && !other.equals(staged) && isVerified(other, length, hash.sha1))
+				{
+					from = other;
+					break;
+				}
+			}
+			LOG.debugf("Staging %s as %s", source.getPath(), staged.getPath());
+			place(from, staged, progress);
+			FileHashManager.get().setHash(staged, hash);
+		}
+		else
+		{
+			progress.advance(length);
+		}
+
+		entryDirectory.setLastModified(System.currentTimeMillis());
+		return staged;
+	}
+
+	/**
+	 * Extracts the entries of a Zip archive that pass a filter, or finds them already extracted,
+	 * and marks the archive's entry as just used. Entries are checked against their CRC32 as they are extracted,
+	 * and files found already extracted are checked against the same CRC32 (read again only if they changed since).
+	 * Once an archive was opened, its entry list is kept, so that later calls do not open the archive
+	 * unless an extracted file has gone missing.
+	 * @param archive the archive file.
+	 * @param filter the filter for the accepted entries (only entry names, sizes, and CRCs are set on tested entries).
+	 * @return the extracted files, in archive order.
+	 * @throws IOException if the archive could not be read, an entry failed its check, or a file could not be written.
+	 */
+	public List<File> extract(File archive, ZipEntryFilter filter) throws IOException
+	{
+		return extract(archive, filter, new TransferProgress());
+	}
+
+	/**
+	 * Extracts the entries of a Zip archive that pass a filter, or finds them already extracted,
+	 * and marks the archive's entry as just used. Entries are checked against their CRC32 as they are extracted,
+	 * and files found already extracted are checked against the same CRC32 (read again only if they changed since).
+	 * Each accepted entry's size is added to the progress, and is counted as transferred as it is extracted or found.
+	 * @param archive the archive file.
+	 * @param filter the filter for the accepted entries (only entry names, sizes, and CRCs are set on tested entries).
+	 * @param progress the progress to add to.
+	 * @return the extracted files, in archive order.
+	 * @throws IOException if the archive could not be read, an entry failed its check, or a file could not be written.
+	 * @throws java.util.concurrent.CancellationException if the progress was cancelled (nothing partial is left behind).
+	 */
+	public List<File> extract(File archive, ZipEntryFilter filter, TransferProgress progress) throws IOException
+	{
+		progress.checkCancelled();
+		Hash hash = FileHashManager.get().getHash(archive);
+
+		File entryDirectory = new File(getDirectory(Area.EXTRACTED), hash.sha1);
+		File filesDirectory = new File(entryDirectory, FILES_DIR);
+		File manifest = new File(entryDirectory, MANIFEST_FILE);
+
+		ZipFile zipFile = null;
+		try {
+			List<ZipEntry> entries = readManifest(manifest);
+			if (entries == null)
+			{
+				zipFile = new ZipFile(archive);
+				entries = new ArrayList<>();
+				for (ZipEntry entry : ObjectUtils.enumerationToIterable(zipFile.entries()))
+					if (!entry.isDirectory())
+						entries.add(entry);
+				if (!FileUtils.createPath(entryDirectory.getPath()))
+					throw new IOException("Could not create extraction directory " + entryDirectory.getPath());
+				writeManifest(manifest, entries);
+			}
+
+			List<ZipEntry> accepted = new ArrayList<>();
+			for (ZipEntry entry : entries)
+			{
+				if (filter.test(entry))
+				{
+					accepted.add(entry);
+					progress.expect(entry.getSize());
+				}
+			}
+
+			List<File> out = new ArrayList<>();
+			for (ZipEntry entry : accepted)
+			{
+
+				File file = new File(filesDirectory, entry.getName());
+				if (!file.toPath().normalize().startsWith(filesDirectory.toPath()))
+					throw new IOException("Entry " + entry.getName() + " is outside of archive " + archive.getPath());
+
+				if (!isVerified(file, entry))
+				{
+					if (zipFile == null)
+						zipFile = new ZipFile(archive);
+					ZipEntry zipEntry = zipFile.getEntry(entry.getName());
+					if (zipEntry == null)
+						throw new IOException("Entry " + entry.getName() + " is missing from archive " + archive.getPath());
+					LOG.debugf("Extracting %s from %s", entry.getName(), archive.getPath());
+					extract(zipFile, zipEntry, file, progress);
+				}
+				else
+				{
+					progress.advance(entry.getSize());
+				}
+				out.add(file);
+			}
+
+			entryDirectory.setLastModified(System.currentTimeMillis());
+			return out;
+		} finally {
+			IOUtils.close(zipFile);
+		}
+	}
+
+	/**
+	 * Places a staged or extracted file in another directory, under the same name (linked, or copied if it cannot be linked).
+	 * @param staged the staged or extracted file.
+	 * @param directory the target directory.
+	 * @return the placed file.
+	 * @throws IOException if the file could not be placed.
+	 */
+	public File placeInto(File staged, File directory) throws IOException
+	{
+		File target = new File(directory, staged.getName());
+		place(staged, target, new TransferProgress());
+		return target;
+	}
+
+	/**
+	 * Copies a file (never linked, so that the copies can change separately), through a part file
+	 * that replaces the target once it is complete.
+	 * The file's length is added to the progress, and is counted as transferred as it is copied.
+	 * @param from the source file.
+	 * @param to the target file.
+	 * @param progress the progress to add to.
+	 * @throws IOException if the file could not be copied.
+	 * @throws java.util.concurrent.CancellationException if the progress was cancelled (nothing partial is left behind).
+	 */
+	public void copy(File from, File to, TransferProgress progress) throws IOException
+	{
+		progress.checkCancelled();
+		progress.expect(from.length());
+		transfer(from, to, progress);
+	}
+
+	/**
+	 * @param area the area.
+	 * @return the amount of entries (staged files or extracted archives) in the area.
+	 */
+	public int getEntryCount(Area area)
+	{
+		return listEntries(area).length;
+	}
+
+	/**
+	 * @param area the area.
+	 * @return the total size of the area in bytes.
+	 */
+	public long getSize(Area area)
+	{
+		long out = 0L;
+		for (File entryDirectory : listEntries(area))
+			out += getSize(entryDirectory);
+		return out;
+	}
+
+	/**
+	 * Evicts the least recently used entries of each area until each fits in its maximum size.
+	 * @param keep the staged or extracted files whose entries must not be evicted.
+	 * @return the amount of bytes freed.
+	 */
+	public long evict(Collection<File> keep)
+	{
+		long freed = 0L;
+		for (Area area : Area.values())
+			freed += evict(area, getMaxSize(area), keep);
+		return freed;
+	}
+
+	/**
+	 * Marks the entries of staged or extracted files as in use, so that they are not evicted until released,
+	 * by this process or any other.
+	 * Each call must be matched by a call to {@link #release(Collection)} with the same files.
+	 * @param files the staged or extracted files (files outside of the areas are skipped).
+	 */
+	public void acquire(Collection<File> files)
+	{
+		synchronized (useCounts)
+		{
+			for (File f : files)
+			{
+				File entryDirectory = getEntryDirectory(f);
+				if (entryDirectory != null && useCounts.merge(entryDirectory, 1, Integer::sum) == 1)
+					lock(entryDirectory);
+			}
+		}
+	}
+
+	/**
+	 * Releases the entries of staged or extracted files marked by {@link #acquire(Collection)}.
+	 * @param files the staged or extracted files.
+	 */
+	public void release(Collection<File> files)
+	{
+		synchronized (useCounts)
+		{
+			for (File f : files)
+			{
+				File entryDirectory = getEntryDirectory(f);
+				if (entryDirectory != null && useCounts.computeIfPresent(entryDirectory, (key, count) -> count > 1 ? count - 1 : null) == null)
+					unlock(entryDirectory);
+			}
+		}
+	}
+
+	/**
+	 * Evicts every entry in every area (except those in use by this process or any other).
+	 * @return the amount of bytes freed.
+	 */
+	public long clear()
+	{
+		long freed = 0L;
+		for (Area area : Area.values())
+			freed += evict(area, 0L, Arrays.asList());
+		return freed;
+	}
+
+	private long evict(Area area, long maxSize, Collection<File> keep)
+	{
+		File[] entries = listEntries(area);
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+
+		long total = 0L;
+		long freed = 0L;
+		for (File entryDirectory : entries)
+		{
+			deleteStaleParts(entryDirectory, System.currentTimeMillis() - STALE_PART_MILLIS);
+			long size = getSize(entryDirectory);
+			total += size;
+			if (total <= maxSize || isKept(entryDirectory, keep) || isInUse(entryDirectory))
+				continue;
+
+			LOG.debugf("Evicting %s entry %s (%d bytes)", area.directoryName, entryDirectory.getName(), size);
+			FileUtils.deleteDirectory(entryDirectory, true);
+			if (!entryDirectory.exists())
+			{
+				total -= size;
+				freed += size;
+			}
+		}
+		return freed;
+	}
+
+	// Gets the entry directory of a staged or extracted file, or null if it is not in an area.
+	private File getEntryDirectory(File file)
+	{
+		for (Area area : Area.values())
+		{
+			Path areaPath = getDirectory(area).toPath();
+			Path path = file.toPath();
+			if (path.startsWith(areaPath) && path.getNameCount() > areaPath.getNameCount())
+				return areaPath.resolve(path.getName(areaPath.getNameCount())).toFile();
+		}
+		return null;
+	}
+
+	private boolean isInUse(File entryDirectory)
+	{
+		synchronized (useCounts)
+		{
+			// Only probed when this process holds no lock on the entry, since closing any channel to the file drops them.
+			return useCounts.containsKey(entryDirectory) || isLockedElsewhere(entryDirectory);
+		}
+	}
+
+	// Takes a shared lock on an entry, so that other processes do not evict it.
+	private void lock(File entryDirectory)
+	{
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(new File(entryDirectory, LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileLock lock = channel.tryLock(0L, Long.MAX_VALUE, true);
+			if (lock != null)
+			{
+				useLocks.put(entryDirectory, lock);
+				return;
+			}
+			LOG.warnf("Entry %s is being evicted by another process.", entryDirectory.getPath());
+		} catch (IOException e) {
+			LOG.warnf("Could not lock entry %s: %s", entryDirectory.getPath(), e.getMessage());
+		}
+		IOUtils.close(channel);
+	}
+
+	// Releases the lock on an entry (closing the channel releases it).
+	private void unlock(File entryDirectory)
+	{
+		FileLock lock = useLocks.remove(entryDirectory);
+		if (lock != null)
+			IOUtils.close(lock.channel());
+	}
+
+	// Checks if another process holds a shared lock on an entry.
+	private static boolean isLockedElsewhere(File entryDirectory)
+	{
+		File lockFile = new File(entryDirectory, LOCK_FILE);
+		if (!lockFile.exists())
+			return false;
+		try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			FileLock lock = channel.tryLock();
+			if (lock == null)
+				return true;
+			lock.release();
+			return false;
+		} catch (IOException | OverlappingFileLockException e) {
+			return true;
+		}
+	}
+
+	private File[] listEntries(Area area)
+	{
+		File[] out = getDirectory(area).listFiles((file) -> file.isDirectory());
+		return out != null ? out : new File[0];
+	}
+
+	private static long getSize(File file)
+	{
+		File[] files = file.listFiles();
+		if (files == null)
+			return file.length();
+		long out = 0L;
+		for (File f : files)
+			out += getSize(f);
+		return out;
+	}
+
+	private static void deleteStaleParts(File directory, long olderThan)
+	{
+		File[] files = directory.listFiles();
+		if (files != null) for (File f : files)
+		{
+			if (f.isDirectory())
+				deleteStaleParts(f, olderThan);
+			else if (f.getName().endsWith(PART_EXTENSION) && f.lastModified() < olderThan)
+				f.delete();
+		}
+	}
+
+	private static boolean isKept(File entryDirectory, Collection<File> keep)
+	{
+		for (File f : keep)
+			if (f.toPath().startsWith(entryDirectory.toPath()))
+				return true;
+		return false;
+	}
+
+	// Reads an archive's entry list (size, CRC32, and name, tab-separated), or null if there is none.
+	private static List<ZipEntry> readManifest(File manifest) throws IOException
+	{
+		if (!manifest.isFile())
+			return null;
+		List<ZipEntry> out = new ArrayList<>();
+		try (BufferedReader reader = IOUtils.openTextFile(manifest, StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				String[] fields = line.split("\t", 3);
+				if (fields.length < 3)
+					return null;
+				ZipEntry entry = new ZipEntry(fields[2]);
+				entry.setSize(Long.parseLong(fields[0]));
+				entry.setCrc(Long.parseLong(fields[1], 16));
+				out.add(entry);
+			}
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		return out;
+	}
+
+	private static void writeManifest(File manifest, List<ZipEntry> entries) throws IOException
+	{
+		File part = File.createTempFile(manifest.getName(), PART_EXTENSION, manifest.getParentFile());
+		try {
+			try (PrintWriter writer = new PrintWriter(part, StandardCharsets.UTF_8.name()))
+			{
+				for (ZipEntry entry : entries)
+					writer.append(String.valueOf(entry.getSize())).append('\t').append(Long.toHexString(entry.getCrc())).append('\t').println(entry.getName());
+				if (writer.checkError())
+					throw new IOException("Could not write " + part.getPath());
+			}
+			move(part, manifest);
+		} finally {
+			part.delete();
+		}
+	}
+
+	// Extracts an entry through a part file, checking its CRC32.
+	private static void extract(ZipFile zipFile, ZipEntry entry, File to, TransferProgress progress) throws IOException
+	{
+		if (!FileUtils.createPathForFile(to))
+			throw new IOException("Could not create path for file: " + to.getPath());
+
+		File part = File.createTempFile(to.getName(), PART_EXTENSION, to.getParentFile());
+		try {
+			CRC32 crc = new CRC32();
+			MessageDigest sha1 = FileHasher.createSHA1();
+			try (InputStream in = new CheckedInputStream(zipFile.getInputStream(entry), crc); OutputStream out = new FileOutputStream(part))
+			{
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int buf;
+				while ((buf = in.read(buffer)) > 0)
+				{
+					out.write(buffer, 0, buf);
+					sha1.update(buffer, 0, buf);
+					progress.advance(buf);
+				}
+			}
+			if (entry.getCrc() != -1 && crc.getValue() != entry.getCrc())
+				throw new IOException("Entry " + entry.getName() + " failed its CRC32 check.");
+			move(part, to);
+			FileHashManager.get().setHash(to, FileHasher.toHash(crc, sha1));
+		} finally {
+			part.delete();
+		}
+	}
+
+	// Checks if a staged file has an entry's contents, by length and SHA-1.
+	// The hash is recorded when the file is staged, so the file is read again only if it has changed since.
+	private static boolean isVerified(File file, long length, String sha1) throws IOException
+	{
+		if (!(file.isFile() && file.length() == length))
+			return false;
+		if (!FileHashManager.get().getHash(file).sha1.equals(sha1))
+		{
+			LOG.warnf("Staged file %s does not match its entry, staging it again.", file.getPath());
+			return false;
+		}
+		return true;
+	}
+
+	// Checks if an extracted file has an archive entry's contents, by length and CRC32 (from the archive's entry list).
+	// The hash is recorded when the file is extracted, so the file is read again only if it has changed since.
+	private static boolean isVerified(File file, ZipEntry entry) throws IOException
+	{
+		if (!(file.isFile() && file.length() == entry.getSize()))
+			return false;
+		if (entry.getCrc() != -1 && Long.parseLong(FileHashManager.get().getHash(file).crc32, 16) != entry.getCrc())
+		{
+			LOG.warnf("Extracted file %s does not match its archive entry, extracting it again.", file.getPath());
+			return false;
+		}
+		return true;
+	}
+
+	// Hard-links a file, or copies it, to a part file, and moves that into place,
+	// so that a file placed at the same time by another launch is replaced whole, never removed.
+	private static void place(File from, File to, TransferProgress progress) throws IOException
+	{
+		File part = File.createTempFile(to.getName(), PART_EXTENSION, to.getParentFile());
+		try {
+			boolean linked;
+			try {
+				Files.delete(part.toPath());
+				Files.createLink(part.toPath(), from.toPath());
+				linked = true;
+			} catch (IOException | UnsupportedOperationException | SecurityException e) {
+				LOG.debugf("Could not link %s, copying: %s", from.getPath(), e.getMessage());
+				linked = false;
+			}
+			if (linked)
+			{
+				move(part, to);
+				progress.advance(from.length());
+				return;
+			}
+		} finally {
+			part.delete();
+		}
+		transfer(from, to, progress);
+	}
+
+	// Copies a file by channel transfer, through a part file.
+	private static void transfer(File from, File to, TransferProgress progress) throws IOException
+	{
+		File part = File.createTempFile(to.getName(), PART_EXTENSION, to.getParentFile());
+		try {
+			try (
+				FileChannel in = FileChannel.open(from.toPath(), StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(part.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+			){
+				long size = in.size();
+				long position = 0L;
+				while (position < size)
+				{
+					long transferred = in.transferTo(position, Math.min(size - position, TRANSFER_CHUNK_SIZE), out);
+					position += transferred;
+					progress.advance(transferred);
+				}
+			}
+			move(part, to);
+		} finally {
+			part.delete();
+		}
+	}
+
+	private static void move(File part, File to) throws IOException
+	{
+		try {
+			Files.move(part.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(part.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
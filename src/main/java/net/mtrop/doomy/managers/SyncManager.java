@@ -0,0 +1,472 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import net.mtrop.doomy.DoomyEnvironment;
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.struct.FileHasher;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.TransferProgress;
+import net.mtrop.doomy.struct.util.IOUtils;
+
+/**
+ * Save, screenshot, and demo file sync manager singleton.
+ * Moves a preset's files into an engine directory before a launch, and back into the preset directory afterward:
+ * by atomic rename where both directories are on the same file system, and by copy where not.
+ * Each preset directory keeps a manifest of what was placed in the engine directory (size, modified time, and
+ * optionally a hash - see {@link ConfigManager#SETTING_SYNC_HASH}), so that only new or changed files are copied back,
+ * and so that files left in an engine directory by a launch that did not finish are returned by the next one.
+ * @author Matthew Tropiano
+ */
+public final class SyncManager
+{
+	/** Manifest file name, per preset directory. */
+	public static final String MANIFEST_FILE = "sync.txt";
+
+	/** Extension for copies in progress. */
+	private static final String PART_EXTENSION = ".part";
+	/** Hash field for entries without a hash. */
+	private static final String NO_HASH = "-";
+	/** Modified time granularity allowed for when finding files written during a launch (FAT keeps 2 seconds). */
+	private static final long MODIFIED_TOLERANCE_MILLIS = 2000L;
+
+	/**
+	 * A single file transfer of a sync.
+	 */
+	public static class Transfer
+	{
+		private final File source;
+		private final File target;
+		private final boolean keepCopiedSource;
+		private final boolean deleteOnly;
+		private final long size;
+
+		private Transfer(File source, File target, boolean keepCopiedSource, boolean deleteOnly)
+		{
+			this.source = source;
+			this.target = target;
+			this.keepCopiedSource = keepCopiedSource;
+			this.deleteOnly = deleteOnly;
+			this.size = deleteOnly ? 0L : source.length();
+		}
+
+		/**
+		 * @return the source file.
+		 */
+		public File getSource()
+		{
+			return source;
+		}
+
+		/**
+		 * @return the target file.
+		 */
+		public File getTarget()
+		{
+			return target;
+		}
+
+		/**
+		 * @return the amount of bytes to transfer (if copied).
+		 */
+		public long getSize()
+		{
+			return size;
+		}
+
+		/**
+		 * Runs this transfer: renames the source to the target, or copies it where it cannot be renamed
+		 * (keeping the modified time). A transfer of a file that already has an unchanged copy at the target just removes the source.
+		 * @param progress the progress to add to.
+		 * @throws IOException if the file could not be transferred.
+		 * @throws java.util.concurrent.CancellationException if the progress was cancelled (nothing partial is left behind).
+		 */
+		public void run(TransferProgress progress) throws IOException
+		{
+			progress.checkCancelled();
+			if (deleteOnly)
+			{
+				if (source.exists() && !source.delete())
+					throw new IOException("Could not remove " + source.getPath());
+				return;
+			}
+
+			try {
+				Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				progress.expect(size);
+				progress.advance(size);
+				return;
+			} catch (AtomicMoveNotSupportedException e) {
+				LOG.debugf("Could not rename %s, copying: %s", source.getPath(), e.getMessage());
+			}
+
+			StagingManager.get().copy(source, target, progress);
+			target.setLastModified(source.lastModified());
+			if (!keepCopiedSource && !source.delete())
+				throw new IOException("Could not remove " + source.getPath());
+		}
+	}
+
+	/**
+	 * A planned sync between a preset directory and an engine directory: the transfers to run,
+	 * and the manifest change to make once all of them are done.
+	 */
+	public static class Sync
+	{
+		private final File presetDirectory;
+		private final File engineDirectory;
+		private final boolean toEngine;
+		private final long time;
+		private final Collection<Entry> entries;
+		private final List<Transfer> transfers;
+		private int unchanged;
+
+		private Sync(File presetDirectory, File engineDirectory, boolean toEngine, long time)
+		{
+			this.presetDirectory = presetDirectory;
+			this.engineDirectory = engineDirectory;
+			this.toEngine = toEngine;
+			this.time = time;
+			this.entries = new ArrayList<>();
+			this.transfers = new ArrayList<>();
+			this.unchanged = 0;
+		}
+
+		/**
+		 * @return the transfers to run. They can be run in any order, and at the same time.
+		 */
+		public List<Transfer> getTransfers()
+		{
+			return Collections.unmodifiableList(transfers);
+		}
+
+		/**
+		 * @return the amount of files that did not need to be transferred.
+		 */
+		public int getUnchangedCount()
+		{
+			return unchanged;
+		}
+
+		/**
+		 * Finishes this sync once all of its transfers are done.
+		 * After a sync into the engine directory, the manifest is updated to what the engine directory now holds.
+		 * After a sync back into the preset directory, the manifest is removed.
+		 * @throws IOException if the manifest could not be written or removed.
+		 */
+		public void complete() throws IOException
+		{
+			File manifest = new File(presetDirectory, MANIFEST_FILE);
+			if (toEngine)
+			{
+				List<Entry> placed = new ArrayList<>(entries.size());
+				for (Entry entry : entries)
+				{
+					File file = new File(engineDirectory, entry.name);
+					if (file.isFile())
+						placed.add(new Entry(entry.name, file.length(), file.lastModified(), entry.hash));
+				}
+				writeManifest(manifest, engineDirectory, time, placed);
+			}
+			else if (manifest.exists() && !manifest.delete())
+			{
+				throw new IOException("Could not remove " + manifest.getPath());
+			}
+		}
+	}
+
+	// A file's state, as kept in the manifest.
+	private static class Entry
+	{
+		private final String name;
+		private final long size;
+		private final long modified;
+		private final String hash;
+
+		private Entry(String name, long size, long modified, String hash)
+		{
+			this.name = name;
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+
+		private static Entry read(File file, boolean hash) throws IOException
+		{
+			return new Entry(file.getName(), file.length(), file.lastModified(), hash ? FileHasher.hash(file).sha1 : null);
+		}
+
+		// Size and modified time first, and the hash only if both match (and there is one).
+		private boolean matches(File file) throws IOException
+		{
+			if (file.length() != size || file.lastModified() != modified)
+				return false;
+			return hash == null || hash.equals(FileHasher.hash(file).sha1);
+		}
+	}
+
+	// A read manifest.
+	private static class Manifest
+	{
+		private File engineDirectory;
+		private long time;
+		private Map<String, Entry> entries;
+	}
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(SyncManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<SyncManager> INSTANCE = new SingletonProvider<>(() -> new SyncManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static SyncManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Decides if unchanged files are also compared by hash. */
+	private final BooleanSupplier hashing;
+	/** The directory of all preset directories. */
+	private final File presetsDirectory;
+
+	private SyncManager()
+	{
+		this(
+			() -> ConfigManager.get().getConvertedValue(ConfigManager.SETTING_SYNC_HASH, (value) -> Boolean.parseBoolean(value)),
+			new File(DoomyEnvironment.getPresetDirectoryPath())
+		);
+	}
+
+	// Package-visible for tests against other directories.
+	SyncManager(BooleanSupplier hashing, File presetsDirectory)
+	{
+		this.hashing = hashing;
+		this.presetsDirectory = presetsDirectory;
+	}
+
+	/**
+	 * @return true if unchanged files are also compared by hash, false if only by size and modified time.
+	 */
+	public boolean isHashing()
+	{
+		return hashing.getAsBoolean();
+	}
+
+	/**
+	 * Checks if a preset directory has files out in an engine directory (a sync into it that was not synced back).
+	 * @param presetDirectory the preset directory.
+	 * @return true if so, false if not.
+	 */
+	public boolean isPending(File presetDirectory)
+	{
+		return new File(presetDirectory, MANIFEST_FILE).isFile();
+	}
+
+	/**
+	 * Plans a sync of a preset's files into an engine directory, and writes its manifest.
+	 * Files that the engine directory already has an unchanged copy of are not transferred.
+	 * First, any files left in the engine directory by earlier launches that did not finish are synced back into their presets.
+	 * @param presetDirectory the preset directory.
+	 * @param engineDirectory the engine directory.
+	 * @param filter the filter for the files to sync.
+	 * @return the planned sync.
+	 * @throws IOException if the files could not be read or the manifest could not be written.
+	 */
+	public Sync toEngine(File presetDirectory, File engineDirectory, FileFilter filter) throws IOException
+	{
+		recover(presetDirectory, engineDirectory, filter);
+
+		boolean hashing = isHashing();
+		Sync out = new Sync(presetDirectory, engineDirectory, true, System.currentTimeMillis());
+		for (File file : listFiles(presetDirectory, filter, Collections.emptySet()))
+		{
+			Entry entry = Entry.read(file, hashing);
+			File target = new File(engineDirectory, file.getName());
+			out.entries.add(entry);
+			if (target.isFile() && entry.matches(target))
+				out.unchanged++;
+			else
+				out.transfers.add(new Transfer(file, target, true, false));
+		}
+
+		// Written before anything is moved, so that it can be synced back from any point.
+		writeManifest(new File(presetDirectory, MANIFEST_FILE), engineDirectory, out.time, out.entries);
+		return out;
+	}
+
+	/**
+	 * Plans a sync of a preset's files back from an engine directory.
+	 * Files in the manifest are transferred only if they changed (or are no longer in the preset directory),
+	 * and are otherwise just removed from the engine directory. Files not in the manifest are transferred only if
+	 * they were written since the files were synced into the engine directory, so other files are left alone.
+	 * @param presetDirectory the preset directory.
+	 * @param engineDirectory the engine directory.
+	 * @param filter the filter for the files to sync.
+	 * @return the planned sync.
+	 * @throws IOException if the files or the manifest could not be read.
+	 */
+	public Sync toPreset(File presetDirectory, File engineDirectory, FileFilter filter) throws IOException
+	{
+		Manifest manifest = readManifest(new File(presetDirectory, MANIFEST_FILE));
+		Map<String, Entry> entries = manifest != null ? manifest.entries : Collections.emptyMap();
+		long since = manifest != null ? manifest.time - MODIFIED_TOLERANCE_MILLIS : Long.MIN_VALUE;
+
+		Sync out = new Sync(presetDirectory, engineDirectory, false, System.currentTimeMillis());
+		for (File file : listFiles(engineDirectory, filter, entries.keySet()))
+		{
+			Entry entry = entries.get(file.getName());
+			File target = new File(presetDirectory, file.getName());
+			if (entry != null && entry.matches(file))
+			{
+				out.unchanged++;
+				out.transfers.add(new Transfer(file, target, false, target.isFile()));
+			}
+			else if (entry != null || file.lastModified() >= since)
+			{
+				out.transfers.add(new Transfer(file, target, false, false));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Syncs back the files left in an engine directory by earlier launches that did not finish,
+	 * for the given preset (in whatever engine directory it used) and for any other preset that used this engine directory.
+	 * Other presets only get back the files in their manifests, since their filters are not known.
+	 * @param presetDirectory the preset directory.
+	 * @param engineDirectory the engine directory.
+	 * @param filter the filter for the preset's files.
+	 * @throws IOException if the files could not be synced back.
+	 */
+	public void recover(File presetDirectory, File engineDirectory, FileFilter filter) throws IOException
+	{
+		if (isPending(presetDirectory))
+		{
+			Manifest manifest = readManifest(new File(presetDirectory, MANIFEST_FILE));
+			syncBack(presetDirectory, manifest != null ? manifest.engineDirectory : engineDirectory, filter);
+		}
+
+		File[] presetDirectories = presetsDirectory.listFiles((file) -> file.isDirectory() && isPending(file));
+		if (presetDirectories != null) for (File other : presetDirectories)
+		{
+			Manifest manifest = readManifest(new File(other, MANIFEST_FILE));
+			if (manifest != null && manifest.engineDirectory.equals(engineDirectory.getAbsoluteFile()))
+				syncBack(other, engineDirectory, (file) -> false);
+		}
+	}
+
+	private void syncBack(File presetDirectory, File engineDirectory, FileFilter filter) throws IOException
+	{
+		LOG.infof("Returning files left in %s to %s", engineDirectory.getPath(), presetDirectory.getPath());
+		Sync sync = toPreset(presetDirectory, engineDirectory, filter);
+		TransferProgress progress = new TransferProgress();
+		for (Transfer transfer : sync.transfers)
+			transfer.run(progress);
+		sync.complete();
+	}
+
+	// Lists the files accepted by the filter, and any files by name, but never the manifest or part files.
+	private static List<File> listFiles(File directory, FileFilter filter, Collection<String> names)
+	{
+		List<File> out = new ArrayList<>();
+		File[] files = directory.listFiles((file) ->
+			file.isFile()
+			&& !file.getName().equals(MANIFEST_FILE)
+			&& !file.getName().endsWith(PART_EXTENSION)
+			&& (names.contains(file.getName()) || filter.accept(file))
+		);
+		if (files != null) for (File file : files)
+			out.add(file);
+		return out;
+	}
+
+	// Reads a manifest: the engine directory and sync time (tab-separated) on the first line,
+	// then size, modified time, hash, and name (tab-separated) per file. Null if there is no readable manifest.
+	private static Manifest readManifest(File file) throws IOException
+	{
+		if (!file.isFile())
+			return null;
+		Manifest out = new Manifest();
+		out.entries = new LinkedHashMap<>();
+		try (BufferedReader reader = IOUtils.openTextFile(file, StandardCharsets.UTF_8))
+		{
+			String line = reader.readLine();
+			if (line == null)
+				return null;
+			String[] header = line.split("\t", 2);
+			if (header.length < 2)
+				return null;
+			out.time = Long.parseLong(header[0]);
+			out.engineDirectory = new File(header[1]);
+
+			while ((line = reader.readLine()) != null)
+			{
+				String[] fields = line.split("\t", 4);
+				if (fields.length < 4)
+					return null;
+				String hash = NO_HASH.equals(fields[2]) ? null : fields[2];
+				out.entries.put(fields[3], new Entry(fields[3], Long.parseLong(fields[0]), Long.parseLong(fields[1]), hash));
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return out;
+	}
+
+	private static void writeManifest(File file, File engineDirectory, long time, Collection<Entry> entries) throws IOException
+	{
+		File part = File.createTempFile(file.getName(), PART_EXTENSION, file.getParentFile());
+		try {
+			try (PrintWriter writer = new PrintWriter(part, StandardCharsets.UTF_8.name()))
+			{
+				writer.append(String.valueOf(time)).append('\t').println(engineDirectory.getAbsolutePath());
+				for (Entry entry : entries)
+				{
+					writer.append(String.valueOf(entry.size)).append('\t')
+						.append(String.valueOf(entry.modified)).append('\t')
+						.append(entry.hash != null ? entry.hash : NO_HASH).append('\t')
+						.println(entry.name);
+				}
+				if (writer.checkError())
+					throw new IOException("Could not write " + part.getPath());
+			}
+			try {
+				Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			part.delete();
+		}
+	}
+
+}
@@ -0,0 +1,384 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLRow;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.managers.WADManager.WAD;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.LumpDirectory;
+import net.mtrop.doomy.struct.LumpDirectory.Entry;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.util.FileUtils;
+
+/**
+ * WAD index manager singleton.
+ * Reads the lump directories of WADs and archives (never their contents) and stores what they contain as WAD data,
+ * so that questions like "which WADs have MAP07?" are database lookups.
+ * @author Matthew Tropiano
+ */
+public final class WADIndexManager
+{
+	/** WADData key for the file size and modified time at the time of indexing. */
+	public static final String DATA_INDEX_STAMP = "index.stamp";
+	/** WADData key for the amount of lumps/entries. */
+	public static final String DATA_LUMP_COUNT = "lump.count";
+	/** WADData key for the total size of all lumps/entries, uncompressed. */
+	public static final String DATA_LUMP_SIZE = "lump.size";
+	/** WADData key ("true"/"false") for DEHACKED lump/file presence. */
+	public static final String DATA_HAS_DEHACKED = "has.dehacked";
+	/** WADData key ("true"/"false") for MAPINFO (any flavor) lump/file presence. */
+	public static final String DATA_HAS_MAPINFO = "has.mapinfo";
+	/** WADData key ("true"/"false") for ZSCRIPT lump/file presence. */
+	public static final String DATA_HAS_ZSCRIPT = "has.zscript";
+	/** WADData key ("true"/"false") for UDMF map (TEXTMAP) presence. */
+	public static final String DATA_HAS_UDMF = "has.udmf";
+	/** WADData key prefix for each map in a WAD, followed by the uppercase map name. */
+	public static final String DATA_MAP_PREFIX = "map.";
+
+	private static final String[] FEATURE_KEYS = {DATA_HAS_DEHACKED, DATA_HAS_MAPINFO, DATA_HAS_UDMF, DATA_HAS_ZSCRIPT};
+	private static final String[] MAPINFO_NAMES = {"EMAPINFO", "MAPINFO", "UMAPINFO", "ZMAPINFO"};
+	private static final String[] DEHACKED_EXTENSIONS = {"BEX", "DEH"};
+
+	// ============================== QUERIES ================================
+
+	private static final String QUERY_LIST_STAMPS
+		= "SELECT w.id, w.name, w.path, d.value AS stamp FROM WADs w"
+			+ " LEFT JOIN WADData d ON d.wadId = w.id AND d.name = '" + DATA_INDEX_STAMP + "'";
+	private static final String QUERY_CLEAR_INDEX
+		= "DELETE FROM WADData WHERE wadId = ? AND (name = '" + DATA_INDEX_STAMP + "'"
+			+ " OR name = '" + DATA_LUMP_COUNT + "'"
+			+ " OR name = '" + DATA_LUMP_SIZE + "'"
+			+ " OR name LIKE 'has.%'"
+			+ " OR name LIKE '" + DATA_MAP_PREFIX + "%'"
+			+ " OR name = '" + WADSearchManager.DATA_SEARCH_STAMP + "')"; // maps are also searchable
+	private static final String QUERY_SET_DATA
+		= "INSERT OR REPLACE INTO WADData (wadId, name, value) VALUES (?, ?, ?)";
+	private static final String QUERY_LIST_BY_DATA
+		= "SELECT w.* FROM WADs w INNER JOIN WADData d ON d.wadId = w.id WHERE d.name = ? AND d.value = ? ORDER BY w.name ASC";
+	private static final String QUERY_LIST_MAPS
+		= "SELECT substr(name, " + (DATA_MAP_PREFIX.length() + 1) + ") AS map FROM WADData WHERE wadId = ? AND name LIKE '" + DATA_MAP_PREFIX + "%' ORDER BY name ASC";
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(WADIndexManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<WADIndexManager> INSTANCE = new SingletonProvider<>(() -> new WADIndexManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static WADIndexManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Database manager. */
+	private DatabaseManager database;
+
+	private WADIndexManager()
+	{
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
+	/**
+	 * Indexes all WADs whose files have changed since they were last indexed (or all of them, if forced).
+	 * The files are read in parallel, and the results are written in one transaction.
+	 * @param force if true, index every WAD, changed or not.
+	 * @param listener if not null, called as each file is read (from the reading threads, so it must be thread-safe).
+	 * @return the result of the operation.
+	 */
+	public IndexResult index(boolean force, IndexListener listener)
+	{
+		final IndexResult out = new IndexResult();
+
+		List<IndexTarget> targets = new LinkedList<>();
+		for (SQLRow row : connection().getResult(QUERY_LIST_STAMPS))
+		{
+			IndexTarget target = new IndexTarget(row);
+			ScannedFile file = FileScanner.stat(new File(target.path));
+			if (file == null)
+			{
+				out.missing++;
+				continue;
+			}
+			target.stamp = file.length + ":" + file.lastModified;
+			if (!force && target.stamp.equals(row.getString("stamp")))
+			{
+				out.skipped++;
+				continue;
+			}
+			targets.add(target);
+		}
+
+		final int total = targets.size();
+		final AtomicInteger done = new AtomicInteger(0);
+		List<IndexTarget> indexed = targets.parallelStream().map((target) ->
+		{
+			try {
+				target.facts = readFacts(new File(target.path));
+			} catch (IOException e) {
+				LOG.warnf("Could not index %s: %s", target.path, e.getMessage());
+			}
+			if (listener != null)
+				listener.onIndexed(target.name, done.incrementAndGet(), total);
+			return target;
+		}).collect(Collectors.toList());
+
+		try (UnitOfWork trn = database.beginWork())
+		{
+			for (IndexTarget target : indexed)
+			{
+				trn.getUpdateResult(QUERY_CLEAR_INDEX, target.id);
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_INDEX_STAMP, target.stamp);
+				if (target.facts == null)
+				{
+					out.failed++;
+					continue;
+				}
+
+				IndexFacts facts = target.facts;
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_LUMP_COUNT, String.valueOf(facts.lumpCount));
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_LUMP_SIZE, String.valueOf(facts.lumpSize));
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_HAS_DEHACKED, String.valueOf(facts.dehacked));
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_HAS_MAPINFO, String.valueOf(facts.mapinfo));
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_HAS_ZSCRIPT, String.valueOf(facts.zscript));
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_HAS_UDMF, String.valueOf(facts.udmf));
+				for (String map : facts.maps)
+					trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_MAP_PREFIX + map, "true");
+				out.indexed++;
+			}
+			trn.complete();
+		}
+
+		return out;
+	}
+
+	/**
+	 * Gets the WADs that contain a map.
+	 * @param map the map name (for example, "MAP07" or "E1M1").
+	 * @return the found WADs.
+	 */
+	public WAD[] getWADsWithMap(String map)
+	{
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST_BY_DATA, DATA_MAP_PREFIX + map.toUpperCase(), "true");
+	}
+
+	/**
+	 * Gets the WADs that have an indexed feature.
+	 * @param featureKey the feature key (for example, {@link #DATA_HAS_DEHACKED}).
+	 * @return the found WADs.
+	 * @see #isFeatureKey(String)
+	 */
+	public WAD[] getWADsWithFeature(String featureKey)
+	{
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST_BY_DATA, featureKey, "true");
+	}
+
+	/**
+	 * Gets the indexed maps in a WAD.
+	 * @param wadId the id of the WAD.
+	 * @return the map names, sorted.
+	 */
+	public String[] getMaps(long wadId)
+	{
+		List<String> out = new LinkedList<>();
+		for (SQLRow row : connection().getResult(QUERY_LIST_MAPS, wadId))
+			out.add(row.getString("map"));
+		return out.toArray(new String[out.size()]);
+	}
+
+	/**
+	 * Checks if a key is one of the feature keys (the "has.*" keys).
+	 * @param key the key.
+	 * @return true if so, false if not.
+	 */
+	public static boolean isFeatureKey(String key)
+	{
+		return Arrays.binarySearch(FEATURE_KEYS, key) >= 0;
+	}
+
+	// Reads the facts for a file.
+	private static IndexFacts readFacts(File file) throws IOException
+	{
+		LumpDirectory directory = LumpDirectory.read(file);
+		IndexFacts out = new IndexFacts();
+		if (directory.isArchive())
+			readArchiveFacts(out, file, directory);
+		else
+			readWADFacts(out, directory.getEntries());
+		return out;
+	}
+
+	// Reads the facts for a WAD directory.
+	private static void readWADFacts(IndexFacts facts, List<Entry> entries)
+	{
+		int i = 0;
+		for (Entry entry : entries)
+		{
+			facts.lumpCount++;
+			facts.lumpSize += entry.size;
+
+			String name = entry.name;
+			if ("DEHACKED".equals(name))
+				facts.dehacked = true;
+			else if ("ZSCRIPT".equals(name))
+				facts.zscript = true;
+			else if ("TEXTMAP".equals(name))
+				facts.udmf = true;
+			else if (Arrays.binarySearch(MAPINFO_NAMES, name) >= 0)
+				facts.mapinfo = true;
+
+			// A map header is followed by THINGS (Doom/Hexen) or TEXTMAP (UDMF).
+			if (i + 1 < entries.size())
+			{
+				String next = entries.get(i + 1).name;
+				if ("THINGS".equals(next) || "TEXTMAP".equals(next))
+					facts.maps.add(name);
+			}
+			i++;
+		}
+	}
+
+	// Reads the facts for an archive directory.
+	private static void readArchiveFacts(IndexFacts facts, File file, LumpDirectory directory)
+	{
+		for (Entry entry : directory.getEntries())
+		{
+			facts.lumpCount++;
+			facts.lumpSize += entry.size;
+
+			String path = entry.name.toLowerCase();
+			int slash = path.lastIndexOf('/');
+			String parent = slash >= 0 ? path.substring(0, slash) : "";
+			String fileName = slash >= 0 ? entry.name.substring(slash + 1) : entry.name;
+			String name = FileUtils.getFileNameWithoutExtension(fileName).toUpperCase();
+			String extension = FileUtils.getFileExtension(fileName).toUpperCase();
+
+			if (parent.isEmpty())
+			{
+				if ("DEHACKED".equals(name) || Arrays.binarySearch(DEHACKED_EXTENSIONS, extension) >= 0)
+					facts.dehacked = true;
+				else if ("ZSCRIPT".equals(name))
+					facts.zscript = true;
+				else if (Arrays.binarySearch(MAPINFO_NAMES, name) >= 0)
+					facts.mapinfo = true;
+			}
+			else if ("maps".equals(parent) && "WAD".equals(extension))
+			{
+				facts.maps.add(name);
+				// Stored map WADs can be read in place for UDMF detection.
+				if (entry.dataOffset >= 0 && !facts.udmf)
+				{
+					try {
+						for (Entry lump : LumpDirectory.readWAD(file, entry.dataOffset, entry.size).getEntries())
+						{
+							if ("TEXTMAP".equals(lump.name))
+							{
+								facts.udmf = true;
+								break;
+							}
+						}
+					} catch (IOException e) {
+						// Not a readable WAD - skip.
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Listener for indexing progress.
+	 */
+	@FunctionalInterface
+	public static interface IndexListener
+	{
+		/**
+		 * Called when a WAD is read.
+		 * @param name the WAD name.
+		 * @param done the amount of WADs read so far, including this one.
+		 * @param total the total amount of WADs to read.
+		 */
+		void onIndexed(String name, int done, int total);
+	}
+
+	/**
+	 * The result of an index run.
+	 */
+	public static class IndexResult
+	{
+		/** Amount of WADs indexed. */
+		public int indexed;
+		/** Amount of WADs skipped (unchanged since last index). */
+		public int skipped;
+		/** Amount of WADs that could not be read. */
+		public int failed;
+		/** Amount of WADs whose files are missing. */
+		public int missing;
+	}
+
+	/**
+	 * A WAD to index.
+	 */
+	private static class IndexTarget
+	{
+		private final long id;
+		private final String name;
+		private final String path;
+		private String stamp;
+		private IndexFacts facts;
+
+		private IndexTarget(SQLRow row)
+		{
+			this.id = row.getLong("id");
+			this.name = row.getString("name");
+			this.path = row.getString("path");
+			this.stamp = null;
+			this.facts = null;
+		}
+	}
+
+	/**
+	 * The facts read from a WAD's directory.
+	 */
+	private static class IndexFacts
+	{
+		private long lumpCount = 0L;
+		private long lumpSize = 0L;
+		private boolean dehacked = false;
+		private boolean mapinfo = false;
+		private boolean zscript = false;
+		private boolean udmf = false;
+		private Set<String> maps = new TreeSet<>();
+	}
+
+}
@@ -5,16 +5,24 @@
  ******************************************************************************/
 package net.mtrop.doomy.managers;
 
-import java.sql.SQLException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import com.blackrook.sql.SQLConnection;
 import com.blackrook.sql.SQLResult;
 import com.blackrook.sql.SQLRow;
-import com.blackrook.sql.SQLConnection.Transaction;
-import com.blackrook.sql.SQLConnection.TransactionLevel;
-import com.blackrook.sql.util.SQLRuntimeException;
 
 import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.EntityCache;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
 import net.mtrop.doomy.struct.SingletonProvider;
 import net.mtrop.doomy.struct.swing.TableFactory.Column;
 
@@ -24,6 +32,20 @@ import net.mtrop.doomy.struct.swing.TableFactory.Column;
  */
 public final class WADManager
 {
+	/** WADData key for the file length, recorded on scan. */
+	public static final String DATA_FILE_SIZE = "file.size";
+	/** WADData key for the file modified time, recorded on scan. */
+	public static final String DATA_FILE_MODIFIED = "file.modified";
+	/** WADData key for the directory that the WAD was scanned from. */
+	public static final String DATA_SCAN_ROOT = "scan.root";
+	
+	/** Maximum amount of names looked up per query (SQLite allows 999 parameters by default). */
+	private static final int MAX_NAMES_PER_QUERY = 500;
+	/** Maximum amount of candidates read from the name index per suggestion. */
+	private static final int MAX_SUGGESTION_CANDIDATES = 200;
+	/** Minimum trigram similarity (shared over total) for a suggestion. */
+	private static final double MIN_SUGGESTION_SIMILARITY = 0.25;
+	
 	// ============================== QUERIES ================================
 	
 	private static final String QUERY_GET_COUNT
@@ -32,14 +54,30 @@ public final class WADManager
 		= "SELECT * FROM WADs WHERE id = ?"; 
 	private static final String QUERY_GET_BY_NAME 
 		= "SELECT * FROM WADs WHERE name = ?"; 
+	private static final String QUERY_LIST_BY_NAMES
+		= "SELECT * FROM WADs WHERE name IN ";
+	private static final String QUERY_LIST_SIMILAR_NAMES
+		= "SELECT name FROM WADNames WHERE WADNames MATCH ? ORDER BY rank LIMIT ?";
 	private static final String QUERY_LIST
 		= "SELECT * FROM WADs WHERE name LIKE ? ORDER BY name ASC";
+	private static final String QUERY_LIST_PAGE
+		= "SELECT * FROM WADs WHERE name LIKE ? AND (name, id) > (?, ?) ORDER BY name ASC, id ASC LIMIT ?";
 	private static final String QUERY_LIST_SOURCE
 		= "SELECT * FROM WADs WHERE name LIKE ? AND sourceUrl IS NOT NULL ORDER BY name ASC";
 	private static final String QUERY_LIST_NO_SOURCE
 		= "SELECT * FROM WADs WHERE name LIKE ? AND sourceUrl IS NULL ORDER BY name ASC";
+	private static final String QUERY_LIST_FINGERPRINTS
+		= "SELECT w.id, w.name, w.path"
+			+ ", MAX(CASE WHEN d.name = '" + DATA_FILE_SIZE + "' THEN d.value END) AS fileSize"
+			+ ", MAX(CASE WHEN d.name = '" + DATA_FILE_MODIFIED + "' THEN d.value END) AS fileModified"
+			+ ", MAX(CASE WHEN d.name = '" + DATA_SCAN_ROOT + "' THEN d.value END) AS scanRoot"
+			+ " FROM WADs w LEFT JOIN WADData d ON d.wadId = w.id GROUP BY w.id";
+	private static final String QUERY_LIST_BY_PATH
+		= "SELECT * FROM WADs WHERE path = ? OR substr(path, 1, ?) = ? ORDER BY name ASC";
 	private static final String QUERY_EXIST
 		= "SELECT EXISTS (SELECT 1 FROM WADs WHERE name = ?)";
+	private static final String QUERY_IN_USE
+		= "SELECT EXISTS (SELECT 1 FROM PresetItems WHERE wadId = ?)";
 	private static final String QUERY_ADD 
 		= "INSERT INTO WADs (name, path, sourceUrl) VALUES (?, ?, ?)"; 
 	private static final String QUERY_REMOVE
@@ -48,9 +86,15 @@ public final class WADManager
 		= "UPDATE WADs SET name = ? WHERE name = ?";
 	private static final String QUERY_UPDATE
 		= "UPDATE WADs SET path = ? WHERE name = ?";
+	private static final String QUERY_UPDATE_BY_ID
+		= "UPDATE WADs SET path = ? WHERE id = ?";
 	private static final String QUERY_UPDATE_URL
 		= "UPDATE WADs SET url = ? WHERE name = ?";
 	
+	private static final String QUERY_GET_DATA
+		= "SELECT value FROM WADData WHERE wadId = ? AND name = ?";
+	private static final String QUERY_SET_DATA
+		= "INSERT OR REPLACE INTO WADData (wadId, name, value) VALUES (?, ?, ?)";
 	private static final String QUERY_CLEAR_DATA
 		= "DELETE FROM WADData WHERE wadId = ?";
 	private static final String QUERY_GET_PRESET_IDS
@@ -77,12 +121,21 @@ public final class WADManager
 
 	// =======================================================================
 	
-	/** Open database connection. */
-	private SQLConnection connection;
+	/** Database manager. */
+	private DatabaseManager database;
+	/** WAD cache. */
+	private EntityCache<String, WAD> cache;
 	
 	private WADManager()
 	{
-		this.connection = DatabaseManager.get().getConnection();
+		this.database = DatabaseManager.get();
+		this.cache = CacheManager.get().getCache(CacheManager.CACHE_WADS, WAD::copy, database);
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
 	}
 
 	/**
@@ -92,7 +145,29 @@ public final class WADManager
 	 */
 	public boolean containsWAD(String name)
 	{
-		return connection.getRow(QUERY_EXIST, name).getBoolean(0);
+		return connection().getRow(QUERY_EXIST, name).getBoolean(0);
+	}
+	
+	/**
+	 * Checks if a WAD is used by any preset.
+	 * @param id the id of the WAD.
+	 * @return true if at least one preset uses it, false if not.
+	 */
+	public boolean isWADInUse(long id)
+	{
+		return connection().getRow(QUERY_IN_USE, id).getBoolean(0);
+	}
+	
+	/**
+	 * Fetches a WAD's data value.
+	 * @param id the id of the WAD.
+	 * @param name the data key (for example, {@link #DATA_FILE_SIZE}).
+	 * @return the value, or null if not set.
+	 */
+	public String getWADData(long id, String name)
+	{
+		SQLRow row = connection().getRow(QUERY_GET_DATA, id, name);
+		return row != null ? row.getString(0) : null;
 	}
 	
 	/**
@@ -101,7 +176,7 @@ public final class WADManager
 	 */
 	public long getWADCount()
 	{
-		return connection.getRow(QUERY_GET_COUNT).getLong(0);
+		return connection().getRow(QUERY_GET_COUNT).getLong(0);
 	}
 	
 	/**
@@ -111,7 +186,7 @@ public final class WADManager
 	 */
 	public WAD getWAD(long id)
 	{
-		return connection.getRow(WAD.class, QUERY_GET_BY_ID, id);
+		return cache.get("id:" + id, (key) -> RowMapper.get(WAD.class).getRow(connection(), QUERY_GET_BY_ID, id));
 	}
 	
 	/**
@@ -121,7 +196,83 @@ public final class WADManager
 	 */
 	public WAD getWAD(String name)
 	{
-		return connection.getRow(WAD.class, QUERY_GET_BY_NAME, name);
+		return cache.get("name:" + name.toLowerCase(), (key) -> RowMapper.get(WAD.class).getRow(connection(), QUERY_GET_BY_NAME, name));
+	}
+	
+	/**
+	 * Fetches many WAD entries by name, in one query (per {@value #MAX_NAMES_PER_QUERY} names).
+	 * @param names the names of the WADs.
+	 * @return the WADs, in the same order as the names. Names that were not found have null in their place.
+	 */
+	public WAD[] getWADsByName(String ... names)
+	{
+		Map<String, WAD> found = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int start = 0; start < names.length; start += MAX_NAMES_PER_QUERY)
+		{
+			int count = Math.min(MAX_NAMES_PER_QUERY, names.length - start);
+			StringBuilder query = new StringBuilder(QUERY_LIST_BY_NAMES).append('(');
+			for (int i = 0; i < count; i++)
+				query.append(i > 0 ? ", ?" : "?");
+			query.append(')');
+			for (WAD wad : RowMapper.get(WAD.class).getResult(connection(), query.toString(), (Object[])Arrays.copyOfRange(names, start, start + count)))
+				found.put(wad.name, wad);
+		}
+		
+		WAD[] out = new WAD[names.length];
+		for (int i = 0; i < names.length; i++)
+			out[i] = found.get(names[i]);
+		return out;
+	}
+	
+	/**
+	 * Suggests WAD names that are close to a name (for typos), closest first.
+	 * Candidates that share any three-character sequence with the name are read from the name index, 
+	 * then ranked by how many sequences they share.
+	 * @param name the name to match.
+	 * @param limit the maximum amount of suggestions.
+	 * @return the suggested names. Names shorter than three characters get no suggestions.
+	 */
+	public String[] getSimilarWADNames(String name, int limit)
+	{
+		StringBuilder match = new StringBuilder();
+		String lowerName = name.toLowerCase();
+		for (int i = 0; i + 3 <= lowerName.length(); i++)
+			match.append(match.length() > 0 ? " OR " : "").append('"').append(lowerName.substring(i, i + 3).replace("\"", "\"\"")).append('"');
+		if (match.length() == 0)
+			return new String[0];
+		
+		Set<String> trigrams = getTrigrams(name);
+		List<String> candidates = new ArrayList<>();
+		final Map<String, Double> similarity = new TreeMap<>();
+		for (SQLRow row : connection().getResult(QUERY_LIST_SIMILAR_NAMES, match.toString(), MAX_SUGGESTION_CANDIDATES))
+		{
+			String candidate = row.getString("name");
+			Set<String> candidateTrigrams = getTrigrams(candidate);
+			int total = candidateTrigrams.size();
+			candidateTrigrams.retainAll(trigrams);
+			double score = (double)candidateTrigrams.size() / (trigrams.size() + total - candidateTrigrams.size());
+			if (score >= MIN_SUGGESTION_SIMILARITY)
+			{
+				candidates.add(candidate);
+				similarity.put(candidate, score);
+			}
+		}
+		
+		candidates.sort((a, b) -> {
+			int c = Double.compare(similarity.get(b), similarity.get(a));
+			return c != 0 ? c : a.compareToIgnoreCase(b);
+		});
+		return candidates.subList(0, Math.min(limit, candidates.size())).toArray(new String[0]);
+	}
+	
+	// Gets the three-character sequences of a name (lower case, padded so that starts and ends count).
+	private static Set<String> getTrigrams(String name)
+	{
+		String padded = "  " + name.toLowerCase() + " ";
+		Set<String> out = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++)
+			out.add(padded.substring(i, i + 3));
+		return out;
 	}
 	
 	/**
@@ -140,7 +291,22 @@ public final class WADManager
 	 */
 	public WAD[] getAllWADs(String containingPhrase)
 	{
-		return connection.getResult(WAD.class, QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST, DatabaseManager.toSearchPhrase(containingPhrase));
+	}
+	
+	/**
+	 * Reads WADs by name, in name order, one page at a time, so that any amount of them can be listed in constant memory.
+	 * @param containingPhrase the phrase to search for.
+	 * @param consumer called with each one, in order.
+	 * @return the amount of WADs read.
+	 */
+	public int forEachWAD(String containingPhrase, Consumer<WAD> consumer)
+	{
+		return RowMapper.get(WAD.class).forEachPage(connection(), QUERY_LIST_PAGE, new Object[]{"", 0L},
+			(wad) -> new Object[]{wad.name, wad.id},
+			(page) -> Arrays.stream(page).forEach(consumer),
+			DatabaseManager.toSearchPhrase(containingPhrase)
+		);
 	}
 	
 	/**
@@ -150,7 +316,7 @@ public final class WADManager
 	 */
 	public WAD[] getAllWADsWithSources(String containingPhrase)
 	{
-		return connection.getResult(WAD.class, QUERY_LIST_SOURCE, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST_SOURCE, DatabaseManager.toSearchPhrase(containingPhrase));
 	}
 	
 	/**
@@ -160,7 +326,18 @@ public final class WADManager
 	 */
 	public WAD[] getAllWADsWithNoSource(String containingPhrase)
 	{
-		return connection.getResult(WAD.class, QUERY_LIST_NO_SOURCE, DatabaseManager.toSearchPhrase(containingPhrase));
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST_NO_SOURCE, DatabaseManager.toSearchPhrase(containingPhrase));
+	}
+	
+	/**
+	 * Gets the WADs that point to a file path, or to files inside a directory path.
+	 * @param path the file or directory path.
+	 * @return the found WADs.
+	 */
+	public WAD[] getWADsByPath(String path)
+	{
+		String directoryPath = path + File.separator;
+		return RowMapper.get(WAD.class).getResult(connection(), QUERY_LIST_BY_PATH, path, directoryPath.length(), directoryPath);
 	}
 	
 	/**
@@ -183,10 +360,95 @@ public final class WADManager
 	 */
 	public Long addWAD(String name, String path, String sourceURL)
 	{
-		SQLResult result = connection.getUpdateResult(QUERY_ADD, name, path, sourceURL);
+		SQLResult result = connection().getUpdateResult(QUERY_ADD, name, path, sourceURL);
 		return result.getRowCount() > 0 ? (Long)result.getId() : null;
 	}
 	
+	/**
+	 * Adds or updates many scanned WADs at once, in one transaction, and records each file's
+	 * size, modified time, and scan root as WAD data.
+	 * The existing WADs and their recorded fingerprints are fetched in one query and compared in memory.
+	 * WADs whose path and fingerprint are unchanged are not written to at all.
+	 * @param scanRoot the directory that was scanned.
+	 * @param wads the map of WAD names to scanned files to add/update.
+	 * @param updateExisting if true, update the paths of existing WADs. If false, existing WADs keep their paths.
+	 * @param incremental if true, also move existing WADs whose recorded files no longer exist, 
+	 * 		and count the WADs previously scanned from this root that have vanished (see {@link BatchResult#missing}).
+	 * @return the result of the operation.
+	 */
+	public BatchResult addOrUpdateWADs(String scanRoot, Map<String, ScannedFile> wads, boolean updateExisting, boolean incremental)
+	{
+		BatchResult out = new BatchResult();
+		try (UnitOfWork trn = database.beginWork())
+		{
+			Map<String, Fingerprint> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			for (SQLRow row : trn.getResult(QUERY_LIST_FINGERPRINTS))
+				existing.put(row.getString("name"), new Fingerprint(row));
+			
+			for (Map.Entry<String, ScannedFile> entry : wads.entrySet())
+			{
+				String name = entry.getKey();
+				ScannedFile file = entry.getValue();
+				String path = file.file.getPath();
+				Fingerprint fingerprint = existing.remove(name);
+				if (fingerprint == null)
+				{
+					long id = (Long)trn.getUpdateResult(QUERY_ADD, name, path, null).getId();
+					setFingerprint(trn, id, scanRoot, file);
+					out.added++;
+					continue;
+				}
+				
+				boolean moved = false;
+				if (!fingerprint.path.equals(path))
+				{
+					if (updateExisting || (incremental && !(new File(fingerprint.path)).exists()))
+					{
+						trn.getUpdateResult(QUERY_UPDATE_BY_ID, path, fingerprint.id);
+						moved = true;
+					}
+					else
+					{
+						out.skipped++;
+						continue;
+					}
+				}
+				
+				if (moved || !fingerprint.matches(scanRoot, file))
+				{
+					setFingerprint(trn, fingerprint.id, scanRoot, file);
+					out.updated++;
+				}
+				else
+				{
+					out.skipped++;
+				}
+			}
+			
+			// Anything left over was not found in this scan.
+			if (incremental)
+			{
+				for (Fingerprint fingerprint : existing.values())
+				{
+					if (scanRoot.equals(fingerprint.scanRoot) && !(new File(fingerprint.path)).exists())
+						out.missing++;
+				}
+			}
+			
+			trn.complete();
+		}
+		changed(out.updated > 0);
+		return out;
+	}
+	
+	// Writes a WAD's scan fingerprint.
+	private static void setFingerprint(UnitOfWork trn, long id, String scanRoot, ScannedFile file)
+	{
+		trn.getUpdateResult(QUERY_SET_DATA, id, DATA_FILE_SIZE, String.valueOf(file.length));
+		trn.getUpdateResult(QUERY_SET_DATA, id, DATA_FILE_MODIFIED, String.valueOf(file.lastModified));
+		trn.getUpdateResult(QUERY_SET_DATA, id, DATA_SCAN_ROOT, scanRoot);
+	}
+	
 	/**
 	 * Removes a WAD.
 	 * @param name the name of the WAD.
@@ -198,7 +460,7 @@ public final class WADManager
 		if (wad == null)
 			return false;
 		
-		try (Transaction trn = connection.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		try (UnitOfWork trn = database.beginWork())
 		{
 			// Add other missing WAD references to clear.
 			trn.getUpdateResult(QUERY_CLEAR_DATA, wad.id);
@@ -210,11 +472,8 @@ public final class WADManager
 			trn.getUpdateResult(QUERY_CLEAR_PRESETITEMS, wad.id);
 			trn.getUpdateResult(QUERY_REMOVE, wad.name);
 			trn.complete();
-		} 
-		catch (SQLException e) 
-		{
-			throw new SQLRuntimeException(e);
 		}
+		database.invalidateCaches(CacheManager.CACHE_WADS, CacheManager.CACHE_PRESETS);
 
 		return true;
 	}
@@ -227,7 +486,7 @@ public final class WADManager
 	 */
 	public boolean renameWAD(String oldName, String newName)
 	{
-		return connection.getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() > 0;
+		return changed(connection().getUpdateResult(QUERY_RENAME, newName, oldName).getRowCount() > 0);
 	}
 	
 	/**
@@ -238,7 +497,7 @@ public final class WADManager
 	 */
 	public boolean setWADPath(String name, String path)
 	{
-		return connection.getUpdateResult(QUERY_UPDATE, path, name).getRowCount() > 0;
+		return changed(connection().getUpdateResult(QUERY_UPDATE, path, name).getRowCount() > 0);
 	}
 	
 	/**
@@ -249,9 +508,60 @@ public final class WADManager
 	 */
 	public boolean setWADSourceURL(String name, String url)
 	{
-		return connection.getUpdateResult(QUERY_UPDATE_URL, url, name).getRowCount() > 0;
+		return changed(connection().getUpdateResult(QUERY_UPDATE_URL, url, name).getRowCount() > 0);
+	}
+	
+	// Clears the WAD cache if something changed.
+	private boolean changed(boolean changed)
+	{
+		if (changed)
+			database.invalidateCaches(CacheManager.CACHE_WADS);
+		return changed;
 	}
 	
+	/**
+	 * The result of a bulk add/update. 
+	 */
+	public static class BatchResult
+	{
+		/** Amount of WADs added. */
+		public int added;
+		/** Amount of WADs updated. */
+		public int updated;
+		/** Amount of WADs skipped (already present). */
+		public int skipped;
+		/** Amount of WADs from the scanned directory whose files have vanished (incremental scans only). */
+		public int missing;
+	}
+
+	/**
+	 * A WAD's path and recorded scan fingerprint. 
+	 */
+	private static class Fingerprint
+	{
+		private final long id;
+		private final String path;
+		private final String fileSize;
+		private final String fileModified;
+		private final String scanRoot;
+		
+		private Fingerprint(SQLRow row)
+		{
+			this.id = row.getLong("id");
+			this.path = row.getString("path");
+			this.fileSize = row.getString("fileSize");
+			this.fileModified = row.getString("fileModified");
+			this.scanRoot = row.getString("scanRoot");
+		}
+		
+		private boolean matches(String scanRoot, ScannedFile file)
+		{
+			return String.valueOf(file.length).equals(fileSize)
+				&& String.valueOf(file.lastModified).equals(fileModified)
+				&& scanRoot.equals(this.scanRoot);
+		}
+	}
+
 	/**
 	 * Each WAD entry. 
 	 */
@@ -268,6 +578,19 @@ public final class WADManager
 		/** Source URL. */
 		public String sourceUrl;
 		
+		/**
+		 * @return a copy of this entry.
+		 */
+		public WAD copy()
+		{
+			WAD out = new WAD();
+			out.id = id;
+			out.name = name;
+			out.path = path;
+			out.sourceUrl = sourceUrl;
+			return out;
+		}
+		
 		@Override
 		public String toString() 
 		{
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLRow;
+
+import net.mtrop.doomy.DoomySetupException;
+import net.mtrop.doomy.managers.DatabaseManager.UnitOfWork;
+import net.mtrop.doomy.struct.FileScanner;
+import net.mtrop.doomy.struct.FileScanner.ScannedFile;
+import net.mtrop.doomy.struct.LoggingFactory.Logger;
+import net.mtrop.doomy.struct.SingletonProvider;
+import net.mtrop.doomy.struct.util.FileUtils;
+import net.mtrop.doomy.struct.util.IOUtils;
+import net.mtrop.doomy.struct.util.ObjectUtils;
+
+/**
+ * WAD full-text search manager singleton.
+ * Keeps a full-text index (SQLite FTS5) of each WAD's name, text file title/author/body, and indexed maps.
+ * Names are kept current by triggers as WADs are added, renamed, and removed - text is read on update.
+ * @author Matthew Tropiano
+ */
+public final class WADSearchManager
+{
+	/** WADData key for the WAD file and text file size and modified time at the time of text indexing. */
+	public static final String DATA_SEARCH_STAMP = "search.stamp";
+
+	/** Maximum amount of text characters indexed per WAD. */
+	private static final int MAX_TEXT_LENGTH = 64 * 1024;
+	/** Text file encoding (what most WAD text files were written in). */
+	private static final String TEXT_ENCODING = "IBM437";
+
+	private static final Pattern TITLE_PATTERN = Pattern.compile("^\\s*Title\\s*:\\s*(.+?)\\s*$", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+	private static final Pattern AUTHOR_PATTERN = Pattern.compile("^\\s*Author(?:s|\\(s\\))?\\s*:\\s*(.+?)\\s*$", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+	private static final Pattern TOKEN_PATTERN = Pattern.compile("[\\p{L}\\p{N}_]+");
+
+	// ============================== QUERIES ================================
+
+	private static final String QUERY_LIST_UNSTAMPED
+		= "SELECT w.id, w.name, w.path, NULL AS stamp FROM WADs w"
+			+ " WHERE NOT EXISTS (SELECT 1 FROM WADData d WHERE d.wadId = w.id AND d.name = '" + DATA_SEARCH_STAMP + "')";
+	private static final String QUERY_LIST_STAMPS
+		= "SELECT w.id, w.name, w.path, d.value AS stamp FROM WADs w"
+			+ " LEFT JOIN WADData d ON d.wadId = w.id AND d.name = '" + DATA_SEARCH_STAMP + "'";
+	private static final String QUERY_LIST_MAPS
+		= "SELECT substr(name, " + (WADIndexManager.DATA_MAP_PREFIX.length() + 1) + ") AS map FROM WADData"
+			+ " WHERE wadId = ? AND name LIKE '" + WADIndexManager.DATA_MAP_PREFIX + "%' ORDER BY name ASC";
+	private static final String QUERY_REMOVE_ORPHANS
+		= "DELETE FROM WADSearch WHERE rowid NOT IN (SELECT id FROM WADs)";
+	private static final String QUERY_REMOVE
+		= "DELETE FROM WADSearch WHERE rowid = ?";
+	private static final String QUERY_ADD
+		= "INSERT INTO WADSearch (rowid, name, title, author, maps, text) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String QUERY_SET_DATA
+		= "INSERT OR REPLACE INTO WADData (wadId, name, value) VALUES (?, ?, ?)";
+	private static final String QUERY_SEARCH
+		= "SELECT w.id, w.name, w.path, s.title, s.author,"
+			+ " snippet(WADSearch, -1, '[', ']', '...', 12) AS snippet,"
+			+ " bm25(WADSearch, 10.0, 8.0, 8.0, 4.0, 1.0) AS rank"
+			+ " FROM WADSearch s INNER JOIN WADs w ON w.id = s.rowid"
+			+ " WHERE WADSearch MATCH ? ORDER BY rank ASC LIMIT ?";
+
+	// =======================================================================
+
+	/** Logger. */
+	private static final Logger LOG = LoggerManager.getLogger(WADSearchManager.class);
+	// Singleton instance.
+	private static final SingletonProvider<WADSearchManager> INSTANCE = new SingletonProvider<>(() -> new WADSearchManager());
+
+	/**
+	 * Initializes/Returns the singleton manager instance.
+	 * @return the single manager.
+	 * @throws DoomySetupException if the manager could not be set up.
+	 */
+	public static WADSearchManager get()
+	{
+		return INSTANCE.get();
+	}
+
+	// =======================================================================
+
+	/** Database manager. */
+	private DatabaseManager database;
+
+	private WADSearchManager()
+	{
+		this.database = DatabaseManager.get();
+	}
+
+	// Gets the calling thread's connection.
+	private SQLConnection connection()
+	{
+		return database.getConnection();
+	}
+
+	/**
+	 * Updates the search index.
+	 * WADs that were never text-indexed are always read. Text files are read in parallel, and the results are written in one transaction.
+	 * @param rescan if true, also re-read WADs whose files (or text files) changed since they were last read.
+	 * @param listener if not null, called as each WAD is read (from the reading threads, so it must be thread-safe).
+	 * @return the amount of WADs (re-)indexed.
+	 */
+	public int update(boolean rescan, WADIndexManager.IndexListener listener)
+	{
+		List<SearchTarget> targets = new LinkedList<>();
+		for (SQLRow row : connection().getResult(rescan ? QUERY_LIST_STAMPS : QUERY_LIST_UNSTAMPED))
+		{
+			SearchTarget target = new SearchTarget(row);
+			if (target.stamp != null && target.stamp.equals(row.getString("stamp")))
+				continue;
+			targets.add(target);
+		}
+
+		final int total = targets.size();
+		final AtomicInteger done = new AtomicInteger(0);
+		List<SearchTarget> read = targets.parallelStream().map((target) ->
+		{
+			target.readText();
+			if (listener != null)
+				listener.onIndexed(target.name, done.incrementAndGet(), total);
+			return target;
+		}).collect(Collectors.toList());
+
+		try (UnitOfWork trn = database.beginWork())
+		{
+			trn.getUpdateResult(QUERY_REMOVE_ORPHANS);
+			for (SearchTarget target : read)
+			{
+				StringBuilder maps = new StringBuilder();
+				for (SQLRow row : trn.getResult(QUERY_LIST_MAPS, target.id))
+					maps.append(maps.length() > 0 ? " " : "").append(row.getString("map"));
+
+				trn.getUpdateResult(QUERY_REMOVE, target.id);
+				trn.getUpdateResult(QUERY_ADD, target.id, target.name, target.title, target.author, maps.toString(), target.text);
+				trn.getUpdateResult(QUERY_SET_DATA, target.id, DATA_SEARCH_STAMP, target.stamp != null ? target.stamp : "");
+			}
+			trn.complete();
+		}
+		return read.size();
+	}
+
+	/**
+	 * Searches the index, best matches first.
+	 * Each word in the phrase must match a word (or the start of a word) in a WAD's name, title, author, maps, or text.
+	 * @param phrase the search phrase.
+	 * @param limit the maximum amount of results.
+	 * @return the results.
+	 */
+	public SearchResult[] search(String phrase, int limit)
+	{
+		String query = toMatchQuery(phrase);
+		if (query == null)
+			return new SearchResult[0];
+		return connection().getResult(SearchResult.class, QUERY_SEARCH, query, limit);
+	}
+
+	// Converts a user phrase to a safe FTS5 query: every word, quoted, as a prefix.
+	private static String toMatchQuery(String phrase)
+	{
+		if (ObjectUtils.isEmpty(phrase))
+			return null;
+		StringBuilder sb = new StringBuilder();
+		Matcher matcher = TOKEN_PATTERN.matcher(phrase);
+		while (matcher.find())
+			sb.append(sb.length() > 0 ? " " : "").append('"').append(matcher.group()).append("\"*");
+		return sb.length() > 0 ? sb.toString() : null;
+	}
+
+	/**
+	 * A single search result.
+	 */
+	public static class SearchResult
+	{
+		/** WAD id. */
+		public long id;
+		/** WAD name. */
+		public String name;
+		/** WAD path. */
+		public String path;
+		/** Title from the text file, if any. */
+		public String title;
+		/** Author from the text file, if any. */
+		public String author;
+		/** Matching text excerpt, matches in brackets. */
+		public String snippet;
+		/** Rank (lower is better). */
+		public double rank;
+	}
+
+	/**
+	 * A WAD to index.
+	 */
+	private static class SearchTarget
+	{
+		private final long id;
+		private final String name;
+		private final File file;
+		private final File textFile;
+		private final String stamp;
+		private String title;
+		private String author;
+		private String text;
+
+		private SearchTarget(SQLRow row)
+		{
+			this.id = row.getLong("id");
+			this.name = row.getString("name");
+			this.file = new File(row.getString("path"));
+			this.textFile = new File(file.getParentFile(), FileUtils.getFileNameWithoutExtension(file.getName()) + ".txt");
+
+			ScannedFile scanned = FileScanner.stat(file);
+			ScannedFile scannedText = FileScanner.stat(textFile);
+			this.stamp = scanned == null ? null
+				: scanned.length + ":" + scanned.lastModified + (scannedText != null ? ";" + scannedText.length + ":" + scannedText.lastModified : "");
+		}
+
+		// Reads the text file next to the WAD, or inside it if it is an archive (the same places "wad text" looks).
+		private void readText()
+		{
+			if (stamp == null)
+				return;
+
+			String out = null;
+			try {
+				if (textFile.exists())
+				{
+					try (InputStream in = new FileInputStream(textFile))
+					{
+						out = readText(in);
+					}
+				}
+				else if (!FileUtils.getFileExtension(file).equalsIgnoreCase("wad"))
+				{
+					String textFileName = textFile.getName();
+					try (ZipFile zf = new ZipFile(file))
+					{
+						ZipEntry entry = ObjectUtils.isNull(zf.getEntry(textFileName), zf.getEntry(textFileName.toUpperCase()));
+						if (entry != null)
+						{
+							try (InputStream in = zf.getInputStream(entry))
+							{
+								out = readText(in);
+							}
+						}
+					}
+				}
+			} catch (IOException e) {
+				LOG.debugf("Could not read text for %s: %s", file.getPath(), e.getMessage());
+			}
+
+			if (out != null)
+			{
+				this.text = out;
+				this.title = find(TITLE_PATTERN, out);
+				this.author = find(AUTHOR_PATTERN, out);
+			}
+		}
+
+		private static String readText(InputStream in) throws IOException
+		{
+			StringWriter sw = new StringWriter();
+			try (Reader reader = new BufferedReader(new InputStreamReader(in, TEXT_ENCODING)))
+			{
+				IOUtils.relay(reader, sw);
+			}
+			String out = sw.toString();
+			return out.length() > MAX_TEXT_LENGTH ? out.substring(0, MAX_TEXT_LENGTH) : out;
+		}
+
+		private static String find(Pattern pattern, String text)
+		{
+			Matcher matcher = pattern.matcher(text);
+			return matcher.find() ? matcher.group(1) : null;
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A size-bounded, least-recently-used, read-through cache of entity objects.
+ * Entities are copied on the way in and on the way out, so that callers can modify what they get
+ * without changing what is cached. Absent entities (null) are never cached.
+ * @author Matthew Tropiano
+ * @param <K> the key type.
+ * @param <V> the entity type.
+ */
+public final class EntityCache<K, V>
+{
+	/** Cache name. */
+	private final String name;
+	/** Entity copier. */
+	private final UnaryOperator<V> copier;
+	/** Called before each lookup, to clear out-of-date entries. */
+	private final Runnable validator;
+	/** The entries, in access order. */
+	private final LinkedHashMap<K, V> entries;
+	/** Incremented on every invalidation, so that a load that raced an invalidation is not cached. */
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Creates a new cache.
+	 * @param name the cache name (for statistics).
+	 * @param maxSize the maximum amount of entries.
+	 * @param copier the function to use for copying entities.
+	 */
+	public EntityCache(String name, final int maxSize, UnaryOperator<V> copier)
+	{
+		this(name, maxSize, copier, () -> {});
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param name the cache name (for statistics).
+	 * @param maxSize the maximum amount of entries.
+	 * @param copier the function to use for copying entities.
+	 * @param validator called before each lookup (for example, to clear the cache if its source has changed elsewhere).
+	 */
+	public EntityCache(String name, final int maxSize, UnaryOperator<V> copier, Runnable validator)
+	{
+		this.name = name;
+		this.copier = copier;
+		this.validator = validator;
+		this.entries = new LinkedHashMap<K, V>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 5130911245530469744L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+			{
+				if (size() > maxSize)
+				{
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+		this.generation = 0L;
+		this.hits = 0L;
+		this.misses = 0L;
+		this.evictions = 0L;
+	}
+
+	/**
+	 * Gets an entity, loading it on a miss.
+	 * @param key the entity key.
+	 * @param loader the function for loading the entity on a miss (may return null).
+	 * @return a copy of the entity, or null if the loader returned null.
+	 */
+	public V get(K key, Function<K, V> loader)
+	{
+		validator.run();
+		long loadGeneration;
+		synchronized (this)
+		{
+			V value = entries.get(key);
+			if (value != null)
+			{
+				hits++;
+				return copier.apply(value);
+			}
+			misses++;
+			loadGeneration = generation;
+		}
+
+		V loaded = loader.apply(key);
+		if (loaded == null)
+			return null;
+
+		synchronized (this)
+		{
+			if (generation == loadGeneration)
+				entries.put(key, copier.apply(loaded));
+		}
+		return loaded;
+	}
+
+	/**
+	 * Removes one entry.
+	 * @param key the entity key.
+	 */
+	public synchronized void invalidate(K key)
+	{
+		generation++;
+		entries.remove(key);
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear()
+	{
+		generation++;
+		entries.clear();
+	}
+
+	/**
+	 * @return this cache's name.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return the amount of entries in the cache.
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return the amount of lookups answered from the cache.
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return the amount of lookups that needed a load.
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * @return the amount of entries removed to stay within the size bound.
+	 */
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("%s: %d entries, %d hits, %d misses, %d evictions", name, entries.size(), hits, misses, evictions);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * Computes file content hashes (SHA-1 and CRC32) in one pass.
+ * Files are read through a large buffer per thread, so that hashing many files
+ * from many threads does not churn memory. Files are not memory-mapped, since mapped files
+ * stay locked on some platforms until the mapping is collected, and these files may be linked or removed afterward.
+ * @author Matthew Tropiano
+ */
+public final class FileHasher
+{
+	/** Read buffer size per thread. */
+	public static final int BUFFER_SIZE = 1024 * 1024;
+
+	private static final String HEX_NYBBLES = "0123456789abcdef";
+
+	private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.wrap(new byte[BUFFER_SIZE]));
+
+	/**
+	 * A file's hashes.
+	 */
+	public static class Hash
+	{
+		/** CRC32 as 8 hex digits (lowercase). */
+		public final String crc32;
+		/** SHA-1 as 40 hex digits (lowercase). */
+		public final String sha1;
+
+		public Hash(String crc32, String sha1)
+		{
+			this.crc32 = crc32;
+			this.sha1 = sha1;
+		}
+	}
+
+	private FileHasher() {}
+
+	/**
+	 * Hashes a file's contents.
+	 * @param file the file to read.
+	 * @return the file's hashes.
+	 * @throws IOException if the file could not be read.
+	 */
+	public static Hash hash(File file) throws IOException
+	{
+		MessageDigest sha1 = createSHA1();
+		CRC32 crc = new CRC32();
+
+		ByteBuffer buffer = BUFFER.get();
+		byte[] array = buffer.array();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			buffer.clear();
+			while (channel.read(buffer) >= 0 || buffer.position() > 0)
+			{
+				int length = buffer.position();
+				sha1.update(array, 0, length);
+				crc.update(array, 0, length);
+				buffer.clear();
+			}
+		}
+
+		return toHash(crc, sha1);
+	}
+
+	/**
+	 * @return a new SHA-1 digest, for hashing contents as they are read or written elsewhere.
+	 */
+	public static MessageDigest createSHA1()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("NON-STANDARD JVM! JVM does not support SHA-1.");
+		}
+	}
+
+	/**
+	 * Finishes a CRC32 and a SHA-1 digest that were updated elsewhere.
+	 * @param crc the CRC32.
+	 * @param sha1 the SHA-1 digest (see {@link #createSHA1()}). It is reset.
+	 * @return the resulting hashes.
+	 */
+	public static Hash toHash(CRC32 crc, MessageDigest sha1)
+	{
+		return new Hash(String.format("%08x", crc.getValue()), toHex(sha1.digest()));
+	}
+
+	// Converts bytes to a hex string.
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			sb.append(HEX_NYBBLES.charAt((b & 0x0f0) >>> 4));
+			sb.append(HEX_NYBBLES.charAt(b & 0x00f));
+		}
+		return sb.toString();
+	}
+
+}
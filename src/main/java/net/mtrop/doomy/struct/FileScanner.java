@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A parallel directory scanner.
+ * Each directory is listed in its own fork-join task, and the size and modified time of each
+ * accepted file are read once, during the walk, so that callers do not need to touch the file again.
+ * @author Matthew Tropiano
+ */
+public final class FileScanner
+{
+	/** System property for the amount of scanning threads. */
+	public static final String PROPERTY_THREADS = "doomy.scan.threads";
+	/** Default amount of scanning threads (directory listing is mostly waiting on I/O). */
+	public static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	/**
+	 * A single file found by the scanner.
+	 */
+	public static class ScannedFile
+	{
+		/** The file. */
+		public final File file;
+		/** File length in bytes. */
+		public final long length;
+		/** File last modified time in milliseconds since the epoch. */
+		public final long lastModified;
+
+		private ScannedFile(File file, long length, long lastModified)
+		{
+			this.file = file;
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+	}
+
+	/**
+	 * Listener for files found during a scan.
+	 */
+	@FunctionalInterface
+	public static interface ScanListener
+	{
+		/**
+		 * Called when a file is accepted.
+		 * This is called from the scanning threads, so it must be thread-safe.
+		 * @param file the accepted file.
+		 * @param filesFound the amount of files accepted so far, including this one.
+		 */
+		void onFile(ScannedFile file, int filesFound);
+	}
+
+	private FileScanner() {}
+
+	/**
+	 * Scans a directory of files in parallel.
+	 * <p>The filter is only applied to files, never directories - if recursing, all subdirectories are scanned.
+	 * Links to directories are not followed. Directories that cannot be read are skipped.
+	 * @param startDir the starting directory.
+	 * @param recurse if true, recurse through subdirectories.
+	 * @param filter the file filter for accepted files.
+	 * @param cancelSwitch if not null, the scan stops early once this is set to true.
+	 * @param listener if not null, called per accepted file as it is found.
+	 * @return the accepted files, sorted by path. If cancelled, this is only the files found before the cancel.
+	 */
+	public static List<ScannedFile> scan(File startDir, boolean recurse, FileFilter filter, AtomicBoolean cancelSwitch, ScanListener listener)
+	{
+		final Context context = new Context(recurse, filter, cancelSwitch != null ? cancelSwitch : new AtomicBoolean(false), listener);
+
+		ForkJoinPool pool = new ForkJoinPool(Integer.getInteger(PROPERTY_THREADS, DEFAULT_THREADS));
+		try {
+			pool.invoke(new DirectoryTask(context, startDir.toPath()));
+		} finally {
+			pool.shutdown();
+		}
+
+		List<ScannedFile> out = new ArrayList<>(context.found);
+		out.sort((a, b) -> a.file.getPath().compareTo(b.file.getPath()));
+		return out;
+	}
+
+	/**
+	 * Reads a single file's attributes, as though it were found in a scan.
+	 * @param file the file to read.
+	 * @return the scanned file, or null if the file is not a regular file or could not be read.
+	 */
+	public static ScannedFile stat(File file)
+	{
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+			if (!attributes.isRegularFile())
+				return null;
+			return new ScannedFile(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Scan state shared by all tasks in a scan.
+	 */
+	private static class Context
+	{
+		private final boolean recurse;
+		private final FileFilter filter;
+		private final AtomicBoolean cancelSwitch;
+		private final ScanListener listener;
+		private final Queue<ScannedFile> found;
+		private final AtomicInteger foundCount;
+
+		private Context(boolean recurse, FileFilter filter, AtomicBoolean cancelSwitch, ScanListener listener)
+		{
+			this.recurse = recurse;
+			this.filter = filter;
+			this.cancelSwitch = cancelSwitch;
+			this.listener = listener;
+			this.found = new ConcurrentLinkedQueue<>();
+			this.foundCount = new AtomicInteger(0);
+		}
+	}
+
+	/**
+	 * Lists one directory, and forks a task per subdirectory.
+	 */
+	private static class DirectoryTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = -2553434536627826539L;
+
+		private final Context context;
+		private final Path directory;
+
+		private DirectoryTask(Context context, Path directory)
+		{
+			this.context = context;
+			this.directory = directory;
+		}
+
+		@Override
+		protected void compute()
+		{
+			Collection<DirectoryTask> subtasks = new LinkedList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+			{
+				for (Path path : stream)
+				{
+					if (context.cancelSwitch.get())
+						break;
+
+					BasicFileAttributes attributes;
+					try {
+						attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+						if (attributes.isSymbolicLink())
+						{
+							attributes = Files.readAttributes(path, BasicFileAttributes.class);
+							if (attributes.isDirectory())
+								continue;
+						}
+					} catch (IOException e) {
+						continue; // broken link or vanished file
+					}
+
+					if (attributes.isDirectory())
+					{
+						if (context.recurse)
+							subtasks.add(new DirectoryTask(context, path));
+					}
+					else if (attributes.isRegularFile())
+					{
+						File file = path.toFile();
+						if (context.filter.accept(file))
+						{
+							ScannedFile scanned = new ScannedFile(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+							context.found.add(scanned);
+							int count = context.foundCount.incrementAndGet();
+							if (context.listener != null)
+								context.listener.onFile(scanned, count);
+						}
+					}
+				}
+			} catch (IOException e) {
+				// Unreadable directory - skip.
+			}
+
+			if (!subtasks.isEmpty())
+				invokeAll(subtasks);
+		}
+	}
+
+}
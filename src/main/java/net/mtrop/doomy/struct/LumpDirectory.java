@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The entry directory of a WAD file or a Zip-based archive (PK3 and friends), read without reading any entry contents.
+ * Only the parts of the file that hold the directory are memory-mapped.
+ * @author Matthew Tropiano
+ */
+public final class LumpDirectory
+{
+	private static final Charset ASCII = Charset.forName("ASCII");
+	private static final Charset CP437_FALLBACK = Charset.forName("ISO-8859-1");
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int WAD_HEADER_LENGTH = 12;
+	private static final int WAD_ENTRY_LENGTH = 16;
+
+	private static final int ZIP_LOCAL_SIGNATURE = 0x04034b50;
+	private static final int ZIP_LOCAL_HEADER_LENGTH = 30;
+	private static final int ZIP_CENTRAL_SIGNATURE = 0x02014b50;
+	private static final int ZIP_CENTRAL_HEADER_LENGTH = 46;
+	private static final int ZIP_END_SIGNATURE = 0x06054b50;
+	private static final int ZIP_END_LENGTH = 22;
+	private static final int ZIP_MAX_COMMENT_LENGTH = 65535;
+	private static final int ZIP_METHOD_STORED = 0;
+	private static final int ZIP_FLAG_UTF8 = 0x0800;
+
+	/**
+	 * A single directory entry.
+	 */
+	public static class Entry
+	{
+		/** Entry name (lump name for WADs, full path for archives). */
+		public final String name;
+		/** Entry length in bytes (uncompressed). */
+		public final long size;
+		/** If a WAD stored uncompressed in an archive, the offset of the entry's data in the archive file. Else, -1. */
+		public final long dataOffset;
+
+		private Entry(String name, long size, long dataOffset)
+		{
+			this.name = name;
+			this.size = size;
+			this.dataOffset = dataOffset;
+		}
+	}
+
+	/** If true, this was read from a Zip archive. */
+	private final boolean archive;
+	/** The entries, in directory order. */
+	private final List<Entry> entries;
+
+	private LumpDirectory(boolean archive, List<Entry> entries)
+	{
+		this.archive = archive;
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return true if this was read from a Zip archive, false if from a WAD.
+	 */
+	public boolean isArchive()
+	{
+		return archive;
+	}
+
+	/**
+	 * @return the entries, in directory order.
+	 */
+	public List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * Reads the directory of a WAD or Zip archive, whichever the file is.
+	 * @param file the file to read.
+	 * @return the directory read.
+	 * @throws IOException if the file is not a WAD or Zip, is malformed, or could not be read.
+	 */
+	public static LumpDirectory read(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long length = channel.size();
+			if (length < 4)
+				throw new IOException("File is too small to be a WAD or archive: " + file);
+
+			MappedByteBuffer magic = channel.map(FileChannel.MapMode.READ_ONLY, 0, 4);
+			magic.order(ByteOrder.LITTLE_ENDIAN);
+			int signature = magic.getInt(0);
+			if (signature == ZIP_LOCAL_SIGNATURE || signature == ZIP_END_SIGNATURE)
+				return readZip(file, channel);
+			else
+				return new LumpDirectory(false, readWAD(channel, 0, length));
+		}
+	}
+
+	/**
+	 * Reads the lump directory of a WAD inside a file, for example, a WAD stored uncompressed in an archive.
+	 * @param file the file to read.
+	 * @param offset the offset of the WAD in the file.
+	 * @param length the length of the WAD in bytes.
+	 * @return the directory read.
+	 * @throws IOException if the WAD is malformed, or could not be read.
+	 */
+	public static LumpDirectory readWAD(File file, long offset, long length) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			return new LumpDirectory(false, readWAD(channel, offset, length));
+		}
+	}
+
+	// Reads a WAD directory.
+	private static List<Entry> readWAD(FileChannel channel, long offset, long length) throws IOException
+	{
+		if (length < WAD_HEADER_LENGTH || offset + length > channel.size())
+			throw new IOException("Not a WAD: too small.");
+
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, offset, WAD_HEADER_LENGTH);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		byte[] type = new byte[4];
+		header.get(type);
+		String typeString = new String(type, ASCII);
+		if (!"IWAD".equals(typeString) && !"PWAD".equals(typeString))
+			throw new IOException("Not a WAD: bad header.");
+
+		long count = header.getInt() & 0xFFFFFFFFL;
+		long directoryOffset = header.getInt() & 0xFFFFFFFFL;
+		long directoryLength = count * WAD_ENTRY_LENGTH;
+		if (directoryOffset + directoryLength > length)
+			throw new IOException("Not a WAD: directory is out of bounds.");
+
+		List<Entry> out = new ArrayList<>((int)count);
+		if (count == 0)
+			return out;
+
+		MappedByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, offset + directoryOffset, directoryLength);
+		directory.order(ByteOrder.LITTLE_ENDIAN);
+		byte[] name = new byte[8];
+		for (int i = 0; i < count; i++)
+		{
+			directory.getInt(); // lump offset
+			long size = directory.getInt() & 0xFFFFFFFFL;
+			directory.get(name);
+			int nameLength = 0;
+			while (nameLength < 8 && name[nameLength] != 0)
+				nameLength++;
+			out.add(new Entry(new String(name, 0, nameLength, ASCII).toUpperCase(), size, -1L));
+		}
+		return out;
+	}
+
+	// Reads a Zip central directory.
+	private static LumpDirectory readZip(File file, FileChannel channel) throws IOException
+	{
+		long length = channel.size();
+		if (length < ZIP_END_LENGTH)
+			throw new IOException("Not a Zip archive: too small.");
+
+		// Find the end record - it's at the end, unless there's a comment.
+		long tailLength = Math.min(length, ZIP_END_LENGTH + ZIP_MAX_COMMENT_LENGTH);
+		MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, length - tailLength, tailLength);
+		tail.order(ByteOrder.LITTLE_ENDIAN);
+		int endPosition = -1;
+		for (int i = (int)tailLength - ZIP_END_LENGTH; i >= 0; i--)
+		{
+			if (tail.getInt(i) == ZIP_END_SIGNATURE)
+			{
+				endPosition = i;
+				break;
+			}
+		}
+		if (endPosition < 0)
+			throw new IOException("Not a Zip archive: no end record.");
+
+		int count = tail.getShort(endPosition + 10) & 0xFFFF;
+		long directoryLength = tail.getInt(endPosition + 12) & 0xFFFFFFFFL;
+		long directoryOffset = tail.getInt(endPosition + 16) & 0xFFFFFFFFL;
+
+		// Zip64 (or broken) - let the JDK deal with it.
+		if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL || directoryOffset + directoryLength > length)
+			return readZipFallback(file);
+
+		List<Entry> out = new ArrayList<>(count);
+		if (count == 0)
+			return new LumpDirectory(true, out);
+
+		MappedByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, directoryLength);
+		directory.order(ByteOrder.LITTLE_ENDIAN);
+		int position = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (position + ZIP_CENTRAL_HEADER_LENGTH > directoryLength || directory.getInt(position) != ZIP_CENTRAL_SIGNATURE)
+				throw new IOException("Bad Zip archive: malformed central directory.");
+
+			int flags = directory.getShort(position + 8) & 0xFFFF;
+			int method = directory.getShort(position + 10) & 0xFFFF;
+			long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = directory.getShort(position + 28) & 0xFFFF;
+			int extraLength = directory.getShort(position + 30) & 0xFFFF;
+			int commentLength = directory.getShort(position + 32) & 0xFFFF;
+			long localOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+			byte[] name = new byte[nameLength];
+			directory.position(position + ZIP_CENTRAL_HEADER_LENGTH);
+			directory.get(name);
+			String entryName = new String(name, (flags & ZIP_FLAG_UTF8) != 0 ? UTF8 : CP437_FALLBACK);
+			position += ZIP_CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+
+			if (entryName.endsWith("/"))
+				continue;
+
+			// Only WADs are worth finding, for reading their directories in place.
+			long dataOffset = -1L;
+			if (method == ZIP_METHOD_STORED && compressedSize == size && localOffset + ZIP_LOCAL_HEADER_LENGTH <= length && entryName.toLowerCase().endsWith(".wad"))
+			{
+				MappedByteBuffer local = channel.map(FileChannel.MapMode.READ_ONLY, localOffset, ZIP_LOCAL_HEADER_LENGTH);
+				local.order(ByteOrder.LITTLE_ENDIAN);
+				if (local.getInt(0) == ZIP_LOCAL_SIGNATURE)
+				{
+					long offset = localOffset + ZIP_LOCAL_HEADER_LENGTH + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+					if (offset + size <= length)
+						dataOffset = offset;
+				}
+			}
+			out.add(new Entry(entryName, size, dataOffset));
+		}
+		return new LumpDirectory(true, out);
+	}
+
+	// Reads a Zip central directory through the JDK.
+	private static LumpDirectory readZipFallback(File file) throws IOException
+	{
+		List<Entry> out = new ArrayList<>();
+		try (ZipFile zf = new ZipFile(file))
+		{
+			Enumeration<? extends ZipEntry> en = zf.entries();
+			while (en.hasMoreElements())
+			{
+				ZipEntry entry = en.nextElement();
+				if (!entry.isDirectory())
+					out.add(new Entry(entry.getName(), entry.getSize(), -1L));
+			}
+		}
+		return new LumpDirectory(true, out);
+	}
+
+}
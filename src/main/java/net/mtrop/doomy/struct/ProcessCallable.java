@@ -23,10 +23,16 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -42,6 +48,16 @@ public class ProcessCallable implements Callable<Integer>
 {
 	private static final AtomicLong INSTANCE_ID = new AtomicLong(0L); 
 	
+	private static final AtomicLong PIPE_THREAD_ID = new AtomicLong(0L); 
+	
+	/** Threads for stream transfers, shared by every process (idle threads end after a minute). */
+	private static final ExecutorService PIPE_EXECUTOR = Executors.newCachedThreadPool((runnable) -> 
+	{
+		Thread out = new Thread(runnable, "ProcessPipe-" + PIPE_THREAD_ID.getAndIncrement());
+		out.setDaemon(true);
+		return out;
+	});
+	
 	private static final boolean IS_WINDOWS = System.getProperty("os.name").contains("Windows");
 	
 	/** A null outputstream. */
@@ -120,12 +136,12 @@ public class ProcessCallable implements Callable<Integer>
 	/** A null file. */
 	private static final File NULL_FILE = new File(System.getProperty("os.name").contains("Windows") ? "NUL" : "/dev/null");
 
-	private static final PipeThreadCreator NULLOUT_REDIRECTOR =
-		(process) -> new InputToOutputStreamThread(process.getInputStream(), OUTPUTSTREAM_NULL);
-	private static final PipeThreadCreator NULLERR_REDIRECTOR =
-		(process) -> new InputToOutputStreamThread(process.getErrorStream(), OUTPUTSTREAM_NULL);
-	private static final PipeThreadCreator NULLIN_REDIRECTOR =
-		(process) -> new InputToOutputStreamThread(INPUTSTREAM_NULL, process.getOutputStream());
+	private static final PipeCreator NULLOUT_REDIRECTOR =
+		(process) -> new InputToOutputStreamPipe(process.getInputStream(), OUTPUTSTREAM_NULL);
+	private static final PipeCreator NULLERR_REDIRECTOR =
+		(process) -> new InputToOutputStreamPipe(process.getErrorStream(), OUTPUTSTREAM_NULL);
+	private static final PipeCreator NULLIN_REDIRECTOR =
+		(process) -> new InputToOutputStreamPipe(INPUTSTREAM_NULL, process.getOutputStream());
 	
 	/* ==================================================================== */
 		
@@ -133,9 +149,9 @@ public class ProcessCallable implements Callable<Integer>
 	private Deque<String> command;
 	private Map<String, Object> envMap;
 	private File workingDirectory;
-	private PipeThreadCreator stdOutRedirector;
-	private PipeThreadCreator stdErrRedirector;
-	private PipeThreadCreator stdInRedirector;
+	private PipeCreator stdOutRedirector;
+	private PipeCreator stdErrRedirector;
+	private PipeCreator stdInRedirector;
 	private StreamExceptionListener stdOutListener;
 	private StreamExceptionListener stdErrListener;
 	private StreamExceptionListener stdInListener;
@@ -349,7 +365,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setOut(final OutputStream newOut)
 	{
 		final OutputStream stream = newOut == null ? OUTPUTSTREAM_NULL : newOut;
-		stdOutRedirector = (process) -> new InputToOutputStreamThread(process.getInputStream(), stream); 
+		stdOutRedirector = (process) -> new InputToOutputStreamPipe(process.getInputStream(), stream); 
 		return this;
 	}
 	
@@ -362,7 +378,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setOut(final Writer newOut)
 	{
 		final Writer stream = newOut == null ? WRITER_NULL : newOut;
-		stdOutRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getInputStream()), stream); 
+		stdOutRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getInputStream()), stream); 
 		return this;
 	}
 	
@@ -375,7 +391,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setOut(final PrintStream newOut)
 	{
 		final PrintStream stream = newOut == null ? PRINTSTREAM_NULL : newOut;
-		stdOutRedirector = (process) -> new LineReaderToWriterThread(new BufferedReader(new InputStreamReader(process.getInputStream())), stream); 
+		stdOutRedirector = (process) -> new LineReaderToWriterPipe(new BufferedReader(new InputStreamReader(process.getInputStream())), stream); 
 		return this;
 	}
 	
@@ -388,7 +404,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setOut(final Charset encoding, final Writer newOut)
 	{
 		final Writer stream = newOut == null ? WRITER_NULL : newOut;
-		stdOutRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getInputStream(), encoding), stream); 
+		stdOutRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getInputStream(), encoding), stream); 
 		return this;
 	}
 	
@@ -401,7 +417,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setOut(final Charset encoding, final PrintStream newOut)
 	{
 		final PrintStream stream = newOut == null ? PRINTSTREAM_NULL : newOut;
-		stdOutRedirector = (process) -> new LineReaderToWriterThread(new BufferedReader(new InputStreamReader(process.getInputStream(), encoding)), stream); 
+		stdOutRedirector = (process) -> new LineReaderToWriterPipe(new BufferedReader(new InputStreamReader(process.getInputStream(), encoding)), stream); 
 		return this;
 	}
 	
@@ -417,7 +433,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdOutRedirector = (process) -> new InputToOutputStreamThread(process.getInputStream(), new FileOutputStream(target)) 
+		stdOutRedirector = (process) -> new InputToOutputStreamPipe(process.getInputStream(), new FileOutputStream(target)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -442,7 +458,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdOutRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getInputStream()), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
+		stdOutRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getInputStream()), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -467,7 +483,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdOutRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getInputStream(), processCharset), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
+		stdOutRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getInputStream(), processCharset), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -486,7 +502,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setErr(final OutputStream newErr)
 	{
 		final OutputStream stream = newErr == null ? OUTPUTSTREAM_NULL : newErr;
-		stdErrRedirector = (process) -> new InputToOutputStreamThread(process.getErrorStream(), stream); 
+		stdErrRedirector = (process) -> new InputToOutputStreamPipe(process.getErrorStream(), stream); 
 		return this;
 	}
 	
@@ -498,7 +514,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setErr(final Writer newErr)
 	{
 		final Writer stream = newErr == null ? WRITER_NULL : newErr;
-		stdErrRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getErrorStream()), stream); 
+		stdErrRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getErrorStream()), stream); 
 		return this;
 	}
 	
@@ -510,7 +526,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setErr(final PrintStream newErr)
 	{
 		final PrintStream stream = newErr == null ? PRINTSTREAM_NULL : newErr;
-		stdErrRedirector = (process) -> new LineReaderToWriterThread(new BufferedReader(new InputStreamReader(process.getErrorStream())), stream); 
+		stdErrRedirector = (process) -> new LineReaderToWriterPipe(new BufferedReader(new InputStreamReader(process.getErrorStream())), stream); 
 		return this;
 	}
 	
@@ -523,7 +539,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setErr(final Charset encoding, final Writer newErr)
 	{
 		final Writer stream = newErr == null ? WRITER_NULL : newErr;
-		stdErrRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getErrorStream(), encoding), stream); 
+		stdErrRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getErrorStream(), encoding), stream); 
 		return this;
 	}
 	
@@ -536,7 +552,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setErr(final Charset encoding, final PrintStream newErr)
 	{
 		final PrintStream stream = newErr == null ? PRINTSTREAM_NULL : newErr;
-		stdErrRedirector = (process) -> new LineReaderToWriterThread(new BufferedReader(new InputStreamReader(process.getErrorStream(), encoding)), stream); 
+		stdErrRedirector = (process) -> new LineReaderToWriterPipe(new BufferedReader(new InputStreamReader(process.getErrorStream(), encoding)), stream); 
 		return this;
 	}
 	
@@ -552,7 +568,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdErrRedirector = (process) -> new InputToOutputStreamThread(process.getErrorStream(), new FileOutputStream(target)) 
+		stdErrRedirector = (process) -> new InputToOutputStreamPipe(process.getErrorStream(), new FileOutputStream(target)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -577,7 +593,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdErrRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getErrorStream()), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
+		stdErrRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getErrorStream()), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -602,7 +618,7 @@ public class ProcessCallable implements Callable<Integer>
 			throw new FileNotFoundException("output file is a directory");
 		
 		final File target = outFile == null ? NULL_FILE : outFile;
-		stdErrRedirector = (process) -> new ReaderToWriterThread(new InputStreamReader(process.getErrorStream(), processCharset), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
+		stdErrRedirector = (process) -> new ReaderToWriterPipe(new InputStreamReader(process.getErrorStream(), processCharset), new OutputStreamWriter(new FileOutputStream(target), outCharset)) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -621,7 +637,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setIn(final InputStream newIn)
 	{
 		final InputStream stream = newIn == null ? INPUTSTREAM_NULL : newIn;
-		stdInRedirector = (process) -> new InputToOutputStreamThread(stream, process.getOutputStream());
+		stdInRedirector = (process) -> new InputToOutputStreamPipe(stream, process.getOutputStream());
 		return this;
 	}
 	
@@ -633,7 +649,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setIn(final Reader newIn)
 	{
 		final Reader stream = newIn == null ? READER_NULL : newIn;
-		stdInRedirector = (process) -> new ReaderToWriterThread(stream, new OutputStreamWriter(process.getOutputStream()));
+		stdInRedirector = (process) -> new ReaderToWriterPipe(stream, new OutputStreamWriter(process.getOutputStream()));
 		return this;
 	}
 	
@@ -645,7 +661,7 @@ public class ProcessCallable implements Callable<Integer>
 	public ProcessCallable setIn(final File sourceFile)
 	{
 		final File src = sourceFile == null ? NULL_FILE : sourceFile;
-		stdInRedirector = (process) -> new InputToOutputStreamThread(new FileInputStream(src), process.getOutputStream()) 
+		stdInRedirector = (process) -> new InputToOutputStreamPipe(new FileInputStream(src), process.getOutputStream()) 
 		{
 			@Override
 			public void afterClose() throws IOException
@@ -727,58 +743,71 @@ public class ProcessCallable implements Callable<Integer>
 	/**
 	 * Computes a result, or throws an exception if unable to do so.
 	 * <p> This will create the process, bind the redirects, and wait for its completion and
-	 * thread termination, returning the Process result.
+	 * stream transfer completion, returning the Process result.
 	 * @return computed result
 	 * @throws Exception if unable to compute a result
+	 * @see #spawn()
 	 */
 	@Override
 	public final Integer call() throws Exception 
+	{
+		try {
+			return spawn().get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception)cause : e;
+		}
+	}
+	
+	/**
+	 * Creates the process and binds the redirects, without waiting for it.
+	 * <p> No thread waits on the process: the streams are transferred on a pool of threads shared
+	 * by every process, and one shared thread watches all spawned processes for their exit.
+	 * The returned future completes with the process result once the process has exited and
+	 * its stream transfers have finished (stream exceptions are passed to the stream listeners first).
+	 * @return a future for the process result.
+	 * @throws IOException if the process could not be started, or a redirect could not be opened.
+	 */
+	public CompletableFuture<Integer> spawn() throws IOException
 	{
 		Process process = exec();
-		
-		PipeThread outThread = stdOutRedirector != null ? stdOutRedirector.getThread(process) : null;
-		PipeThread errThread = stdErrRedirector != null ? stdErrRedirector.getThread(process) : null;
-		PipeThread inThread =  stdInRedirector  != null ? stdInRedirector.getThread(process)  : null;
-
 		long instanceId = INSTANCE_ID.getAndIncrement();
 
-		if (outThread != null)
-		{
-			outThread.setName(callName + "-out-" + outThread.getName() + "-" + instanceId);
-			outThread.start();
-		}
-		if (errThread != null)
-		{
-			errThread.setName(callName + "-err-" + errThread.getName() + "-" + instanceId);
-			errThread.start();
-		}
-		if (inThread != null)
-		{
-			inThread.setName(callName + "-in-" + inThread.getName() + "-" + instanceId);
-			inThread.start();
+		final Pipe outPipe, errPipe, inPipe;
+		try {
+			outPipe = startPipe(stdOutRedirector, process, "-out-", instanceId);
+			errPipe = startPipe(stdErrRedirector, process, "-err-", instanceId);
+			inPipe =  startPipe(stdInRedirector,  process, "-in-",  instanceId);
+		} catch (IOException e) {
+			process.destroy();
+			throw e;
 		}
 
-		int out = process.waitFor();
+		CompletableFuture<Void> pipesDone = CompletableFuture.allOf(
+			outPipe != null ? outPipe.done : CompletableFuture.completedFuture(null),
+			errPipe != null ? errPipe.done : CompletableFuture.completedFuture(null),
+			inPipe  != null ? inPipe.done  : CompletableFuture.completedFuture(null)
+		);
 		
-		if (outThread != null)
-		{
-			outThread.join();
-			if (stdOutListener != null && outThread.getException() != null)
-				stdOutListener.onException(outThread.getException());
-		}
-		if (errThread != null)
-		{
-			errThread.join();
-			if (stdErrListener != null && errThread.getException() != null)
-				stdErrListener.onException(errThread.getException());
-		}
-		if (inThread != null)
+		return ProcessReaper.INSTANCE.watch(process).thenCombine(pipesDone, (result, v) -> 
 		{
-			inThread.join();
-			if (stdInListener != null && inThread.getException() != null)
-				stdInListener.onException(inThread.getException());
-		}
-		
+			if (outPipe != null && stdOutListener != null && outPipe.getException() != null)
+				stdOutListener.onException(outPipe.getException());
+			if (errPipe != null && stdErrListener != null && errPipe.getException() != null)
+				stdErrListener.onException(errPipe.getException());
+			if (inPipe != null && stdInListener != null && inPipe.getException() != null)
+				stdInListener.onException(inPipe.getException());
+			return result;
+		});
+	}
+	
+	private Pipe startPipe(PipeCreator creator, Process process, String streamName, long instanceId) throws IOException
+	{
+		if (creator == null)
+			return null;
+		Pipe out = creator.getPipe(process);
+		out.name = callName + streamName + out.name + "-" + instanceId;
+		PIPE_EXECUTOR.execute(out);
 		return out;
 	}
 	
@@ -817,7 +846,7 @@ public class ProcessCallable implements Callable<Integer>
 	
 	/**
 	 * A listener that this callable uses when an {@link IOException} occurs on
-	 * one of the Threads that this creates to pipe the standard streams to and from the opened Process. 
+	 * one of the pipes that this creates to transfer the standard streams to and from the opened Process. 
 	 */
 	@FunctionalInterface
 	public interface StreamExceptionListener
@@ -830,30 +859,29 @@ public class ProcessCallable implements Callable<Integer>
 	}
 	
 	/**
-	 * BufferedReader to Writer stream thread.
+	 * BufferedReader to Writer stream pipe.
 	 * Transfers characters buffered at one line at a time until the source stream is closed.
-	 * <p> The thread terminates if the reader is closed. The target writer is not closed.
+	 * <p> The pipe finishes if the reader is closed. The target writer is not closed.
 	 */
-	private static class LineReaderToWriterThread extends PipeThread
+	private static class LineReaderToWriterPipe extends Pipe
 	{
 		protected BufferedReader sourceReader;
 		protected PrintStream targetPrintStream;
 		private Object targetMutex;
 		
-		private LineReaderToWriterThread(BufferedReader reader)
+		private LineReaderToWriterPipe(BufferedReader reader)
 		{
-			super("LineReaderToWriterThread");
+			super("LineReaderToWriterPipe");
 			this.sourceReader = reader;
 			this.targetMutex = new Object();
 		}
 		
 		/**
-		 * Creates a new thread that, when started, transfers characters one line at a time until the source stream is closed.
-		 * The user must call {@link #start()} on this thread - it is not active after creation.
+		 * Creates a new pipe that, when run, transfers characters one line at a time until the source stream is closed.
 		 * @param reader the BufferedReader to read from.
 		 * @param stream the PrintStream to write to.
 		 */
-		public LineReaderToWriterThread(BufferedReader reader, PrintStream stream)
+		public LineReaderToWriterPipe(BufferedReader reader, PrintStream stream)
 		{
 			this(reader);
 			this.targetPrintStream = stream;
@@ -875,7 +903,7 @@ public class ProcessCallable implements Callable<Integer>
 		
 		/**
 		 * Called after the source stream hits EOF or closes,
-		 * but before the Thread terminates.
+		 * but before the pipe is done.
 		 * <p> Does nothing by default.
 		 */
 		public void afterClose()
@@ -886,24 +914,23 @@ public class ProcessCallable implements Callable<Integer>
 	}
 
 	/**
-	 * Reader to Writer stream thread.
+	 * Reader to Writer stream pipe.
 	 * Transfers characters until the source stream is closed.
-	 * <p> The thread terminates if the reader is closed. The target writer is not closed.
+	 * <p> The pipe finishes if the reader is closed. The target writer is not closed.
 	 */
-	private static class ReaderToWriterThread extends PipeThread
+	private static class ReaderToWriterPipe extends Pipe
 	{
 		protected Reader sourceReader;
 		protected Writer targetWriter;
 		
 		/**
-		 * Creates a new thread that, when started, transfers characters until the source stream is closed.
-		 * The user must call {@link #start()} on this thread - it is not active after creation.
+		 * Creates a new pipe that, when run, transfers characters until the source stream is closed.
 		 * @param reader the Reader to read from.
 		 * @param writer the Writer to write to.
 		 */
-		private ReaderToWriterThread(Reader reader, Writer writer)
+		private ReaderToWriterPipe(Reader reader, Writer writer)
 		{
-			super("ReaderToWriterThread");
+			super("ReaderToWriterPipe");
 			this.sourceReader = reader;
 			this.targetWriter = writer;
 		}
@@ -925,7 +952,7 @@ public class ProcessCallable implements Callable<Integer>
 		
 		/**
 		 * Called after the source stream hits EOF or closes,
-		 * but before the Thread terminates.
+		 * but before the pipe is done.
 		 * <p> Does nothing by default.
 		 * @throws IOException if an IOException occurs.
 		 */
@@ -937,24 +964,23 @@ public class ProcessCallable implements Callable<Integer>
 	}
 
 	/**
-	 * Input to Output stream thread.
+	 * Input to Output stream pipe.
 	 * Transfers until the source stream is closed.
-	 * <p> The thread terminates if the input stream is closed. The target output stream is not closed.
+	 * <p> The pipe finishes if the input stream is closed. The target output stream is not closed.
 	 */
-	private static class InputToOutputStreamThread extends PipeThread
+	private static class InputToOutputStreamPipe extends Pipe
 	{
 		protected InputStream sourceStream;
 		protected OutputStream targetStream;
 		
 		/**
-		 * Creates a new thread that, when started, transfers bytes until the source stream is closed.
-		 * The user must call {@link #start()} on this thread - it is not active after creation.
+		 * Creates a new pipe that, when run, transfers bytes until the source stream is closed.
 		 * @param sourceStream the InputStream to read from. 
 		 * @param targetStream the OutputStream to write to.
 		 */
-		private InputToOutputStreamThread(InputStream sourceStream, OutputStream targetStream)
+		private InputToOutputStreamPipe(InputStream sourceStream, OutputStream targetStream)
 		{
-			super("InputToOutputStreamThread");
+			super("InputToOutputStreamPipe");
 			this.sourceStream = sourceStream;
 			this.targetStream = targetStream;
 		}
@@ -976,19 +1002,28 @@ public class ProcessCallable implements Callable<Integer>
 		
 	}
 
-	private static abstract class PipeThread extends Thread
+	/**
+	 * A stream transfer, run on one of the shared pipe threads until its source stream ends.
+	 */
+	private static abstract class Pipe implements Runnable
 	{
+		private String name;
 		private IOException exception;
+		private final CompletableFuture<Void> done;
 
-		protected PipeThread(String name)
+		protected Pipe(String name)
 		{
-			super(name);
+			this.name = name;
 			this.exception = null;
+			this.done = new CompletableFuture<>();
 		}
 		
 		@Override
 		public final void run() 
 		{
+			Thread thread = Thread.currentThread();
+			String threadName = thread.getName();
+			thread.setName(threadName + "-" + name);
 			try {
 				relay();
 			} catch (IOException e) {
@@ -999,6 +1034,8 @@ public class ProcessCallable implements Callable<Integer>
 				} catch (IOException e) {
 					exception = e;
 				}
+				thread.setName(threadName);
+				done.complete(null);
 			}
 		}
 		
@@ -1010,7 +1047,7 @@ public class ProcessCallable implements Callable<Integer>
 		
 		/**
 		 * Called after the source stream hits EOF or closes,
-		 * but before the Thread terminates.
+		 * but before the transfer is done.
 		 * <p> Does nothing by default.
 		 * @throws IOException if an IO Exception occurs. 
 		 */
@@ -1029,16 +1066,89 @@ public class ProcessCallable implements Callable<Integer>
 		
 	}
 	
+	/**
+	 * Watches spawned processes for their exit, on one shared daemon thread.
+	 * The thread waits while there is nothing to watch, and otherwise checks each process every
+	 * {@value #INTERVAL_MILLIS} milliseconds (Java 8 has no exit notification for processes).
+	 */
+	private static class ProcessReaper implements Runnable
+	{
+		private static final long INTERVAL_MILLIS = 50L;
+		private static final ProcessReaper INSTANCE = new ProcessReaper();
+		
+		private final Map<Process, CompletableFuture<Integer>> watched;
+		private Thread thread;
+		
+		private ProcessReaper()
+		{
+			this.watched = new HashMap<>();
+			this.thread = null;
+		}
+		
+		/**
+		 * Watches a process.
+		 * @param process the process.
+		 * @return a future that completes with the process exit value when it exits.
+		 */
+		public synchronized CompletableFuture<Integer> watch(Process process)
+		{
+			CompletableFuture<Integer> out = new CompletableFuture<>();
+			watched.put(process, out);
+			if (thread == null)
+			{
+				thread = new Thread(this, "ProcessReaper");
+				thread.setDaemon(true);
+				thread.start();
+			}
+			notifyAll();
+			return out;
+		}
+		
+		@Override
+		public void run()
+		{
+			List<Map.Entry<Process, CompletableFuture<Integer>>> exited = new LinkedList<>();
+			while (true)
+			{
+				synchronized (this)
+				{
+					try {
+						while (watched.isEmpty())
+							wait();
+						wait(INTERVAL_MILLIS);
+					} catch (InterruptedException e) {
+						thread = null;
+						return;
+					}
+					Iterator<Map.Entry<Process, CompletableFuture<Integer>>> it = watched.entrySet().iterator();
+					while (it.hasNext())
+					{
+						Map.Entry<Process, CompletableFuture<Integer>> entry = it.next();
+						if (!entry.getKey().isAlive())
+						{
+							exited.add(entry);
+							it.remove();
+						}
+					}
+				}
+				// Completed outside of the lock - dependent stages run here.
+				for (Map.Entry<Process, CompletableFuture<Integer>> entry : exited)
+					entry.getValue().complete(entry.getKey().exitValue());
+				exited.clear();
+			}
+		}
+	}
+	
 	@FunctionalInterface
-	private interface PipeThreadCreator
+	private interface PipeCreator
 	{
 		/**
-		 * Creates a PipeThread for a stream in a process.
+		 * Creates a Pipe for a stream in a process.
 		 * @param process the process to wrap.
-		 * @return a new thread.
-		 * @throws Exception if an exception occurs creating a thread.
+		 * @return a new pipe.
+		 * @throws IOException if an exception occurs opening a stream.
 		 */
-		PipeThread getThread(Process process) throws Exception;
+		Pipe getPipe(Process process) throws IOException;
 	}
 	
 }
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * An output stream that keeps only the last bytes written to it, up to a fixed capacity.
+ * Older bytes are overwritten as new ones arrive, so a chatty writer can never use more memory than the capacity.
+ * Writes and reads can come from different threads.
+ * @author Matthew Tropiano
+ */
+public final class RingBufferOutputStream extends OutputStream
+{
+	private final byte[] buffer;
+	private int position;
+	private long written;
+
+	/**
+	 * Creates a new ring buffer.
+	 * @param capacity the amount of bytes kept.
+	 * @throws IllegalArgumentException if capacity is less than 1.
+	 */
+	public RingBufferOutputStream(int capacity)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be 1 or greater");
+		this.buffer = new byte[capacity];
+		this.position = 0;
+		this.written = 0L;
+	}
+
+	@Override
+	public synchronized void write(int b)
+	{
+		buffer[position] = (byte)b;
+		position = (position + 1) % buffer.length;
+		written++;
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len)
+	{
+		written += len;
+		// Only the last bytes can survive.
+		if (len > buffer.length)
+		{
+			off += len - buffer.length;
+			len = buffer.length;
+		}
+		int first = Math.min(len, buffer.length - position);
+		System.arraycopy(b, off, buffer, position, first);
+		System.arraycopy(b, off + first, buffer, 0, len - first);
+		position = (position + len) % buffer.length;
+	}
+
+	/**
+	 * @return the amount of bytes kept.
+	 */
+	public int getCapacity()
+	{
+		return buffer.length;
+	}
+
+	/**
+	 * @return the amount of bytes ever written, including the ones no longer kept.
+	 */
+	public synchronized long getWritten()
+	{
+		return written;
+	}
+
+	/**
+	 * @return the amount of bytes written that are no longer kept.
+	 */
+	public synchronized long getDropped()
+	{
+		return Math.max(0L, written - buffer.length);
+	}
+
+	/**
+	 * @return a copy of the bytes kept, oldest first.
+	 */
+	public synchronized byte[] toByteArray()
+	{
+		int size = (int)Math.min(written, buffer.length);
+		byte[] out = new byte[size];
+		int start = (position - size + buffer.length) % buffer.length;
+		int first = Math.min(size, buffer.length - start);
+		System.arraycopy(buffer, start, out, 0, first);
+		System.arraycopy(buffer, 0, out, first, size - first);
+		return out;
+	}
+
+	/**
+	 * Gets the bytes kept as text. The first character may be cut, if its start was overwritten.
+	 * @param charset the charset to decode with.
+	 * @return the text.
+	 */
+	public String toString(Charset charset)
+	{
+		return new String(toByteArray(), charset);
+	}
+
+	@Override
+	public String toString()
+	{
+		return toString(Charset.defaultCharset());
+	}
+
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.struct;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte progress shared by many concurrent transfers, reported as one stream.
+ * Transfers add their sizes to the total as they learn them, so the total can grow while transfers run.
+ * Reports are made at most once per interval (and once more when the transferred amount meets the total),
+ * from whichever transfer thread crosses it. A listener can cancel every transfer by returning true.
+ * A progress can also have a parent that its bytes are added to, so that part of the transfers can be counted on its own.
+ * @author Matthew Tropiano
+ */
+public final class TransferProgress
+{
+	/**
+	 * Transfer progress listener.
+	 */
+	@FunctionalInterface
+	public interface Listener
+	{
+		/**
+		 * Called when transfer progress changes.
+		 * Called from the transferring threads, one call at a time.
+		 * @param current the current amount of bytes.
+		 * @param total the total amount of bytes known so far.
+		 * @param percent the percent complete.
+		 * @return true to cancel, false to continue.
+		 */
+		boolean onProgress(long current, long total, long percent);
+	}
+
+	private final TransferProgress parent;
+	private final long intervalMillis;
+	private final Listener listener;
+	private final AtomicLong current;
+	private final AtomicLong total;
+	private final AtomicBoolean cancelled;
+	private long nextTime;
+
+	/**
+	 * Creates progress that is not reported anywhere.
+	 */
+	public TransferProgress()
+	{
+		this(0L, null);
+	}
+
+	/**
+	 * Creates progress that is reported to a listener.
+	 * @param intervalMillis the minimum time between reports.
+	 * @param listener the listener. Can be null.
+	 */
+	public TransferProgress(long intervalMillis, Listener listener)
+	{
+		this(null, intervalMillis, listener);
+	}
+
+	/**
+	 * Creates progress that adds its bytes to a parent progress (which reports them),
+	 * and is cancelled along with it.
+	 * @param parent the parent progress.
+	 */
+	public TransferProgress(TransferProgress parent)
+	{
+		this(parent, 0L, null);
+	}
+
+	private TransferProgress(TransferProgress parent, long intervalMillis, Listener listener)
+	{
+		this.parent = parent;
+		this.intervalMillis = Math.max(0L, intervalMillis);
+		this.listener = listener;
+		this.current = new AtomicLong(0L);
+		this.total = new AtomicLong(0L);
+		this.cancelled = new AtomicBoolean(false);
+		this.nextTime = -1L;
+	}
+
+	/**
+	 * Adds an amount of bytes to the total.
+	 * @param bytes the amount of bytes.
+	 */
+	public void expect(long bytes)
+	{
+		total.addAndGet(bytes);
+		if (parent != null)
+			parent.expect(bytes);
+	}
+
+	/**
+	 * Adds an amount of transferred bytes, and reports progress if it is time to.
+	 * @param bytes the amount of bytes.
+	 * @throws CancellationException if the transfers were cancelled.
+	 */
+	public void advance(long bytes)
+	{
+		checkCancelled();
+		long cur = current.addAndGet(bytes);
+		if (parent != null)
+			parent.advance(bytes);
+		else if (listener != null)
+			report(cur);
+		checkCancelled();
+	}
+
+	/**
+	 * @return the amount of bytes transferred so far.
+	 */
+	public long getCurrent()
+	{
+		return current.get();
+	}
+
+	/**
+	 * @return the total amount of bytes known so far.
+	 */
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	/**
+	 * Cancels the transfers. Transfers stop the next time they advance or check.
+	 */
+	public void cancel()
+	{
+		if (parent != null)
+			parent.cancel();
+		else
+			cancelled.set(true);
+	}
+
+	/**
+	 * @return true if the transfers were cancelled, false if not.
+	 */
+	public boolean isCancelled()
+	{
+		return parent != null ? parent.isCancelled() : cancelled.get();
+	}
+
+	/**
+	 * Checks if the transfers were cancelled.
+	 * @throws CancellationException if so.
+	 */
+	public void checkCancelled()
+	{
+		if (isCancelled())
+			throw new CancellationException("Transfer cancelled.");
+	}
+
+	private synchronized void report(long cur)
+	{
+		long tot = Math.max(total.get(), cur);
+		long now = System.currentTimeMillis();
+		if (cur < tot && nextTime >= 0L && now <= nextTime)
+			return;
+		nextTime = now + intervalMillis;
+		if (listener.onProgress(cur, tot, tot > 0L ? cur * 100L / tot : 100L))
+			cancel();
+	}
+
+}
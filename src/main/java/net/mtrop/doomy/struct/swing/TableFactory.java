@@ -9,8 +9,10 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -487,55 +489,7 @@ public final class TableFactory
 		{
 			this.objects = new ArrayList<>(objects);
 			this.listeners = new ArrayList<>();
-			
-			List<ColumnDescriptor> columnList = new ArrayList<>();
-			for (Field field : objectClass.getFields())
-			{
-				String fieldName = field.getName();
-				
-				TableFactory.Column td = field.getAnnotation(TableFactory.Column.class);
-				if (td == null || td.hidden())
-					continue;
-				ColumnDescriptor col = new ColumnDescriptor();
-				col.dataType = upgradePrimitiveType(field.getType());
-				col.publicField = field;
-				String tname = td.name().trim();
-				col.name = tname.length() > 0 ? tname : fieldName;
-				col.order = td.order();
-				col.sortable = td.sortable();
-				col.editable = td.editable();
-				columnList.add(col);
-			}
-			
-			for (Method method : objectClass.getMethods())
-			{
-				if (!isGetter(method))
-					continue;
-
-				String fieldName = getFieldName(method.getName());
-				
-				TableFactory.Column td = method.getAnnotation(TableFactory.Column.class);
-				if (td == null || td.hidden())
-					continue;
-				ColumnDescriptor col = new ColumnDescriptor();
-				col.dataType = upgradePrimitiveType(method.getReturnType());
-				col.getterMethod = method;
-				try {
-					col.setterMethod = objectClass.getMethod(getSetterName(fieldName), method.getReturnType());
-				} catch (NoSuchMethodException ex) {
-					col.setterMethod = null;
-				}
-				String tname = td.name().trim();
-				col.name = tname.length() > 0 ? tname : fieldName;
-				col.order = td.order();
-				col.sortable = td.sortable();
-				col.editable = td.editable() && col.setterMethod != null;
-				columnList.add(col);
-			}
-			
-			columnList.sort((c1, c2) -> c1.order - c2.order);
-			
-			this.columns = columnList.toArray(new ColumnDescriptor[columnList.size()]);
+			this.columns = COLUMN_DESCRIPTORS.get(objectClass);
 		}
 		
 		private ColumnDescriptor[] getColumns()
@@ -579,10 +533,8 @@ public final class TableFactory
 			ColumnDescriptor col = columns[columnIndex];
 			T instance = objects.get(rowIndex);
 			
-			if (col.publicField != null)
-				return getFieldValue(instance, col.publicField);
-			else if (col.getterMethod != null)
-				return invokeBlind(col.getterMethod, instance); 
+			if (col.getter != null)
+				return invokeGetter(col.getter, instance);
 			else
 				return null;
 		}
@@ -593,10 +545,8 @@ public final class TableFactory
 			ColumnDescriptor col = columns[columnIndex];
 			T instance = objects.get(rowIndex);
 			
-			if (col.publicField != null)
-				setFieldValue(instance, col.publicField, aValue);
-			else if (col.setterMethod != null)
-				invokeBlind(col.setterMethod, instance, aValue);
+			if (col.setter != null)
+				invokeSetter(col.setter, instance, aValue);
 			fireUpdateEvent(rowIndex, rowIndex, columnIndex);
 		}
 		
@@ -802,6 +752,75 @@ public final class TableFactory
 		void onTableChange(JObjectTableModel<T> model, TableModelEvent event);
 	}
 
+	/** Compiled getter type. */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	/** Compiled setter type. */
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/** Column descriptors, made once per class. */
+	private static final ClassValue<ColumnDescriptor[]> COLUMN_DESCRIPTORS = new ClassValue<ColumnDescriptor[]>()
+	{
+		@Override
+		protected ColumnDescriptor[] computeValue(Class<?> type)
+		{
+			return createColumnDescriptors(type);
+		}
+	};
+
+	// Creates the column descriptors for a class.
+	private static ColumnDescriptor[] createColumnDescriptors(Class<?> objectClass)
+	{
+		List<ColumnDescriptor> columnList = new ArrayList<>();
+		for (Field field : objectClass.getFields())
+		{
+			String fieldName = field.getName();
+			
+			TableFactory.Column td = field.getAnnotation(TableFactory.Column.class);
+			if (td == null || td.hidden())
+				continue;
+			ColumnDescriptor col = new ColumnDescriptor();
+			col.dataType = upgradePrimitiveType(field.getType());
+			col.getter = compileGetter(field);
+			col.setter = compileSetter(field);
+			String tname = td.name().trim();
+			col.name = tname.length() > 0 ? tname : fieldName;
+			col.order = td.order();
+			col.sortable = td.sortable();
+			col.editable = td.editable();
+			columnList.add(col);
+		}
+		
+		for (Method method : objectClass.getMethods())
+		{
+			if (!isGetter(method))
+				continue;
+
+			String fieldName = getFieldName(method.getName());
+			
+			TableFactory.Column td = method.getAnnotation(TableFactory.Column.class);
+			if (td == null || td.hidden())
+				continue;
+			ColumnDescriptor col = new ColumnDescriptor();
+			col.dataType = upgradePrimitiveType(method.getReturnType());
+			col.getter = compileGetter(method);
+			try {
+				col.setter = compileSetter(objectClass.getMethod(getSetterName(fieldName), method.getReturnType()));
+			} catch (NoSuchMethodException ex) {
+				col.setter = null;
+			}
+			String tname = td.name().trim();
+			col.name = tname.length() > 0 ? tname : fieldName;
+			col.order = td.order();
+			col.sortable = td.sortable();
+			col.editable = td.editable() && col.setter != null;
+			columnList.add(col);
+		}
+		
+		columnList.sort((c1, c2) -> c1.order - c2.order);
+		
+		return columnList.toArray(new ColumnDescriptor[columnList.size()]);
+	}
+	
 	/**
 	 * Descriptor column.
 	 */
@@ -819,12 +838,10 @@ public final class TableFactory
 		private boolean editable;
 		/** Data type class. */
 		private Class<?> dataType;
-		/** Field type. */
-		private Field publicField;
-		/** Setter Method (can be null). */
-		private Method setterMethod;
-		/** Getter Method. */
-		private Method getterMethod;
+		/** Compiled getter, as (Object)Object. */
+		private MethodHandle getter;
+		/** Compiled setter, as (Object, Object)void (can be null). */
+		private MethodHandle setter;
 	}
 
 	/** 
@@ -957,82 +974,83 @@ public final class TableFactory
 		return methodName;
 	}
 
-	/**
-	 * Sets the value of a field on an object.
-	 * @param instance the object instance to set the field on.
-	 * @param field the field to set.
-	 * @param value the value to set.
-	 * @throws NullPointerException if the field or object provided is null.
-	 * @throws ClassCastException if the value could not be cast to the proper type.
-	 * @throws RuntimeException if anything goes wrong (bad field name, 
-	 * bad target, bad argument, or can't access the field).
-	 * @see Field#set(Object, Object)
-	 */
-	private static void setFieldValue(Object instance, Field field, Object value)
+	// Compiles a public field getter to (Object)Object.
+	private static MethodHandle compileGetter(Field field)
 	{
 		try {
-			field.set(instance, value);
-		} catch (ClassCastException ex) {
-			throw ex;
-		} catch (SecurityException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalArgumentException e) {
-			throw new RuntimeException(e);
+			return MethodHandles.publicLookup().unreflectGetter(field).asType(GETTER_TYPE);
 		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
 	}
-	
-	/**
-	 * Gets the value of a field on an object.
-	 * @param instance the object instance to get the field value of.
-	 * @param field the field to get the value of.
-	 * @return the current value of the field.
-	 * @throws NullPointerException if the field or object provided is null.
-	 * @throws RuntimeException if anything goes wrong (bad target, bad argument, 
-	 * or can't access the field).
-	 * @see Field#set(Object, Object)
-	 */
-	private static Object getFieldValue(Object instance, Field field)
+
+	// Compiles a public getter method to (Object)Object.
+	private static MethodHandle compileGetter(Method method)
 	{
 		try {
-			return field.get(instance);
-		} catch (SecurityException e) {
+			return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
-		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	// Compiles a public field setter to (Object, Object)void.
+	private static MethodHandle compileSetter(Field field)
+	{
+		if (Modifier.isFinal(field.getModifiers()))
+			return null;
+		try {
+			return MethodHandles.publicLookup().unreflectSetter(field).asType(SETTER_TYPE);
+		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
+		}
+	}
+
+	// Compiles a public setter method to (Object, Object)void.
+	private static MethodHandle compileSetter(Method method)
+	{
+		try {
+			return MethodHandles.publicLookup().unreflect(method).asType(SETTER_TYPE);
 		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	/**
-	 * Blindly invokes a method, only throwing a {@link RuntimeException} if
-	 * something goes wrong. Here for the convenience of not making a billion
-	 * try/catch clauses for a method invocation.
-	 * @param method the method to invoke.
-	 * @param instance the object instance that is the method target.
-	 * @param params the parameters to pass to the method.
-	 * @return the return value from the method invocation. If void, this is null.
-	 * @throws ClassCastException if one of the parameters could not be cast to the proper type.
-	 * @throws RuntimeException if anything goes wrong (bad target, bad argument, or can't access the method).
-	 * @see Method#invoke(Object, Object...)
+	 * Calls a compiled getter.
+	 * @param getter the getter.
+	 * @param instance the object instance to get the value of.
+	 * @return the value.
+	 * @throws RuntimeException if anything goes wrong.
+	 */
+	private static Object invokeGetter(MethodHandle getter, Object instance)
+	{
+		try {
+			return (Object)getter.invokeExact(instance);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException(t);
+		}
+	}
+
+	/**
+	 * Calls a compiled setter.
+	 * @param setter the setter.
+	 * @param instance the object instance to set the value on.
+	 * @param value the value to set.
+	 * @throws ClassCastException if the value could not be cast to the proper type.
+	 * @throws RuntimeException if anything else goes wrong.
 	 */
-	private static Object invokeBlind(Method method, Object instance, Object ... params)
+	private static void invokeSetter(MethodHandle setter, Object instance, Object value)
 	{
-		Object out = null;
 		try {
-			out = method.invoke(instance, params);
-		} catch (ClassCastException ex) {
-			throw ex;
-		} catch (InvocationTargetException ex) {
-			throw new RuntimeException(ex);
-		} catch (IllegalArgumentException ex) {
-			throw new RuntimeException(ex);
-		} catch (IllegalAccessException ex) {
-			throw new RuntimeException(ex);
+			setter.invokeExact(instance, value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException(t);
 		}
-		return out;
 	}
 	
 }
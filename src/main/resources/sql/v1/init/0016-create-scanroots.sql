@@ -0,0 +1,10 @@
+CREATE TABLE ScanRoots (
+	id INTEGER,
+	type TEXT NOT NULL COLLATE NOCASE,
+	path TEXT NOT NULL,
+	prefix TEXT NOT NULL,
+	suffix TEXT NOT NULL,
+	recurse INTEGER NOT NULL,
+	PRIMARY KEY (id),
+	UNIQUE (type, path)
+)
@@ -0,0 +1 @@
+CREATE INDEX WADData_name_value ON WADData (name, value)
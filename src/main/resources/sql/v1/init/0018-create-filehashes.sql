@@ -0,0 +1,8 @@
+CREATE TABLE FileHashes (
+	path TEXT NOT NULL,
+	size INTEGER NOT NULL,
+	modified INTEGER NOT NULL,
+	crc32 TEXT NOT NULL,
+	sha1 TEXT NOT NULL,
+	PRIMARY KEY (path)
+)
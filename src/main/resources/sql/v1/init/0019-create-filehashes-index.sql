@@ -0,0 +1 @@
+CREATE INDEX FileHashes_sha1 ON FileHashes (sha1, size)
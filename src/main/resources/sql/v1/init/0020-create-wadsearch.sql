@@ -0,0 +1,8 @@
+CREATE VIRTUAL TABLE WADSearch USING fts5 (
+	name,
+	title,
+	author,
+	maps,
+	text,
+	tokenize = 'unicode61 remove_diacritics 2'
+)
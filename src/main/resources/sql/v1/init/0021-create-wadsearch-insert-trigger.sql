@@ -0,0 +1,3 @@
+CREATE TRIGGER WADs_search_insert AFTER INSERT ON WADs BEGIN
+	INSERT INTO WADSearch (rowid, name) VALUES (new.id, new.name);
+END
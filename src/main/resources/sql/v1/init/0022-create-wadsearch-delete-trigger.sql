@@ -0,0 +1,4 @@
+CREATE TRIGGER WADs_search_delete AFTER DELETE ON WADs BEGIN
+	DELETE FROM WADSearch WHERE rowid = old.id;
+	DELETE FROM WADData WHERE wadId = old.id AND name = 'search.stamp';
+END
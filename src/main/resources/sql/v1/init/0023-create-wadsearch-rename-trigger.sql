@@ -0,0 +1,3 @@
+CREATE TRIGGER WADs_search_rename AFTER UPDATE OF name ON WADs BEGIN
+	UPDATE WADSearch SET name = new.name WHERE rowid = new.id;
+END
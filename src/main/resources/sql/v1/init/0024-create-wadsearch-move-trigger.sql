@@ -0,0 +1,3 @@
+CREATE TRIGGER WADs_search_move AFTER UPDATE OF path ON WADs BEGIN
+	DELETE FROM WADData WHERE wadId = new.id AND name = 'search.stamp';
+END
@@ -0,0 +1 @@
+CREATE INDEX PresetItems_wadId ON PresetItems (wadId, presetId)
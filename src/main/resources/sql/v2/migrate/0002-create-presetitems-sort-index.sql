@@ -0,0 +1 @@
+CREATE INDEX PresetItems_presetId_sort ON PresetItems (presetId, sort, wadId)
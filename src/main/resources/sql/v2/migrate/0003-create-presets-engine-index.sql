@@ -0,0 +1 @@
+CREATE INDEX Presets_engineId ON Presets (engineId)
@@ -0,0 +1 @@
+CREATE INDEX Presets_iwadId ON Presets (iwadId)
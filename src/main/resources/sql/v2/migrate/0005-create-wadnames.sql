@@ -0,0 +1,6 @@
+CREATE VIRTUAL TABLE WADNames USING fts5 (
+	name,
+	content = 'WADs',
+	content_rowid = 'id',
+	tokenize = 'trigram'
+)
@@ -0,0 +1,3 @@
+CREATE TRIGGER WADs_names_insert AFTER INSERT ON WADs BEGIN
+	INSERT INTO WADNames (rowid, name) VALUES (new.id, new.name);
+END
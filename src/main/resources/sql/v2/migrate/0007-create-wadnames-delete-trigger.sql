@@ -0,0 +1,3 @@
+CREATE TRIGGER WADs_names_delete AFTER DELETE ON WADs BEGIN
+	INSERT INTO WADNames (WADNames, rowid, name) VALUES ('delete', old.id, old.name);
+END
@@ -0,0 +1,4 @@
+CREATE TRIGGER WADs_names_rename AFTER UPDATE OF name ON WADs BEGIN
+	INSERT INTO WADNames (WADNames, rowid, name) VALUES ('delete', old.id, old.name);
+	INSERT INTO WADNames (rowid, name) VALUES (new.id, new.name);
+END
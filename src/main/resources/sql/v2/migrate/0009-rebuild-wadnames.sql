@@ -0,0 +1 @@
+INSERT INTO WADNames (WADNames) VALUES ('rebuild')
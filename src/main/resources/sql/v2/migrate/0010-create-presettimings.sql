@@ -0,0 +1,11 @@
+CREATE TABLE PresetTimings (
+	presetId INTEGER NOT NULL,
+	launched INTEGER NOT NULL,
+	phase TEXT NOT NULL,
+	nanos INTEGER NOT NULL,
+	bytes INTEGER NOT NULL,
+	version TEXT NOT NULL,
+	PRIMARY KEY (presetId, launched, phase),
+	FOREIGN KEY (presetId) 
+		REFERENCES Presets(id)
+)
@@ -0,0 +1,3 @@
+CREATE TRIGGER Presets_timings_delete AFTER DELETE ON Presets BEGIN
+	DELETE FROM PresetTimings WHERE presetId = old.id;
+END
@@ -0,0 +1 @@
+DELETE FROM PresetTimings WHERE presetId NOT IN (SELECT id FROM Presets)
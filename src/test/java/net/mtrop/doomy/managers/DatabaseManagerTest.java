@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrency stress test: mixed readers and writers on one database file,
+ * through two separate managers (like the GUI and a command-line process running side-by-side).
+ */
+public final class DatabaseManagerTest
+{
+	private static final int READERS = 6;
+	private static final int WRITERS = 4;
+	private static final int ITERATIONS = 250;
+
+	public static void main(String[] args) throws Exception
+	{
+		File dbFile = File.createTempFile("doomy-test-", ".db");
+		dbFile.delete();
+
+		DatabaseManager first = DatabaseManager.open(dbFile);
+		DatabaseManager second = DatabaseManager.open(dbFile);
+
+		final AtomicInteger reads = new AtomicInteger(0);
+		final AtomicInteger writes = new AtomicInteger(0);
+		final AtomicInteger errors = new AtomicInteger(0);
+		final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS);
+		long start = System.nanoTime();
+
+		for (int w = 0; w < WRITERS; w++)
+		{
+			final int writer = w;
+			final DatabaseManager db = (w % 2 == 0) ? first : second;
+			executor.execute(() ->
+			{
+				try {
+					for (int i = 0; i < ITERATIONS; i++)
+					{
+						db.getConnection().getUpdateResult("INSERT INTO WADs (name, path) VALUES (?, ?)", "wad-" + writer + "-" + i, "/wads/" + writer + "/" + i + ".wad");
+						writes.incrementAndGet();
+					}
+				} catch (Throwable t) {
+					errors.incrementAndGet();
+					firstError.compareAndSet(null, t);
+				} finally {
+					db.closeConnection();
+				}
+			});
+		}
+
+		for (int r = 0; r < READERS; r++)
+		{
+			final DatabaseManager db = (r % 2 == 0) ? first : second;
+			executor.execute(() ->
+			{
+				try {
+					long last = 0;
+					for (int i = 0; i < ITERATIONS; i++)
+					{
+						long count = db.getConnection().getRow("SELECT COUNT(*) FROM WADs").getLong(0);
+						if (count < last)
+							throw new IllegalStateException("Row count went backwards: " + last + " to " + count);
+						last = count;
+						db.getConnection().getResult("SELECT * FROM WADs WHERE name LIKE ? ORDER BY name ASC", "%-1%");
+						reads.incrementAndGet();
+					}
+				} catch (Throwable t) {
+					errors.incrementAndGet();
+					firstError.compareAndSet(null, t);
+				} finally {
+					db.closeConnection();
+				}
+			});
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		long total = first.getConnection().getRow("SELECT COUNT(*) FROM WADs").getLong(0);
+		String journalMode = first.getConnection().getRow("PRAGMA journal_mode").getString(0);
+
+		first.closeAllConnections();
+		second.closeAllConnections();
+
+		System.out.println("Journal mode: " + journalMode);
+		System.out.println("Reads: " + reads.get() + ", Writes: " + writes.get() + ", Errors: " + errors.get());
+		System.out.println("Rows: " + total + " (expected " + (WRITERS * ITERATIONS) + ")");
+		System.out.printf("Elapsed: %.3f ms\n", elapsed / 1000000.0);
+		if (firstError.get() != null)
+			firstError.get().printStackTrace(System.out);
+
+		dbFile.delete();
+		(new File(dbFile.getPath() + "-wal")).delete();
+		(new File(dbFile.getPath() + "-shm")).delete();
+
+		if (errors.get() > 0 || total != WRITERS * ITERATIONS || !"wal".equalsIgnoreCase(journalMode))
+			System.exit(1);
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.util.Arrays;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLRow;
+
+/**
+ * Schema test: migrates a fresh database and a v1 database (with data) to the current table version,
+ * checks that an up-to-date database is left alone, and checks that the hot-path queries use their indexes.
+ */
+public final class DatabaseSchemaTest
+{
+	/** Hot-path queries (as the managers write them) and the index each must use. */
+	private static final String[][] QUERY_PLANS = {
+		{"SELECT DISTINCT presetId FROM PresetItems WHERE wadId = ?", "PresetItems_wadId"},
+		{"DELETE FROM PresetItems WHERE wadId = ?", "PresetItems_wadId"},
+		{"SELECT * FROM PresetItems WHERE presetId = ? ORDER BY sort ASC", "PresetItems_presetId_sort"},
+		{"SELECT pi.presetId, pi.wadId, w.name as wadName FROM PresetItems pi INNER JOIN Presets p ON pi.presetId = p.id LEFT JOIN WADs w ON pi.wadId = w.id WHERE p.name LIKE ? ORDER BY pi.presetId, pi.sort", "PresetItems_presetId_sort"},
+		{"DELETE FROM Presets WHERE engineId = ?", "Presets_engineId"},
+		{"DELETE FROM Presets WHERE iwadId = ?", "Presets_iwadId"},
+		{"SELECT wadId FROM WADData WHERE name = ? AND value = ?", "WADData_name_value"},
+		{"SELECT * FROM WADs WHERE name = ?", "sqlite_autoindex_WADs"},
+		{"SELECT * FROM FileHashes WHERE sha1 = ? AND size = ?", "FileHashes_sha1"},
+	};
+
+	private static final String[] V2_INDEXES = {
+		"PresetItems_wadId",
+		"PresetItems_presetId_sort",
+		"Presets_engineId",
+		"Presets_iwadId",
+	};
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws Exception
+	{
+		File dbFile = File.createTempFile("doomy-schema-", ".db");
+		dbFile.delete();
+
+		// Fresh database.
+		DatabaseManager db = DatabaseManager.open(dbFile);
+		SQLConnection conn = db.getConnection();
+		check(getTableVersion(conn) == DatabaseManager.TABLE_VERSION, "fresh database is at table version " + DatabaseManager.TABLE_VERSION);
+		for (String index : V2_INDEXES)
+			check(indexExists(conn, index), "fresh database has index " + index);
+
+		// Query plans.
+		for (String[] plan : QUERY_PLANS)
+		{
+			Object[] parameters = new Object[plan[0].length() - plan[0].replace("?", "").length()];
+			Arrays.fill(parameters, 1);
+			StringBuilder details = new StringBuilder();
+			for (SQLRow row : conn.getResult("EXPLAIN QUERY PLAN " + plan[0], parameters))
+				details.append(row.getString("detail")).append("; ");
+			check(details.indexOf(plan[1]) >= 0, "'" + plan[0] + "' uses " + plan[1] + " (plan: " + details + ")");
+		}
+
+		// Timings go with their preset, however it is deleted.
+		conn.getUpdateResult("INSERT INTO Engines (name) VALUES ('timed')");
+		conn.getUpdateResult("INSERT INTO Presets (hash, engineId) VALUES ('timed', (SELECT id FROM Engines WHERE name = 'timed'))");
+		conn.getUpdateResult("INSERT INTO PresetTimings (presetId, launched, phase, nanos, bytes, version) SELECT id, 1, 'total', 1, 0, 'test' FROM Presets WHERE hash = 'timed'");
+		conn.getUpdateResult("DELETE FROM Presets WHERE engineId = (SELECT id FROM Engines WHERE name = 'timed')");
+		check(conn.getRow("SELECT 1 FROM PresetTimings") == null, "deleting a preset deletes its timings");
+
+		db.closeAllConnections();
+		dbFile.delete();
+		(new File(dbFile.getPath() + "-wal")).delete();
+		(new File(dbFile.getPath() + "-shm")).delete();
+
+		// Timings left behind by deleted presets, then reopen.
+		db = DatabaseManager.open(dbFile, DatabaseManager.getTableVersion(1) + 10);
+		conn = db.getConnection();
+		conn.getUpdateResult("INSERT INTO PresetTimings (presetId, launched, phase, nanos, bytes, version) VALUES (12345, 1, 'total', 1, 0, 'test')");
+		db.closeAllConnections();
+		db = DatabaseManager.open(dbFile);
+		conn = db.getConnection();
+		check(conn.getRow("SELECT 1 FROM PresetTimings") == null, "migrated database has no timings for missing presets");
+		db.closeAllConnections();
+		dbFile.delete();
+		(new File(dbFile.getPath() + "-wal")).delete();
+		(new File(dbFile.getPath() + "-shm")).delete();
+
+		// v1 database, then reopen.
+		db = DatabaseManager.open(dbFile, DatabaseManager.getTableVersion(1));
+		conn = db.getConnection();
+		check(getTableVersion(conn) == DatabaseManager.getTableVersion(1), "v1 database is at table version " + DatabaseManager.getTableVersion(1));
+		for (String index : V2_INDEXES)
+			check(!indexExists(conn, index), "v1 database does not have index " + index);
+		conn.getUpdateResult("INSERT INTO WADs (name, path) VALUES ('doom2x', '/wads/doom2x.wad')");
+		db.closeAllConnections();
+
+		db = DatabaseManager.open(dbFile);
+		conn = db.getConnection();
+		check(getTableVersion(conn) == DatabaseManager.TABLE_VERSION, "v1 database migrated to table version " + DatabaseManager.TABLE_VERSION);
+		for (String index : V2_INDEXES)
+			check(indexExists(conn, index), "migrated database has index " + index);
+		check(conn.getRow("SELECT 1 FROM WADNames WHERE WADNames MATCH '\"m2x\"'") != null, "migrated database has WAD names indexed");
+		db.closeAllConnections();
+
+		// Up-to-date database: nothing written on open.
+		long changesBefore = getDataVersion(dbFile);
+		db = DatabaseManager.open(dbFile);
+		db.closeAllConnections();
+		check(getDataVersion(dbFile) == changesBefore, "up-to-date database is not written to on open");
+
+		dbFile.delete();
+		(new File(dbFile.getPath() + "-wal")).delete();
+		(new File(dbFile.getPath() + "-shm")).delete();
+
+		System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+		if (failures > 0)
+			System.exit(1);
+	}
+
+	private static void check(boolean condition, String message)
+	{
+		System.out.println((condition ? "PASS: " : "FAIL: ") + message);
+		if (!condition)
+			failures++;
+	}
+
+	private static int getTableVersion(SQLConnection conn)
+	{
+		return conn.getRow("SELECT value FROM Meta WHERE name = 'table.version'").getInt(0);
+	}
+
+	private static boolean indexExists(SQLConnection conn, String name)
+	{
+		return conn.getRow("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?", name) != null;
+	}
+
+	// The database file's length plus its write-ahead log's length: changes if anything is written.
+	private static long getDataVersion(File dbFile)
+	{
+		return dbFile.length() * 31 + (new File(dbFile.getPath() + "-wal")).length();
+	}
+}
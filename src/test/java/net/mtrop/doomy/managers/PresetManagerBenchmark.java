@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+
+import com.blackrook.sql.SQLConnection;
+import com.blackrook.sql.SQLConnection.Transaction;
+import com.blackrook.sql.SQLConnection.TransactionLevel;
+
+import net.mtrop.doomy.managers.PresetManager.PresetInfo;
+
+/**
+ * Preset listing benchmark: the time to list every preset (with WAD names) at 1k, 10k, and 50k presets,
+ * next to the old one-query-per-preset way of doing it.
+ */
+public final class PresetManagerBenchmark
+{
+	private static final int[] PRESET_COUNTS = {1000, 10000, 50000};
+	private static final int WAD_COUNT = 2000;
+	private static final int WADS_PER_PRESET = 5;
+	private static final int RUNS = 5;
+
+	private static final String QUERY_PER_PRESET
+		= "SELECT PresetItems.*, WADs.name as wadName FROM PresetItems LEFT JOIN WADs ON PresetItems.wadId = WADs.id WHERE PresetItems.presetId = ? ORDER BY sort ASC";
+
+	public static void main(String[] args) throws Exception
+	{
+		File dbFile = File.createTempFile("doomy-bench-", ".db");
+		dbFile.delete();
+
+		DatabaseManager db = DatabaseManager.open(dbFile);
+		PresetManager presets = new PresetManager(db);
+		SQLConnection conn = db.getConnection();
+
+		try (Transaction trn = conn.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+		{
+			trn.getUpdateResult("INSERT INTO Engines (name) VALUES ('engine')");
+			trn.getUpdateResult("INSERT INTO IWADs (name, path) VALUES ('iwad', '/iwads/iwad.wad')");
+			for (int i = 0; i < WAD_COUNT; i++)
+				trn.getUpdateResult("INSERT INTO WADs (name, path) VALUES (?, ?)", "wad" + i, "/wads/wad" + i + ".wad");
+			trn.complete();
+		}
+
+		int created = 0;
+		System.out.println("Presets     Listed   Batched (ms)   Per-preset (ms)");
+		for (int count : PRESET_COUNTS)
+		{
+			try (Transaction trn = conn.startTransaction(TransactionLevel.READ_UNCOMMITTED))
+			{
+				for (; created < count; created++)
+				{
+					long[] wadIds = new long[WADS_PER_PRESET];
+					for (int w = 0; w < WADS_PER_PRESET; w++)
+						wadIds[w] = 1 + ((created * 7 + w * 13) % WAD_COUNT);
+					String hash = PresetManager.calculatePresetHash(1, (long)created, wadIds);
+					long id = (Long)trn.getUpdateResult("INSERT INTO Presets (hash, name, engineId, iwadId) VALUES (?, ?, 1, 1)", hash, "preset" + created).getId();
+					for (int w = 0; w < WADS_PER_PRESET; w++)
+						trn.getUpdateResult("INSERT INTO PresetItems (presetId, wadId, sort) VALUES (?, ?, ?)", id, wadIds[w], w * 10);
+				}
+				trn.complete();
+			}
+
+			// Warm up.
+			PresetInfo[] listed = presets.getAllPresets();
+
+			long batched = Long.MAX_VALUE;
+			for (int r = 0; r < RUNS; r++)
+			{
+				long start = System.nanoTime();
+				listed = presets.getAllPresets();
+				batched = Math.min(batched, System.nanoTime() - start);
+			}
+
+			long perPreset = Long.MAX_VALUE;
+			for (int r = 0; r < RUNS; r++)
+			{
+				long start = System.nanoTime();
+				PresetInfo[] out = conn.getResult(PresetInfo.class, "SELECT p.id, p.hash, p.name FROM Presets p ORDER BY p.name");
+				for (PresetInfo p : out)
+					conn.getResult(QUERY_PER_PRESET, p.id);
+				perPreset = Math.min(perPreset, System.nanoTime() - start);
+			}
+
+			for (PresetInfo p : listed)
+			{
+				if (p.wads.length != WADS_PER_PRESET)
+				{
+					System.out.println("Preset " + p.name + " has " + p.wads.length + " WADs, expected " + WADS_PER_PRESET);
+					System.exit(1);
+				}
+			}
+
+			System.out.printf("%7d %10d %14.3f %17.3f\n", count, listed.length, batched / 1000000.0, perPreset / 1000000.0);
+		}
+
+		db.closeAllConnections();
+		dbFile.delete();
+		(new File(dbFile.getPath() + "-wal")).delete();
+		(new File(dbFile.getPath() + "-shm")).delete();
+	}
+}
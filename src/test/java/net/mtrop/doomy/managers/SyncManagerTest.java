@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2019-2025 Matt Tropiano
+ * This program and the accompanying materials are made available under 
+ * the terms of the MIT License, which accompanies this distribution.
+ ******************************************************************************/
+package net.mtrop.doomy.managers;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import net.mtrop.doomy.managers.SyncManager.Sync;
+import net.mtrop.doomy.managers.SyncManager.Transfer;
+import net.mtrop.doomy.struct.TransferProgress;
+import net.mtrop.doomy.struct.util.FileUtils;
+
+/**
+ * Sync test: syncs a preset's saves, screenshots, and demos into an engine directory and back,
+ * on the same file system (by rename) and, if one is available, across file systems (by copy),
+ * and returns the files of launches that did not finish.
+ * <p>The other file system's directory defaults to /dev/shm, and can be set with the
+ * <code>doomy.test.otherfs</code> system property.
+ */
+public final class SyncManagerTest
+{
+	private static final FileFilter FILTER = (file) -> file.getName().endsWith(".dsg") || file.getName().endsWith(".png") || file.getName().endsWith(".lmp");
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws Exception
+	{
+		File base = Files.createTempDirectory("doomy-sync-").toFile();
+		File presets = new File(base, "presets");
+		SyncManager sync = new SyncManager(() -> false, presets);
+
+		File preset = mkdirs(new File(presets, "preset"));
+		File engine = mkdirs(new File(base, "engine"));
+		roundTrip(sync, preset, engine, "same file system");
+
+		File otherBase = new File(System.getProperty("doomy.test.otherfs", "/dev/shm"));
+		if (otherBase.isDirectory() && !Files.getFileStore(otherBase.toPath()).equals(Files.getFileStore(base.toPath())))
+		{
+			File otherEngine = Files.createTempDirectory(otherBase.toPath(), "doomy-sync-engine-").toFile();
+			try {
+				File copied = mkdirs(new File(presets, "copied"));
+				roundTrip(sync, copied, otherEngine, "other file system");
+				check(copied.list((dir, name) -> name.endsWith(".part")).length == 0 && otherEngine.list((dir, name) -> name.endsWith(".part")).length == 0, "other file system: no part files left behind");
+			} finally {
+				FileUtils.deleteDirectory(otherEngine, true);
+			}
+		}
+		else
+		{
+			System.out.println("SKIP: no other file system at " + otherBase.getPath());
+		}
+
+		recover(sync, presets, mkdirs(new File(base, "crashed")));
+
+		FileUtils.deleteDirectory(base, true);
+
+		System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+		if (failures > 0)
+			System.exit(1);
+	}
+
+	// Syncs into an engine directory, "plays", and syncs back.
+	private static void roundTrip(SyncManager sync, File preset, File engine, String label) throws IOException
+	{
+		write(new File(preset, "doomsav0.dsg"), "save 0");
+		write(new File(preset, "doomsav1.dsg"), "save 1");
+		write(new File(preset, "shot0001.png"), "screenshot");
+		// Already in the engine directory, from before this sync, and not the preset's.
+		File stranger = write(new File(engine, "doomsav9.dsg"), "someone else's save");
+		stranger.setLastModified(System.currentTimeMillis() - 60L * 60L * 1000L);
+
+		run(sync.toEngine(preset, engine, FILTER));
+		check(sync.isPending(preset), label + ": manifest written");
+		check(read(new File(engine, "doomsav0.dsg")).equals("save 0") && read(new File(engine, "shot0001.png")).equals("screenshot"), label + ": files synced into the engine directory");
+
+		// The launch: one save changed, a demo recorded, the rest left alone.
+		write(new File(engine, "doomsav1.dsg"), "save 1, further along");
+		write(new File(engine, "demo.lmp"), "demo");
+
+		Sync back = sync.toPreset(preset, engine, FILTER);
+		check(back.getUnchangedCount() == 2, label + ": two files unchanged (" + back.getUnchangedCount() + ")");
+		run(back);
+		check(!sync.isPending(preset), label + ": manifest removed");
+		check(read(new File(preset, "doomsav0.dsg")).equals("save 0") && read(new File(preset, "shot0001.png")).equals("screenshot"), label + ": unchanged files back in the preset directory");
+		check(read(new File(preset, "doomsav1.dsg")).equals("save 1, further along"), label + ": changed save synced back");
+		check(read(new File(preset, "demo.lmp")).equals("demo"), label + ": new demo synced back");
+		check(engine.list((dir, name) -> !name.equals(stranger.getName())).length == 0, label + ": preset files gone from the engine directory");
+		check(stranger.isFile() && !(new File(preset, stranger.getName())).exists(), label + ": file older than the sync left alone");
+		stranger.delete();
+	}
+
+	// Leaves two presets' files in one engine directory, as if their launches never finished, and recovers them.
+	private static void recover(SyncManager sync, File presets, File engine) throws IOException
+	{
+		File first = mkdirs(new File(presets, "first"));
+		File second = mkdirs(new File(presets, "second"));
+		write(new File(first, "doomsav0.dsg"), "first save");
+		write(new File(second, "hexen.sav"), "second save");
+		FileFilter secondFilter = (file) -> file.getName().endsWith(".sav");
+
+		run(sync.toEngine(second, engine, secondFilter));
+		write(new File(engine, "hexen.sav"), "second save, further along");
+		check(sync.isPending(second), "recover: other preset left pending");
+
+		// The next launch in the same engine directory returns the other preset's files first.
+		run(sync.toEngine(first, engine, FILTER));
+		check(!sync.isPending(second) && read(new File(second, "hexen.sav")).equals("second save, further along"), "recover: other preset's files returned before the next launch");
+		write(new File(engine, "doomsav0.dsg"), "first save, further along");
+		write(new File(engine, "shot0002.png"), "screenshot");
+
+		sync.recover(first, engine, FILTER);
+		check(!sync.isPending(first), "recover: preset synced back");
+		check(read(new File(first, "doomsav0.dsg")).equals("first save, further along") && read(new File(first, "shot0002.png")).equals("screenshot"), "recover: preset's changed and new files returned");
+		check(engine.list().length == 0, "recover: engine directory emptied");
+	}
+
+	private static void run(Sync sync) throws IOException
+	{
+		for (Transfer transfer : sync.getTransfers())
+			transfer.run(new TransferProgress());
+		sync.complete();
+	}
+
+	private static void check(boolean condition, String message)
+	{
+		System.out.println((condition ? "PASS: " : "FAIL: ") + message);
+		if (!condition)
+			failures++;
+	}
+
+	private static File mkdirs(File directory)
+	{
+		directory.mkdirs();
+		return directory;
+	}
+
+	private static File write(File file, String content) throws IOException
+	{
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static String read(File file) throws IOException
+	{
+		return file.isFile() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : "";
+	}
+}